@@ -1,8 +1,10 @@
 package controller.utils;
 
-import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.PixelInterleavedSampleModel;
 import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -11,7 +13,7 @@ import java.util.Objects;
 import javax.imageio.ImageIO;
 
 import model.pixel.Pixel;
-import model.pixel.RGBPixel;
+import model.pixel.RGBARaster;
 import model.utils.PPMUtil;
 
 /**
@@ -44,65 +46,114 @@ public class IOUtil2 implements IOUtilInterface {
     //parse the suffix
     String suffix = this.parseSuffix(path);
 
-    Pixel[][] grid;
     if (suffix.equals("ppm")) {
       //if the suffix is a PPM or a text file
       //then it should do the same thing as the
       //original IOUtil
       return PPMUtil.fromPPMFormat(IOUtil.readFile(path));
+    }
+    return this.readRaster(path).toGrid();
+  }
+
+  /**
+   * Reads the image (png, jpg, or any other format ImageIO reads)
+   * at the given path into an RGBARaster.  Images that ImageIO
+   * decodes into interleaved byte rasters are copied byte by byte;
+   * every other image is converted a whole row at a time.  Neither
+   * way creates an object per coordinate.
+   * @param path represents the path to the image
+   * @return the colours of the image
+   * @throws IllegalArgumentException when the path is null or the
+   *     image cannot be read
+   */
+  public RGBARaster readRaster(String path) throws IllegalArgumentException {
+    try {
+      Objects.requireNonNull(path);
+    } catch (NullPointerException e) {
+      throw new IllegalArgumentException("Given path cannot be null.");
+    }
+
+    BufferedImage img;
+    try {
+      //convert the file into a BufferedImage
+      img = ImageIO.read(new File(path));
+    } catch (IOException e) {
+      throw new IllegalArgumentException(e.getMessage());
+    }
+    if (img == null) {
+      throw new IllegalArgumentException("File type not supported at this time.");
+    }
+
+    int height = img.getHeight();
+    int width = img.getWidth();
+    RGBARaster raster = new RGBARaster(height, width);
+
+    //the usual png and jpg rasters: copy the bytes over directly
+    if (this.copyInterleavedBytes(img, raster)) {
+      return raster;
+    }
+
+    //otherwise let the image convert one row at a time
+    Raster alphaRaster = img.getAlphaRaster();
+    int[] argb = new int[width];
+    int[] alphas = new int[width];
+    for (int i = 0; i < height; i++) {
+      img.getRGB(0, i, width, 1, argb, 0, width);
+      //like before, the alpha only comes from the alpha raster;
+      //images without one (eg: jpegs) are fully opaque
+      if (alphaRaster != null) {
+        alphaRaster.getSamples(0, i, width, 1, 0, alphas);
+      }
+      for (int j = 0; j < width; j++) {
+        raster.set(i, j, (argb[j] >> 16) & 0xFF, (argb[j] >> 8) & 0xFF, argb[j] & 0xFF,
+                alphaRaster == null ? 255 : alphas[j]);
+      }
+    }
+    return raster;
+  }
+
+  //copies the bytes of a TYPE_4BYTE_ABGR or TYPE_3BYTE_BGR image
+  //whose data buffer holds exactly its pixels, row by row, into the
+  //given raster.  Returns false for any other image.
+  private boolean copyInterleavedBytes(BufferedImage img, RGBARaster raster) {
+    int type = img.getType();
+    int channels;
+    if (type == BufferedImage.TYPE_4BYTE_ABGR) {
+      channels = 4;
+    } else if (type == BufferedImage.TYPE_3BYTE_BGR) {
+      channels = 3;
     } else {
-      try {
-        //get the file from the path
-        File file = new File(path);
-        //convert the file into a BufferedImage
-        BufferedImage img = ImageIO.read(file);
-
-        //get the alpha raster, if possible
-        Raster alphaRaster = img.getAlphaRaster();
-
-        //initialise the Pixel-based representation
-        //of this grid.
-        grid = new Pixel[img.getHeight()][img.getWidth()];
-
-        //gets all the information from the image
-        //to the grid
-        for (int i = 0; i < img.getHeight(); i++) {
-          for (int j = 0; j < img.getWidth(); j++) {
-            //use Color method since it already
-            //has a built-in getRGB
-            Color c = new Color(img.getRGB(j, i));
-
-            //base case for the alpha
-            //(helps the program work w/
-            //jpegs and such)
-            int alpha = c.getAlpha();
-
-            //this is for images where
-            //there is an alpha (eg: png)
-            if (alphaRaster != null) {
-              //using alpha raster here to get the alpha to show up
-              int[] oneCell = new int[1];
-              alpha = alphaRaster.getPixel(j, i, oneCell)[0];
-            }
-            //if there is no alphaRaster, uses the
-            //predefined alpha of the colour (255)
-
-            //sets the pixel in the grid to the
-            //given pixel; accounts for the
-            //original image's alpha value.
-            grid[i][j] = new RGBPixel(
-                    c.getRed(),
-                    c.getGreen(),
-                    c.getBlue(),
-                    alpha);
-          }
-        }
+      return false;
+    }
+
+    WritableRaster source = img.getRaster();
+    if (!(source.getDataBuffer() instanceof DataBufferByte)
+            || !(source.getSampleModel() instanceof PixelInterleavedSampleModel)
+            || source.getParent() != null
+            || source.getDataBuffer().getNumBanks() != 1
+            || source.getDataBuffer().getOffset() != 0) {
+      return false;
+    }
+    PixelInterleavedSampleModel model = (PixelInterleavedSampleModel) source.getSampleModel();
+    if (model.getPixelStride() != channels
+            || model.getScanlineStride() != channels * img.getWidth()) {
+      return false;
+    }
 
-      } catch (IOException e) {
-        throw new IllegalArgumentException(e.getMessage());
+    //both types store their bytes backwards: alpha (if any),
+    //then blue, then green, then red
+    byte[] bytes = ((DataBufferByte) source.getDataBuffer()).getData();
+    int index = 0;
+    for (int i = 0; i < img.getHeight(); i++) {
+      for (int j = 0; j < img.getWidth(); j++) {
+        int alpha = channels == 4 ? bytes[index++] & 0xFF : 255;
+        int blue = bytes[index++] & 0xFF;
+        int green = bytes[index++] & 0xFF;
+        int red = bytes[index++] & 0xFF;
+        raster.set(i, j, red, green, blue, alpha);
       }
     }
-    return grid;
+    return true;
   }
 
   @Override
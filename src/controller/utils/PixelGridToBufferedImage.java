@@ -144,7 +144,7 @@ public class PixelGridToBufferedImage extends BufferedImage {
         int b = Integer.parseInt(components[rIndex + 2]);
         int a = Integer.parseInt(components[rIndex + 3]);
 
-        gridContent[i][j] = new RGBPixel(r,g,b,a);
+        gridContent[i][j] = RGBPixel.of(r,g,b,a);
       }
     }
 
@@ -39,6 +39,68 @@ public abstract class AbstractBlendFilter extends AbstractFilterOption {
   }
 
 
+  /**
+   * Computes the new lightness of the top colour from the lightness
+   * of the top and bottom colours.  Both applyToColor and applyToRow
+   * overwrite the lightness of the top colour with this.
+   * @param topLightness represents the lightness of the top colour
+   * @param bottomLightness represents the lightness of the bottom colour
+   * @return the new lightness of the top colour, between 0 and 1
+   */
+  protected abstract double blendLightness(double topLightness, double bottomLightness);
+
+  @Override
+  public void applyToRow(int[] top, int[] bottom, int[] out, int off, int len) {
+    for (int i = off; i < off + len; i++) {
+      out[i] = this.overWriteLightness(top[i], bottom[i]);
+    }
+  }
+
+  //the packed form of overWriteLightness(top, bottom, blendLightness(...)).
+  //Every step uses the same arithmetic as the Pixels would (see
+  //AbstractPixel) so both produce exactly the same colour.
+  private int overWriteLightness(int top, int bottom) {
+    int alpha = top >>> 24;
+    //the HSL of a Pixel is computed from its three-component colour
+    double topAlpha = alpha / 255.0;
+    double red = (((top >> 16) & 0xFF) / 255.0) * topAlpha;
+    double green = (((top >> 8) & 0xFF) / 255.0) * topAlpha;
+    double blue = ((top & 0xFF) / 255.0) * topAlpha;
+    double bottomAlpha = (bottom >>> 24) / 255.0;
+    double bottomLightness = PixelUtil.rgbToLightness(
+            (((bottom >> 16) & 0xFF) / 255.0) * bottomAlpha,
+            (((bottom >> 8) & 0xFF) / 255.0) * bottomAlpha,
+            ((bottom & 0xFF) / 255.0) * bottomAlpha);
+
+    double newLightTop = this.blendLightness(
+            PixelUtil.rgbToLightness(red, green, blue), bottomLightness);
+    double hue = PixelUtil.rgbToHue(red, green, blue);
+    double saturation = PixelUtil.rgbToSaturation(red, green, blue);
+    //a hue of 360 is the same as a hue of 0 (see HSLPixel)
+    if (hue == 360) {
+      hue = 0;
+    }
+
+    //toFourComponent turns a zero alpha into transparent black
+    int rgbaTop = 0;
+    if (alpha != 0) {
+      rgbaTop = (alpha << 24)
+              | (toFourComponent(PixelUtil.hslToRed(hue, saturation, newLightTop), alpha) << 16)
+              | (toFourComponent(PixelUtil.hslToGreen(hue, saturation, newLightTop), alpha) << 8)
+              | toFourComponent(PixelUtil.hslToBlue(hue, saturation, newLightTop), alpha);
+    }
+
+    //computes the final colour of the filter-applied top over the bottom
+    return PixelUtil.computeColour(rgbaTop, bottom);
+  }
+
+  //converts one 0-1 component of the three-component top colour
+  //back to four components, like PixelUtil.toFourComponent
+  private static int toFourComponent(double component, int alpha) {
+    int rgb = Math.toIntExact(Math.round(component * 255));
+    return Math.min(Math.max(Math.toIntExact(Math.round(rgb / (alpha / 255.0))), 0), 255);
+  }
+
   @Override
   public abstract String toString();
 }
@@ -1,5 +1,7 @@
 package model.filter.option;
 
+import java.util.Objects;
+
 import model.pixel.Pixel;
 import model.pixel.RGBPixel;
 import model.utils.PixelUtil;
@@ -10,6 +12,21 @@ import model.utils.PixelUtil;
  * Four.
  */
 public abstract class AbstractSingleFilter extends AbstractFilterOption {
+  private final SingleFilterTable table;
+
+  /**
+   * Represents the constructor for a single filter.  The given table
+   * is the compiled form of applyToColor(Pixel) that applyToRow uses.
+   * @param table represents this filter compiled into lookup tables
+   * @throws IllegalArgumentException when the table is null
+   */
+  protected AbstractSingleFilter(SingleFilterTable table) throws IllegalArgumentException {
+    try {
+      this.table = Objects.requireNonNull(table);
+    } catch (NullPointerException e) {
+      throw new IllegalArgumentException("Given table cannot be null.");
+    }
+  }
 
   @Override
   public Pixel applyToColor(Pixel top, Pixel bottom) {
@@ -22,6 +39,14 @@ public abstract class AbstractSingleFilter extends AbstractFilterOption {
   }
 
 
+  @Override
+  public void applyToRow(int[] top, int[] bottom, int[] out, int off, int len) {
+    //the same as applyToColor: filter the top, then overlay it
+    for (int i = off; i < off + len; i++) {
+      out[i] = PixelUtil.computeColour(this.applyToARGB(top[i]), bottom[i]);
+    }
+  }
+
   /**
    * This method provides backwards compatibility with the original
    * colour component and brightness filters.
@@ -30,6 +55,17 @@ public abstract class AbstractSingleFilter extends AbstractFilterOption {
    */
   protected abstract Pixel applyToColor(Pixel color);
 
+  /**
+   * Applies this filter to only the given packed ARGB colour through
+   * its lookup tables; this produces the packed form of
+   * applyToColor(Pixel).
+   * @param argb represents the packed top colour to modify
+   * @return the new packed colour after applying the filter
+   */
+  protected int applyToARGB(int argb) {
+    return table.apply(argb);
+  }
+
   @Override
   public abstract String toString();
 
@@ -63,7 +99,7 @@ public abstract class AbstractSingleFilter extends AbstractFilterOption {
     int red = includeRed ? c.getRed() : 0;
     int green = includeGreen ? c.getGreen() : 0;
     int blue = includeBlue ? c.getBlue() : 0;
-    return new RGBPixel(red, green, blue, c.getAlpha());
+    return RGBPixel.of(red, green, blue, c.getAlpha());
   }
 
   /**
@@ -87,7 +123,7 @@ public abstract class AbstractSingleFilter extends AbstractFilterOption {
     int red = this.inBounds(c.getRed() + (brightness * multiplier));
     int green = this.inBounds(c.getGreen() + (brightness * multiplier));
     int blue = this.inBounds(c.getBlue() + (brightness * multiplier));
-    return new RGBPixel(red, green, blue, c.getAlpha());
+    return RGBPixel.of(red, green, blue, c.getAlpha());
   }
 
 
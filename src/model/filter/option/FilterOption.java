@@ -1,5 +1,8 @@
 package model.filter.option;
 
+import model.pixel.Pixel;
+import model.utils.PixelUtil;
+
 /**
  * Represents the interface for various filter options.
  * This interface has one method, applyToColor in which
@@ -25,6 +28,33 @@ public interface FilterOption<C> {
    */
   C applyToColor(C top, C bottom);
 
+  /**
+   * Applies the filter type on a run of packed ARGB colours (see
+   * PixelUtil.toARGB) AND rasterizes them together: for every index
+   * i from off to off + len - 1, out[i] becomes the packed form of
+   * applyToColor(top[i], bottom[i]).  The out array may be the same
+   * array as top or bottom.
+   *
+   * <p>Packed colours only make sense for filters of Pixels.  By
+   * default this unpacks every colour and calls applyToColor; the
+   * filters of this program override it to work on the packed
+   * colours directly, without creating any Pixels.</p>
+   *
+   * @param top represents the packed colours on top that should be filtered
+   * @param bottom represents the packed colours on the bottom of the filter
+   * @param out represents the array the packed filtered colours are written to
+   * @param off represents the first index of the run in all three arrays
+   * @param len represents the number of colours in the run
+   */
+  @SuppressWarnings("unchecked")
+  default void applyToRow(int[] top, int[] bottom, int[] out, int off, int len) {
+    for (int i = off; i < off + len; i++) {
+      out[i] = PixelUtil.toARGB((Pixel) this.applyToColor(
+              (C) PixelUtil.fromARGB(top[i]),
+              (C) PixelUtil.fromARGB(bottom[i])));
+    }
+  }
+
 
   /**
    * Override the toString method such that getting the FilterOption
@@ -0,0 +1,120 @@
+package model.filter.option;
+
+import java.util.Arrays;
+
+/**
+ * Represents a bounded map from long keys to int values, stored in
+ * two primitive arrays with open addressing (linear probing), so
+ * neither the keys nor the values are ever boxed.
+ *
+ * <p>The map never grows: once it is three quarters full, the next
+ * put clears it before adding its entry.  This keeps the memory of a
+ * cache fixed no matter how many keys it sees.</p>
+ */
+class LongIntHashMap {
+  /**
+   * Represents what get returns for a key that is not in the map;
+   * every int value is a long between 0 and 2^32 - 1, so this can
+   * never be a value.
+   */
+  static final long MISSING = -1L;
+
+  //marks an empty slot of keys.  A real key equal to EMPTY is
+  //kept outside of the arrays, in emptyKeyValue.
+  private static final long EMPTY = 0L;
+
+  private final long[] keys;
+  private final int[] values;
+  private final int mask;
+  private final int threshold;
+  private int size;
+  private boolean hasEmptyKey;
+  private int emptyKeyValue;
+
+  /**
+   * Represents a map with room for the given number of slots,
+   * rounded up to a power of two; at most three quarters of them
+   * are used before the map is cleared.
+   * @param capacity represents the number of slots of this map
+   * @throws IllegalArgumentException when the capacity is not
+   *     between 4 and 2^30, inclusive
+   */
+  LongIntHashMap(int capacity) throws IllegalArgumentException {
+    if (capacity < 4 || capacity > (1 << 30)) {
+      throw new IllegalArgumentException("Capacity must be between 4 and 2^30.");
+    }
+    int slots = Integer.highestOneBit(capacity - 1) << 1;
+    this.keys = new long[slots];
+    this.values = new int[slots];
+    this.mask = slots - 1;
+    this.threshold = slots / 4 * 3;
+  }
+
+  /**
+   * Returns the value of the given key as an unsigned int, or
+   * MISSING if the key is not in this map.
+   * @param key represents the key to look up
+   * @return the value of the key between 0 and 2^32 - 1, or MISSING
+   */
+  long get(long key) {
+    if (key == EMPTY) {
+      return hasEmptyKey ? emptyKeyValue & 0xFFFFFFFFL : MISSING;
+    }
+    for (int slot = slot(key); keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        return values[slot] & 0xFFFFFFFFL;
+      }
+    }
+    return MISSING;
+  }
+
+  /**
+   * Maps the given key to the given value, replacing its old value.
+   * If this map is full, it is cleared first.
+   * @param key represents the key to add
+   * @param value represents the value of the key
+   */
+  void put(long key, int value) {
+    if (key == EMPTY) {
+      hasEmptyKey = true;
+      emptyKeyValue = value;
+      return;
+    }
+    if (size >= threshold) {
+      this.clear();
+    }
+    int slot = slot(key);
+    while (keys[slot] != EMPTY && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    if (keys[slot] == EMPTY) {
+      size++;
+    }
+    keys[slot] = key;
+    values[slot] = value;
+  }
+
+  /**
+   * Removes every key from this map.
+   */
+  void clear() {
+    Arrays.fill(keys, EMPTY);
+    size = 0;
+    hasEmptyKey = false;
+  }
+
+  /**
+   * Returns the number of keys in this map.
+   * @return the number of keys in this map
+   */
+  int size() {
+    return size + (hasEmptyKey ? 1 : 0);
+  }
+
+  //spreads the bits of the key (a multiplicative hash) so that
+  //keys that only differ in a few low bits land far apart
+  private int slot(long key) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+}
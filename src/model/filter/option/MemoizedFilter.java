@@ -0,0 +1,137 @@
+package model.filter.option;
+
+import java.util.Objects;
+
+import model.pixel.Pixel;
+import model.utils.PixelUtil;
+
+/**
+ * Represents a filter that remembers the colours another filter
+ * produced.  Every (top, bottom) pair of packed ARGB colours (see
+ * PixelUtil.toARGB) is looked up in a bounded LongIntHashMap first,
+ * and only pairs that are not found are given to the other filter.
+ *
+ * <p>A filter only depends on its two colours, so this never
+ * changes a result; it only pays off for filters that are costly
+ * per colour, like the blend filters, on images with few distinct
+ * colours such as flat backgrounds.  It has the same name as the
+ * filter it wraps, so the two are equal.</p>
+ *
+ * <p>This filter is not safe to share between threads.</p>
+ */
+public class MemoizedFilter extends AbstractFilterOption {
+  /**
+   * Represents the number of slots of the map of a new MemoizedFilter.
+   */
+  public static final int DEFAULT_CAPACITY = 1 << 16;
+
+  private final FilterOption<Pixel> filter;
+  private final LongIntHashMap results;
+  private long hits;
+  private long misses;
+
+  /**
+   * Represents a filter that remembers up to three quarters of
+   * DEFAULT_CAPACITY colour pairs of the given filter.
+   * @param filter represents the filter to remember the colours of
+   * @throws IllegalArgumentException when the filter is null
+   */
+  public MemoizedFilter(FilterOption<Pixel> filter) throws IllegalArgumentException {
+    this(filter, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Represents a filter that remembers up to three quarters of the
+   * given number of colour pairs of the given filter.
+   * @param filter represents the filter to remember the colours of
+   * @param capacity represents the number of slots of the map
+   * @throws IllegalArgumentException when the filter is null, or the
+   *     capacity is not between 4 and 2^30, inclusive
+   */
+  public MemoizedFilter(FilterOption<Pixel> filter, int capacity)
+          throws IllegalArgumentException {
+    try {
+      this.filter = Objects.requireNonNull(filter);
+    } catch (NullPointerException e) {
+      throw new IllegalArgumentException("Given filter cannot be null.");
+    }
+    this.results = new LongIntHashMap(capacity);
+  }
+
+  @Override
+  public Pixel applyToColor(Pixel top, Pixel bottom) {
+    int topARGB = PixelUtil.toARGB(top);
+    int bottomARGB = PixelUtil.toARGB(bottom);
+    long key = key(topARGB, bottomARGB);
+    long result = results.get(key);
+    if (result != LongIntHashMap.MISSING) {
+      hits++;
+      return PixelUtil.fromARGB((int) result);
+    }
+    misses++;
+    Pixel colour = filter.applyToColor(top, bottom);
+    results.put(key, PixelUtil.toARGB(colour));
+    return colour;
+  }
+
+  @Override
+  public void applyToRow(int[] top, int[] bottom, int[] out, int off, int len) {
+    for (int i = off; i < off + len; i++) {
+      long key = key(top[i], bottom[i]);
+      long result = results.get(key);
+      if (result != LongIntHashMap.MISSING) {
+        hits++;
+        out[i] = (int) result;
+      } else {
+        misses++;
+        //out[i] may be bottom[i], which is why the key is made first
+        filter.applyToRow(top, bottom, out, i, 1);
+        results.put(key, out[i]);
+      }
+    }
+  }
+
+  //the top colour in the high half, the bottom colour in the low half
+  private static long key(int top, int bottom) {
+    return ((long) top << 32) | (bottom & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Returns the filter whose colours this filter remembers.
+   * @return the wrapped filter
+   */
+  public FilterOption<Pixel> getFilter() {
+    return filter;
+  }
+
+  /**
+   * Returns the number of colours that were found in the map.
+   * @return the number of hits
+   */
+  public long getHits() {
+    return hits;
+  }
+
+  /**
+   * Returns the number of colours that had to be computed by the
+   * wrapped filter.
+   * @return the number of misses
+   */
+  public long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Forgets every remembered colour and sets both counters to zero.
+   */
+  public void clear() {
+    results.clear();
+    hits = 0;
+    misses = 0;
+  }
+
+  @Override
+  public String toString() {
+    return filter.toString();
+  }
+}
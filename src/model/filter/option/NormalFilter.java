@@ -21,6 +21,13 @@ public class NormalFilter extends AbstractFilterOption {
     return PixelUtil.computeColour(top,bottom);
   }
 
+  @Override
+  public void applyToRow(int[] top, int[] bottom, int[] out, int off, int len) {
+    for (int i = off; i < off + len; i++) {
+      out[i] = PixelUtil.computeColour(top[i], bottom[i]);
+    }
+  }
+
   @Override
   public String toString() {
     return "normal";
@@ -0,0 +1,214 @@
+package model.filter.option;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import model.utils.PixelUtil;
+
+/**
+ * Represents a single filter (see AbstractSingleFilter) compiled
+ * into lookup tables, so that applying it to a packed ARGB colour
+ * takes only table lookups and integer arithmetic.
+ *
+ * <p>Every brightness filter adds a multiple of some brightness of
+ * the colour to each of its components, and then keeps them between
+ * 0 and 255.  The brightness comes from the tables below, which are
+ * shared by every filter and built the first time one is created:</p>
+ * <ul>
+ *   <li>the value is the largest component, which needs no table;</li>
+ *   <li>the intensity only depends on the sum of the components, so
+ *   it is one entry per sum;</li>
+ *   <li>the luma is the weighted sum of the components in
+ *   ten-thousandths, one table per component, rounded with integer
+ *   division.</li>
+ * </ul>
+ *
+ * <p>The results are exactly the same as PixelUtil.getValue,
+ * getIntensity, and getLuma.</p>
+ */
+public final class SingleFilterTable {
+  //the kinds of brightness a filter can add
+  private static final int NONE = 0;
+  private static final int VALUE = 1;
+  private static final int INTENSITY = 2;
+  private static final int LUMA = 3;
+
+  //CLAMP[i + 255] is i kept between 0 and 255, for every i from
+  //-255 (a component of 0 darkened by 255) to 510
+  private static final int[] CLAMP = new int[766];
+
+  //INTENSITY_OF_SUM[r + g + b] is the intensity of (r, g, b)
+  private static final int[] INTENSITY_OF_SUM = new int[766];
+
+  //the luma weights of PixelUtil.getLuma, in ten-thousandths
+  private static final int[] LUMA_RED = new int[256];
+  private static final int[] LUMA_GREEN = new int[256];
+  private static final int[] LUMA_BLUE = new int[256];
+
+  //the colours (as 0xRRGGBB, sorted) whose weighted sum lies
+  //exactly halfway between two lumas, but which getLuma rounds
+  //down because of floating point error; every other halfway
+  //colour is rounded up
+  private static final int[] LUMA_ROUNDED_DOWN;
+
+  static {
+    for (int i = 0; i < CLAMP.length; i++) {
+      CLAMP[i] = Math.min(Math.max(i - 255, 0), 255);
+      //the same rounding as PixelUtil.getIntensity
+      INTENSITY_OF_SUM[i] = Math.toIntExact(Math.round(i / 3.0));
+    }
+    for (int i = 0; i < 256; i++) {
+      LUMA_RED[i] = 2126 * i;
+      LUMA_GREEN[i] = 7152 * i;
+      LUMA_BLUE[i] = 722 * i;
+    }
+    LUMA_ROUNDED_DOWN = lumaRoundedDown();
+  }
+
+  private final int kind;
+  private final int multiplier;
+  private final int mask;
+
+  private SingleFilterTable(int kind, int multiplier, int mask) {
+    this.kind = kind;
+    this.multiplier = multiplier;
+    this.mask = mask;
+  }
+
+  /**
+   * Compiles a filter that only keeps the given components of a
+   * colour (see AbstractSingleFilter.filterComponents).
+   * @param includeRed represents if the red value is kept
+   * @param includeGreen represents if the green value is kept
+   * @param includeBlue represents if the blue value is kept
+   * @return the compiled filter
+   */
+  public static SingleFilterTable components(boolean includeRed,
+                                             boolean includeGreen,
+                                             boolean includeBlue) {
+    return new SingleFilterTable(NONE, 0, 0xFF000000
+            | (includeRed ? 0xFF0000 : 0)
+            | (includeGreen ? 0xFF00 : 0)
+            | (includeBlue ? 0xFF : 0));
+  }
+
+  /**
+   * Compiles a filter that adds the value of a colour multiplier
+   * times to each of its components (see
+   * AbstractSingleFilter.applyBrightness).
+   * @param multiplier represents the number of times the value
+   *     is added, either 1 or -1
+   * @return the compiled filter
+   * @throws IllegalArgumentException when the multiplier is not 1 or -1
+   */
+  public static SingleFilterTable value(int multiplier) throws IllegalArgumentException {
+    return brightness(VALUE, multiplier);
+  }
+
+  /**
+   * Compiles a filter that adds the intensity of a colour multiplier
+   * times to each of its components.
+   * @param multiplier represents the number of times the intensity
+   *     is added, either 1 or -1
+   * @return the compiled filter
+   * @throws IllegalArgumentException when the multiplier is not 1 or -1
+   */
+  public static SingleFilterTable intensity(int multiplier) throws IllegalArgumentException {
+    return brightness(INTENSITY, multiplier);
+  }
+
+  /**
+   * Compiles a filter that adds the luma of a colour multiplier
+   * times to each of its components.
+   * @param multiplier represents the number of times the luma
+   *     is added, either 1 or -1
+   * @return the compiled filter
+   * @throws IllegalArgumentException when the multiplier is not 1 or -1
+   */
+  public static SingleFilterTable luma(int multiplier) throws IllegalArgumentException {
+    return brightness(LUMA, multiplier);
+  }
+
+  //shared by every brightness filter.  The multiplier is limited
+  //to one step either way so that CLAMP covers every sum.
+  private static SingleFilterTable brightness(int kind, int multiplier)
+          throws IllegalArgumentException {
+    if (multiplier != 1 && multiplier != -1) {
+      throw new IllegalArgumentException("Multiplier must be 1 or -1.");
+    }
+    return new SingleFilterTable(kind, multiplier, 0xFFFFFFFF);
+  }
+
+  /**
+   * Applies this filter to the given packed ARGB colour (see
+   * PixelUtil.toARGB).  The alpha is kept as it is.
+   * @param argb represents the packed colour to filter
+   * @return the filtered packed colour
+   */
+  public int apply(int argb) {
+    if (kind == NONE) {
+      return argb & mask;
+    }
+
+    int red = (argb >> 16) & 0xFF;
+    int green = (argb >> 8) & 0xFF;
+    int blue = argb & 0xFF;
+    int brightness;
+    switch (kind) {
+      case VALUE:
+        brightness = Math.max(red, Math.max(green, blue));
+        break;
+      case INTENSITY:
+        brightness = INTENSITY_OF_SUM[red + green + blue];
+        break;
+      default:
+        brightness = luma(red, green, blue);
+        break;
+    }
+
+    //offset into CLAMP by the brightness that is added
+    int offset = 255 + brightness * multiplier;
+    return (argb & 0xFF000000)
+            | (CLAMP[red + offset] << 16)
+            | (CLAMP[green + offset] << 8)
+            | CLAMP[blue + offset];
+  }
+
+  //the rounded weighted sum; halfway sums are rounded up unless
+  //the colour is one of the few that getLuma rounds down
+  private static int luma(int red, int green, int blue) {
+    int sum = LUMA_RED[red] + LUMA_GREEN[green] + LUMA_BLUE[blue] + 5000;
+    int luma = sum / 10000;
+    if (luma * 10000 == sum
+            && Arrays.binarySearch(LUMA_ROUNDED_DOWN, (red << 16) | (green << 8) | blue) >= 0) {
+      luma--;
+    }
+    return luma;
+  }
+
+  //finds every colour whose weighted sum in ten-thousandths ends in
+  //exactly 5000 and checks how getLuma rounds it.  Since every weight
+  //is even, this is 361 * blue = (5000 - 2126 * red - 7152 * green) / 2
+  //modulo 5000, which has one solution for every red and green; only
+  //the solutions under 256 are colours.
+  private static int[] lumaRoundedDown() {
+    //the inverse of 361 modulo 5000
+    int inverse = BigInteger.valueOf(361).modInverse(BigInteger.valueOf(5000)).intValueExact();
+    List<Integer> roundedDown = new ArrayList<>();
+    for (int red = 0; red < 256; red++) {
+      for (int green = 0; green < 256; green++) {
+        int target = Math.floorMod(5000 - LUMA_RED[red] - LUMA_GREEN[green], 10000) / 2;
+        int blue = (int) ((long) target * inverse % 5000);
+        int argb = 0xFF000000 | (red << 16) | (green << 8) | blue;
+        if (blue < 256 && PixelUtil.getLuma(argb)
+                < (LUMA_RED[red] + LUMA_GREEN[green] + LUMA_BLUE[blue] + 5000) / 10000) {
+          roundedDown.add(argb & 0xFFFFFF);
+        }
+      }
+    }
+    //red, then green, then blue is already sorted
+    return roundedDown.stream().mapToInt(Integer::intValue).toArray();
+  }
+}
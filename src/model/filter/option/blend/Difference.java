@@ -34,7 +34,7 @@ public class Difference extends AbstractFilterOption {
     int bluePrime = Math.abs(blueRGB - blueRGBBg);
 
     //create a new topPrime colour with the RGB values
-    Pixel topPrimeRGB = new RGBPixel(redPrime,greenPrime,bluePrime);
+    Pixel topPrimeRGB = RGBPixel.of(redPrime,greenPrime,bluePrime);
 
     //convert the topPrimeRGB to an RGBA using teh original alpha value
     Pixel topPrimeRGBA = PixelUtil.toFourComponent(topPrimeRGB,top.getAlpha());
@@ -43,6 +43,40 @@ public class Difference extends AbstractFilterOption {
     return PixelUtil.computeColour(topPrimeRGBA,bottom);
   }
 
+  @Override
+  public void applyToRow(int[] top, int[] bottom, int[] out, int off, int len) {
+    for (int i = off; i < off + len; i++) {
+      out[i] = PixelUtil.computeColour(difference(top[i], bottom[i]), bottom[i]);
+    }
+  }
+
+  //computes the packed form of topPrimeRGBA in applyToColor
+  //with exactly the same arithmetic
+  private static int difference(int top, int bottom) {
+    int alpha = top >>> 24;
+    //toFourComponent turns a zero alpha into transparent black
+    if (alpha == 0) {
+      return 0;
+    }
+    int bottomAlpha = bottom >>> 24;
+    return (alpha << 24)
+            | (differenceComponent((top >> 16) & 0xFF, alpha,
+                    (bottom >> 16) & 0xFF, bottomAlpha) << 16)
+            | (differenceComponent((top >> 8) & 0xFF, alpha,
+                    (bottom >> 8) & 0xFF, bottomAlpha) << 8)
+            | differenceComponent(top & 0xFF, alpha, bottom & 0xFF, bottomAlpha);
+  }
+
+  //one component of the difference: the difference of the
+  //three-component colours, converted back to four components
+  private static int differenceComponent(int topColour, int topAlpha,
+                                         int bottomColour, int bottomAlpha) {
+    int topRGB = Math.toIntExact(Math.round(topColour * (topAlpha / 255.0)));
+    int bottomRGB = Math.toIntExact(Math.round(bottomColour * (bottomAlpha / 255.0)));
+    int prime = Math.abs(topRGB - bottomRGB);
+    return Math.min(Math.max(Math.toIntExact(Math.round(prime / (topAlpha / 255.0))), 0), 255);
+  }
+
   @Override
   public String toString() {
     return "difference";
@@ -14,8 +14,13 @@ public class Multiply extends AbstractBlendFilter {
   public Pixel applyToColor(Pixel top, Pixel bottom) {
     //abstract to the superclass
     return super.overWriteLightness(top,bottom,
-            //the following is the Screen formula
-            (top.getLightness() * bottom.getLightness()));
+            this.blendLightness(top.getLightness(), bottom.getLightness()));
+  }
+
+  @Override
+  protected double blendLightness(double topLightness, double bottomLightness) {
+    //the following is the Multiply formula
+    return topLightness * bottomLightness;
   }
 
   @Override
@@ -14,8 +14,13 @@ public class Screen extends AbstractBlendFilter {
   public Pixel applyToColor(Pixel top, Pixel bottom) {
     //abstract to the superclass
     return super.overWriteLightness(top,bottom,
-            //the following is the Screen formula
-            (1 - ((1 - top.getLightness()) * (1 - bottom.getLightness()))));
+            this.blendLightness(top.getLightness(), bottom.getLightness()));
+  }
+
+  @Override
+  protected double blendLightness(double topLightness, double bottomLightness) {
+    //the following is the Screen formula
+    return 1 - ((1 - topLightness) * (1 - bottomLightness));
   }
 
   @Override
@@ -1,6 +1,7 @@
 package model.filter.option.brightness;
 
 import model.filter.option.AbstractSingleFilter;
+import model.filter.option.SingleFilterTable;
 import model.pixel.Pixel;
 import model.utils.PixelUtil;
 
@@ -10,6 +11,13 @@ import model.utils.PixelUtil;
  * of a given colour to that colour.
  */
 public class BrightenIntensity extends AbstractSingleFilter {
+  /**
+   * Creates this filter, compiling it into lookup tables.
+   */
+  public BrightenIntensity() {
+    super(SingleFilterTable.intensity(1));
+  }
+
   @Override
   public Pixel applyToColor(Pixel c) {
     return super.applyBrightness(c, PixelUtil.getIntensity(c),1);
@@ -1,6 +1,7 @@
 package model.filter.option.brightness;
 
 import model.filter.option.AbstractSingleFilter;
+import model.filter.option.SingleFilterTable;
 import model.pixel.Pixel;
 import model.utils.PixelUtil;
 
@@ -10,6 +11,12 @@ import model.utils.PixelUtil;
  * luminance of a given colour to that colour.
  */
 public class BrightenLuma extends AbstractSingleFilter {
+  /**
+   * Creates this filter, compiling it into lookup tables.
+   */
+  public BrightenLuma() {
+    super(SingleFilterTable.luma(1));
+  }
 
   @Override
   public Pixel applyToColor(Pixel c) {
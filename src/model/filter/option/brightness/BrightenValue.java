@@ -1,6 +1,7 @@
 package model.filter.option.brightness;
 
 import model.filter.option.AbstractSingleFilter;
+import model.filter.option.SingleFilterTable;
 import model.pixel.Pixel;
 import model.utils.PixelUtil;
 
@@ -10,6 +11,13 @@ import model.utils.PixelUtil;
  * brightness value of a given colour to that colour.
  */
 public class BrightenValue extends AbstractSingleFilter {
+  /**
+   * Creates this filter, compiling it into lookup tables.
+   */
+  public BrightenValue() {
+    super(SingleFilterTable.value(1));
+  }
+
   @Override
   public Pixel applyToColor(Pixel c) {
     return super.applyBrightness(c, PixelUtil.getValue(c),1);
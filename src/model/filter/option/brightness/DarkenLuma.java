@@ -1,6 +1,7 @@
 package model.filter.option.brightness;
 
 import model.filter.option.AbstractSingleFilter;
+import model.filter.option.SingleFilterTable;
 import model.pixel.Pixel;
 import model.utils.PixelUtil;
 
@@ -10,6 +11,13 @@ import model.utils.PixelUtil;
  * the luminance of a given colour from that colour.
  */
 public class DarkenLuma extends AbstractSingleFilter {
+  /**
+   * Creates this filter, compiling it into lookup tables.
+   */
+  public DarkenLuma() {
+    super(SingleFilterTable.luma(-1));
+  }
+
   @Override
   public Pixel applyToColor(Pixel c) {
     return super.applyBrightness(c, PixelUtil.getLuma(c),-1);
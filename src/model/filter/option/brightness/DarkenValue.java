@@ -1,6 +1,7 @@
 package model.filter.option.brightness;
 
 import model.filter.option.AbstractSingleFilter;
+import model.filter.option.SingleFilterTable;
 import model.pixel.Pixel;
 import model.utils.PixelUtil;
 
@@ -10,6 +11,13 @@ import model.utils.PixelUtil;
  * the brightness value of a given colour from that colour.
  */
 public class DarkenValue extends AbstractSingleFilter {
+  /**
+   * Creates this filter, compiling it into lookup tables.
+   */
+  public DarkenValue() {
+    super(SingleFilterTable.value(-1));
+  }
+
   @Override
   public Pixel applyToColor(Pixel c) {
     return super.applyBrightness(c, PixelUtil.getValue(c),-1);
@@ -1,6 +1,7 @@
 package model.filter.option.colour.components;
 
 import model.filter.option.AbstractSingleFilter;
+import model.filter.option.SingleFilterTable;
 import model.pixel.Pixel;
 
 /**
@@ -11,6 +12,12 @@ import model.pixel.Pixel;
  * are set to zero).
  */
 public class BlueComponent extends AbstractSingleFilter {
+  /**
+   * Creates this filter, compiling it into lookup tables.
+   */
+  public BlueComponent() {
+    super(SingleFilterTable.components(false,false,true));
+  }
 
   protected Pixel applyToColor(Pixel c) {
     return super.filterComponents(c,false,false,true);
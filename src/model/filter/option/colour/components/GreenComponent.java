@@ -1,6 +1,7 @@
 package model.filter.option.colour.components;
 
 import model.filter.option.AbstractSingleFilter;
+import model.filter.option.SingleFilterTable;
 import model.pixel.Pixel;
 
 /**
@@ -11,6 +12,13 @@ import model.pixel.Pixel;
  * are set to zero).
  */
 public class GreenComponent extends AbstractSingleFilter {
+  /**
+   * Creates this filter, compiling it into lookup tables.
+   */
+  public GreenComponent() {
+    super(SingleFilterTable.components(false,true,false));
+  }
+
   @Override
   public Pixel applyToColor(Pixel c) {
     return super.filterComponents(c,false,true,false);
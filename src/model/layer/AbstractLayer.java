@@ -61,9 +61,9 @@ public abstract class AbstractLayer<C> implements Layer<C> {
 
     //attempts to initialise the grid
     try {
-      this.grid = Objects.requireNonNull(grid);
+      Objects.requireNonNull(grid);
     } catch (NullPointerException e) {
-      this.grid = this.initGrid(this.typeArray(height,width));
+      grid = this.initGrid(this.typeArray(height,width));
     }
 
     //however, if the grid CONTAINS null values...
@@ -71,7 +71,7 @@ public abstract class AbstractLayer<C> implements Layer<C> {
       for (int j = 0; j < width; j++) {
         //it should fail:
         try {
-          Objects.requireNonNull(this.grid[i][j]);
+          Objects.requireNonNull(grid[i][j]);
         } catch (NullPointerException e) {
           throw new IllegalArgumentException("Given grid cannot contain null values.");
         } catch (IndexOutOfBoundsException e) {
@@ -82,6 +82,13 @@ public abstract class AbstractLayer<C> implements Layer<C> {
       }
     }
 
+    //addImage changes the grid in place, so this layer keeps
+    //its own copy of the given grid
+    this.grid = this.typeArray(height,width);
+    for (int i = 0; i < height; i++) {
+      System.arraycopy(grid[i],0,this.grid[i],0,width);
+    }
+
     //attempt to initialise the given filter
     try {
       this.filter = Objects.requireNonNull(filter);
@@ -128,13 +135,19 @@ public abstract class AbstractLayer<C> implements Layer<C> {
 
   @Override
   public C[][] getGrid() {
-
-    return this.mergeDownPrivate(
-            //a completely transparent grid overlaid over this grid
-            //produces this grid
-            this.initGrid(this.typeArray(this.height,this.width)),
-            this.grid,false);
-    //return this.deepCopyGrid(this.grid,false);
+    //colours cannot be changed, so copying the references is
+    //enough; overlaying this grid over a transparent one would only
+    //produce the same colours again, with every fully transparent
+    //colour made the same one
+    C[][] copy = this.typeArray(this.height,this.width);
+    C clear = this.fromARGB(0);
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        C colour = this.grid[i][j];
+        copy[i][j] = this.toARGB(colour) == 0 ? clear : colour;
+      }
+    }
+    return copy;
   }
 
   @Override
@@ -195,59 +208,39 @@ public abstract class AbstractLayer<C> implements Layer<C> {
       modBottom = this.typeArray(height,width);
     }
 
-    //tests for null values in top
-    for (C[] colors : modTop) {
-      for (int j = 0; j < modTop[0].length; j++) {
-        try {
-          Objects.requireNonNull(colors[j]);
-        } catch (NullPointerException e) {
-          //replaces null values with
-          //transparent values
-          colors[j] = transparent;
-        }
-      }
-    }
-    //tests for null values in bgGrid
-    for (C[] colors : modBottom) {
-      for (int j = 0; j < modBottom[0].length; j++) {
-        try {
-          Objects.requireNonNull(colors[j]);
-        } catch (NullPointerException e) {
-          //replaces null values with
-          //transparent values
-          colors[j] = transparent;
-        }
-      }
-    }
+    //replaces null values in top and bgGrid
+    //with transparent values
+    this.replaceNulls(modTop);
+    this.replaceNulls(modBottom);
 
     //creates a temporary grid representing
     //this grid overlaid over the bgGrid
     //that takes the dimensions of the background grid
     C[][] temp = this.typeArray(modBottom.length,modBottom[0].length);
 
+    if (applyFilter) {
+      //applies the filter to a whole row at a time
+      this.filterRows(modTop,modBottom,temp);
+      return temp;
+    }
+
     //applies the computations for overlaying colours
     for (int i = 0; i < modBottom.length; i++) {
+      //the number of columns of this row the top extends over
+      int topCols = i < modTop.length ? modTop[i].length : 0;
       for (int j = 0; j < modBottom[0].length; j++) {
-        try {
-          if (!applyFilter) {
-            //adds the top with transparency over the bottom using
-            //the formulas in ColourUtil.  Functionally, this acts
-            //as the now-deleted method deepCopyGrid.
-
-            //deepCopyGrid is a private method for making deep copies of grid.
-            //There are two "modes" to this method, one where it applies this
-            //layer's filter, and one where it does not.  These two modes are
-            //differentiated through the boolean applyFilter.
-            //This method exists to abstract out code from other methods.
-            temp[i][j] = computeOverlay(modTop[i][j],modBottom[i][j]);
-          } else {
-            //temp[i][j] = ColourUtil.computeColour(modTop[i][j],modBottom[i][j]);
-            temp[i][j] = filter.applyToColor(
-                    (modTop[i][j]),
-                    (modBottom[i][j]));
-          }
-
-        } catch (IndexOutOfBoundsException e) {
+        if (j < topCols) {
+          //adds the top with transparency over the bottom using
+          //the formulas in ColourUtil.  Functionally, this acts
+          //as the now-deleted method deepCopyGrid.
+
+          //deepCopyGrid is a private method for making deep copies of grid.
+          //There are two "modes" to this method, one where it applies this
+          //layer's filter, and one where it does not.  These two modes are
+          //differentiated through the boolean applyFilter.
+          //This method exists to abstract out code from other methods.
+          temp[i][j] = computeOverlay(modTop[i][j],modBottom[i][j]);
+        } else {
           //if the image does not extend that far, replace it
           //with transparent white
           temp[i][j] = filter.applyToColor(transparent,modBottom[i][j]);
@@ -257,6 +250,60 @@ public abstract class AbstractLayer<C> implements Layer<C> {
     return temp;
   }
 
+  //replaces every null value in the given grid with
+  //this layer's transparent value, in place
+  private void replaceNulls(C[][] given) {
+    for (C[] colors : given) {
+      for (int j = 0; j < colors.length; j++) {
+        if (colors[j] == null) {
+          colors[j] = transparent;
+        }
+      }
+    }
+  }
+
+  //applies this layer's filter to top over bottom one row at a time
+  //through FilterOption.applyToRow, writing the result into temp.
+  //Wherever the top does not extend that far, transparent white is
+  //filtered instead.
+  private void filterRows(C[][] top, C[][] bottom, C[][] temp) {
+    int width = bottom[0].length;
+    int transparentARGB = this.toARGB(transparent);
+    int[] topRow = new int[width];
+    int[] row = new int[width];
+    for (int i = 0; i < bottom.length; i++) {
+      C[] topColours = i < top.length ? top[i] : null;
+      for (int j = 0; j < width; j++) {
+        topRow[j] = topColours != null && j < topColours.length
+                ? this.toARGB(topColours[j])
+                : transparentARGB;
+        row[j] = this.toARGB(bottom[i][j]);
+      }
+
+      //the bottom row is overwritten with the filtered row
+      filter.applyToRow(topRow,row,row,0,width);
+
+      for (int j = 0; j < width; j++) {
+        temp[i][j] = this.fromARGB(row[j]);
+      }
+    }
+  }
+
+  /**
+   * Packs the given colour into a 32-bit ARGB integer, the form
+   * FilterOption.applyToRow works on (see PixelUtil.toARGB).
+   * @param colour represents the colour to pack
+   * @return the packed ARGB colour
+   */
+  protected abstract int toARGB(C colour);
+
+  /**
+   * Unpacks a 32-bit ARGB integer back into a colour.
+   * @param argb represents the packed ARGB colour
+   * @return the colour representation of the packed colour
+   */
+  protected abstract C fromARGB(int argb);
+
   /**
    * Computes the overlay of the top colour representation
    * over the bottom colour representation.
@@ -268,26 +315,22 @@ public abstract class AbstractLayer<C> implements Layer<C> {
 
   @Override
   public void addImage(C[][] image, int x, int y) {
-    //placing the image within the XY coordinates
-    //of this Layer:
-    C[][] imageXY = this.typeArray(height,width);
-
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        try {
-          //offsets the image
-          imageXY[i][j] = image[i - y][j - x];
-        } catch (IndexOutOfBoundsException e) {
-          //replaces colours off the grid with transparent white
-          imageXY[i][j] = transparent;
-        }
+    //only the intersection of the image placed at (x,y) with
+    //this layer is touched: overlaying transparent white over
+    //the rest of the layer would not change it.  x and y may be
+    //negative, and the image may hang off any edge.
+    int firstRow = Math.max(0, y);
+    int lastRow = (int) Math.min(height, (long) y + image.length);
+    for (int i = firstRow; i < lastRow; i++) {
+      C[] imageRow = image[i - y];
+      int firstCol = Math.max(0, x);
+      int lastCol = (int) Math.min(width, (long) x + imageRow.length);
+      for (int j = firstCol; j < lastCol; j++) {
+        //null colours in the image are transparent white
+        C top = imageRow[j - x] == null ? transparent : imageRow[j - x];
+        this.grid[i][j] = computeOverlay(top, this.grid[i][j]);
       }
     }
-
-    //mutates the grid such that it now contains the
-    //image with the top left corner of the image at
-    //coordinates (x,y)
-    this.grid = this.mergeDownPrivate(imageXY,this.grid,false);
   }
 
   /**
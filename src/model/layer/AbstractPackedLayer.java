@@ -0,0 +1,90 @@
+package model.layer;
+
+import model.filter.option.FilterOption;
+import model.pixel.Pixel;
+import model.utils.PixelUtil;
+
+/**
+ * Represents an abstract Layer of Pixels whose colours are stored
+ * as packed 32-bit ARGB integers (see PixelUtil.toARGB) rather than
+ * as a grid of Pixel objects.  Pixels are only created at the edges
+ * of this class: when a grid is handed in or out, or when the filter
+ * of this Layer needs to be applied.
+ *
+ * <p>Child classes decide how the packed colours are actually
+ * stored through getPacked and setPacked.  A coordinate that was
+ * never written to must read back as zero (fully transparent).</p>
+ */
+public abstract class AbstractPackedLayer extends AbstractReadOnlyPackedLayer {
+
+  /**
+   * This constructor tests the height and width constraints,
+   * making sure the height and width are never less than or
+   * equal to zero, exactly like AbstractLayer.
+   *
+   * <p>A null grid is treated as the 'base' state of the Layer--
+   * a completely transparent rectangle of height-by-width.  A
+   * non-null grid is copied into the packed storage of this
+   * Layer; it must match the given height and width and cannot
+   * contain null values.</p>
+   *
+   * @param height represents the height of this Layer
+   * @param width represents the width of this Layer
+   * @param grid represents the base grid of Colors on this Layer
+   * @param filter represents the filter applied on this Layer
+   * @throws IllegalArgumentException when the height or width of
+   *     the Layer is not positive, when the grid is malformed, or
+   *     when the filter is null.
+   */
+  protected AbstractPackedLayer(int height, int width,
+                                Pixel[][] grid, FilterOption<Pixel> filter)
+          throws IllegalArgumentException {
+    //the grid is copied into the packed storage by the child class
+    //through initPacked once that storage exists
+    super(height, width, grid, filter);
+  }
+
+  /**
+   * Copies the given (already validated) grid into the packed
+   * storage of this Layer.  Child classes call this at the end
+   * of their constructors once their storage is allocated.
+   * @param grid represents the grid to copy; may be null
+   */
+  protected void initPacked(Pixel[][] grid) {
+    if (grid == null) {
+      return;
+    }
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        this.setPacked(i, j, PixelUtil.toARGB(grid[i][j]));
+      }
+    }
+  }
+
+  /**
+   * Sets the packed ARGB colour at the given coordinate.
+   * @param row represents the row (y) of the colour
+   * @param col represents the column (x) of the colour
+   * @param argb represents the packed ARGB colour
+   */
+  protected abstract void setPacked(int row, int col, int argb);
+
+  @Override
+  public void addImage(Pixel[][] image, int x, int y) {
+    //only the part of the image that lands on this layer is
+    //touched; overlaying a transparent pixel over the rest of
+    //the layer would not change it.
+    int firstRow = Math.max(0, y);
+    int lastRow = Math.min(height, y + image.length);
+    for (int i = firstRow; i < lastRow; i++) {
+      Pixel[] imageRow = image[i - y];
+      int firstCol = Math.max(0, x);
+      int lastCol = Math.min(width, x + imageRow.length);
+      for (int j = firstCol; j < lastCol; j++) {
+        Pixel top = this.orTransparent(imageRow[j - x]);
+        this.setPacked(i, j,
+                PixelUtil.computeColour(PixelUtil.toARGB(top), this.getPacked(i, j)));
+      }
+    }
+  }
+}
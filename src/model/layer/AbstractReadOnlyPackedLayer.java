@@ -0,0 +1,343 @@
+package model.layer;
+
+import java.util.Objects;
+
+import model.filter.option.FilterOption;
+import model.pixel.Pixel;
+import model.pixel.RGBPixel;
+import model.utils.PixelUtil;
+
+/**
+ * Represents an abstract Layer of Pixels whose colours can be read
+ * as packed 32-bit ARGB integers (see PixelUtil.toARGB), but not
+ * written one at a time.  Everything that only reads the colours,
+ * such as the grids, the merges, and the project String, is done
+ * here through getPacked; how the colours are changed is left to
+ * child classes through addImage.
+ *
+ * <p>Layers that store their colours one coordinate at a time
+ * extend AbstractPackedLayer instead; layers that only keep what
+ * was added to them, such as LayerPlacedImpl, extend this class
+ * directly.</p>
+ */
+public abstract class AbstractReadOnlyPackedLayer implements Layer<Pixel> {
+  protected final int height;
+  protected final int width;
+  protected FilterOption<Pixel> filter;
+  protected final Pixel transparent;
+
+  /**
+   * This constructor tests the height and width constraints,
+   * making sure the height and width are never less than or
+   * equal to zero, exactly like AbstractLayer.
+   *
+   * <p>A null grid is treated as the 'base' state of the Layer--
+   * a completely transparent rectangle of height-by-width.  A
+   * non-null grid is only validated here, and is left to the child
+   * class to keep; it must match the given height and width and
+   * cannot contain null values.</p>
+   *
+   * @param height represents the height of this Layer
+   * @param width represents the width of this Layer
+   * @param grid represents the base grid of Colors on this Layer
+   * @param filter represents the filter applied on this Layer
+   * @throws IllegalArgumentException when the height or width of
+   *     the Layer is not positive, when the grid is malformed, or
+   *     when the filter is null.
+   */
+  protected AbstractReadOnlyPackedLayer(int height, int width,
+                                        Pixel[][] grid, FilterOption<Pixel> filter)
+          throws IllegalArgumentException {
+    //makes sure the height and width are valid
+    if (height <= 0 || width <= 0) {
+      throw new IllegalArgumentException(
+              "Height or width cannot be less than or equal to zero.");
+    }
+    this.height = height;
+    this.width = width;
+    this.transparent = RGBPixel.of(255,255,255,0);
+
+    //attempt to initialise the given filter
+    try {
+      this.filter = Objects.requireNonNull(filter);
+    } catch (NullPointerException e) {
+      throw new IllegalArgumentException("Filter cannot be null.");
+    }
+
+    //the grid itself is only validated here; the child class keeps
+    //it once its storage exists
+    if (grid != null) {
+      if (grid.length != height) {
+        throw new IllegalArgumentException("Given grid and sizes do not match.");
+      }
+      for (Pixel[] row : grid) {
+        if (row == null || row.length != width) {
+          throw new IllegalArgumentException("Given grid and sizes do not match.");
+        }
+        for (Pixel p : row) {
+          if (p == null) {
+            throw new IllegalArgumentException("Given grid cannot contain null values.");
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the packed ARGB colour at the given coordinate.
+   * @param row represents the row (y) of the colour
+   * @param col represents the column (x) of the colour
+   * @return the packed ARGB colour at (row, col)
+   */
+  protected abstract int getPacked(int row, int col);
+
+  @Override
+  public int getHeight() {
+    return height;
+  }
+
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  @Override
+  public Pixel[][] getGrid() {
+    Pixel[][] copy = new Pixel[height][width];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        copy[i][j] = PixelUtil.fromARGB(this.getPacked(i, j));
+      }
+    }
+    return copy;
+  }
+
+  /**
+   * Copies the packed ARGB colours of this Layer, row by row, into
+   * the given array, without creating any Pixels.
+   * @param colours represents the array to copy the colours into
+   * @throws IllegalArgumentException when the array is null or does
+   *     not have exactly one colour per coordinate of this Layer
+   */
+  public void copyPacked(int[] colours) throws IllegalArgumentException {
+    if (colours == null || colours.length != (long) height * width) {
+      throw new IllegalArgumentException("Given colours and sizes do not match.");
+    }
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        colours[i * width + j] = this.getPacked(i, j);
+      }
+    }
+  }
+
+  @Override
+  public FilterOption<Pixel> getFilter() {
+    return this.filter;
+  }
+
+  @Override
+  public String getFilterName() {
+    return this.filter.toString();
+  }
+
+  @Override
+  public void setFilter(FilterOption<Pixel> filter) {
+    try {
+      this.filter = Objects.requireNonNull(filter);
+    } catch (NullPointerException e) {
+      throw new IllegalArgumentException("filter cannot be null");
+    }
+  }
+
+  @Override
+  public Pixel[][] mergeDown(Pixel[][] top, Pixel[][] bgGrid, boolean applyFilter) {
+    //a null bottom is a fully transparent grid of this layer's size
+    int rows = bgGrid == null ? height : bgGrid.length;
+    int cols = bgGrid == null ? width : bgGrid[0].length;
+    //a null top is a fully transparent grid of this layer's size
+    int topRows = top == null ? height : top.length;
+    int topCols = top == null ? width : top[0].length;
+
+    Pixel[][] temp = new Pixel[rows][cols];
+    int[] topRow = new int[cols];
+    int[] row = new int[cols];
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < cols; j++) {
+        topRow[j] = PixelUtil.toARGB(this.orTransparent(
+                top == null || i >= topRows || j >= topCols ? null : top[i][j]));
+        row[j] = PixelUtil.toARGB(this.orTransparent(bgGrid == null ? null : bgGrid[i][j]));
+      }
+      if (applyFilter || i >= topRows) {
+        filter.applyToRow(topRow, row, row, 0, cols);
+      } else {
+        //the top does not extend past topCols; this matches
+        //AbstractLayer, which still applies the filter there
+        for (int j = 0; j < Math.min(topCols, cols); j++) {
+          row[j] = PixelUtil.computeColour(topRow[j], row[j]);
+        }
+        if (topCols < cols) {
+          filter.applyToRow(topRow, row, row, topCols, cols - topCols);
+        }
+      }
+      for (int j = 0; j < cols; j++) {
+        temp[i][j] = PixelUtil.fromARGB(row[j]);
+      }
+    }
+    return temp;
+  }
+
+  @Override
+  public Pixel[][] mergeDown(Pixel[][] bg) {
+    int rows = bg == null ? height : bg.length;
+    int cols = bg == null ? width : bg[0].length;
+
+    Pixel[][] temp = new Pixel[rows][cols];
+    int[] topRow = new int[cols];
+    int[] row = new int[cols];
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < cols; j++) {
+        topRow[j] = (i < height && j < width) ? this.getPacked(i, j) : 0;
+        row[j] = PixelUtil.toARGB(this.orTransparent(bg == null ? null : bg[i][j]));
+      }
+      filter.applyToRow(topRow, row, row, 0, cols);
+      for (int j = 0; j < cols; j++) {
+        temp[i][j] = PixelUtil.fromARGB(row[j]);
+      }
+    }
+    return temp;
+  }
+
+  /**
+   * Overlays this Layer, with its filter applied, over the given
+   * packed ARGB colours of the same size, stored row by row, which
+   * are overwritten with the result.  Unlike mergeDown, this creates
+   * no grid: the rows it works in are acquired from the given pool
+   * and released again.
+   *
+   * @param bottom represents the colours under this Layer
+   * @param pool represents the pool the rows are acquired from
+   * @throws IllegalArgumentException when the colours are null or do
+   *     not match the size of this Layer, or when the pool is null
+   */
+  public void mergeDownPacked(int[] bottom, ScratchPool pool) throws IllegalArgumentException {
+    this.mergeDownPacked(bottom, pool, 0, 0, width, height);
+  }
+
+  /**
+   * Overlays the given rectangle of this Layer, with its filter
+   * applied, over the same rectangle of the given packed ARGB colours
+   * of the same size as this Layer, stored row by row.  Only that
+   * rectangle of the colours is overwritten, which is all that
+   * changes when only that rectangle of a Layer below was changed.
+   *
+   * @param bottom represents the colours under this Layer
+   * @param pool represents the pool the rows are acquired from
+   * @param x represents the column of the top left corner
+   * @param y represents the row of the top left corner
+   * @param cols represents the number of columns of the rectangle
+   * @param rows represents the number of rows of the rectangle
+   * @throws IllegalArgumentException when the colours are null or do
+   *     not match the size of this Layer, when the pool is null, or
+   *     when the rectangle is not inside this Layer
+   */
+  public void mergeDownPacked(int[] bottom, ScratchPool pool, int x, int y, int cols, int rows)
+          throws IllegalArgumentException {
+    checkPacked(bottom, pool, height, width, x, y, cols, rows);
+    int[] topRow = pool.acquire(width);
+    int[] row = pool.acquire(width);
+    for (int i = y; i < y + rows; i++) {
+      for (int j = 0; j < cols; j++) {
+        topRow[j] = this.getPacked(i, x + j);
+      }
+      //applyToRow works on the same indices of every array
+      System.arraycopy(bottom, i * width + x, row, 0, cols);
+      filter.applyToRow(topRow, row, row, 0, cols);
+      System.arraycopy(row, 0, bottom, i * width + x, cols);
+    }
+    pool.release(row);
+    pool.release(topRow);
+  }
+
+  /**
+   * Overlays this Layer, with its filter applied, over the given
+   * packed Layer of the same size, which is overwritten with the
+   * result.  The colours of the given Layer are merged in a buffer
+   * acquired from the given pool through mergeDownPacked, so this
+   * Layer is never copied into the storage of the given one.
+   *
+   * @param bottom represents the Layer under this Layer
+   * @param pool represents the pool the colours are acquired from
+   * @throws IllegalArgumentException when the given Layer is null
+   *     or does not match the size of this Layer, or when the pool
+   *     is null
+   */
+  public void mergeDownPacked(AbstractPackedLayer bottom, ScratchPool pool)
+          throws IllegalArgumentException {
+    if (bottom == null || pool == null || bottom.height != height || bottom.width != width) {
+      throw new IllegalArgumentException("Given layer and sizes do not match.");
+    }
+    int[] colours = pool.acquire(height * width);
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        colours[i * width + j] = bottom.getPacked(i, j);
+      }
+    }
+    this.mergeDownPacked(colours, pool);
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        bottom.setPacked(i, j, colours[i * width + j]);
+      }
+    }
+    pool.release(colours);
+  }
+
+  //makes sure the given colours are height * width long, that the
+  //given pool exists, and that the given rectangle is inside the
+  //layer; shared with LayerPixelImpl
+  static void checkPacked(int[] bottom, ScratchPool pool, int height, int width,
+                          int x, int y, int cols, int rows) {
+    if (bottom == null || pool == null || bottom.length != (long) height * width) {
+      throw new IllegalArgumentException("Given colours and sizes do not match.");
+    }
+    if (x < 0 || y < 0 || cols < 0 || rows < 0 || x + cols > width || y + rows > height) {
+      throw new IllegalArgumentException("Given rectangle is outside of the layer.");
+    }
+  }
+
+  //replaces null colours with this layer's transparent colour
+  protected Pixel orTransparent(Pixel p) {
+    return p == null ? transparent : p;
+  }
+
+  /**
+   * The toProjString method in this case represents the layer's
+   * project format as a String.  This is the same format as the
+   * one produced by AbstractLayer.
+   */
+  @Override
+  public String toProjString() {
+    //each pixel takes at most 16 characters ("255 255 255 255 ")
+    StringBuilder temp = new StringBuilder(16 * height * width + 16);
+
+    //appends the filterName to the StringBuilder
+    temp.append(filter.toString()).append("\n");
+
+    //appends each coordinates' String representation
+    //from left to right, top to bottom
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        int argb = this.getPacked(i, j);
+        if ((argb >>> 24) == 0) {
+          //see AbstractPixel.toProjString
+          temp.append("0 0 0 0 ");
+        } else {
+          temp.append((argb >> 16) & 0xFF).append(' ')
+                  .append((argb >> 8) & 0xFF).append(' ')
+                  .append(argb & 0xFF).append(' ')
+                  .append(argb >>> 24).append(' ');
+        }
+      }
+    }
+    return temp.toString();
+  }
+}
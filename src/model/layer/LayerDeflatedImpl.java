@@ -0,0 +1,307 @@
+package model.layer;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import model.filter.option.FilterOption;
+import model.pixel.Pixel;
+import model.pixel.RGBARaster;
+import model.utils.PixelUtil;
+
+/**
+ * Represents a Layer of Pixels whose colours are kept deflated (see
+ * java.util.zip.Deflater), as the bytes of an RGBARaster, for Layers
+ * that are not being worked on.  The colours are inflated again
+ * whenever they are needed: reading the grid, merging, or writing
+ * the project String inflates them only for that call, while adding
+ * an image inflates them for good into a Layer of the storage mode
+ * this Layer was made from.
+ *
+ * <p>Only storage modes that store colours exactly (every mode but
+ * PREMULTIPLIED and PLANAR) can be deflated, so that restore gives
+ * back exactly the same colours.</p>
+ */
+public class LayerDeflatedImpl implements Layer<Pixel> {
+  private final int height;
+  private final int width;
+  private final LayerStorage storage;
+  private FilterOption<Pixel> filter;
+  //the deflated bytes, until an image is added
+  private byte[] deflated;
+  //the restored layer, once an image is added
+  private Layer<Pixel> live;
+
+  /**
+   * Represents a deflated copy of the given Layer, which is restored
+   * as a Layer of the given storage mode.
+   * @param layer represents the Layer to deflate
+   * @param storage represents the storage mode to restore it as
+   * @throws IllegalArgumentException when either is null, or when
+   *     the storage mode does not store colours exactly
+   */
+  public LayerDeflatedImpl(Layer<Pixel> layer, LayerStorage storage)
+          throws IllegalArgumentException {
+    try {
+      Objects.requireNonNull(layer);
+      this.storage = Objects.requireNonNull(storage);
+    } catch (NullPointerException e) {
+      throw new IllegalArgumentException("Given layer and storage cannot be null.");
+    }
+    if (storage == LayerStorage.PREMULTIPLIED || storage == LayerStorage.PLANAR) {
+      throw new IllegalArgumentException("Given storage does not store colours exactly.");
+    }
+    this.height = layer.getHeight();
+    this.width = layer.getWidth();
+    this.filter = layer.getFilter();
+    this.deflated = deflate(layer);
+  }
+
+  //deflates the colours of the given layer a row at a time, as the
+  //red, green, blue, and alpha bytes of RGBARaster
+  private static byte[] deflate(Layer<Pixel> layer) {
+    int height = layer.getHeight();
+    int width = layer.getWidth();
+    //layers that cannot be read one colour at a time are copied
+    Pixel[][] grid = layer instanceof AbstractReadOnlyPackedLayer || layer instanceof LayerPixelImpl
+            ? null : layer.getGrid();
+
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] row = new byte[width * RGBARaster.BYTES_PER_PIXEL];
+    byte[] buffer = new byte[8192];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        int argb;
+        if (grid != null) {
+          argb = PixelUtil.toARGB(grid[i][j]);
+        } else if (layer instanceof AbstractReadOnlyPackedLayer) {
+          argb = ((AbstractReadOnlyPackedLayer) layer).getPacked(i, j);
+        } else {
+          LayerPixelImpl pixels = (LayerPixelImpl) layer;
+          argb = pixels.toARGB(pixels.grid[i][j]);
+        }
+        int index = j * RGBARaster.BYTES_PER_PIXEL;
+        row[index] = (byte) (argb >> 16);
+        row[index + 1] = (byte) (argb >> 8);
+        row[index + 2] = (byte) argb;
+        row[index + 3] = (byte) (argb >>> 24);
+      }
+      deflater.setInput(row);
+      while (!deflater.needsInput()) {
+        out.write(buffer, 0, deflater.deflate(buffer));
+      }
+    }
+    deflater.finish();
+    while (!deflater.finished()) {
+      out.write(buffer, 0, deflater.deflate(buffer));
+    }
+    deflater.end();
+    return out.toByteArray();
+  }
+
+  //inflates the colours of this layer
+  private RGBARaster inflate() {
+    byte[] data = new byte[Math.multiplyExact(Math.multiplyExact(height, width),
+            RGBARaster.BYTES_PER_PIXEL)];
+    Inflater inflater = new Inflater();
+    inflater.setInput(deflated);
+    try {
+      int read = 0;
+      while (read < data.length && !inflater.finished()) {
+        read += inflater.inflate(data, read, data.length - read);
+      }
+    } catch (DataFormatException e) {
+      //only this class writes the bytes
+      throw new IllegalStateException("Deflated layer is corrupt: " + e.getMessage());
+    } finally {
+      inflater.end();
+    }
+    return RGBARaster.wrap(height, width, data);
+  }
+
+  /**
+   * Overlays the given rectangle of this Layer, with its filter
+   * applied, over the same rectangle of the given packed ARGB colours
+   * of the same size as this Layer, stored row by row, exactly like
+   * AbstractReadOnlyPackedLayer.mergeDownPacked.
+   *
+   * <p>While deflated, the colours are inflated a row at a time
+   * straight into rows acquired from the given pool, so this Layer
+   * is never restored and no grid is made.</p>
+   *
+   * @param bottom represents the colours under this Layer
+   * @param pool represents the pool the rows are acquired from
+   * @param x represents the column of the top left corner
+   * @param y represents the row of the top left corner
+   * @param cols represents the number of columns of the rectangle
+   * @param rows represents the number of rows of the rectangle
+   * @throws IllegalArgumentException when the colours are null or do
+   *     not match the size of this Layer, when the pool is null, or
+   *     when the rectangle is not inside this Layer
+   */
+  public void mergeDownPacked(int[] bottom, ScratchPool pool, int x, int y, int cols, int rows)
+          throws IllegalArgumentException {
+    AbstractReadOnlyPackedLayer.checkPacked(bottom, pool, height, width, x, y, cols, rows);
+    if (live instanceof AbstractReadOnlyPackedLayer) {
+      ((AbstractReadOnlyPackedLayer) live).mergeDownPacked(bottom, pool, x, y, cols, rows);
+      return;
+    }
+    if (live instanceof LayerPixelImpl) {
+      ((LayerPixelImpl) live).mergeDownPacked(bottom, pool, x, y, cols, rows);
+      return;
+    }
+
+    //every exact storage mode is one of the above once restored
+    int[] topRow = pool.acquire(width);
+    int[] row = pool.acquire(width);
+    byte[] bytes = new byte[width * RGBARaster.BYTES_PER_PIXEL];
+    Inflater inflater = new Inflater();
+    inflater.setInput(deflated);
+    try {
+      //the rows are deflated one after the other, so the rows above
+      //the rectangle are inflated too, but not merged
+      for (int i = 0; i < y + rows; i++) {
+        int read = 0;
+        while (read < bytes.length && !inflater.finished()) {
+          read += inflater.inflate(bytes, read, bytes.length - read);
+        }
+        if (i < y) {
+          continue;
+        }
+        for (int j = 0; j < cols; j++) {
+          int index = (x + j) * RGBARaster.BYTES_PER_PIXEL;
+          int alpha = bytes[index + 3] & 0xFF;
+          //see RGBARaster.getARGB
+          topRow[j] = alpha == 0 ? 0 : (alpha << 24)
+                  | ((bytes[index] & 0xFF) << 16)
+                  | ((bytes[index + 1] & 0xFF) << 8)
+                  | (bytes[index + 2] & 0xFF);
+        }
+        //applyToRow works on the same indices of every array
+        System.arraycopy(bottom, i * width + x, row, 0, cols);
+        filter.applyToRow(topRow, row, row, 0, cols);
+        System.arraycopy(row, 0, bottom, i * width + x, cols);
+      }
+    } catch (DataFormatException e) {
+      //only this class writes the bytes
+      throw new IllegalStateException("Deflated layer is corrupt: " + e.getMessage());
+    } finally {
+      inflater.end();
+      pool.release(row);
+      pool.release(topRow);
+    }
+  }
+
+  /**
+   * Returns a new Layer of the storage mode this Layer was made from,
+   * holding the same colours and filter.
+   * @return the restored Layer
+   */
+  public Layer<Pixel> restore() {
+    if (live != null) {
+      return live;
+    }
+    Layer<Pixel> layer = storage.create(height, width);
+    layer.setFilter(filter);
+    RGBARaster raster = this.inflate();
+    if (layer instanceof LayerRasterImpl) {
+      ((LayerRasterImpl) layer).addImage(raster, 0, 0);
+    } else {
+      //overlaying colours over a fully transparent layer gives
+      //exactly the same colours
+      layer.addImage(raster.toGrid(), 0, 0);
+    }
+    return layer;
+  }
+
+  /**
+   * Returns whether the colours of this Layer are still deflated.
+   * @return true if this Layer is deflated
+   */
+  public boolean isDeflated() {
+    return live == null;
+  }
+
+  /**
+   * Returns the number of bytes the colours of this Layer take when
+   * not deflated: four per coordinate.
+   * @return the number of raw bytes of this Layer
+   */
+  public long getRawBytes() {
+    return (long) height * width * RGBARaster.BYTES_PER_PIXEL;
+  }
+
+  /**
+   * Returns the number of bytes the deflated colours of this Layer
+   * take, or the raw number of bytes once restored for good.
+   * @return the number of deflated bytes of this Layer
+   */
+  public long getDeflatedBytes() {
+    return live == null ? deflated.length : this.getRawBytes();
+  }
+
+  @Override
+  public int getHeight() {
+    return height;
+  }
+
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  @Override
+  public Pixel[][] getGrid() {
+    return live == null ? this.inflate().toGrid() : live.getGrid();
+  }
+
+  @Override
+  public String getFilterName() {
+    return this.getFilter().toString();
+  }
+
+  @Override
+  public FilterOption<Pixel> getFilter() {
+    return live == null ? filter : live.getFilter();
+  }
+
+  @Override
+  public void setFilter(FilterOption<Pixel> filter) {
+    if (live != null) {
+      live.setFilter(filter);
+      return;
+    }
+    try {
+      this.filter = Objects.requireNonNull(filter);
+    } catch (NullPointerException e) {
+      throw new IllegalArgumentException("filter cannot be null");
+    }
+  }
+
+  @Override
+  public Pixel[][] mergeDown(Pixel[][] top, Pixel[][] bgGrid, boolean applyFilter) {
+    return this.restore().mergeDown(top, bgGrid, applyFilter);
+  }
+
+  @Override
+  public Pixel[][] mergeDown(Pixel[][] bg) {
+    return this.restore().mergeDown(bg);
+  }
+
+  @Override
+  public void addImage(Pixel[][] image, int x, int y) {
+    if (live == null) {
+      live = this.restore();
+      deflated = null;
+    }
+    live.addImage(image, x, y);
+  }
+
+  @Override
+  public String toProjString() {
+    return this.restore().toProjString();
+  }
+}
@@ -0,0 +1,211 @@
+package model.layer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+import model.filter.option.FilterOption;
+import model.filter.option.NormalFilter;
+import model.pixel.Pixel;
+
+/**
+ * Represents a Layer of Pixels kept in a temporary file rather than
+ * on the heap, for canvases too large to hold in memory.  The file is
+ * split into square tiles of TILE_SIZE-by-TILE_SIZE packed ARGB
+ * integers (see PixelUtil.toARGB), like LayerTiledImpl, and mapped
+ * into memory a band of tiles at a time through FileChannel.map, so
+ * the operating system decides which parts stay in memory.
+ *
+ * <p>The file is deleted as soon as it is mapped where the operating
+ * system allows it, and otherwise by close or when the JVM exits.  A
+ * Layer must not be used after it is closed.  Tiles never written to
+ * take no space on file systems that support sparse files, and
+ * mergeDownMapped skips them.  It produces identical grids, merges,
+ * and project Strings to LayerPixelImpl.</p>
+ */
+public class LayerMappedImpl extends AbstractPackedLayer implements Closeable {
+  /**
+   * Represents the height and width of every tile.
+   */
+  public static final int TILE_SIZE = 64;
+  //TILE_SIZE is 1 << TILE_SHIFT
+  private static final int TILE_SHIFT = 6;
+  private static final int TILE_MASK = TILE_SIZE - 1;
+  private static final int TILE_AREA = TILE_SIZE * TILE_SIZE;
+
+  private final int tilesDown;
+  private final int tilesAcross;
+  //bands[tileRow] maps the tiles of one row of tiles, one after the
+  //other, each row by row with a stride of TILE_SIZE
+  private IntBuffer[] bands;
+  //the tiles that have been written to, by tileRow * tilesAcross + tileCol
+  private final BitSet written;
+  private Path file;
+  //one row of a tile from this layer and the layer under it
+  private final int[] topRow;
+  private final int[] bottomRow;
+
+  /**
+   * Represents a convenience constructor for the most basic Layer:
+   * a height-by-width fully transparent Layer with a NormalFilter.
+   *
+   * @param height represents the height of this Layer
+   * @param width represents the width of this Layer
+   * @throws IllegalArgumentException when the height or width of
+   *     the Layer is not positive.
+   * @throws IllegalStateException when the file of this Layer cannot
+   *     be made
+   */
+  public LayerMappedImpl(int height, int width)
+          throws IllegalArgumentException, IllegalStateException {
+    this(height,width,null,new NormalFilter());
+  }
+
+  /**
+   * Represents the full constructor for a mapped Layer.  A null grid
+   * produces a fully transparent Layer; otherwise the given grid is
+   * copied into this Layer.
+   *
+   * @param height represents the height of this Layer
+   * @param width represents the width of this Layer
+   * @param grid represents the base grid of Colors on this Layer
+   * @param filter represents the filter applied on this Layer
+   * @throws IllegalArgumentException when the height or width of
+   *     the Layer is not positive, when the grid is malformed, or
+   *     when the filter is null.
+   * @throws IllegalStateException when the file of this Layer cannot
+   *     be made
+   */
+  public LayerMappedImpl(int height, int width, Pixel[][] grid, FilterOption<Pixel> filter)
+          throws IllegalArgumentException, IllegalStateException {
+    super(height,width,grid,filter);
+    this.tilesDown = (height + TILE_MASK) >> TILE_SHIFT;
+    this.tilesAcross = (width + TILE_MASK) >> TILE_SHIFT;
+    this.written = new BitSet();
+    this.topRow = new int[TILE_SIZE];
+    this.bottomRow = new int[TILE_SIZE];
+    this.bands = new IntBuffer[tilesDown];
+
+    long bandBytes = 4L * TILE_AREA * tilesAcross;
+    if (bandBytes > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Width is too large for a mapped layer.");
+    }
+    try {
+      this.file = Files.createTempFile("collage", ".layer");
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+              StandardOpenOption.WRITE)) {
+        for (int i = 0; i < tilesDown; i++) {
+          //mapping past the end of the file grows it, sparsely
+          bands[i] = channel.map(FileChannel.MapMode.READ_WRITE, i * bandBytes, bandBytes)
+                  .order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+      }
+    } catch (IOException e) {
+      this.close();
+      throw new IllegalStateException("Could not create layer file: " + e.getMessage());
+    }
+    //the mappings stay valid once the file is gone, where the
+    //operating system allows deleting it
+    try {
+      Files.delete(file);
+      file = null;
+    } catch (IOException e) {
+      file.toFile().deleteOnExit();
+    }
+    this.initPacked(grid);
+  }
+
+  @Override
+  protected int getPacked(int row, int col) {
+    return bands[row >> TILE_SHIFT].get(((col >> TILE_SHIFT) << (2 * TILE_SHIFT))
+            | ((row & TILE_MASK) << TILE_SHIFT) | (col & TILE_MASK));
+  }
+
+  @Override
+  protected void setPacked(int row, int col, int argb) {
+    int tile = (row >> TILE_SHIFT) * tilesAcross + (col >> TILE_SHIFT);
+    if (!written.get(tile)) {
+      if (argb == 0) {
+        //already transparent; the tile is not touched
+        return;
+      }
+      written.set(tile);
+    }
+    bands[row >> TILE_SHIFT].put(((col >> TILE_SHIFT) << (2 * TILE_SHIFT))
+            | ((row & TILE_MASK) << TILE_SHIFT) | (col & TILE_MASK), argb);
+  }
+
+  /**
+   * Returns the number of tiles that have been written to.
+   * @return the number of written tiles
+   */
+  public int getWrittenTileCount() {
+    return written.cardinality();
+  }
+
+  /**
+   * Overlays this Layer, with its filter applied, over the given
+   * mapped Layer, which is overwritten with the result, a tile row at
+   * a time.  Both Layers must have the same height and width.
+   *
+   * <p>Only the tiles of this Layer that were written to are read,
+   * which relies on every filter leaving the bottom colour as it is
+   * under a fully transparent top (see
+   * LayerTiledImpl.mergeDownTiled).</p>
+   *
+   * @param bottom represents the Layer under this Layer
+   * @throws IllegalArgumentException when the given Layer is null
+   *     or does not match the size of this Layer
+   */
+  public void mergeDownMapped(LayerMappedImpl bottom) throws IllegalArgumentException {
+    if (bottom == null || bottom.height != height || bottom.width != width) {
+      throw new IllegalArgumentException("Given layer and sizes do not match.");
+    }
+
+    for (int tile = written.nextSetBit(0); tile >= 0; tile = written.nextSetBit(tile + 1)) {
+      int tileRow = tile / tilesAcross;
+      int tileCol = tile % tilesAcross;
+      //the edge tiles are only partly inside the layer
+      int rows = Math.min(TILE_SIZE, height - (tileRow << TILE_SHIFT));
+      int cols = Math.min(TILE_SIZE, width - (tileCol << TILE_SHIFT));
+      IntBuffer top = bands[tileRow];
+      IntBuffer under = bottom.bands[tileRow];
+      for (int i = 0; i < rows; i++) {
+        int index = (tileCol << (2 * TILE_SHIFT)) | (i << TILE_SHIFT);
+        top.position(index);
+        top.get(topRow, 0, cols);
+        under.position(index);
+        under.get(bottomRow, 0, cols);
+        filter.applyToRow(topRow, bottomRow, bottomRow, 0, cols);
+        under.position(index);
+        under.put(bottomRow, 0, cols);
+      }
+      bottom.written.set(tile);
+    }
+  }
+
+  /**
+   * Releases the memory mappings of this Layer and deletes its file,
+   * if it was not deleted already.  This Layer cannot be used
+   * afterwards.
+   */
+  @Override
+  public void close() {
+    //the mappings are released once they are no longer reachable
+    bands = null;
+    if (file != null) {
+      try {
+        Files.deleteIfExists(file);
+        file = null;
+      } catch (IOException e) {
+        //still deleted when the JVM exits
+      }
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package model.layer;
+
+import model.filter.option.FilterOption;
+import model.filter.option.NormalFilter;
+import model.pixel.Pixel;
+
+/**
+ * Represents a Layer of Pixels backed by a single array of packed
+ * ARGB integers, one per coordinate, stored row by row.  Each
+ * coordinate costs four bytes instead of a Pixel object and its
+ * reference in a Pixel[][], which makes this Layer far cheaper to
+ * hold for large canvases than LayerPixelImpl.  The two Layers
+ * produce identical grids, merges, and project Strings.
+ */
+public class LayerPackedImpl extends AbstractPackedLayer {
+  private final int[] argb;
+
+  /**
+   * Represents a convenience constructor for the most basic Layer:
+   * a height-by-width fully transparent Layer with a NormalFilter.
+   *
+   * @param height represents the height of this Layer
+   * @param width represents the width of this Layer
+   * @throws IllegalArgumentException when the height or width of
+   *     the Layer is not positive.
+   */
+  public LayerPackedImpl(int height, int width) throws IllegalArgumentException {
+    this(height,width,null,new NormalFilter());
+  }
+
+  /**
+   * Represents the full constructor for a packed Layer.  A null
+   * grid produces a fully transparent Layer; otherwise the given
+   * grid is copied into this Layer.
+   *
+   * @param height represents the height of this Layer
+   * @param width represents the width of this Layer
+   * @param grid represents the base grid of Colors on this Layer
+   * @param filter represents the filter applied on this Layer
+   * @throws IllegalArgumentException when the height or width of
+   *     the Layer is not positive, when the grid is malformed, or
+   *     when the filter is null.
+   */
+  public LayerPackedImpl(int height, int width, Pixel[][] grid, FilterOption<Pixel> filter)
+          throws IllegalArgumentException {
+    super(height,width,grid,filter);
+    this.argb = new int[Math.multiplyExact(height,width)];
+    this.initPacked(grid);
+  }
+
+  @Override
+  protected int getPacked(int row, int col) {
+    return argb[row * width + col];
+  }
+
+  @Override
+  protected void setPacked(int row, int col, int argb) {
+    this.argb[row * width + col] = argb;
+  }
+
+  @Override
+  public void mergeDownPacked(int[] bottom, ScratchPool pool, int x, int y, int cols, int rows)
+          throws IllegalArgumentException {
+    checkPacked(bottom, pool, height, width, x, y, cols, rows);
+    //the colours are already stored row by row, so no rows are needed
+    for (int i = y; i < y + rows; i++) {
+      filter.applyToRow(argb, bottom, bottom, i * width + x, cols);
+    }
+  }
+}
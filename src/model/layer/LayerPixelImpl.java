@@ -60,7 +60,7 @@ public class LayerPixelImpl extends AbstractLayer<Pixel> {
    */
   public LayerPixelImpl(int height,int width, Pixel[][] grid,FilterOption<Pixel> filter)
           throws IllegalArgumentException {
-    super(height,width,grid,filter,new RGBPixel(255,255,255,0));
+    super(height,width,grid,filter,RGBPixel.of(255,255,255,0));
   }
 
   @Override
@@ -73,9 +73,65 @@ public class LayerPixelImpl extends AbstractLayer<Pixel> {
     return p.toProjString();
   }
 
+  @Override
+  protected int toARGB(Pixel p) {
+    return PixelUtil.toARGB(p);
+  }
+
+  @Override
+  protected Pixel fromARGB(int argb) {
+    return PixelUtil.fromARGB(argb);
+  }
+
   @Override
   protected Pixel computeOverlay(Pixel top,Pixel bottom) {
     return PixelUtil.computeColour(top,bottom);
   }
 
+  /**
+   * Overlays this Layer, with its filter applied, over the given
+   * packed ARGB colours of the same size, stored row by row, which
+   * are overwritten with the result, exactly like
+   * AbstractReadOnlyPackedLayer.mergeDownPacked.
+   *
+   * @param bottom represents the colours under this Layer
+   * @param pool represents the pool the rows are acquired from
+   * @throws IllegalArgumentException when the colours are null or do
+   *     not match the size of this Layer, or when the pool is null
+   */
+  public void mergeDownPacked(int[] bottom, ScratchPool pool) throws IllegalArgumentException {
+    this.mergeDownPacked(bottom, pool, 0, 0, width, height);
+  }
+
+  /**
+   * Overlays the given rectangle of this Layer, with its filter
+   * applied, over the same rectangle of the given packed ARGB
+   * colours, exactly like the same method of AbstractReadOnlyPackedLayer.
+   *
+   * @param bottom represents the colours under this Layer
+   * @param pool represents the pool the rows are acquired from
+   * @param x represents the column of the top left corner
+   * @param y represents the row of the top left corner
+   * @param cols represents the number of columns of the rectangle
+   * @param rows represents the number of rows of the rectangle
+   * @throws IllegalArgumentException when the colours are null or do
+   *     not match the size of this Layer, when the pool is null, or
+   *     when the rectangle is not inside this Layer
+   */
+  public void mergeDownPacked(int[] bottom, ScratchPool pool, int x, int y, int cols, int rows)
+          throws IllegalArgumentException {
+    AbstractReadOnlyPackedLayer.checkPacked(bottom, pool, height, width, x, y, cols, rows);
+    int[] topRow = pool.acquire(width);
+    int[] row = pool.acquire(width);
+    for (int i = y; i < y + rows; i++) {
+      for (int j = 0; j < cols; j++) {
+        topRow[j] = this.toARGB(grid[i][x + j]);
+      }
+      System.arraycopy(bottom, i * width + x, row, 0, cols);
+      filter.applyToRow(topRow, row, row, 0, cols);
+      System.arraycopy(row, 0, bottom, i * width + x, cols);
+    }
+    pool.release(row);
+    pool.release(topRow);
+  }
 }
@@ -0,0 +1,195 @@
+package model.layer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import model.filter.option.FilterOption;
+import model.filter.option.NormalFilter;
+import model.pixel.Pixel;
+import model.pixel.RGBARaster;
+import model.utils.PixelUtil;
+
+/**
+ * Represents a Layer of Pixels that keeps the images added to it
+ * instead of drawing them: an ordered list of placements, each an
+ * RGBARaster and the coordinate of its top left corner.  Colours
+ * are only composited when they are read, by overlaying every
+ * placement that covers a coordinate in the order they were added,
+ * which gives exactly the colours the images would have been drawn
+ * with.
+ *
+ * <p>This Layer takes memory in proportion to its images rather
+ * than to its size, keeps the parts of images that hang off its
+ * edges, and can move a placement without drawing anything again
+ * (see movePlacement).  It produces identical grids, merges, and
+ * project Strings to LayerPixelImpl.</p>
+ *
+ * <p>Colours are read fastest row by row, from the top; the
+ * placements that cover the last row read are remembered.</p>
+ */
+public class LayerPlacedImpl extends AbstractReadOnlyPackedLayer {
+  private final List<Placement> placements;
+  //the row the placements in rowPlacements cover, or -1
+  private int cachedRow;
+  private final List<Placement> rowPlacements;
+
+  /**
+   * Represents an image placed on a LayerPlacedImpl, which cannot
+   * be changed once made.
+   */
+  public static final class Placement {
+    private final RGBARaster image;
+    private final int x;
+    private final int y;
+
+    private Placement(RGBARaster image, int x, int y) {
+      this.image = image;
+      this.x = x;
+      this.y = y;
+    }
+
+    /**
+     * Returns the image of this placement.
+     * @return the image of this placement
+     */
+    public RGBARaster getImage() {
+      return image;
+    }
+
+    /**
+     * Returns the column of the top left corner of the image.
+     * @return the column of the image
+     */
+    public int getX() {
+      return x;
+    }
+
+    /**
+     * Returns the row of the top left corner of the image.
+     * @return the row of the image
+     */
+    public int getY() {
+      return y;
+    }
+  }
+
+  /**
+   * Represents a convenience constructor for the most basic Layer:
+   * a height-by-width fully transparent Layer with a NormalFilter.
+   *
+   * @param height represents the height of this Layer
+   * @param width represents the width of this Layer
+   * @throws IllegalArgumentException when the height or width of
+   *     the Layer is not positive.
+   */
+  public LayerPlacedImpl(int height, int width) throws IllegalArgumentException {
+    this(height,width,null,new NormalFilter());
+  }
+
+  /**
+   * Represents the full constructor for a placed Layer.  A null grid
+   * produces a fully transparent Layer with no placements; otherwise
+   * the given grid becomes the first placement, at (0, 0).
+   *
+   * @param height represents the height of this Layer
+   * @param width represents the width of this Layer
+   * @param grid represents the base grid of Colors on this Layer
+   * @param filter represents the filter applied on this Layer
+   * @throws IllegalArgumentException when the height or width of
+   *     the Layer is not positive, when the grid is malformed, or
+   *     when the filter is null.
+   */
+  public LayerPlacedImpl(int height, int width, Pixel[][] grid, FilterOption<Pixel> filter)
+          throws IllegalArgumentException {
+    super(height,width,grid,filter);
+    this.placements = new ArrayList<>();
+    this.rowPlacements = new ArrayList<>();
+    this.cachedRow = -1;
+    if (grid != null) {
+      this.addImage(RGBARaster.fromGrid(grid), 0, 0);
+    }
+  }
+
+  @Override
+  protected int getPacked(int row, int col) {
+    if (row != cachedRow) {
+      rowPlacements.clear();
+      for (Placement placement : placements) {
+        if (row >= placement.y && row - placement.y < placement.image.getHeight()) {
+          rowPlacements.add(placement);
+        }
+      }
+      cachedRow = row;
+    }
+
+    //overlays every placement covering (row, col) in order,
+    //starting from transparent
+    int argb = 0;
+    for (Placement placement : rowPlacements) {
+      if (col >= placement.x && col - placement.x < placement.image.getWidth()) {
+        argb = PixelUtil.computeColour(
+                placement.image.getARGB(row - placement.y, col - placement.x), argb);
+      }
+    }
+    return argb;
+  }
+
+  @Override
+  public void addImage(Pixel[][] image, int x, int y) {
+    //an image with no colours does not change this layer
+    for (Pixel[] row : image) {
+      if (row.length > 0) {
+        this.addImage(RGBARaster.fromImage(image), x, y);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Places the given image over this Layer with its top left corner
+   * at (x, y).  The image is kept, not copied, so it must not be
+   * changed afterwards; it may be shared with other Layers.
+   * @param image represents the image to place
+   * @param x represents the column of the top left corner
+   * @param y represents the row of the top left corner
+   * @throws IllegalArgumentException when the image is null
+   */
+  public void addImage(RGBARaster image, int x, int y) throws IllegalArgumentException {
+    try {
+      placements.add(new Placement(Objects.requireNonNull(image), x, y));
+    } catch (NullPointerException e) {
+      throw new IllegalArgumentException("Given image cannot be null.");
+    }
+    cachedRow = -1;
+  }
+
+  /**
+   * Moves the placement at the given index so its top left corner
+   * is at (x, y).  Nothing is drawn again; the placement keeps its
+   * place in the order.
+   * @param index represents the index of the placement, in the
+   *     order the images were added
+   * @param x represents the new column of the top left corner
+   * @param y represents the new row of the top left corner
+   * @throws IllegalArgumentException when there is no placement
+   *     at the given index
+   */
+  public void movePlacement(int index, int x, int y) throws IllegalArgumentException {
+    if (index < 0 || index >= placements.size()) {
+      throw new IllegalArgumentException("No placement at the given index.");
+    }
+    placements.set(index, new Placement(placements.get(index).image, x, y));
+    cachedRow = -1;
+  }
+
+  /**
+   * Returns the placements of this Layer, in the order the images
+   * were added.
+   * @return an unmodifiable view of the placements of this Layer
+   */
+  public List<Placement> getPlacements() {
+    return Collections.unmodifiableList(placements);
+  }
+}
@@ -0,0 +1,322 @@
+package model.layer;
+
+import model.filter.option.FilterOption;
+import model.filter.option.MemoizedFilter;
+import model.filter.option.NormalFilter;
+import model.filter.option.blend.Difference;
+import model.filter.option.brightness.BrightenIntensity;
+import model.filter.option.brightness.BrightenLuma;
+import model.filter.option.brightness.BrightenValue;
+import model.filter.option.brightness.DarkenIntensity;
+import model.filter.option.brightness.DarkenLuma;
+import model.filter.option.brightness.DarkenValue;
+import model.filter.option.colour.components.BlueComponent;
+import model.filter.option.colour.components.GreenComponent;
+import model.filter.option.colour.components.RedComponent;
+import model.pixel.Pixel;
+import model.utils.PixelUtil;
+
+/**
+ * Represents a Layer of Pixels stored as four separate planes of
+ * floats: one each for the red, green, blue, and alpha of every
+ * coordinate, on the usual 0-to-255 scale and stored row by row.
+ *
+ * <p>Keeping every channel in its own array lets a whole row be
+ * composited with plain loops over float arrays, which the JIT can
+ * turn into SIMD instructions.  The normal, component, brightness,
+ * and difference filters are computed that way; the remaining
+ * filters fall back to their packed row form (applyToRow).</p>
+ *
+ * <p>Colours are kept unrounded between merges and only rounded
+ * when they leave this Layer, so its results may differ from
+ * LayerPixelImpl by a value or two.</p>
+ */
+public class LayerPlanarImpl extends AbstractPackedLayer {
+  private static final float INV_255 = 1f / 255f;
+
+  private final float[] red;
+  private final float[] green;
+  private final float[] blue;
+  private final float[] alpha;
+
+  /**
+   * Represents a convenience constructor for the most basic Layer:
+   * a height-by-width fully transparent Layer with a NormalFilter.
+   *
+   * @param height represents the height of this Layer
+   * @param width represents the width of this Layer
+   * @throws IllegalArgumentException when the height or width of
+   *     the Layer is not positive.
+   */
+  public LayerPlanarImpl(int height, int width) throws IllegalArgumentException {
+    this(height,width,null,new NormalFilter());
+  }
+
+  /**
+   * Represents the full constructor for a planar Layer.  A null
+   * grid produces a fully transparent Layer; otherwise the given
+   * grid is copied into this Layer.
+   *
+   * @param height represents the height of this Layer
+   * @param width represents the width of this Layer
+   * @param grid represents the base grid of Colors on this Layer
+   * @param filter represents the filter applied on this Layer
+   * @throws IllegalArgumentException when the height or width of
+   *     the Layer is not positive, when the grid is malformed, or
+   *     when the filter is null.
+   */
+  public LayerPlanarImpl(int height, int width, Pixel[][] grid, FilterOption<Pixel> filter)
+          throws IllegalArgumentException {
+    super(height,width,grid,filter);
+    int size = Math.multiplyExact(height,width);
+    this.red = new float[size];
+    this.green = new float[size];
+    this.blue = new float[size];
+    this.alpha = new float[size];
+    this.initPacked(grid);
+  }
+
+  @Override
+  protected int getPacked(int row, int col) {
+    int index = row * width + col;
+    int a = Math.round(alpha[index]);
+    if (a == 0) {
+      return 0;
+    }
+    return (a << 24)
+            | (Math.round(red[index]) << 16)
+            | (Math.round(green[index]) << 8)
+            | Math.round(blue[index]);
+  }
+
+  @Override
+  protected void setPacked(int row, int col, int argb) {
+    int index = row * width + col;
+    red[index] = (argb >> 16) & 0xFF;
+    green[index] = (argb >> 8) & 0xFF;
+    blue[index] = argb & 0xFF;
+    alpha[index] = argb >>> 24;
+  }
+
+  @Override
+  public void addImage(Pixel[][] image, int x, int y) {
+    this.addImage(image, x, y, new ScratchPool());
+  }
+
+  /**
+   * Adds the given image onto this Layer like addImage, unpacking it
+   * a row at a time into rows acquired from the given pool.
+   * @param image represents the image to add onto this Layer
+   * @param x represents the column of the left of the image
+   * @param y represents the row of the top of the image
+   * @param pool represents the pool the rows are acquired from
+   * @throws IllegalArgumentException when the pool is null
+   */
+  public void addImage(Pixel[][] image, int x, int y, ScratchPool pool)
+          throws IllegalArgumentException {
+    if (pool == null) {
+      throw new IllegalArgumentException("Given pool cannot be null.");
+    }
+
+    //same clipping as AbstractPackedLayer; each clipped row of the
+    //image is unpacked into planes and overlaid in one go
+    int firstRow = Math.max(0, y);
+    int lastRow = Math.min(height, y + image.length);
+    float[] topRed = pool.acquireFloats(width);
+    float[] topGreen = pool.acquireFloats(width);
+    float[] topBlue = pool.acquireFloats(width);
+    float[] topAlpha = pool.acquireFloats(width);
+    for (int i = firstRow; i < lastRow; i++) {
+      Pixel[] imageRow = image[i - y];
+      int firstCol = Math.max(0, x);
+      int lastCol = Math.min(width, x + imageRow.length);
+      if (firstCol >= lastCol) {
+        continue;
+      }
+      for (int j = firstCol; j < lastCol; j++) {
+        Pixel top = imageRow[j - x];
+        //a null colour is transparent, like in AbstractPackedLayer
+        topAlpha[j] = top == null ? 0 : top.getAlpha();
+        topRed[j] = top == null ? 0 : top.getRed() * topAlpha[j] * INV_255;
+        topGreen[j] = top == null ? 0 : top.getGreen() * topAlpha[j] * INV_255;
+        topBlue[j] = top == null ? 0 : top.getBlue() * topAlpha[j] * INV_255;
+      }
+      over(topRed, topGreen, topBlue, topAlpha, 0,
+              red, green, blue, alpha, i * width, firstCol, lastCol - firstCol);
+    }
+    pool.release(topRed);
+    pool.release(topGreen);
+    pool.release(topBlue);
+    pool.release(topAlpha);
+  }
+
+  /**
+   * Overlays this Layer, with its filter applied, over the given
+   * planar Layer, which is overwritten with the result.  Both
+   * Layers must have the same height and width.  The rows in
+   * between are acquired from the given pool.
+   * @param bottom represents the Layer under this Layer
+   * @param pool represents the pool the rows are acquired from
+   * @throws IllegalArgumentException when the given Layer is null
+   *     or does not match the size of this Layer, or when the pool
+   *     is null
+   */
+  public void mergeDownPlanar(LayerPlanarImpl bottom, ScratchPool pool)
+          throws IllegalArgumentException {
+    if (bottom == null || pool == null || bottom.height != height || bottom.width != width) {
+      throw new IllegalArgumentException("Given layer and sizes do not match.");
+    }
+
+    //the filtered, premultiplied colour of one row of this layer
+    float[] topRed = pool.acquireFloats(width);
+    float[] topGreen = pool.acquireFloats(width);
+    float[] topBlue = pool.acquireFloats(width);
+    //the packed rows of filters without a planar form
+    int[] topRow = pool.acquire(width);
+    int[] bottomRow = pool.acquire(width);
+    for (int i = 0; i < height; i++) {
+      int offset = i * width;
+      if (!this.filterRow(bottom, offset, topRed, topGreen, topBlue)) {
+        this.mergeRowPacked(bottom, offset, topRow, bottomRow);
+        continue;
+      }
+      over(topRed, topGreen, topBlue, alpha, offset,
+              bottom.red, bottom.green, bottom.blue, bottom.alpha, offset, 0, width);
+    }
+    pool.release(topRed);
+    pool.release(topGreen);
+    pool.release(topBlue);
+    pool.release(topRow);
+    pool.release(bottomRow);
+  }
+
+  //computes the premultiplied colour of this layer's row at the
+  //given offset after applying its filter.  Returns false if the
+  //filter has no planar form, leaving the given rows untouched.
+  private boolean filterRow(LayerPlanarImpl bottom, int offset,
+                            float[] topRed, float[] topGreen, float[] topBlue) {
+    //a MemoizedFilter is computed the same way as the filter it wraps
+    FilterOption<Pixel> unwrapped = filter instanceof MemoizedFilter
+            ? ((MemoizedFilter) filter).getFilter() : filter;
+    if (unwrapped instanceof NormalFilter) {
+      components(offset, 1, 1, 1, topRed, topGreen, topBlue);
+    } else if (unwrapped instanceof RedComponent) {
+      components(offset, 1, 0, 0, topRed, topGreen, topBlue);
+    } else if (unwrapped instanceof GreenComponent) {
+      components(offset, 0, 1, 0, topRed, topGreen, topBlue);
+    } else if (unwrapped instanceof BlueComponent) {
+      components(offset, 0, 0, 1, topRed, topGreen, topBlue);
+    } else if (unwrapped instanceof BrightenValue) {
+      value(offset, 1, topRed, topGreen, topBlue);
+    } else if (unwrapped instanceof DarkenValue) {
+      value(offset, -1, topRed, topGreen, topBlue);
+    } else if (unwrapped instanceof BrightenIntensity) {
+      weighted(offset, 1, 1 / 3f, 1 / 3f, 1 / 3f, topRed, topGreen, topBlue);
+    } else if (unwrapped instanceof DarkenIntensity) {
+      weighted(offset, -1, 1 / 3f, 1 / 3f, 1 / 3f, topRed, topGreen, topBlue);
+    } else if (unwrapped instanceof BrightenLuma) {
+      weighted(offset, 1, 0.2126f, 0.7152f, 0.0722f, topRed, topGreen, topBlue);
+    } else if (unwrapped instanceof DarkenLuma) {
+      weighted(offset, -1, 0.2126f, 0.7152f, 0.0722f, topRed, topGreen, topBlue);
+    } else if (unwrapped instanceof Difference) {
+      difference(bottom, offset, topRed, topGreen, topBlue);
+    } else {
+      return false;
+    }
+    return true;
+  }
+
+  //keeps only the components whose mask is one
+  private void components(int offset, float maskRed, float maskGreen, float maskBlue,
+                          float[] topRed, float[] topGreen, float[] topBlue) {
+    for (int j = 0; j < width; j++) {
+      float a = alpha[offset + j] * INV_255;
+      topRed[j] = red[offset + j] * maskRed * a;
+      topGreen[j] = green[offset + j] * maskGreen * a;
+      topBlue[j] = blue[offset + j] * maskBlue * a;
+    }
+  }
+
+  //adds (or subtracts) the largest component to every component
+  private void value(int offset, float sign,
+                     float[] topRed, float[] topGreen, float[] topBlue) {
+    for (int j = 0; j < width; j++) {
+      float r = red[offset + j];
+      float g = green[offset + j];
+      float b = blue[offset + j];
+      float change = sign * Math.max(r, Math.max(g, b));
+      float a = alpha[offset + j] * INV_255;
+      topRed[j] = Math.min(Math.max(r + change, 0f), 255f) * a;
+      topGreen[j] = Math.min(Math.max(g + change, 0f), 255f) * a;
+      topBlue[j] = Math.min(Math.max(b + change, 0f), 255f) * a;
+    }
+  }
+
+  //adds (or subtracts) a weighted sum of the components to every
+  //component; this covers both the intensity and the luma
+  private void weighted(int offset, float sign, float weightRed, float weightGreen,
+                        float weightBlue, float[] topRed, float[] topGreen, float[] topBlue) {
+    for (int j = 0; j < width; j++) {
+      float r = red[offset + j];
+      float g = green[offset + j];
+      float b = blue[offset + j];
+      float change = sign * (weightRed * r + weightGreen * g + weightBlue * b);
+      float a = alpha[offset + j] * INV_255;
+      topRed[j] = Math.min(Math.max(r + change, 0f), 255f) * a;
+      topGreen[j] = Math.min(Math.max(g + change, 0f), 255f) * a;
+      topBlue[j] = Math.min(Math.max(b + change, 0f), 255f) * a;
+    }
+  }
+
+  //the difference of the premultiplied colours, kept no brighter
+  //than the top alpha allows (see Difference)
+  private void difference(LayerPlanarImpl bottom, int offset,
+                          float[] topRed, float[] topGreen, float[] topBlue) {
+    for (int j = 0; j < width; j++) {
+      float a = alpha[offset + j] * INV_255;
+      float bottomA = bottom.alpha[offset + j] * INV_255;
+      float most = 255f * a;
+      topRed[j] = Math.min(Math.abs(red[offset + j] * a
+              - bottom.red[offset + j] * bottomA), most);
+      topGreen[j] = Math.min(Math.abs(green[offset + j] * a
+              - bottom.green[offset + j] * bottomA), most);
+      topBlue[j] = Math.min(Math.abs(blue[offset + j] * a
+              - bottom.blue[offset + j] * bottomA), most);
+    }
+  }
+
+  //applies a filter without a planar form through its packed row
+  //form, one row at a time, in the given rows
+  private void mergeRowPacked(LayerPlanarImpl bottom, int offset,
+                              int[] topRow, int[] bottomRow) {
+    int row = offset / width;
+    for (int j = 0; j < width; j++) {
+      topRow[j] = this.getPacked(row, j);
+      bottomRow[j] = bottom.getPacked(row, j);
+    }
+    filter.applyToRow(topRow, bottomRow, bottomRow, 0, width);
+    for (int j = 0; j < width; j++) {
+      bottom.setPacked(row, j, bottomRow[j]);
+    }
+  }
+
+  //overlays len premultiplied top colours (starting at topStart in
+  //the top rows, and at topAlphaOffset + topStart in topAlpha) over
+  //the straight bottom colours at bottomOffset + topStart, in place
+  private static void over(float[] topRed, float[] topGreen, float[] topBlue,
+                           float[] topAlpha, int topAlphaOffset,
+                           float[] red, float[] green, float[] blue, float[] alpha,
+                           int bottomOffset, int topStart, int len) {
+    for (int j = topStart; j < topStart + len; j++) {
+      int k = bottomOffset + j;
+      float a = topAlpha[topAlphaOffset + j] * INV_255;
+      float bottomWeight = alpha[k] * INV_255 * (1f - a);
+      float outAlpha = a + bottomWeight;
+      float scale = outAlpha > 0f ? 1f / outAlpha : 0f;
+      red[k] = (topRed[j] + red[k] * bottomWeight) * scale;
+      green[k] = (topGreen[j] + green[k] * bottomWeight) * scale;
+      blue[k] = (topBlue[j] + blue[k] * bottomWeight) * scale;
+      alpha[k] = outAlpha * 255f;
+    }
+  }
+}
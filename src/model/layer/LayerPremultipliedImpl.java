@@ -0,0 +1,159 @@
+package model.layer;
+
+import model.filter.option.FilterOption;
+import model.filter.option.MemoizedFilter;
+import model.filter.option.NormalFilter;
+import model.filter.option.blend.Difference;
+import model.pixel.Pixel;
+import model.utils.PixelUtil;
+
+/**
+ * Represents a Layer of Pixels backed by a single array of packed
+ * premultiplied ARGB integers (see PixelUtil.premultiply), stored
+ * row by row.  Keeping the colours premultiplied turns overlaying
+ * into a multiply-add per component with no division by the alpha;
+ * colours are only converted back to straight alpha when they leave
+ * this Layer (getGrid, toProjString, and the Pixel-based merges).
+ *
+ * <p>Premultiplying rounds each colour component to a multiple of
+ * 255 / alpha, so a translucent colour reads back up to 128 / alpha
+ * + 1 values away from the one that was added: within two values from
+ * an alpha of 128 up, but by as much as 43 at an alpha of 3, where
+ * (200, 100, 50) reads back as (170, 85, 85).  Each overlay rounds
+ * once more, so a composite of translucent colours may be up to
+ * 3 * 128 / alpha + 2 values away.  Opaque and fully transparent
+ * colours are always kept exactly.</p>
+ */
+public class LayerPremultipliedImpl extends AbstractPackedLayer {
+  private final int[] premultiplied;
+
+  /**
+   * Represents a convenience constructor for the most basic Layer:
+   * a height-by-width fully transparent Layer with a NormalFilter.
+   *
+   * @param height represents the height of this Layer
+   * @param width represents the width of this Layer
+   * @throws IllegalArgumentException when the height or width of
+   *     the Layer is not positive.
+   */
+  public LayerPremultipliedImpl(int height, int width) throws IllegalArgumentException {
+    this(height,width,null,new NormalFilter());
+  }
+
+  /**
+   * Represents the full constructor for a premultiplied Layer.  A
+   * null grid produces a fully transparent Layer; otherwise the
+   * given grid is copied into this Layer.
+   *
+   * @param height represents the height of this Layer
+   * @param width represents the width of this Layer
+   * @param grid represents the base grid of Colors on this Layer
+   * @param filter represents the filter applied on this Layer
+   * @throws IllegalArgumentException when the height or width of
+   *     the Layer is not positive, when the grid is malformed, or
+   *     when the filter is null.
+   */
+  public LayerPremultipliedImpl(int height, int width, Pixel[][] grid,
+                                FilterOption<Pixel> filter)
+          throws IllegalArgumentException {
+    super(height,width,grid,filter);
+    this.premultiplied = new int[Math.multiplyExact(height,width)];
+    this.initPacked(grid);
+  }
+
+  @Override
+  protected int getPacked(int row, int col) {
+    return PixelUtil.unpremultiply(premultiplied[row * width + col]);
+  }
+
+  @Override
+  protected void setPacked(int row, int col, int argb) {
+    premultiplied[row * width + col] = PixelUtil.premultiply(argb);
+  }
+
+  @Override
+  public void addImage(Pixel[][] image, int x, int y) {
+    //same clipping as AbstractPackedLayer, but the overlay
+    //itself happens in premultiplied form
+    int firstRow = Math.max(0, y);
+    int lastRow = Math.min(height, y + image.length);
+    for (int i = firstRow; i < lastRow; i++) {
+      Pixel[] imageRow = image[i - y];
+      int firstCol = Math.max(0, x);
+      int lastCol = Math.min(width, x + imageRow.length);
+      for (int j = firstCol; j < lastCol; j++) {
+        Pixel top = imageRow[j - x];
+        int index = i * width + j;
+        premultiplied[index] = PixelUtil.computeColourPremultiplied(
+                PixelUtil.premultiply(top == null ? 0 : PixelUtil.toARGB(top)),
+                premultiplied[index]);
+      }
+    }
+  }
+
+  /**
+   * Overlays this Layer, with its filter applied, over the given
+   * premultiplied colours.  The given array holds one packed
+   * premultiplied ARGB colour per coordinate of this Layer, row
+   * by row, and is overwritten with the result.
+   *
+   * <p>The normal and difference filters are computed entirely in
+   * premultiplied form.  Every other filter is given straight-alpha
+   * colours, like in mergeDown, a row at a time in rows acquired from
+   * the given pool, and its result is premultiplied again.</p>
+   *
+   * @param bottom represents the premultiplied colours under this Layer
+   * @param pool represents the pool the rows are acquired from
+   * @throws IllegalArgumentException when the given array does not
+   *     have exactly one colour per coordinate of this Layer, or when
+   *     the pool is null
+   */
+  public void mergeDownPremultiplied(int[] bottom, ScratchPool pool)
+          throws IllegalArgumentException {
+    if (bottom == null || pool == null || bottom.length != premultiplied.length) {
+      throw new IllegalArgumentException("Given colours and sizes do not match.");
+    }
+
+    //a MemoizedFilter of Difference is computed the same way
+    FilterOption<Pixel> unwrapped = filter instanceof MemoizedFilter
+            ? ((MemoizedFilter) filter).getFilter() : filter;
+    if (unwrapped instanceof NormalFilter) {
+      for (int i = 0; i < bottom.length; i++) {
+        bottom[i] = PixelUtil.computeColourPremultiplied(premultiplied[i], bottom[i]);
+      }
+    } else if (unwrapped instanceof Difference) {
+      for (int i = 0; i < bottom.length; i++) {
+        bottom[i] = PixelUtil.computeColourPremultiplied(
+                difference(premultiplied[i], bottom[i]), bottom[i]);
+      }
+    } else {
+      int[] topRow = pool.acquire(width);
+      int[] row = pool.acquire(width);
+      for (int i = 0; i < height; i++) {
+        int offset = i * width;
+        for (int j = 0; j < width; j++) {
+          topRow[j] = PixelUtil.unpremultiply(premultiplied[offset + j]);
+          row[j] = PixelUtil.unpremultiply(bottom[offset + j]);
+        }
+        filter.applyToRow(topRow, row, row, 0, width);
+        for (int j = 0; j < width; j++) {
+          bottom[offset + j] = PixelUtil.premultiply(row[j]);
+        }
+      }
+      pool.release(row);
+      pool.release(topRow);
+    }
+  }
+
+  //the premultiplied top colour of the difference filter: its
+  //premultiplied RGB are exactly what Difference gets from
+  //toThreeComponent, and the difference is kept no brighter
+  //than the top alpha allows
+  private static int difference(int top, int bottom) {
+    int alpha = top >>> 24;
+    return (alpha << 24)
+            | Math.min(alpha, Math.abs(((top >> 16) & 0xFF) - ((bottom >> 16) & 0xFF))) << 16
+            | Math.min(alpha, Math.abs(((top >> 8) & 0xFF) - ((bottom >> 8) & 0xFF))) << 8
+            | Math.min(alpha, Math.abs((top & 0xFF) - (bottom & 0xFF)));
+  }
+}
@@ -0,0 +1,100 @@
+package model.layer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import model.filter.option.FilterOption;
+import model.filter.option.NormalFilter;
+import model.pixel.Pixel;
+import model.pixel.RGBARaster;
+import model.utils.PixelUtil;
+
+/**
+ * Represents a Layer of Pixels backed by an RGBARaster: four bytes
+ * per coordinate in red, green, blue, alpha order.  This is the most
+ * compact Layer, and its bytes can be written out (see writeTo) or
+ * filled from a decoded image without going through Pixels.  It
+ * produces identical grids, merges, and project Strings to
+ * LayerPixelImpl.
+ */
+public class LayerRasterImpl extends AbstractPackedLayer {
+  private final RGBARaster raster;
+
+  /**
+   * Represents a convenience constructor for the most basic Layer:
+   * a height-by-width fully transparent Layer with a NormalFilter.
+   *
+   * @param height represents the height of this Layer
+   * @param width represents the width of this Layer
+   * @throws IllegalArgumentException when the height or width of
+   *     the Layer is not positive.
+   */
+  public LayerRasterImpl(int height, int width) throws IllegalArgumentException {
+    this(height,width,null,new NormalFilter());
+  }
+
+  /**
+   * Represents the full constructor for a raster Layer.  A null
+   * grid produces a fully transparent Layer; otherwise the given
+   * grid is copied into this Layer.
+   *
+   * @param height represents the height of this Layer
+   * @param width represents the width of this Layer
+   * @param grid represents the base grid of Colors on this Layer
+   * @param filter represents the filter applied on this Layer
+   * @throws IllegalArgumentException when the height or width of
+   *     the Layer is not positive, when the grid is malformed, or
+   *     when the filter is null.
+   */
+  public LayerRasterImpl(int height, int width, Pixel[][] grid, FilterOption<Pixel> filter)
+          throws IllegalArgumentException {
+    super(height,width,grid,filter);
+    this.raster = new RGBARaster(height,width);
+    this.initPacked(grid);
+  }
+
+  @Override
+  protected int getPacked(int row, int col) {
+    return raster.getARGB(row, col);
+  }
+
+  @Override
+  protected void setPacked(int row, int col, int argb) {
+    raster.setARGB(row, col, argb);
+  }
+
+  /**
+   * Overlays the given raster over this Layer with its top left
+   * corner at (x, y), exactly like addImage does with a grid of
+   * Pixels.  Parts of the raster outside of this Layer are ignored.
+   * @param image represents the raster to add
+   * @param x represents the column of the top left corner
+   * @param y represents the row of the top left corner
+   * @throws IllegalArgumentException when the image is null
+   */
+  public void addImage(RGBARaster image, int x, int y) throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("Given image cannot be null.");
+    }
+    int firstRow = Math.max(0, y);
+    int lastRow = Math.min(height, y + image.getHeight());
+    int firstCol = Math.max(0, x);
+    int lastCol = Math.min(width, x + image.getWidth());
+    for (int i = firstRow; i < lastRow; i++) {
+      for (int j = firstCol; j < lastCol; j++) {
+        raster.setARGB(i, j, PixelUtil.computeColour(
+                image.getARGB(i - y, j - x), raster.getARGB(i, j)));
+      }
+    }
+  }
+
+  /**
+   * Writes the colours of this Layer to the given output in the
+   * byte layout of RGBARaster, without converting them.
+   * @param out represents the output to write to
+   * @throws IOException when the output cannot be written to
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    raster.writeTo(out);
+  }
+}
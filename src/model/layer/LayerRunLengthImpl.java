@@ -0,0 +1,384 @@
+package model.layer;
+
+import java.util.Arrays;
+
+import model.filter.option.FilterOption;
+import model.filter.option.NormalFilter;
+import model.pixel.Pixel;
+import model.utils.PixelUtil;
+
+/**
+ * Represents a Layer of Pixels stored row by row as packed ARGB
+ * integers (see PixelUtil.toARGB), where every row is stored in
+ * whichever of two ways takes less memory:
+ * <ul>
+ *   <li>as runs: pairs of the column a run ends at (exclusive) and
+ *   the colour of the run, for rows of a few flat regions;</li>
+ *   <li>dense: one integer per column, for detailed rows.</li>
+ * </ul>
+ * A fully transparent row takes no memory at all.  Rows are stored
+ * again, choosing between the two, every time an image is added.
+ *
+ * <p>mergeDownRunLength works a run at a time wherever it can: it
+ * skips transparent runs, and where a run lies over a run of the
+ * Layer under it, it computes the filter once for the whole run.  It
+ * produces identical grids, merges, and project Strings to
+ * LayerPixelImpl.</p>
+ */
+public class LayerRunLengthImpl extends AbstractPackedLayer {
+  //runs[row] holds the runs of a run-length row, dense[row] the
+  //colours of a dense row; a row with neither is fully transparent
+  private final int[][] runs;
+  private final int[][] dense;
+  //buffers of width colours and of runs, reused between rows
+  private int[] rowBuffer;
+  private int[] topBuffer;
+  private int[] runBuffer;
+  //one colour each, to apply the filter to a single colour
+  private final int[] unitTop;
+  private final int[] unitBottom;
+
+  /**
+   * Represents a convenience constructor for the most basic Layer:
+   * a height-by-width fully transparent Layer with a NormalFilter.
+   *
+   * @param height represents the height of this Layer
+   * @param width represents the width of this Layer
+   * @throws IllegalArgumentException when the height or width of
+   *     the Layer is not positive.
+   */
+  public LayerRunLengthImpl(int height, int width) throws IllegalArgumentException {
+    this(height,width,null,new NormalFilter());
+  }
+
+  /**
+   * Represents the full constructor for a run-length Layer.  A null
+   * grid produces a fully transparent Layer; otherwise the given grid
+   * is copied into this Layer.
+   *
+   * @param height represents the height of this Layer
+   * @param width represents the width of this Layer
+   * @param grid represents the base grid of Colors on this Layer
+   * @param filter represents the filter applied on this Layer
+   * @throws IllegalArgumentException when the height or width of
+   *     the Layer is not positive, when the grid is malformed, or
+   *     when the filter is null.
+   */
+  public LayerRunLengthImpl(int height, int width, Pixel[][] grid, FilterOption<Pixel> filter)
+          throws IllegalArgumentException {
+    super(height,width,grid,filter);
+    this.runs = new int[height][];
+    this.dense = new int[height][];
+    this.unitTop = new int[1];
+    this.unitBottom = new int[1];
+    this.initPacked(grid);
+  }
+
+  @Override
+  protected void initPacked(Pixel[][] grid) {
+    if (grid == null) {
+      return;
+    }
+    int[] row = this.rowBuffer();
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        row[j] = PixelUtil.toARGB(grid[i][j]);
+      }
+      this.storeRow(i, row);
+    }
+  }
+
+  @Override
+  protected int getPacked(int row, int col) {
+    if (dense[row] != null) {
+      return dense[row][col];
+    }
+    int[] r = runs[row];
+    if (r == null) {
+      return 0;
+    }
+    //finds the first run that ends after col
+    int low = 0;
+    int high = r.length / 2 - 1;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (r[2 * mid] > col) {
+        high = mid;
+      } else {
+        low = mid + 1;
+      }
+    }
+    return r[2 * low + 1];
+  }
+
+  @Override
+  protected void setPacked(int row, int col, int argb) {
+    if (dense[row] == null) {
+      if (runs[row] == null && argb == 0) {
+        //already transparent
+        return;
+      }
+      //single colours are written to a dense row; the row is only
+      //stored as runs again when an image is added to it
+      dense[row] = this.expand(row, new int[width]);
+      runs[row] = null;
+    }
+    dense[row][col] = argb;
+  }
+
+  @Override
+  public void addImage(Pixel[][] image, int x, int y) {
+    //only the rows the image lands on are touched, as in
+    //AbstractPackedLayer.addImage, and each is stored again
+    int firstRow = Math.max(0, y);
+    int lastRow = Math.min(height, y + image.length);
+    int[] row = this.rowBuffer();
+    for (int i = firstRow; i < lastRow; i++) {
+      Pixel[] imageRow = image[i - y];
+      int firstCol = Math.max(0, x);
+      int lastCol = Math.min(width, x + imageRow.length);
+      if (firstCol >= lastCol) {
+        continue;
+      }
+      this.expand(i, row);
+      for (int j = firstCol; j < lastCol; j++) {
+        Pixel top = imageRow[j - x];
+        row[j] = PixelUtil.computeColour(top == null ? 0 : PixelUtil.toARGB(top), row[j]);
+      }
+      this.storeRow(i, row);
+    }
+  }
+
+  /**
+   * Returns the number of rows of this Layer stored as runs.
+   * @return the number of run-length rows
+   */
+  public int getRunLengthRowCount() {
+    int count = 0;
+    for (int[] r : runs) {
+      if (r != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns the number of integers this Layer stores its colours in,
+   * counting one for every row on top of the row itself.  A dense
+   * Layer would store height * width.
+   * @return the number of integers held by this Layer
+   */
+  public long getStoredIntCount() {
+    long count = height;
+    for (int i = 0; i < height; i++) {
+      if (runs[i] != null) {
+        count += runs[i].length;
+      } else if (dense[i] != null) {
+        count += dense[i].length;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Overlays this Layer, with its filter applied, over the given
+   * run-length Layer, which is overwritten with the result.  Both
+   * Layers must have the same height and width.
+   *
+   * <p>Fully transparent rows and runs of this Layer are skipped,
+   * which relies on every filter leaving the bottom colour as it is
+   * under a fully transparent top (see
+   * LayerTiledImpl.mergeDownTiled).  Where both rows are stored as
+   * runs, the filter is applied once per pair of overlapping
+   * runs.</p>
+   *
+   * @param bottom represents the Layer under this Layer
+   * @throws IllegalArgumentException when the given Layer is null
+   *     or does not match the size of this Layer
+   */
+  public void mergeDownRunLength(LayerRunLengthImpl bottom) throws IllegalArgumentException {
+    if (bottom == null || bottom.height != height || bottom.width != width) {
+      throw new IllegalArgumentException("Given layer and sizes do not match.");
+    }
+
+    for (int i = 0; i < height; i++) {
+      if (runs[i] == null && dense[i] == null) {
+        continue;
+      }
+      if (runs[i] != null && bottom.dense[i] == null) {
+        this.mergeRuns(i, bottom);
+        continue;
+      }
+
+      int[] under = bottom.expand(i, bottom.rowBuffer());
+      if (dense[i] != null) {
+        filter.applyToRow(dense[i], under, under, 0, width);
+      } else {
+        //only the runs that are not transparent are filtered
+        int[] top = this.topBuffer();
+        int start = 0;
+        for (int k = 0; k < runs[i].length; k += 2) {
+          int end = runs[i][k];
+          if (runs[i][k + 1] != 0) {
+            Arrays.fill(top, start, end, runs[i][k + 1]);
+            filter.applyToRow(top, under, under, start, end - start);
+          }
+          start = end;
+        }
+      }
+      bottom.storeRow(i, under);
+    }
+  }
+
+  //merges the runs of the given row of this layer over the runs,
+  //or transparency, of the same row of the bottom layer
+  private void mergeRuns(int row, LayerRunLengthImpl bottom) {
+    int[] top = runs[row];
+    int[] under = bottom.runs[row];
+    int underCount = under == null ? 1 : under.length / 2;
+    int[] merged = this.runBuffer(top.length / 2 + underCount);
+
+    int count = 0;
+    int topIndex = 0;
+    int underIndex = 0;
+    int start = 0;
+    while (start < width) {
+      int topEnd = top[topIndex];
+      int underEnd = under == null ? width : under[underIndex];
+      int underColour = under == null ? 0 : under[underIndex + 1];
+      int end = Math.min(topEnd, underEnd);
+
+      int colour = top[topIndex + 1] == 0 ? underColour : this.blend(top[topIndex + 1], underColour);
+      if (count > 0 && merged[2 * count - 1] == colour) {
+        //the same colour as the run before; extends it
+        merged[2 * count - 2] = end;
+      } else {
+        merged[2 * count] = end;
+        merged[2 * count + 1] = colour;
+        count++;
+      }
+
+      start = end;
+      if (topEnd == end) {
+        topIndex += 2;
+      }
+      if (underEnd == end) {
+        underIndex += 2;
+      }
+    }
+    bottom.storeRuns(row, merged, count);
+  }
+
+  //applies the filter of this layer to a single colour over another
+  private int blend(int top, int bottom) {
+    unitTop[0] = top;
+    unitBottom[0] = bottom;
+    filter.applyToRow(unitTop, unitBottom, unitBottom, 0, 1);
+    return unitBottom[0];
+  }
+
+  //writes the colours of the given row into out and returns it
+  private int[] expand(int row, int[] out) {
+    if (dense[row] != null) {
+      System.arraycopy(dense[row], 0, out, 0, width);
+    } else if (runs[row] == null) {
+      Arrays.fill(out, 0, width, 0);
+    } else {
+      int start = 0;
+      for (int k = 0; k < runs[row].length; k += 2) {
+        Arrays.fill(out, start, runs[row][k], runs[row][k + 1]);
+        start = runs[row][k];
+      }
+    }
+    return out;
+  }
+
+  //stores the given colours as the given row, as runs or densely,
+  //whichever is smaller; the colours are copied
+  private void storeRow(int row, int[] colours) {
+    int count = 1;
+    for (int j = 1; j < width; j++) {
+      if (colours[j] != colours[j - 1]) {
+        count++;
+      }
+    }
+    if (count == 1 && colours[0] == 0) {
+      runs[row] = null;
+      dense[row] = null;
+      return;
+    }
+    if (!isRunLength(count)) {
+      if (dense[row] == null) {
+        dense[row] = new int[width];
+      }
+      System.arraycopy(colours, 0, dense[row], 0, width);
+      runs[row] = null;
+      return;
+    }
+
+    int[] r = new int[2 * count];
+    int k = 0;
+    for (int j = 1; j < width; j++) {
+      if (colours[j] != colours[j - 1]) {
+        r[k] = j;
+        r[k + 1] = colours[j - 1];
+        k += 2;
+      }
+    }
+    r[k] = width;
+    r[k + 1] = colours[width - 1];
+    this.setRuns(row, r);
+  }
+
+  //stores the first count runs of the given buffer as the given
+  //row, as runs or densely, whichever is smaller
+  private void storeRuns(int row, int[] buffer, int count) {
+    if (isRunLength(count) || (count == 1 && buffer[1] == 0)) {
+      this.setRuns(row, Arrays.copyOf(buffer, 2 * count));
+      return;
+    }
+    int[] colours = new int[width];
+    int start = 0;
+    for (int k = 0; k < 2 * count; k += 2) {
+      Arrays.fill(colours, start, buffer[k], buffer[k + 1]);
+      start = buffer[k];
+    }
+    dense[row] = colours;
+    runs[row] = null;
+  }
+
+  //stores the given runs as the given row; a single transparent
+  //run is stored as nothing
+  private void setRuns(int row, int[] r) {
+    runs[row] = r.length == 2 && r[1] == 0 ? null : r;
+    dense[row] = null;
+  }
+
+  //returns whether a row of the given number of runs is smaller
+  //stored as runs, which take two integers each, than densely
+  private boolean isRunLength(int count) {
+    return 2L * count <= width / 2;
+  }
+
+  private int[] rowBuffer() {
+    if (rowBuffer == null) {
+      rowBuffer = new int[width];
+    }
+    return rowBuffer;
+  }
+
+  private int[] topBuffer() {
+    if (topBuffer == null) {
+      topBuffer = new int[width];
+    }
+    return topBuffer;
+  }
+
+  private int[] runBuffer(int runCount) {
+    if (runBuffer == null || runBuffer.length < 2 * runCount) {
+      runBuffer = new int[2 * runCount];
+    }
+    return runBuffer;
+  }
+}
@@ -0,0 +1,210 @@
+package model.layer;
+
+import java.util.Arrays;
+
+import model.filter.option.FilterOption;
+import model.filter.option.NormalFilter;
+import model.pixel.Pixel;
+import model.utils.PixelUtil;
+
+/**
+ * Represents a Layer of Pixels that is a single colour everywhere,
+ * like a fresh background, stored as that one packed ARGB colour
+ * (see PixelUtil.toARGB).  Overlaying an image of one colour that
+ * covers the whole Layer, or a fully transparent image, keeps it a
+ * single colour; any other image makes it fall back to one packed
+ * colour per coordinate, like LayerPackedImpl.
+ *
+ * <p>While this Layer is a single colour it is merged without
+ * reading any of its coordinates.  It produces identical grids,
+ * merges, and project Strings to LayerPixelImpl.</p>
+ */
+public class LayerSolidImpl extends AbstractPackedLayer {
+  //the colour of every coordinate while packed is null
+  private int colour;
+  //packed[row * width + col] once this layer is no longer solid
+  private int[] packed;
+
+  /**
+   * Represents a convenience constructor for the most basic Layer:
+   * a height-by-width fully transparent Layer with a NormalFilter.
+   *
+   * @param height represents the height of this Layer
+   * @param width represents the width of this Layer
+   * @throws IllegalArgumentException when the height or width of
+   *     the Layer is not positive.
+   */
+  public LayerSolidImpl(int height, int width) throws IllegalArgumentException {
+    this(height,width,null,new NormalFilter());
+  }
+
+  /**
+   * Represents the full constructor for a solid Layer.
+   *
+   * @param height represents the height of this Layer
+   * @param width represents the width of this Layer
+   * @param colour represents the colour of every coordinate; null
+   *     is fully transparent
+   * @param filter represents the filter applied on this Layer
+   * @throws IllegalArgumentException when the height or width of
+   *     the Layer is not positive, or when the filter is null.
+   */
+  public LayerSolidImpl(int height, int width, Pixel colour, FilterOption<Pixel> filter)
+          throws IllegalArgumentException {
+    super(height,width,null,filter);
+    this.colour = colour == null ? 0 : PixelUtil.toARGB(colour);
+    this.packed = null;
+  }
+
+  @Override
+  protected int getPacked(int row, int col) {
+    return packed == null ? colour : packed[row * width + col];
+  }
+
+  @Override
+  protected void setPacked(int row, int col, int argb) {
+    if (packed == null) {
+      packed = new int[Math.multiplyExact(height, width)];
+      if (colour != 0) {
+        Arrays.fill(packed, colour);
+      }
+    }
+    packed[row * width + col] = argb;
+  }
+
+  /**
+   * Returns whether every coordinate of this Layer still shares one
+   * colour, stored once.
+   * @return true if this Layer is stored as a single colour
+   */
+  public boolean isSolid() {
+    return packed == null;
+  }
+
+  /**
+   * Returns the colour of every coordinate of this Layer.
+   * @return the single colour of this Layer
+   * @throws IllegalStateException when this Layer is no longer a
+   *     single colour
+   */
+  public Pixel getColour() throws IllegalStateException {
+    if (packed != null) {
+      throw new IllegalStateException("Layer is no longer a single colour.");
+    }
+    return PixelUtil.fromARGB(colour);
+  }
+
+  /**
+   * Overlays the given image at (x, y) only if this Layer stays a
+   * single colour afterwards: that is, when this Layer is a single
+   * colour, and the part of the image over this Layer is either
+   * fully transparent or is one colour covering the whole Layer.
+   * Missing or null colours in the image are fully transparent.
+   * @param image represents the image to overlay
+   * @param x represents the column of the top left corner
+   * @param y represents the row of the top left corner
+   * @return true if the image was overlaid, false if this Layer was
+   *     left unchanged
+   */
+  public boolean addUniformImage(Pixel[][] image, int x, int y) {
+    if (packed != null) {
+      return false;
+    }
+
+    //the part of the image over this layer, as in addImage
+    int firstRow = Math.max(0, y);
+    int lastRow = Math.min(height, y + image.length);
+    int firstCol = Math.max(0, x);
+    boolean covers = firstRow == 0 && lastRow == height && firstCol == 0;
+    int top = 0;
+    boolean first = true;
+    for (int i = firstRow; i < lastRow; i++) {
+      Pixel[] imageRow = image[i - y];
+      int lastCol = Math.min(width, x + imageRow.length);
+      covers &= lastCol == width;
+      for (int j = firstCol; j < lastCol; j++) {
+        Pixel p = imageRow[j - x];
+        int argb = p == null ? 0 : PixelUtil.toARGB(p);
+        if (first) {
+          top = argb;
+          first = false;
+        } else if (argb != top) {
+          return false;
+        }
+      }
+    }
+
+    //a fully transparent image changes nothing, covering or not
+    if (top == 0) {
+      return true;
+    }
+    if (!covers) {
+      return false;
+    }
+    colour = PixelUtil.computeColour(top, colour);
+    return true;
+  }
+
+  @Override
+  public void addImage(Pixel[][] image, int x, int y) {
+    if (!this.addUniformImage(image, x, y)) {
+      super.addImage(image, x, y);
+    }
+  }
+
+  @Override
+  public Pixel[][] mergeDown(Pixel[][] bg) {
+    if (packed != null) {
+      return super.mergeDown(bg);
+    }
+
+    int rows = bg == null ? height : bg.length;
+    int cols = bg == null ? width : bg[0].length;
+
+    //the top row is the same for every row within this layer, so
+    //it is only filled twice: inside and below this layer
+    Pixel[][] temp = new Pixel[rows][cols];
+    int[] topRow = new int[cols];
+    Arrays.fill(topRow, 0, Math.min(cols, width), colour);
+    int[] row = new int[cols];
+    for (int i = 0; i < rows; i++) {
+      if (i == height) {
+        Arrays.fill(topRow, 0);
+      }
+      for (int j = 0; j < cols; j++) {
+        Pixel p = bg == null ? null : bg[i][j];
+        row[j] = p == null ? 0 : PixelUtil.toARGB(p);
+      }
+      filter.applyToRow(topRow, row, row, 0, cols);
+      for (int j = 0; j < cols; j++) {
+        temp[i][j] = PixelUtil.fromARGB(row[j]);
+      }
+    }
+    return temp;
+  }
+
+  @Override
+  public void mergeDownPacked(int[] bottom, ScratchPool pool, int x, int y, int cols, int rows)
+          throws IllegalArgumentException {
+    checkPacked(bottom, pool, height, width, x, y, cols, rows);
+    if (packed != null) {
+      //the colours are already stored row by row
+      for (int i = y; i < y + rows; i++) {
+        filter.applyToRow(packed, bottom, bottom, i * width + x, cols);
+      }
+      return;
+    }
+
+    //the top row is the same for every row, so it is only filled once
+    int[] topRow = pool.acquire(width);
+    int[] row = pool.acquire(width);
+    Arrays.fill(topRow, colour);
+    for (int i = y; i < y + rows; i++) {
+      System.arraycopy(bottom, i * width + x, row, 0, cols);
+      filter.applyToRow(topRow, row, row, 0, cols);
+      System.arraycopy(row, 0, bottom, i * width + x, cols);
+    }
+    pool.release(row);
+    pool.release(topRow);
+  }
+}
@@ -0,0 +1,126 @@
+package model.layer;
+
+import model.pixel.Pixel;
+
+/**
+ * Represents the ways in which a CollageModel can store the
+ * Pixels of its Layers.  The modes differ in how much memory
+ * each Layer holds and how fast it can be merged; PIXEL, PACKED,
+ * RASTER, TILED, PLACED, RUN_LENGTH, and MAPPED produce exactly the
+ * same images and project files.
+ */
+public enum LayerStorage {
+  /**
+   * Each coordinate is its own Pixel object (LayerPixelImpl).
+   */
+  PIXEL {
+    @Override
+    public Layer<Pixel> create(int height, int width) {
+      return new LayerPixelImpl(height, width);
+    }
+  },
+
+  /**
+   * Each coordinate is a packed ARGB integer (LayerPackedImpl).
+   */
+  PACKED {
+    @Override
+    public Layer<Pixel> create(int height, int width) {
+      return new LayerPackedImpl(height, width);
+    }
+  },
+
+  /**
+   * Each coordinate is four bytes of an RGBARaster (LayerRasterImpl).
+   */
+  RASTER {
+    @Override
+    public Layer<Pixel> create(int height, int width) {
+      return new LayerRasterImpl(height, width);
+    }
+  },
+
+  /**
+   * Each coordinate is a packed premultiplied ARGB integer
+   * (LayerPremultipliedImpl).  Unlike the other modes, this
+   * mode rounds translucent colours, by up to 128 / alpha + 1
+   * values; see LayerPremultipliedImpl.
+   */
+  PREMULTIPLIED {
+    @Override
+    public Layer<Pixel> create(int height, int width) {
+      return new LayerPremultipliedImpl(height, width);
+    }
+  },
+
+  /**
+   * Each coordinate is split over four planes of floats
+   * (LayerPlanarImpl).  Like PREMULTIPLIED, this mode may round
+   * colours by a value or two; see LayerPlanarImpl.
+   */
+  PLANAR {
+    @Override
+    public Layer<Pixel> create(int height, int width) {
+      return new LayerPlanarImpl(height, width);
+    }
+  },
+
+  /**
+   * Each coordinate is a packed ARGB integer in a square tile, and
+   * only the tiles that were painted on are allocated
+   * (LayerTiledImpl).
+   */
+  TILED {
+    @Override
+    public Layer<Pixel> create(int height, int width) {
+      return new LayerTiledImpl(height, width);
+    }
+  },
+
+  /**
+   * Each image added to a Layer is kept as it is, with where it was
+   * placed, and only composited when the Layer is read
+   * (LayerPlacedImpl).
+   */
+  PLACED {
+    @Override
+    public Layer<Pixel> create(int height, int width) {
+      return new LayerPlacedImpl(height, width);
+    }
+  },
+
+  /**
+   * Each row is stored either as runs of one colour or as one packed
+   * ARGB integer per coordinate, whichever is smaller
+   * (LayerRunLengthImpl).
+   */
+  RUN_LENGTH {
+    @Override
+    public Layer<Pixel> create(int height, int width) {
+      return new LayerRunLengthImpl(height, width);
+    }
+  },
+
+  /**
+   * Each coordinate is a packed ARGB integer in a square tile of a
+   * temporary file mapped into memory, for canvases larger than the
+   * heap (LayerMappedImpl).
+   */
+  MAPPED {
+    @Override
+    public Layer<Pixel> create(int height, int width) {
+      return new LayerMappedImpl(height, width);
+    }
+  };
+
+  /**
+   * Creates a new, fully transparent Layer with a NormalFilter
+   * using this storage mode.
+   * @param height represents the height of the Layer
+   * @param width represents the width of the Layer
+   * @return the new Layer
+   * @throws IllegalArgumentException when the height or width
+   *     are not positive
+   */
+  public abstract Layer<Pixel> create(int height, int width);
+}
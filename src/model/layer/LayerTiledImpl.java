@@ -0,0 +1,151 @@
+package model.layer;
+
+import model.filter.option.FilterOption;
+import model.filter.option.NormalFilter;
+import model.pixel.Pixel;
+
+/**
+ * Represents a Layer of Pixels split into square tiles of
+ * TILE_SIZE-by-TILE_SIZE packed ARGB integers (see
+ * PixelUtil.toARGB).  A tile is only allocated the first time a
+ * colour that is not fully transparent is written to it; every
+ * other tile is implicitly fully transparent and takes no memory.
+ *
+ * <p>A layer holding one small image on a large canvas therefore
+ * only stores the tiles under that image, and mergeDownTiled only
+ * visits those tiles.  It produces identical grids, merges, and
+ * project Strings to LayerPixelImpl.</p>
+ */
+public class LayerTiledImpl extends AbstractPackedLayer {
+  /**
+   * Represents the height and width of every tile.
+   */
+  public static final int TILE_SIZE = 64;
+  //TILE_SIZE is 1 << TILE_SHIFT
+  private static final int TILE_SHIFT = 6;
+  private static final int TILE_MASK = TILE_SIZE - 1;
+
+  //the number of tiles down and across this layer
+  private final int tilesDown;
+  private final int tilesAcross;
+  //tiles[tileRow * tilesAcross + tileCol], each row by row with a
+  //stride of TILE_SIZE; null is a fully transparent tile
+  private final int[][] tiles;
+
+  /**
+   * Represents a convenience constructor for the most basic Layer:
+   * a height-by-width fully transparent Layer with a NormalFilter.
+   *
+   * @param height represents the height of this Layer
+   * @param width represents the width of this Layer
+   * @throws IllegalArgumentException when the height or width of
+   *     the Layer is not positive.
+   */
+  public LayerTiledImpl(int height, int width) throws IllegalArgumentException {
+    this(height,width,null,new NormalFilter());
+  }
+
+  /**
+   * Represents the full constructor for a tiled Layer.  A null grid
+   * produces a fully transparent Layer with no tiles allocated;
+   * otherwise the given grid is copied into this Layer.
+   *
+   * @param height represents the height of this Layer
+   * @param width represents the width of this Layer
+   * @param grid represents the base grid of Colors on this Layer
+   * @param filter represents the filter applied on this Layer
+   * @throws IllegalArgumentException when the height or width of
+   *     the Layer is not positive, when the grid is malformed, or
+   *     when the filter is null.
+   */
+  public LayerTiledImpl(int height, int width, Pixel[][] grid, FilterOption<Pixel> filter)
+          throws IllegalArgumentException {
+    super(height,width,grid,filter);
+    this.tilesDown = (height + TILE_MASK) >> TILE_SHIFT;
+    this.tilesAcross = (width + TILE_MASK) >> TILE_SHIFT;
+    this.tiles = new int[Math.multiplyExact(tilesDown, tilesAcross)][];
+    this.initPacked(grid);
+  }
+
+  @Override
+  protected int getPacked(int row, int col) {
+    int[] tile = tiles[(row >> TILE_SHIFT) * tilesAcross + (col >> TILE_SHIFT)];
+    return tile == null ? 0 : tile[((row & TILE_MASK) << TILE_SHIFT) | (col & TILE_MASK)];
+  }
+
+  @Override
+  protected void setPacked(int row, int col, int argb) {
+    int index = (row >> TILE_SHIFT) * tilesAcross + (col >> TILE_SHIFT);
+    if (tiles[index] == null) {
+      if (argb == 0) {
+        //already transparent; no need for the tile
+        return;
+      }
+      tiles[index] = new int[TILE_SIZE * TILE_SIZE];
+    }
+    tiles[index][((row & TILE_MASK) << TILE_SHIFT) | (col & TILE_MASK)] = argb;
+  }
+
+  /**
+   * Returns the number of tiles this Layer is split into.
+   * @return the number of tiles, allocated or not
+   */
+  public int getTileCount() {
+    return tiles.length;
+  }
+
+  /**
+   * Returns the number of tiles that have been allocated because a
+   * colour was written to them.
+   * @return the number of allocated tiles
+   */
+  public int getAllocatedTileCount() {
+    int count = 0;
+    for (int[] tile : tiles) {
+      if (tile != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Overlays this Layer, with its filter applied, over the given
+   * tiled Layer, which is overwritten with the result.  Both Layers
+   * must have the same height and width.
+   *
+   * <p>Only the allocated tiles of this Layer are visited.  This
+   * relies on every filter leaving the bottom colour as it is under
+   * a fully transparent top, which is true of every filter of this
+   * program.</p>
+   *
+   * @param bottom represents the Layer under this Layer
+   * @throws IllegalArgumentException when the given Layer is null
+   *     or does not match the size of this Layer
+   */
+  public void mergeDownTiled(LayerTiledImpl bottom) throws IllegalArgumentException {
+    if (bottom == null || bottom.height != height || bottom.width != width) {
+      throw new IllegalArgumentException("Given layer and sizes do not match.");
+    }
+
+    for (int tileRow = 0; tileRow < tilesDown; tileRow++) {
+      //the edge tiles are only partly inside the layer
+      int rows = Math.min(TILE_SIZE, height - (tileRow << TILE_SHIFT));
+      for (int tileCol = 0; tileCol < tilesAcross; tileCol++) {
+        int index = tileRow * tilesAcross + tileCol;
+        int[] top = tiles[index];
+        if (top == null) {
+          continue;
+        }
+        if (bottom.tiles[index] == null) {
+          bottom.tiles[index] = new int[TILE_SIZE * TILE_SIZE];
+        }
+        int cols = Math.min(TILE_SIZE, width - (tileCol << TILE_SHIFT));
+        for (int i = 0; i < rows; i++) {
+          filter.applyToRow(top, bottom.tiles[index], bottom.tiles[index],
+                  i << TILE_SHIFT, cols);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,206 @@
+package model.layer;
+
+import java.util.Objects;
+
+import model.filter.option.FilterOption;
+import model.pixel.Pixel;
+import model.utils.PixelUtil;
+
+/**
+ * Represents a read-only view of a Layer of Pixels that reads the
+ * colours of the Layer itself rather than a copy of them.  A view
+ * never changes: the owner of the Layer calls detach before it
+ * changes the Layer, which copies the colours into the view.  Owners
+ * hold their views weakly, so a view nobody holds any more is never
+ * copied.  The filter is the one the Layer had when the view was
+ * made.
+ *
+ * <p>getGrid and mutableCopy are the only ways to get colours that
+ * can be changed, and the only reads that copy the whole Layer.
+ * setFilter and addImage always throw an
+ * UnsupportedOperationException.</p>
+ */
+public final class LayerView implements Layer<Pixel> {
+  //the layer whose colours are read, until detached
+  private Layer<Pixel> layer;
+  //the colours of the layer, row by row, once detached
+  private int[] colours;
+  private final FilterOption<Pixel> filter;
+  private final int height;
+  private final int width;
+
+  /**
+   * Represents a view of the given Layer, which shares its colours.
+   * @param layer represents the Layer to view
+   * @throws IllegalArgumentException when the Layer is null
+   */
+  public LayerView(Layer<Pixel> layer) throws IllegalArgumentException {
+    try {
+      this.layer = Objects.requireNonNull(layer);
+    } catch (NullPointerException e) {
+      throw new IllegalArgumentException("Given layer cannot be null.");
+    }
+    this.filter = layer.getFilter();
+    this.height = layer.getHeight();
+    this.width = layer.getWidth();
+    //layers that cannot be read one colour at a time are copied
+    if (!(layer instanceof AbstractReadOnlyPackedLayer) && !(layer instanceof LayerPixelImpl)) {
+      this.detach();
+    }
+  }
+
+  /**
+   * Copies the colours of the viewed Layer into this view, so that
+   * the Layer can be changed without changing this view.  Owners of
+   * a Layer call this before changing it.
+   */
+  public void detach() {
+    if (colours != null) {
+      return;
+    }
+    int[] copy = new int[Math.multiplyExact(height, width)];
+    if (layer instanceof AbstractReadOnlyPackedLayer || layer instanceof LayerPixelImpl) {
+      for (int i = 0; i < height; i++) {
+        for (int j = 0; j < width; j++) {
+          copy[i * width + j] = this.getARGB(i, j);
+        }
+      }
+    } else {
+      Pixel[][] grid = layer.getGrid();
+      for (int i = 0; i < height; i++) {
+        for (int j = 0; j < width; j++) {
+          copy[i * width + j] = PixelUtil.toARGB(grid[i][j]);
+        }
+      }
+    }
+    this.colours = copy;
+    this.layer = null;
+  }
+
+  /**
+   * Returns whether this view still reads the colours of its Layer
+   * rather than a copy of them.
+   * @return true if this view shares the colours of its Layer
+   */
+  public boolean isShared() {
+    return colours == null;
+  }
+
+  /**
+   * Returns the colour at the given coordinate as a packed ARGB
+   * integer (see PixelUtil.toARGB), without copying anything.
+   * @param row represents the row (y) of the colour
+   * @param col represents the column (x) of the colour
+   * @return the packed ARGB colour at (row, col)
+   * @throws IllegalArgumentException when the coordinate is outside
+   *     of this view
+   */
+  public int getARGB(int row, int col) throws IllegalArgumentException {
+    if (row < 0 || row >= height || col < 0 || col >= width) {
+      throw new IllegalArgumentException("Coordinate is outside of the layer.");
+    }
+    if (colours != null) {
+      return colours[row * width + col];
+    }
+    if (layer instanceof AbstractReadOnlyPackedLayer) {
+      return ((AbstractReadOnlyPackedLayer) layer).getPacked(row, col);
+    }
+    LayerPixelImpl pixels = (LayerPixelImpl) layer;
+    return pixels.toARGB(pixels.grid[row][col]);
+  }
+
+  /**
+   * Returns the colour at the given coordinate, without copying
+   * anything else.
+   * @param row represents the row (y) of the colour
+   * @param col represents the column (x) of the colour
+   * @return the Pixel at (row, col)
+   * @throws IllegalArgumentException when the coordinate is outside
+   *     of this view
+   */
+  public Pixel getPixel(int row, int col) throws IllegalArgumentException {
+    return PixelUtil.fromARGB(this.getARGB(row, col));
+  }
+
+  /**
+   * Returns a new Layer holding the colours and filter of this view,
+   * which can be changed freely.
+   * @return a mutable copy of this view
+   */
+  public Layer<Pixel> mutableCopy() {
+    return new LayerPackedImpl(height, width, this.getGrid(), filter);
+  }
+
+  @Override
+  public int getHeight() {
+    return height;
+  }
+
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  @Override
+  public Pixel[][] getGrid() {
+    Pixel[][] copy = new Pixel[height][width];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        copy[i][j] = this.getPixel(i, j);
+      }
+    }
+    return copy;
+  }
+
+  @Override
+  public String getFilterName() {
+    return filter.toString();
+  }
+
+  @Override
+  public FilterOption<Pixel> getFilter() {
+    return filter;
+  }
+
+  /**
+   * Views cannot be changed.
+   * @throws UnsupportedOperationException always
+   */
+  @Override
+  public void setFilter(FilterOption<Pixel> filter) {
+    throw new UnsupportedOperationException("Layer views cannot be changed.");
+  }
+
+  /**
+   * Views cannot be changed.
+   * @throws UnsupportedOperationException always
+   */
+  @Override
+  public void addImage(Pixel[][] image, int x, int y) {
+    throw new UnsupportedOperationException("Layer views cannot be changed.");
+  }
+
+  @Override
+  public Pixel[][] mergeDown(Pixel[][] top, Pixel[][] bgGrid, boolean applyFilter) {
+    return this.source().mergeDown(top, bgGrid, applyFilter);
+  }
+
+  @Override
+  public Pixel[][] mergeDown(Pixel[][] bg) {
+    return this.source().mergeDown(bg);
+  }
+
+  @Override
+  public String toProjString() {
+    return this.source().toProjString();
+  }
+
+  //returns the viewed layer when it still matches this view, or
+  //otherwise a copy of this view
+  private Layer<Pixel> source() {
+    if (colours == null && layer.getFilter() == filter) {
+      return layer;
+    }
+    return this.mutableCopy();
+  }
+}
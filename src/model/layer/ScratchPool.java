@@ -0,0 +1,170 @@
+package model.layer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents a pool of scratch buffers of packed ARGB colours (see
+ * PixelUtil.toARGB), and of float planes of colour components (see
+ * LayerPlanarImpl), kept by length, so that the intermediate
+ * results of compositing are reused from one render to the next
+ * instead of being allocated and thrown away every time.
+ *
+ * <p>Ownership is explicit: a buffer handed out by acquire belongs to
+ * the caller until it is given back through release, and must not be
+ * used after that.  The contents of an acquired buffer are whatever
+ * its last owner left in it, so callers clear it when they need to.
+ * Once every length a render needs has been acquired and released
+ * once, acquiring and releasing allocates nothing.</p>
+ */
+public class ScratchPool {
+  //the buffers waiting to be acquired; only a few lengths are ever
+  //in use at once, so they are searched in order rather than hashed
+  private final List<int[]> free;
+  //the buffers given out and not yet released
+  private final List<int[]> held;
+  //the same for float buffers
+  private final List<float[]> freeFloats;
+  private final List<float[]> heldFloats;
+  private long allocations;
+
+  /**
+   * Represents an empty pool.
+   */
+  public ScratchPool() {
+    this.free = new ArrayList<>();
+    this.held = new ArrayList<>();
+    this.freeFloats = new ArrayList<>();
+    this.heldFloats = new ArrayList<>();
+    this.allocations = 0;
+  }
+
+  /**
+   * Returns a buffer of exactly the given length, reusing a released
+   * one where there is one.  The buffer belongs to the caller until
+   * it is released.
+   * @param length represents the number of colours in the buffer
+   * @return a buffer of the given length, with undefined contents
+   * @throws IllegalArgumentException when the length is negative
+   */
+  public int[] acquire(int length) throws IllegalArgumentException {
+    if (length < 0) {
+      throw new IllegalArgumentException("Given length cannot be negative.");
+    }
+    int[] buffer = null;
+    for (int i = free.size() - 1; i >= 0; i--) {
+      if (free.get(i).length == length) {
+        buffer = free.remove(i);
+        break;
+      }
+    }
+    if (buffer == null) {
+      buffer = new int[length];
+      allocations++;
+    }
+    held.add(buffer);
+    return buffer;
+  }
+
+  /**
+   * Gives the given buffer back to this pool, which may hand it out
+   * again from then on.
+   * @param buffer represents a buffer acquired from this pool
+   * @throws IllegalArgumentException when the buffer is not held
+   *     from this pool, including when it was already released
+   */
+  public void release(int[] buffer) throws IllegalArgumentException {
+    //compared by identity: two buffers with the same colours are
+    //still different buffers
+    for (int i = held.size() - 1; i >= 0; i--) {
+      if (held.get(i) == buffer) {
+        held.remove(i);
+        free.add(buffer);
+        return;
+      }
+    }
+    throw new IllegalArgumentException("Given buffer is not held from this pool.");
+  }
+
+  /**
+   * Returns a float buffer of exactly the given length, reusing a
+   * released one where there is one.  The buffer belongs to the
+   * caller until it is released.
+   * @param length represents the number of floats in the buffer
+   * @return a buffer of the given length, with undefined contents
+   * @throws IllegalArgumentException when the length is negative
+   */
+  public float[] acquireFloats(int length) throws IllegalArgumentException {
+    if (length < 0) {
+      throw new IllegalArgumentException("Given length cannot be negative.");
+    }
+    float[] buffer = null;
+    for (int i = freeFloats.size() - 1; i >= 0; i--) {
+      if (freeFloats.get(i).length == length) {
+        buffer = freeFloats.remove(i);
+        break;
+      }
+    }
+    if (buffer == null) {
+      buffer = new float[length];
+      allocations++;
+    }
+    heldFloats.add(buffer);
+    return buffer;
+  }
+
+  /**
+   * Gives the given float buffer back to this pool, which may hand it
+   * out again from then on.
+   * @param buffer represents a float buffer acquired from this pool
+   * @throws IllegalArgumentException when the buffer is not held
+   *     from this pool, including when it was already released
+   */
+  public void release(float[] buffer) throws IllegalArgumentException {
+    for (int i = heldFloats.size() - 1; i >= 0; i--) {
+      if (heldFloats.get(i) == buffer) {
+        heldFloats.remove(i);
+        freeFloats.add(buffer);
+        return;
+      }
+    }
+    throw new IllegalArgumentException("Given buffer is not held from this pool.");
+  }
+
+  /**
+   * Returns the number of buffers, of either kind, given out and not
+   * yet released.
+   * @return the number of held buffers
+   */
+  public int getHeldCount() {
+    return held.size() + heldFloats.size();
+  }
+
+  /**
+   * Returns the number of released buffers, of either kind, waiting
+   * to be acquired.
+   * @return the number of free buffers
+   */
+  public int getFreeCount() {
+    return free.size() + freeFloats.size();
+  }
+
+  /**
+   * Returns the number of buffers this pool has had to allocate,
+   * because no released buffer of the right length was free.
+   * @return the number of allocated buffers
+   */
+  public long getAllocationCount() {
+    return allocations;
+  }
+
+  /**
+   * Drops every free buffer, for instance when the canvas changes
+   * size and they no longer fit.  Held buffers still belong to their
+   * owners and can still be released.
+   */
+  public void clear() {
+    free.clear();
+    freeFloats.clear();
+  }
+}
@@ -1,19 +1,48 @@
 package model.model;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.InputMismatchException;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
 
+import model.filter.option.AbstractSingleFilter;
 import model.filter.option.FilterOption;
+import model.filter.option.MemoizedFilter;
+import model.filter.option.NormalFilter;
+import model.layer.AbstractPackedLayer;
+import model.layer.AbstractReadOnlyPackedLayer;
 import model.layer.Layer;
+import model.layer.LayerDeflatedImpl;
+import model.layer.LayerMappedImpl;
 import model.layer.LayerPixelImpl;
+import model.layer.LayerPlacedImpl;
+import model.layer.LayerPlanarImpl;
+import model.layer.LayerRasterImpl;
+import model.layer.LayerRunLengthImpl;
+import model.layer.LayerPremultipliedImpl;
+import model.layer.LayerSolidImpl;
+import model.layer.LayerStorage;
+import model.layer.LayerTiledImpl;
+import model.layer.LayerView;
+import model.layer.ScratchPool;
+import model.pixel.ImageStore;
 import model.pixel.Pixel;
+import model.pixel.RGBARaster;
 import model.pixel.RGBPixel;
 import model.utils.PPMUtil;
+import model.utils.PixelUtil;
 
 /**
  * Represents an abstract class for CollageModel that would hold
@@ -29,6 +58,12 @@ import model.utils.PPMUtil;
  * open and re-init all the data</p>
  */
 public abstract class AbstractCollageModel implements CollageModel<Pixel> {
+  //represents the number of damaged rectangles kept apart before
+  //they are merged into one
+  private static final int MAX_DAMAGE = 8;
+  //represents the number of coordinates of the canvas below which it
+  //is composited on one thread by default
+  private static final long SEQUENTIAL_CUTOFF = 1 << 20;
   //represents the layers in this project
   protected Map<String, Layer<Pixel>> layers;
   //represents the order in which the layers were added
@@ -37,8 +72,68 @@ public abstract class AbstractCollageModel implements CollageModel<Pixel> {
   protected int height;
   protected int width;
   protected final Map<String, FilterOption<Pixel>> knownFilters;
-
-
+  //represents how newly created layers store their pixels
+  protected LayerStorage storage;
+  //represents if costly filters remember the colours they produce
+  protected boolean memoizeFilters;
+  //represents the images shared by the placed layers of this project
+  protected final ImageStore images;
+  //represents the buffers compositing works in, reused between renders
+  protected final ScratchPool scratch;
+  //represents the read-only views given out by getLayer, by layer
+  //name, which are detached before their layer is changed.  They are
+  //held weakly, so a view nobody holds any more is never copied
+  protected Map<String, WeakReference<LayerView>> views;
+  //represents how many operations a layer can go untouched before
+  //it is deflated, and how many raw bytes of layers may be held
+  //before the least recently touched ones are; 0 turns either off
+  protected int idleOperations;
+  protected long heapBudget;
+  //represents the number of operations done on the open project,
+  //and the operation each layer was last touched by
+  protected long operations;
+  protected Map<String, Long> lastTouched;
+  //represents how many layers apart the composites of the layers
+  //below a layer are kept, or 0 to only keep the one over the idle
+  //layers at the bottom (see setCheckpointSpacing)
+  protected int checkpointSpacing;
+  //represents the kept composites of the layers below a layer, by
+  //the index of that layer, packed row by row, and the operation each
+  //was made at; a composite is stale once a layer below it is touched
+  private Map<Integer, int[]> checkpoints;
+  private Map<Integer, Long> checkpointOperations;
+  //represents how many layers were taken from a kept composite rather
+  //than merged, and how many had to be merged
+  private long checkpointHits;
+  private long checkpointMisses;
+  //represents the rectangles of the canvas changed since the cached
+  //composite was made, and those the latest composite changed
+  private List<DamageRect> damage;
+  private List<DamageRect> lastDamage;
+  //represents the number of changes made to the layers, which the
+  //cached composite is stamped with; it is never reset, so a stamp
+  //from an earlier project never matches
+  protected long version;
+  //represents the last composite of every layer, packed row by row
+  //(premultiplied when cachedPremultiplied), held from this.scratch,
+  //the version it was made at, and how many composites were made
+  private int[] cachedComposite;
+  private boolean cachedPremultiplied;
+  private long cachedVersion;
+  private long compositeCount;
+  //represents how many threads composite the canvas in bands of rows,
+  //the number of coordinates below which the canvas is composited on
+  //one thread anyway, the pool the bands run on, made once needed, and
+  //the buffers of each thread of that pool, reused between renders
+  protected int parallelism;
+  protected long sequentialCutoff;
+  private ForkJoinPool bandPool;
+  private ThreadLocal<ScratchPool> bandScratch;
+  //represents the layers being composited a strip of rows at a time,
+  //bottom first, and the kept composites to copy each strip into
+  //before the layer at the same index is merged, or null
+  private final List<Layer<Pixel>> stack;
+  private final List<int[]> stackKept;
 
   /**
    * Represents the constructor for an AbstractCollageModel.
@@ -46,7 +141,15 @@ public abstract class AbstractCollageModel implements CollageModel<Pixel> {
    * the projectOpen flag and the map of layers.
    */
   protected AbstractCollageModel() {
+    this.images = new ImageStore();
+    this.scratch = new ScratchPool();
+    this.stack = new ArrayList<>();
+    this.stackKept = new ArrayList<>();
+    this.checkpointSpacing = 4;
+    this.parallelism = Runtime.getRuntime().availableProcessors();
+    this.sequentialCutoff = SEQUENTIAL_CUTOFF;
     this.init();
+    this.storage = LayerStorage.PIXEL;
     knownFilters = new HashMap<>();
     this.initFilters();
   }
@@ -59,10 +162,362 @@ public abstract class AbstractCollageModel implements CollageModel<Pixel> {
     this.projectOpen = false;
     this.layers = new HashMap<>();
     this.layersKeyOrder = new ArrayList<>();
+    this.views = new HashMap<>();
+    this.operations = 0;
+    this.lastTouched = new HashMap<>();
+    this.checkpoints = new HashMap<>();
+    this.checkpointOperations = new HashMap<>();
+    this.damage = new ArrayList<>();
+    this.lastDamage = new ArrayList<>();
+    //the cached composite belongs to the old project
+    if (this.cachedComposite != null) {
+      this.scratch.release(this.cachedComposite);
+      this.cachedComposite = null;
+    }
+    this.version++;
+    //buffers the size of the old canvas would never be reused
+    this.scratch.clear();
+    this.bandScratch = ThreadLocal.withInitial(ScratchPool::new);
+    //the threads of the pool end, and are made again once needed
+    if (this.bandPool != null) {
+      this.bandPool.shutdown();
+      this.bandPool = null;
+    }
   }
 
   protected abstract void initFilters();
 
+  /**
+   * Sets how the layers of the next project will store their
+   * pixels.  The storage mode cannot be changed while a project
+   * is open; it applies to every layer created by the next call
+   * to newProject or loadProject and stays in place after quit.
+   * @param storage represents the storage mode for new layers
+   * @throws IllegalStateException when a project is already open
+   * @throws IllegalArgumentException when the storage is null
+   */
+  public void setLayerStorage(LayerStorage storage)
+          throws IllegalStateException, IllegalArgumentException {
+    if (this.projectOpen) {
+      throw new IllegalStateException("setLayerStorage failed: project already open.");
+    }
+    try {
+      this.storage = Objects.requireNonNull(storage);
+    } catch (NullPointerException e) {
+      throw new IllegalArgumentException("setLayerStorage failed: storage cannot be null.");
+    }
+  }
+
+  /**
+   * Returns how the layers of this model store their pixels.
+   * @return the storage mode of this model
+   */
+  public LayerStorage getLayerStorage() {
+    return this.storage;
+  }
+
+  /**
+   * Sets whether the filters that blend with the colours under them
+   * (every filter but the normal and single filters) remember the
+   * colours they produce, by wrapping them in a MemoizedFilter.
+   * This never changes the output of this model, and can be changed
+   * at any time; the layers of an open project switch right away.
+   * @param memoize represents if the blend filters should remember
+   *     their colours
+   */
+  public void setFilterMemoization(boolean memoize) {
+    this.memoizeFilters = memoize;
+    for (Map.Entry<String, FilterOption<Pixel>> entry : knownFilters.entrySet()) {
+      FilterOption<Pixel> filter = entry.getValue();
+      if (filter instanceof MemoizedFilter) {
+        filter = ((MemoizedFilter) filter).getFilter();
+      }
+      if (memoize && !(filter instanceof NormalFilter)
+              && !(filter instanceof AbstractSingleFilter)) {
+        filter = new MemoizedFilter(filter);
+      }
+      entry.setValue(filter);
+    }
+
+    //the layers switch to the (un)wrapped filters of the same name
+    for (Layer<Pixel> layer : layers.values()) {
+      FilterOption<Pixel> filter = knownFilters.get(layer.getFilterName());
+      if (filter != null) {
+        layer.setFilter(filter);
+      }
+    }
+  }
+
+  /**
+   * Returns whether the blend filters of this model remember the
+   * colours they produce (see setFilterMemoization).
+   * @return true if the blend filters remember their colours
+   */
+  public boolean isFilterMemoization() {
+    return this.memoizeFilters;
+  }
+
+  /**
+   * Returns how many colours the blend filters of this model found
+   * among the colours they remember, since memoization was last
+   * turned on.
+   * @return the number of colours that did not need computing
+   */
+  public long getFilterCacheHits() {
+    long hits = 0;
+    for (FilterOption<Pixel> filter : knownFilters.values()) {
+      if (filter instanceof MemoizedFilter) {
+        hits += ((MemoizedFilter) filter).getHits();
+      }
+    }
+    return hits;
+  }
+
+  /**
+   * Returns how many colours the blend filters of this model had to
+   * compute, since memoization was last turned on.
+   * @return the number of colours that needed computing
+   */
+  public long getFilterCacheMisses() {
+    long misses = 0;
+    for (FilterOption<Pixel> filter : knownFilters.values()) {
+      if (filter instanceof MemoizedFilter) {
+        misses += ((MemoizedFilter) filter).getMisses();
+      }
+    }
+    return misses;
+  }
+
+  /**
+   * Sets how many layers apart the composite of the layers below a
+   * layer is kept, so that changing a layer only composites the
+   * layers from the kept composite below it up.  Each kept composite
+   * takes four bytes per coordinate of the canvas: a spacing of 1
+   * keeps one under every layer and makes every change cheapest,
+   * larger spacings keep fewer.  The composite over the deflated and
+   * solid layers at the bottom is always kept.  This also resets the
+   * checkpoint hit counts.
+   * @param spacing represents the number of layers between kept
+   *     composites, or 0 to keep no others
+   * @throws IllegalArgumentException when the spacing is negative
+   */
+  public void setCheckpointSpacing(int spacing) throws IllegalArgumentException {
+    if (spacing < 0) {
+      throw new IllegalArgumentException(
+              "setCheckpointSpacing failed: spacing cannot be negative.");
+    }
+    this.checkpointSpacing = spacing;
+    this.checkpoints.clear();
+    this.checkpointOperations.clear();
+    this.checkpointHits = 0;
+    this.checkpointMisses = 0;
+  }
+
+  /**
+   * Returns how many layers were taken from a kept composite rather
+   * than merged, since the checkpoint spacing was last set.
+   * @return the number of layers that did not need merging
+   */
+  public long getCheckpointHits() {
+    return this.checkpointHits;
+  }
+
+  /**
+   * Returns how many layers had to be merged because no kept
+   * composite above them was valid, since the checkpoint spacing was
+   * last set.
+   * @return the number of layers that needed merging
+   */
+  public long getCheckpointMisses() {
+    return this.checkpointMisses;
+  }
+
+  /**
+   * Returns the share of layers that were taken from a kept composite
+   * rather than merged, since the checkpoint spacing was last set.
+   * @return the checkpoint hit ratio, or 0 if nothing was composited
+   */
+  public double getCheckpointHitRatio() {
+    long total = checkpointHits + checkpointMisses;
+    return total == 0 ? 0 : (double) checkpointHits / total;
+  }
+
+  /**
+   * Returns how many composites of the layers below a layer are kept.
+   * @return the number of kept composites
+   */
+  public int getCheckpointCount() {
+    return this.checkpoints.size();
+  }
+
+  /**
+   * Returns the rectangles of the canvas that the latest composite
+   * of the layers changed, so that views only repaint those: the
+   * rectangles drawn on and the layers whose filter was set since
+   * the composite before, or the whole canvas when the layers were
+   * composited from scratch.  Touching rectangles are merged.
+   * @return the damaged rectangles of the latest composite
+   */
+  public List<DamageRect> getDamage() {
+    return Collections.unmodifiableList(new ArrayList<>(this.lastDamage));
+  }
+
+  /**
+   * Sets how many threads composite the layers, each merging every
+   * layer over its own bands of rows of the canvas.  Every colour of
+   * the composite only depends on the same colour of every layer, so
+   * the composite is identical to the one made on a single thread.
+   * Canvases with fewer coordinates than the given cutoff are still
+   * composited on one thread, where starting the others would cost
+   * more than it saves, and so are layers that cannot be read from
+   * several threads at once: placed layers, deflated layers, layers
+   * of another size than the canvas, and memoized filters.
+   * @param parallelism represents the number of threads, or 1 to
+   *     always composite on the calling thread
+   * @param sequentialCutoff represents the number of coordinates of
+   *     the canvas below which it is composited on one thread
+   * @throws IllegalArgumentException when the number of threads is
+   *     not positive or the cutoff is negative
+   */
+  public void setParallelism(int parallelism, long sequentialCutoff)
+          throws IllegalArgumentException {
+    if (parallelism < 1 || sequentialCutoff < 0) {
+      throw new IllegalArgumentException(
+              "setParallelism failed: threads must be positive and cutoff cannot be negative.");
+    }
+    //the threads of the old pool end once they are idle
+    if (this.bandPool != null && this.parallelism != parallelism) {
+      this.bandPool.shutdown();
+      this.bandPool = null;
+    }
+    this.parallelism = parallelism;
+    this.sequentialCutoff = sequentialCutoff;
+  }
+
+  /**
+   * Returns how many threads composite the layers of canvases of at
+   * least the sequential cutoff (see setParallelism).
+   * @return the number of compositing threads
+   */
+  public int getParallelism() {
+    return this.parallelism;
+  }
+
+  /**
+   * Returns how many times the layers of this model were composited,
+   * rather than taken from the composite cached since they last
+   * changed.
+   * @return the number of composites made
+   */
+  public long getCompositeCount() {
+    return this.compositeCount;
+  }
+
+  /**
+   * Returns the number of distinct images held for the placed layers
+   * of the open project; an image added to many layers, or many
+   * times, is only held once.
+   * @return the number of distinct held images
+   */
+  public int getStoredImageCount() {
+    return this.images.size();
+  }
+
+  /**
+   * Returns the number of bytes of colour held for the placed layers
+   * of the open project, each shared image counted once.
+   * @return the number of held bytes
+   */
+  public long getStoredImageBytes() {
+    return this.images.getByteCount();
+  }
+
+  /**
+   * Returns how many times smaller the run-length layers of the open
+   * project are than if they stored every colour: the number of
+   * colours they cover over the number of integers they hold (see
+   * LayerRunLengthImpl.getStoredIntCount).
+   * @return the compression ratio of the run-length layers, or 1 if
+   *     there are none
+   */
+  public double getRunLengthCompressionRatio() {
+    long colours = 0;
+    long stored = 0;
+    for (Layer<Pixel> layer : layers.values()) {
+      if (layer instanceof LayerRunLengthImpl) {
+        colours += (long) layer.getHeight() * layer.getWidth();
+        stored += ((LayerRunLengthImpl) layer).getStoredIntCount();
+      }
+    }
+    return stored == 0 ? 1 : (double) colours / stored;
+  }
+
+  /**
+   * Sets when the layers of this model are deflated (see
+   * LayerDeflatedImpl) while they are not worked on: once a layer has
+   * not been touched by the given number of operations (adding an
+   * image, setting a filter, or adding a layer), and, least recently
+   * touched first, while the layers hold more than the given number
+   * of raw bytes.  Deflated layers are inflated again as soon as they
+   * are drawn on.  Only storage modes that store colours exactly, and
+   * do not share images, are deflated: not PREMULTIPLIED, PLANAR, or
+   * PLACED; MAPPED layers are not on the heap to begin with.
+   * @param idleOperations represents the number of operations a layer
+   *     stays untouched before it is deflated, or 0 to never deflate
+   *     layers for being idle
+   * @param heapBudget represents the number of raw bytes the layers
+   *     may hold, or 0 for no limit
+   * @throws IllegalArgumentException when either is negative
+   */
+  public void setIdleCompression(int idleOperations, long heapBudget)
+          throws IllegalArgumentException {
+    if (idleOperations < 0 || heapBudget < 0) {
+      throw new IllegalArgumentException("setIdleCompression failed: limits cannot be negative.");
+    }
+    this.idleOperations = idleOperations;
+    this.heapBudget = heapBudget;
+    this.compressIdleLayers(null);
+  }
+
+  /**
+   * Returns the number of bytes the colours of the given layer take
+   * when not deflated: four per coordinate.
+   * @param layerName represents the name of the layer
+   * @return the number of raw bytes of the layer
+   * @throws IllegalStateException when no project is open
+   * @throws IllegalArgumentException when the layer does not exist
+   */
+  public long getLayerRawBytes(String layerName)
+          throws IllegalStateException, IllegalArgumentException {
+    this.notOpenException("getLayerRawBytes");
+    this.layerNameException(layerName, "getLayerRawBytes");
+    Layer<Pixel> layer = this.layers.get(layerName);
+    return (long) layer.getHeight() * layer.getWidth() * RGBARaster.BYTES_PER_PIXEL;
+  }
+
+  /**
+   * Returns the number of bytes the colours of the given layer take
+   * while deflated, or while stored as a single colour, or its raw
+   * number of bytes otherwise.
+   * @param layerName represents the name of the layer
+   * @return the number of deflated bytes of the layer
+   * @throws IllegalStateException when no project is open
+   * @throws IllegalArgumentException when the layer does not exist
+   */
+  public long getLayerCompressedBytes(String layerName)
+          throws IllegalStateException, IllegalArgumentException {
+    this.notOpenException("getLayerCompressedBytes");
+    this.layerNameException(layerName, "getLayerCompressedBytes");
+    Layer<Pixel> layer = this.layers.get(layerName);
+    if (layer instanceof LayerDeflatedImpl) {
+      return ((LayerDeflatedImpl) layer).getDeflatedBytes();
+    }
+    if (layer instanceof LayerSolidImpl && ((LayerSolidImpl) layer).isSolid()) {
+      return RGBARaster.BYTES_PER_PIXEL;
+    }
+    return this.getLayerRawBytes(layerName);
+  }
+
   @Override
   public void newProject(int height, int width)
           throws IllegalStateException,IllegalArgumentException {
@@ -75,25 +530,16 @@ public abstract class AbstractCollageModel implements CollageModel<Pixel> {
     //which, in the constructor, will:
     //make sure the height and width are valid
     //and throw an exception if they are not.
-    this.layers.put("background",new LayerPixelImpl(height,width));
+    //The background is opaque white as per instructions, stored as
+    //that one colour until something is drawn onto it.
+    this.layers.put("background", new LayerSolidImpl(height, width,
+            RGBPixel.of(255,255,255,255), new NormalFilter()));
 
     //initialises the height and width only if they are valid
     this.height = height;
     this.width = width;
     this.projectOpen = true;
     this.layersKeyOrder.add("background");
-
-
-    //sets the background colour to opaque white as per instructions
-    Pixel[][] whiteGrid = new Pixel[height][width];
-
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        whiteGrid[i][j] = new RGBPixel(255,255,255,255);
-      }
-    }
-
-    addImageToLayerAbstraction("background", whiteGrid,0,0);
   }
 
   @Override
@@ -196,6 +642,120 @@ public abstract class AbstractCollageModel implements CollageModel<Pixel> {
     return this.toProjString();
   }
 
+  /**
+   * Converts the open project to a binary project format holding
+   * the same information as saveProject: the magic bytes "C1B",
+   * the width, the height and the number of layers as ints, then
+   * for each layer in order its name and filter name (as modified
+   * UTF-8, see DataOutput.writeUTF) followed by its colours in the
+   * byte layout of RGBARaster.  Layers stored as rasters are written
+   * out without converting their colours.
+   * @return this project in the binary project format
+   * @throws IllegalStateException when no project is open
+   */
+  public byte[] saveProjectBinary() throws IllegalStateException {
+    //throws an IllegalStateException if a project is not open
+    this.notOpenException("saveProjectBinary");
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeBytes("C1B");
+      out.writeInt(width);
+      out.writeInt(height);
+      out.writeInt(layersKeyOrder.size());
+      for (String layerName : layersKeyOrder) {
+        Layer<Pixel> layer = layers.get(layerName);
+        out.writeUTF(layerName);
+        out.writeUTF(layer.getFilterName());
+        if (layer instanceof LayerRasterImpl) {
+          ((LayerRasterImpl) layer).writeTo(out);
+        } else {
+          RGBARaster.fromGrid(layer.getGrid()).writeTo(out);
+        }
+      }
+    } catch (IOException e) {
+      //a ByteArrayOutputStream never fails to write
+      throw new IllegalStateException("saveProjectBinary failed: " + e.getMessage());
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Loads a project from the binary project format produced by
+   * saveProjectBinary.  Like loadProject, this cannot be done while
+   * another project is open.
+   * @param projFile represents the bytes of the binary project
+   * @throws IllegalStateException when a project is already open
+   * @throws IllegalArgumentException when the bytes are null, are
+   *     not a binary project, or are too short for the layers they
+   *     claim to hold
+   */
+  public void loadProjectBinary(byte[] projFile)
+          throws IllegalStateException, IllegalArgumentException {
+    if (this.projectOpen) {
+      //throws an IllegalStateException if a project is already open
+      throw new IllegalStateException("loadProjectBinary fail; project already open.");
+    }
+    try {
+      Objects.requireNonNull(projFile);
+    } catch (NullPointerException e) {
+      throw new IllegalArgumentException("loadProjectBinary failed: projFile cannot be null.");
+    }
+
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(projFile))) {
+      byte[] magic = new byte[3];
+      in.readFully(magic);
+      if (magic[0] != 'C' || magic[1] != '1' || magic[2] != 'B') {
+        throw new IllegalArgumentException(
+                "Invalid Project file: binary project file should start with C1B");
+      }
+      int width = in.readInt();
+      int height = in.readInt();
+      int count = in.readInt();
+
+      //every layer holds 4 bytes per coordinate, so a file too short
+      //for its layers is rejected before any of them is allocated
+      long colours = (long) width * height;
+      if (count < 0 || (count > 0 && colours > in.available() / 4 / count)) {
+        throw new IllegalArgumentException(
+                "Project file read fail: file too short for its layers.");
+      }
+
+      //creates a new Project with the given specs; if this
+      //fails the exception propagates and no project is open
+      newProject(height, width);
+
+      try {
+        for (int i = 0; i < count; i++) {
+          String layerName = in.readUTF();
+          String filterOption = in.readUTF();
+          RGBARaster raster = RGBARaster.readFrom(in, height, width);
+
+          //the same steps as reading a text project
+          if (!Objects.equals(layerName, "background")) {
+            addLayer(layerName);
+          }
+          setFilter(layerName, filterOption);
+          Layer<Pixel> layer = layers.get(layerName);
+          if (layer instanceof LayerRasterImpl) {
+            ((LayerRasterImpl) layer).addImage(raster, 0, 0);
+          } else if (layer instanceof LayerPlacedImpl) {
+            ((LayerPlacedImpl) layer).addImage(images.acquire(raster), 0, 0);
+          } else {
+            addImageToLayerAbstraction(layerName, raster.toGrid(), 0, 0);
+          }
+        }
+      } catch (IOException | RuntimeException e) {
+        //if the layers do not line up with the format, or cannot be
+        //built at all, the half-read project is closed
+        quit();
+        throw new IllegalArgumentException("Project file read fail: incorrect layer format.");
+      }
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Project file read fail: incorrect format.");
+    }
+  }
+
   @Override
   public void addLayer(String layerName)
           throws IllegalStateException, IllegalArgumentException {
@@ -212,8 +772,9 @@ public abstract class AbstractCollageModel implements CollageModel<Pixel> {
     if (layers.containsKey(layerName)) {
       throw new IllegalArgumentException("addLayer failed: layerName already exists.");
     } else {
-      layers.put(layerName,new LayerPixelImpl(this.height,this.width));
+      layers.put(layerName,this.storage.create(this.height,this.width));
       layersKeyOrder.add(layerName);
+      this.touch(layerName);
     }
   }
 
@@ -258,9 +819,93 @@ public abstract class AbstractCollageModel implements CollageModel<Pixel> {
 
     //throws an IllegalArgumentException if layerName doesn't exist
     this.layerNameException(layerName,"addImageToLayer");
+    this.detachView(layerName);
+    this.touch(layerName);
+    //only the part of the canvas under the image can change
+    int cols = 0;
+    for (Pixel[] row : grid) {
+      cols = Math.max(cols, row.length);
+    }
+    this.damage(x, y, cols, grid.length);
+
+    //solid layers stay a single colour for as long as they can, and
+    //are otherwise replaced by a layer of this.storage, as are
+    //deflated layers
+    Layer<Pixel> layer = layers.get(layerName);
+    if (layer instanceof LayerSolidImpl) {
+      if (((LayerSolidImpl) layer).addUniformImage(grid, x, y)) {
+        return;
+      }
+      layer = this.materialize(layerName);
+    } else if (layer instanceof LayerDeflatedImpl) {
+      layer = this.materialize(layerName);
+    }
+    this.addImageTo(layer, grid, x, y);
+  }
+
+  //adds the given image to the given layer of this project
+  private void addImageTo(Layer<Pixel> layer, Pixel[][] grid, int x, int y) {
+    //placed layers keep the image itself, so identical images
+    //are shared through the store instead of kept once per layer
+    if (layer instanceof LayerPlacedImpl) {
+      for (Pixel[] row : grid) {
+        if (row.length > 0) {
+          ((LayerPlacedImpl) layer).addImage(
+                  images.acquire(RGBARaster.fromImage(grid)), x, y);
+          return;
+        }
+      }
+      return;
+    }
+
+    //planar layers unpack the image through rows of the scratch pool
+    if (layer instanceof LayerPlanarImpl) {
+      ((LayerPlanarImpl) layer).addImage(grid, x, y, scratch);
+      return;
+    }
 
     //delegates to the given layer
-    layers.get(layerName).addImage(grid,x,y);
+    layer.addImage(grid,x,y);
+  }
+
+  /**
+   * Replaces the solid or deflated layer of the given name, if it is
+   * one, with a layer of this.storage holding the same colours and
+   * filter.
+   * @param layerName represents the name of an existing layer
+   * @return the layer now held under the given name
+   */
+  protected Layer<Pixel> materialize(String layerName) {
+    Layer<Pixel> layer = layers.get(layerName);
+    if (layer instanceof LayerDeflatedImpl) {
+      Layer<Pixel> restored = ((LayerDeflatedImpl) layer).restore();
+      layers.put(layerName, restored);
+      views.remove(layerName);
+      return restored;
+    }
+    if (!(layer instanceof LayerSolidImpl)) {
+      return layer;
+    }
+    LayerSolidImpl solid = (LayerSolidImpl) layer;
+    Layer<Pixel> stored = this.storage.create(height, width);
+    stored.setFilter(solid.getFilter());
+    if (solid.isSolid()) {
+      //every row is the same array of the same colour
+      Pixel[] row = new Pixel[width];
+      Arrays.fill(row, solid.getColour());
+      Pixel[][] grid = new Pixel[height][];
+      Arrays.fill(grid, row);
+      if (row[0].getAlpha() != 0) {
+        this.addImageTo(stored, grid, 0, 0);
+      }
+    } else {
+      this.addImageTo(stored, solid.getGrid(), 0, 0);
+    }
+    layers.put(layerName, stored);
+    //a view of the solid layer stays valid, as that layer is no
+    //longer changed
+    views.remove(layerName);
+    return stored;
   }
 
   @Override
@@ -299,8 +944,12 @@ public abstract class AbstractCollageModel implements CollageModel<Pixel> {
     this.layerNameException(layerName,"setFilter");
 
     try {
+      Objects.requireNonNull(option);
+      this.detachView(layerName);
+      this.touch(layerName);
       this.layers.get(layerName).setFilter(option);
-    } catch (IllegalArgumentException e) {
+      this.damage(0, 0, width, height);
+    } catch (NullPointerException | IllegalArgumentException e) {
       throw new IllegalArgumentException("setFilter failed: FilterOption not found.");
     }
   }
@@ -320,40 +969,619 @@ public abstract class AbstractCollageModel implements CollageModel<Pixel> {
     //throws an IllegalStateException if no project is open
     this.notOpenException("saveImage");
 
-    //compresses the layers
-    Pixel[][] grid = this.compressLayers();
+    //premultiplied layers are compressed and written
+    //without ever leaving premultiplied form
+    int[] premultiplied = this.compressLayersPremultiplied();
+    if (premultiplied != null) {
+      return PPMUtil.toPPMFormat(premultiplied, height, width);
+    }
 
-    return PPMUtil.toPPMFormat(grid);
+    //the composite is premultiplied into a scratch buffer, since the
+    //composite itself stays cached: toPPMFormat drops the alpha of a
+    //colour by rounding exactly the way premultiply does
+    int[] composite = this.compressLayersCached();
+    int[] temp = scratch.acquire(composite.length);
+    try {
+      for (int i = 0; i < composite.length; i++) {
+        temp[i] = PixelUtil.premultiply(composite[i]);
+      }
+      return PPMUtil.toPPMFormat(temp, height, width);
+    } finally {
+      scratch.release(temp);
+    }
+  }
+
+  //method for compressing all the Layers in this.layers down to
+  //packed premultiplied colours, row by row.  This is only possible
+  //when every layer stores premultiplied colours and covers the
+  //whole canvas; otherwise this returns null.  The colours are
+  //cached until the layers next change (see compressLayersCached),
+  //so they must not be changed.
+  protected int[] compressLayersPremultiplied() {
+    for (String layerName : layersKeyOrder) {
+      Layer<Pixel> layer = layers.get(layerName);
+      if (!this.storedAs(layer, LayerStorage.PREMULTIPLIED, LayerPremultipliedImpl.class)) {
+        return null;
+      }
+    }
+
+    if (this.isCached(true)) {
+      return cachedComposite;
+    }
+
+    //starts out fully transparent, like compressLayers
+    int[] temp = scratch.acquire(Math.multiplyExact(height, width));
+    Arrays.fill(temp, 0);
+    for (String layerName : layersKeyOrder) {
+      ((LayerPremultipliedImpl) this.materialize(layerName)).mergeDownPremultiplied(temp, scratch);
+    }
+    this.cache(temp, true);
+    return temp;
   }
 
   //method for compressing all the Layers
   //in this.layers down to a 2D array of colour
   protected Pixel[][] compressLayers() {
-    //create a temporary array of Color to add to
-    Pixel[][] temp = new Pixel[height][width];
+    return this.toGrid(this.compressLayersCached());
+  }
+
+  //method for compressing all the Layers in this.layers down to
+  //packed straight ARGB colours, row by row.  The composite is kept,
+  //stamped with this.version, and given out again until the layers
+  //next change, so repeated saves of the same project only composite
+  //once; the colours must not be changed.
+  protected int[] compressLayersCached() {
+    if (this.isCached(false)) {
+      return cachedComposite;
+    }
+    //when only a small part of the canvas changed, only that part of
+    //the cached composite is composited again
+    if (cachedComposite != null && !cachedPremultiplied && this.isSmallDamage()) {
+      this.recomposite();
+      lastDamage = damage;
+      damage = new ArrayList<>();
+      cachedVersion = version;
+      compositeCount++;
+      return cachedComposite;
+    }
+
+    int[] temp = this.compressLayersStored();
+    if (temp == null) {
+      temp = this.compressLayersPacked();
+    }
+    this.cache(temp, false);
+    return temp;
+  }
+
+  //returns whether the cached composite is of the current layers
+  //and in the given form
+  private boolean isCached(boolean premultiplied) {
+    return cachedComposite != null && cachedVersion == version
+            && cachedPremultiplied == premultiplied;
+  }
+
+  //caches the given composite of the current layers, which is held
+  //from this.scratch, releasing the composite it replaces
+  private void cache(int[] composite, boolean premultiplied) {
+    if (cachedComposite != null) {
+      scratch.release(cachedComposite);
+    }
+    cachedComposite = composite;
+    cachedPremultiplied = premultiplied;
+    cachedVersion = version;
+    compositeCount++;
+    //only kept composites that match this composite can be brought up
+    //to date from the damage made after it
+    this.dropStaleCheckpoints();
+    lastDamage = new ArrayList<>();
+    lastDamage.add(new DamageRect(0, 0, width, height));
+    damage = new ArrayList<>();
+  }
+
+  //records that the given rectangle of the canvas may have changed,
+  //merging it with the recorded rectangles it touches
+  private void damage(int x, int y, int cols, int rows) {
+    //only the part of the rectangle on the canvas
+    int left = Math.max(0, x);
+    int top = Math.max(0, y);
+    long right = Math.min(width, (long) x + cols);
+    long bottom = Math.min(height, (long) y + rows);
+    if (left >= right || top >= bottom) {
+      return;
+    }
+    DamageRect rect = new DamageRect(left, top, (int) right - left, (int) bottom - top);
+    boolean merged = true;
+    while (merged) {
+      merged = false;
+      for (int i = 0; i < damage.size(); i++) {
+        if (damage.get(i).touches(rect)) {
+          rect = rect.union(damage.remove(i));
+          merged = true;
+          break;
+        }
+      }
+    }
+    damage.add(rect);
+    //many small rectangles are repainted as the one holding them all
+    if (damage.size() > MAX_DAMAGE) {
+      DamageRect all = damage.get(0);
+      for (DamageRect other : damage) {
+        all = all.union(other);
+      }
+      damage.clear();
+      damage.add(all);
+    }
+  }
+
+  //returns whether the canvas changed little enough since the cached
+  //composite was made that compositing only the changed rectangles
+  //is cheaper than compositing from the kept composites
+  private boolean isSmallDamage() {
+    long area = 0;
+    for (DamageRect rect : damage) {
+      area += rect.getArea();
+    }
+    return 2 * area < (long) height * width;
+  }
+
+  //composites the recorded rectangles of the cached composite again,
+  //from the highest valid kept composite up, updating the same
+  //rectangles of the kept composites above it on the way
+  private void recomposite() {
+    int count = layersKeyOrder.size();
+    int start = this.checkpointStart(count);
+    int[] from = start > 0 ? checkpoints.get(start) : null;
+    for (DamageRect rect : damage) {
+      int x = rect.getX();
+      int cols = rect.getWidth();
+      int rowStart = rect.getY();
+      int rows = rect.getHeight();
+      for (int i = rowStart; i < rowStart + rows; i++) {
+        int off = i * width + x;
+        if (from == null) {
+          Arrays.fill(cachedComposite, off, off + cols, 0);
+        } else {
+          System.arraycopy(from, off, cachedComposite, off, cols);
+        }
+      }
+      for (int k = start; k < count; k++) {
+        int[] kept = k > start ? checkpoints.get(k) : null;
+        if (kept != null) {
+          for (int i = rowStart; i < rowStart + rows; i++) {
+            System.arraycopy(cachedComposite, i * width + x, kept, i * width + x, cols);
+          }
+        }
+        this.mergeDownPacked(layers.get(layersKeyOrder.get(k)), cachedComposite,
+                x, rowStart, cols, rows);
+      }
+    }
+    //every kept composite matched the layers when the cached composite
+    //was made (see dropStaleCheckpoints), so the ones above start
+    //match them again once their damaged rectangles are merged
+    for (int k = start + 1; k < count; k++) {
+      if (checkpoints.containsKey(k)) {
+        checkpointOperations.put(k, operations);
+      }
+    }
+    checkpointHits += start;
+    checkpointMisses += count - start;
+  }
+
+  //method for compressing all the Layers in this.layers down to
+  //packed straight ARGB colours, row by row, in a buffer acquired
+  //from this.scratch that the caller must release, when every layer
+  //is stored the same way and can be compressed in that form;
+  //otherwise this returns null.  The colours are copied straight out
+  //of the compressed layer, without a grid
+  private int[] compressLayersStored() {
+    //planar layers are compressed a whole row at a time
+    AbstractReadOnlyPackedLayer stored = this.compressLayersPlanar();
+    //tiled layers are compressed one painted tile at a time
+    if (stored == null) {
+      stored = this.compressLayersTiled();
+    }
+    //run-length layers are compressed a run at a time
+    if (stored == null) {
+      stored = this.compressLayersRunLength();
+    }
+    if (stored != null) {
+      int[] temp = scratch.acquire(Math.multiplyExact(height, width));
+      stored.copyPacked(temp);
+      return temp;
+    }
+
+    //mapped layers are compressed a written tile at a time, into a
+    //layer that is mapped as well
+    LayerMappedImpl mapped = this.compressLayersMapped();
+    if (mapped != null) {
+      try {
+        int[] temp = scratch.acquire(Math.multiplyExact(height, width));
+        mapped.copyPacked(temp);
+        return temp;
+      } finally {
+        mapped.close();
+      }
+    }
+    return null;
+  }
+
+  //method for compressing all the Layers in this.layers down to
+  //packed straight ARGB colours, row by row, in a buffer acquired
+  //from this.scratch that the caller must release.  Every layer is
+  //merged into the buffer in place, so once the pool holds the
+  //buffers a render needs, compressing allocates no grids at all.
+  //Where every layer can be merged a few rows at a time, each strip
+  //of rows goes through the whole stack of layers while it is in the
+  //cache (see CompositeBands), so the canvas is only written once
+  //rather than once per layer.
+  //Only the layers above the highest kept composite that is still
+  //valid are merged, so a change to a layer only merges the layers
+  //from the checkpoint below it up.
+  protected int[] compressLayersPacked() {
+    int count = layersKeyOrder.size();
+    int start = this.checkpointStart(count);
+    int[] temp = scratch.acquire(Math.multiplyExact(height, width));
+    if (start > 0) {
+      System.arraycopy(checkpoints.get(start), 0, temp, 0, temp.length);
+    } else {
+      Arrays.fill(temp, 0);
+    }
+
+    //the deflated and solid layers at the bottom are kept under as
+    //well, so deflated layers there are not inflated for every image
+    int idle = this.idlePrefix();
+    if (this.isFused(start, count)) {
+      this.compositeFused(temp, start, count, idle);
+    } else {
+      //add all the layers on top of temp in order
+      for (int i = start; i < count; i++) {
+        if (i > start && this.isCheckpoint(i, idle)) {
+          this.keepCheckpoint(i, temp, idle);
+        }
+        this.mergeDownPacked(layers.get(layersKeyOrder.get(i)), temp);
+      }
+    }
+    checkpointHits += start;
+    checkpointMisses += count - start;
+    this.dropStaleCheckpoints();
+    return temp;
+  }
+
+  //returns the index of the highest layer under which the kept
+  //composite is still valid, or 0 when there is none
+  private int checkpointStart(int count) {
+    int start = 0;
+    long newest = 0;
+    for (int i = 1; i < count; i++) {
+      newest = Math.max(newest, lastTouched.getOrDefault(layersKeyOrder.get(i - 1), 0L));
+      Long made = checkpointOperations.get(i);
+      if (made != null && made >= newest) {
+        start = i;
+      }
+    }
+    return start;
+  }
+
+  //drops the kept composites that a layer below was touched after,
+  //such as one that is no longer at a checkpoint and so was not made
+  //again, so that every kept composite matches the layers
+  private void dropStaleCheckpoints() {
+    long newest = 0;
+    for (int i = 1; i < layersKeyOrder.size(); i++) {
+      newest = Math.max(newest, lastTouched.getOrDefault(layersKeyOrder.get(i - 1), 0L));
+      Long made = checkpointOperations.get(i);
+      if (made != null && made < newest) {
+        checkpoints.remove(i);
+        checkpointOperations.remove(i);
+      }
+    }
+  }
+
+  //returns whether the composite of the layers below the given layer
+  //index is kept
+  private boolean isCheckpoint(int index, int idle) {
+    return index == idle || (checkpointSpacing > 0 && index % checkpointSpacing == 0);
+  }
+
+  //keeps a copy of the given composite of the layers below the given
+  //layer index, and drops the kept composites that are no longer at
+  //a checkpoint
+  private void keepCheckpoint(int index, int[] composite, int idle) {
+    System.arraycopy(composite, 0, this.checkpointFor(index, composite.length), 0,
+            composite.length);
+    this.stampCheckpoint(index, idle);
+  }
+
+  //returns the kept composite under the given layer index, made if
+  //there is none of the given length yet
+  private int[] checkpointFor(int index, int length) {
+    int[] kept = checkpoints.get(index);
+    if (kept == null || kept.length != length) {
+      //kept between renders, so it is not taken from the pool
+      kept = new int[length];
+      checkpoints.put(index, kept);
+    }
+    return kept;
+  }
+
+  //stamps the kept composite under the given layer index with the
+  //current operation, and drops the kept composites that are no
+  //longer at a checkpoint
+  private void stampCheckpoint(int index, int idle) {
+    checkpointOperations.put(index, operations);
+    checkpoints.keySet().removeIf(i -> !this.isCheckpoint(i, idle));
+    checkpointOperations.keySet().retainAll(checkpoints.keySet());
+  }
+
+  //returns whether the layers from the given index up can all be
+  //merged over a few rows of the canvas at a time, in place
+  private boolean isFused(int start, int count) {
+    for (int i = start; i < count; i++) {
+      Layer<Pixel> layer = layers.get(layersKeyOrder.get(i));
+      if (!(layer instanceof AbstractReadOnlyPackedLayer || layer instanceof LayerPixelImpl)
+              || layer.getHeight() != height || layer.getWidth() != width) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  //returns whether the layers from the given index up, which can be
+  //fused, are composited in bands of rows on several threads: only
+  //when there are several, the canvas is large enough, and every
+  //layer can be read from several threads at once
+  private boolean isParallel(int start, int count) {
+    if (parallelism <= 1 || (long) height * width < sequentialCutoff) {
+      return false;
+    }
+    for (int i = start; i < count; i++) {
+      Layer<Pixel> layer = layers.get(layersKeyOrder.get(i));
+      //placed layers remember the placements of the last row read,
+      //and memoized filters the colours they produced
+      if (layer instanceof LayerPlacedImpl || layer.getFilter() instanceof MemoizedFilter) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  //merges the layers from the given index up over the given packed
+  //colours in place, a strip of rows at a time, on this thread or in
+  //bands of rows on this.bandPool, keeping the composites under the
+  //checkpoints on the way like compressLayersPacked
+  private void compositeFused(int[] composite, int start, int count, int idle) {
+    //the lists are reused, so that compositing allocates nothing
+    stack.clear();
+    stackKept.clear();
+    for (int i = start; i < count; i++) {
+      stack.add(layers.get(layersKeyOrder.get(i)));
+      //the kept composites are made here, as the maps holding them
+      //cannot be changed from several threads
+      stackKept.add(i > start && this.isCheckpoint(i, idle)
+              ? this.checkpointFor(i, composite.length) : null);
+    }
+    if (this.isParallel(start, count)) {
+      if (bandPool == null) {
+        bandPool = new ForkJoinPool(parallelism);
+      }
+      //a few bands per thread, so a thread that finishes early helps
+      int bandRows = Math.max(1, (height + 4 * parallelism - 1) / (4 * parallelism));
+      bandPool.invoke(new CompositeBands(stack, stackKept, composite, width, 0, height,
+              bandRows, bandScratch));
+    } else {
+      CompositeBands.compositeRows(stack, stackKept, composite, width, 0, height, scratch);
+    }
+    for (int i = start + 1; i < count; i++) {
+      if (stackKept.get(i - start) != null) {
+        this.stampCheckpoint(i, idle);
+      }
+    }
+    //the layers are not held on to once composited
+    stack.clear();
+    stackKept.clear();
+  }
+
+  //merges the given layer over the given packed colours in place;
+  //layers that cannot be merged in place go through a grid
+  private void mergeDownPacked(Layer<Pixel> layer, int[] composite) {
+    this.mergeDownPacked(layer, composite, 0, 0, width, height);
+  }
+
+  //merges the given rectangle of the given layer over the same
+  //rectangle of the given packed colours in place
+  private void mergeDownPacked(Layer<Pixel> layer, int[] composite,
+                               int x, int y, int cols, int rows) {
+    boolean fits = layer.getHeight() == height && layer.getWidth() == width;
+    if (fits && layer instanceof AbstractReadOnlyPackedLayer) {
+      ((AbstractReadOnlyPackedLayer) layer).mergeDownPacked(composite, scratch, x, y, cols, rows);
+    } else if (fits && layer instanceof LayerPixelImpl) {
+      ((LayerPixelImpl) layer).mergeDownPacked(composite, scratch, x, y, cols, rows);
+    } else if (fits && layer instanceof LayerDeflatedImpl) {
+      //inflated a row at a time rather than restored for every render
+      ((LayerDeflatedImpl) layer).mergeDownPacked(composite, scratch, x, y, cols, rows);
+    } else {
+      //merging is done colour by colour, so only the rectangle of
+      //the merged grid is kept
+      Pixel[][] merged = layer.mergeDown(this.toGrid(composite));
+      for (int i = y; i < y + rows; i++) {
+        for (int j = x; j < x + cols; j++) {
+          composite[i * width + j] = PixelUtil.toARGB(merged[i][j]);
+        }
+      }
+    }
+  }
 
-    //initialise temp
-    for (int i = 0; i < temp.length; i++) {
-      for (int j = 0; j < temp[0].length; j++) {
-        temp[i][j] = new RGBPixel(0,0,0,0);
+  //unpacks the given packed colours, row by row, into a grid the
+  //size of the canvas
+  private Pixel[][] toGrid(int[] packed) {
+    Pixel[][] grid = new Pixel[height][width];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        grid[i][j] = PixelUtil.fromARGB(packed[i * width + j]);
       }
     }
+    return grid;
+  }
 
+  //returns how many layers from the bottom are deflated or solid,
+  //or 0 when none of those are deflated
+  private int idlePrefix() {
+    int idle = 0;
+    boolean deflated = false;
+    for (String layerName : layersKeyOrder) {
+      Layer<Pixel> layer = layers.get(layerName);
+      if (!(layer instanceof LayerDeflatedImpl) && !(layer instanceof LayerSolidImpl)) {
+        break;
+      }
+      deflated |= layer instanceof LayerDeflatedImpl;
+      idle++;
+    }
+    return deflated ? idle : 0;
+  }
 
-    //add all the layers on top of temp in order
-    for (int i = 0; i < layersKeyOrder.size(); i++) {
-      temp = layers.get(layersKeyOrder.get(i)).mergeDown(temp);
+  //method for compressing all the Layers in this.layers down to a
+  //single planar layer.  This is only possible when every layer is
+  //planar and covers the whole canvas; otherwise this returns null.
+  protected LayerPlanarImpl compressLayersPlanar() {
+    for (String layerName : layersKeyOrder) {
+      Layer<Pixel> layer = layers.get(layerName);
+      if (!this.storedAs(layer, LayerStorage.PLANAR, LayerPlanarImpl.class)) {
+        return null;
+      }
     }
 
+    //starts out fully transparent, like compressLayers
+    LayerPlanarImpl temp = new LayerPlanarImpl(height, width);
+    for (String layerName : layersKeyOrder) {
+      Layer<Pixel> layer = layers.get(layerName);
+      if (!this.mergeSolid(layer, temp)) {
+        ((LayerPlanarImpl) layer).mergeDownPlanar(temp, scratch);
+      }
+    }
     return temp;
   }
 
+  //method for compressing all the Layers in this.layers down to a
+  //single tiled layer, skipping every tile nothing was painted on.
+  //This is only possible when every layer is tiled and covers the
+  //whole canvas; otherwise this returns null.
+  protected LayerTiledImpl compressLayersTiled() {
+    for (String layerName : layersKeyOrder) {
+      Layer<Pixel> layer = layers.get(layerName);
+      if (!this.storedAs(layer, LayerStorage.TILED, LayerTiledImpl.class)) {
+        return null;
+      }
+    }
+
+    //starts out fully transparent, like compressLayers
+    LayerTiledImpl temp = new LayerTiledImpl(height, width);
+    for (String layerName : layersKeyOrder) {
+      Layer<Pixel> layer = layers.get(layerName);
+      if (!this.mergeSolid(layer, temp)) {
+        ((LayerTiledImpl) layer).mergeDownTiled(temp);
+      }
+    }
+    return temp;
+  }
+
+  //method for compressing all the Layers in this.layers down to a
+  //single run-length layer, blending whole runs at a time.  This is
+  //only possible when every layer is run-length and covers the whole
+  //canvas; otherwise this returns null.
+  protected LayerRunLengthImpl compressLayersRunLength() {
+    for (String layerName : layersKeyOrder) {
+      Layer<Pixel> layer = layers.get(layerName);
+      if (!this.storedAs(layer, LayerStorage.RUN_LENGTH, LayerRunLengthImpl.class)) {
+        return null;
+      }
+    }
+
+    //starts out fully transparent, like compressLayers
+    LayerRunLengthImpl temp = new LayerRunLengthImpl(height, width);
+    for (String layerName : layersKeyOrder) {
+      Layer<Pixel> layer = layers.get(layerName);
+      if (!this.mergeSolid(layer, temp)) {
+        ((LayerRunLengthImpl) layer).mergeDownRunLength(temp);
+      }
+    }
+    return temp;
+  }
+
+  //method for compressing all the Layers in this.layers down to a
+  //single mapped layer, streaming the written tiles from their files.
+  //This is only possible when every layer is mapped and covers the
+  //whole canvas; otherwise this returns null.
+  protected LayerMappedImpl compressLayersMapped() {
+    for (String layerName : layersKeyOrder) {
+      Layer<Pixel> layer = layers.get(layerName);
+      if (!this.storedAs(layer, LayerStorage.MAPPED, LayerMappedImpl.class)) {
+        return null;
+      }
+    }
+
+    //starts out fully transparent, like compressLayers
+    LayerMappedImpl temp = new LayerMappedImpl(height, width);
+    for (String layerName : layersKeyOrder) {
+      Layer<Pixel> layer = layers.get(layerName);
+      if (!this.mergeSolid(layer, temp)) {
+        ((LayerMappedImpl) layer).mergeDownMapped(temp);
+      }
+    }
+    return temp;
+  }
+
+  //merges the given layer over the given temp layer if it is solid,
+  //as it is, rather than expanding it into a layer of this.storage
+  //(see materialize); returns whether it was solid
+  private boolean mergeSolid(Layer<Pixel> layer, AbstractPackedLayer temp) {
+    if (!(layer instanceof LayerSolidImpl)) {
+      return false;
+    }
+    ((LayerSolidImpl) layer).mergeDownPacked(temp, scratch);
+    return true;
+  }
+
+  //returns whether the given layer covers the whole canvas and is
+  //of the given type, or is a solid layer merged as it is (see
+  //mergeSolid); used by the compress methods that need every layer
+  //stored the same way
+  private boolean storedAs(Layer<Pixel> layer, LayerStorage mode, Class<?> type) {
+    if (layer instanceof LayerSolidImpl) {
+      return this.storage == mode;
+    }
+    return type.isInstance(layer)
+            && layer.getHeight() == height && layer.getWidth() == width;
+  }
+
   @Override
   public void quit() throws IllegalStateException {
     this.notOpenException("quit");
+    for (Map.Entry<String, Layer<Pixel>> entry : layers.entrySet()) {
+      this.releaseImages(entry.getValue());
+      //the files of mapped layers are deleted, once their views no
+      //longer need them
+      if (entry.getValue() instanceof LayerMappedImpl) {
+        this.detachView(entry.getKey());
+        ((LayerMappedImpl) entry.getValue()).close();
+      }
+    }
     this.init();
   }
 
+  /**
+   * Releases the stored images the given layer refers to, so they
+   * are freed once no other layer refers to them.  This must be
+   * called whenever a layer of the open project is dropped.
+   * @param layer represents the layer that is dropped
+   */
+  protected void releaseImages(Layer<Pixel> layer) {
+    if (layer instanceof LayerPlacedImpl) {
+      for (LayerPlacedImpl.Placement placement : ((LayerPlacedImpl) layer).getPlacements()) {
+        images.release(placement.getImage());
+      }
+    }
+  }
+
   @Override
   public Layer<Pixel> getLayer(String layerName) {
     //throws an IllegalStateException if no project is open
@@ -364,17 +1592,100 @@ public abstract class AbstractCollageModel implements CollageModel<Pixel> {
     //the method above ensures that the given layerName exists
     //and is non-null
 
-    //gets the target layer
-    Layer<Pixel> target = this.layers.get(layerName);
+    //returns a read-only view of the target layer, which shares
+    //its colours until the layer is changed (see detachView); the
+    //same view is given out until then
+    WeakReference<LayerView> reference = this.views.get(layerName);
+    LayerView view = reference == null ? null : reference.get();
+    if (view == null) {
+      view = new LayerView(this.layers.get(layerName));
+      this.views.put(layerName, new WeakReference<>(view));
+    }
+    return view;
+  }
 
-    //returns a clone of the target layer
-    //to protect data integrity
-    return new LayerPixelImpl(
-            target.getHeight(),
-            target.getWidth(),
-            target.getGrid(),
-            target.getFilter()
-    );
+  //counts an operation on the layer of the given name, which is
+  //about to change, which also makes the cached composite stale, and
+  //deflates the layers that have become idle
+  private void touch(String layerName) {
+    this.version++;
+    this.operations++;
+    this.lastTouched.put(layerName, this.operations);
+    this.compressIdleLayers(layerName);
+  }
+
+  //deflates the layers that have not been touched by idleOperations
+  //operations, then, least recently touched first, as many as it
+  //takes to hold at most heapBudget raw bytes; the given layer,
+  //which is being changed, is never deflated
+  private void compressIdleLayers(String changing) {
+    if ((idleOperations == 0 && heapBudget == 0) || storage == LayerStorage.PREMULTIPLIED
+            || storage == LayerStorage.PLANAR || storage == LayerStorage.PLACED
+            || storage == LayerStorage.MAPPED) {
+      return;
+    }
+
+    long held = 0;
+    for (String layerName : layersKeyOrder) {
+      if (!this.isDeflatable(layerName, changing)) {
+        continue;
+      }
+      if (idleOperations > 0
+              && operations - lastTouched.getOrDefault(layerName, 0L) >= idleOperations) {
+        this.deflate(layerName);
+      } else {
+        held += this.getLayerRawBytes(layerName);
+      }
+    }
+
+    while (heapBudget > 0 && held > heapBudget) {
+      String oldest = null;
+      for (String layerName : layersKeyOrder) {
+        if (this.isDeflatable(layerName, changing) && (oldest == null
+                || lastTouched.getOrDefault(layerName, 0L)
+                < lastTouched.getOrDefault(oldest, 0L))) {
+          oldest = layerName;
+        }
+      }
+      if (oldest == null) {
+        return;
+      }
+      held -= this.getLayerRawBytes(oldest);
+      this.deflate(oldest);
+    }
+  }
+
+  //returns whether the layer of the given name holds its colours
+  //raw, is not the one being changed, and has no view in use: a view
+  //reads the raw layer, which would stay on the heap either way
+  private boolean isDeflatable(String layerName, String changing) {
+    Layer<Pixel> layer = layers.get(layerName);
+    WeakReference<LayerView> view = views.get(layerName);
+    return !layerName.equals(changing) && !(layer instanceof LayerSolidImpl)
+            && !(layer instanceof LayerDeflatedImpl) && (view == null || view.get() == null);
+  }
+
+  //replaces the layer of the given name, which has no view in use,
+  //with a deflated copy
+  private void deflate(String layerName) {
+    layers.put(layerName, new LayerDeflatedImpl(layers.get(layerName), storage));
+    views.remove(layerName);
+  }
+
+  /**
+   * Detaches the view given out by getLayer for the layer of the
+   * given name, if there is one, so that the view keeps its colours
+   * when the layer is changed.  This must be called before any layer
+   * of the open project is changed.
+   * @param layerName represents the name of the layer to change
+   */
+  protected void detachView(String layerName) {
+    WeakReference<LayerView> reference = this.views.remove(layerName);
+    //a view that was collected has no colours left to keep
+    LayerView view = reference == null ? null : reference.get();
+    if (view != null) {
+      view.detach();
+    }
   }
 
   @Override
@@ -488,6 +1799,8 @@ public abstract class AbstractCollageModel implements CollageModel<Pixel> {
 
         Pixel[][] grid;
         grid = new Pixel[height][width];
+        //whether every colour of the layer is the same
+        boolean uniform = true;
         for (int i = 0; i < height; i++) {
           for (int j = 0; j < width; j++) {
             //the following will get the proportion of colour component with respect to
@@ -496,7 +1809,8 @@ public abstract class AbstractCollageModel implements CollageModel<Pixel> {
             int g = Math.toIntExact(Math.round((sc.nextInt() / (maxValue + 0.0)) * 255.0));
             int b = Math.toIntExact(Math.round((sc.nextInt() / (maxValue + 0.0)) * 255.0));
             int a = Math.toIntExact(Math.round((sc.nextInt() / (maxValue + 0.0)) * 255.0));
-            grid[i][j] = new RGBPixel(r, g, b, a);
+            grid[i][j] = RGBPixel.of(r, g, b, a);
+            uniform &= PixelUtil.toARGB(grid[i][j]) == PixelUtil.toARGB(grid[0][0]);
           }
         }
 
@@ -509,6 +1823,10 @@ public abstract class AbstractCollageModel implements CollageModel<Pixel> {
           } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("File read error: " + e.getMessage());
           }
+          //a layer of one colour is stored as that colour
+          if (uniform) {
+            layers.put(layerName, new LayerSolidImpl(height, width));
+          }
         }
 
         //sets the filter of the layer
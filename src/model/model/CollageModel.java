@@ -128,8 +128,10 @@ public interface CollageModel<C> extends CollageModelState {
   void quit() throws IllegalStateException;
 
   /**
-   * Produces a copy of the Layer with the given name.
-   * @return a copy of the Layer with the given name
+   * Produces a copy of the Layer with the given name, or a read-only
+   * view of it that never changes, which implementations may share
+   * with the Layer itself.
+   * @return a copy or read-only view of the Layer with the given name
    * @throws IllegalStateException when project not open yet
    * @throws IllegalArgumentException when layerName is invalid
    */
@@ -1,7 +1,5 @@
 package model.model;
 
-import java.util.Objects;
-
 import model.filter.option.NormalFilter;
 import model.filter.option.blend.Difference;
 import model.filter.option.blend.Multiply;
@@ -15,7 +13,7 @@ import model.filter.option.brightness.DarkenValue;
 import model.filter.option.colour.components.BlueComponent;
 import model.filter.option.colour.components.GreenComponent;
 import model.filter.option.colour.components.RedComponent;
-import model.pixel.Pixel;
+import model.utils.PixelUtil;
 
 /**
  * Represents a new implementation of CollageModelImpl
@@ -68,31 +66,39 @@ public class CollageModelImpl3 extends AbstractCollageModel {
     //throws an IllegalStateException if no project is open
     this.notOpenException("saveImage");
 
-    //compresses the layers
-    Pixel[][] grid = this.compressLayers();
+    //premultiplied layers are compressed in premultiplied form
+    //and only converted back to straight alpha here
+    int[] premultiplied = this.compressLayersPremultiplied();
+    if (premultiplied != null) {
+      return this.toIntermediaryString(premultiplied, true);
+    }
 
-    return this.toIntermediaryString(grid);
+    //compresses the layers, or takes them from the cache
+    return this.toIntermediaryString(this.compressLayersCached(), false);
   }
 
   /**
    * Creates a new "intermediary string" format that preserves
-   * the transparency of the underlying images.
+   * the transparency of the underlying images, from packed colours
+   * stored row by row, which are converted back to straight alpha
+   * first if they are premultiplied.
    */
-  private String toIntermediaryString(Pixel[][] grid) {
-    StringBuilder temp = new StringBuilder(
-            String.format("T1\n%d %d\n%d\n", width, height, getMax()));
-    try {
-      Objects.requireNonNull(grid);
-      for (int i = 0; i < grid.length; i++) {
-        for (int j = 0; j < grid[0].length; j++) {
-          Objects.requireNonNull(grid[i][j]);
-          temp.append(grid[i][j].toProjString());
-        }
+  private String toIntermediaryString(int[] colours, boolean premultiplied) {
+    //each pixel takes at most 16 characters ("255 255 255 255 ")
+    StringBuilder temp = new StringBuilder(16 * colours.length + 16);
+    temp.append(String.format("T1\n%d %d\n%d\n", width, height, getMax()));
+    for (int colour : colours) {
+      int argb = premultiplied ? PixelUtil.unpremultiply(colour) : colour;
+      if ((argb >>> 24) == 0) {
+        //see AbstractPixel.toProjString
+        temp.append("0 0 0 0 ");
+      } else {
+        temp.append((argb >> 16) & 0xFF).append(' ')
+                .append((argb >> 8) & 0xFF).append(' ')
+                .append(argb & 0xFF).append(' ')
+                .append(argb >>> 24).append(' ');
       }
-    } catch (NullPointerException e) {
-      throw new IllegalArgumentException("Grid cannot be null");
     }
-
     return temp.toString();
   }
 
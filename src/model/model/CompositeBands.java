@@ -0,0 +1,133 @@
+package model.model;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+import model.layer.AbstractReadOnlyPackedLayer;
+import model.layer.Layer;
+import model.layer.LayerPixelImpl;
+import model.layer.ScratchPool;
+import model.pixel.Pixel;
+
+/**
+ * Represents the compositing of a band of rows of the canvas, split
+ * into smaller bands on a ForkJoinPool until they are at most a given
+ * number of rows.  Every colour of the composite only depends on the
+ * same colour of every layer, so the bands never share any colours,
+ * and every band applies the same filters to the same colours in the
+ * same order as compositing the whole canvas at once.
+ *
+ * <p>Each band is composited a strip of STRIP_COLOURS colours at a
+ * time: every layer is merged over the strip before the next strip
+ * is started, while the strip is still in the cache, rather than
+ * merging every layer over the whole canvas in turn (see
+ * compositeRows).</p>
+ *
+ * <p>Only layers that can be read from many threads at once are
+ * composited on several threads: packed and Pixel layers the size of
+ * the canvas, other than placed layers, whose filters do not remember
+ * colours (see AbstractCollageModel.setParallelism).</p>
+ */
+class CompositeBands extends RecursiveAction {
+  /**
+   * Represents the number of colours of a strip of rows that every
+   * layer is merged over in turn: 64 KB, which fits in the cache of
+   * a core along with the rows of the layers merged over it.
+   */
+  static final int STRIP_COLOURS = 1 << 14;
+  private static final long serialVersionUID = 1L;
+
+  //the layers to merge, bottom first, and the kept composite to copy
+  //each band into before merging the layer at the same index, or null
+  private final List<Layer<Pixel>> layers;
+  private final List<int[]> kept;
+  private final int[] composite;
+  private final int width;
+  private final int firstRow;
+  private final int rows;
+  private final int bandRows;
+  //the scratch pool of each thread, kept by the model between renders
+  private final ThreadLocal<ScratchPool> pools;
+
+  /**
+   * Represents the compositing of the given rows of the canvas.
+   * @param layers represents the layers to merge, bottom first
+   * @param kept represents the kept composites to copy the band into
+   *     before each layer is merged, or null where there is none
+   * @param composite represents the packed colours of the canvas,
+   *     row by row, which the layers are merged over in place
+   * @param width represents the width of the canvas
+   * @param firstRow represents the first row of the band
+   * @param rows represents the number of rows of the band
+   * @param bandRows represents the number of rows a band is split
+   *     down to
+   * @param pools represents the scratch pool of each thread the bands
+   *     are composited on
+   */
+  CompositeBands(List<Layer<Pixel>> layers, List<int[]> kept, int[] composite, int width,
+                 int firstRow, int rows, int bandRows, ThreadLocal<ScratchPool> pools) {
+    this.layers = layers;
+    this.kept = kept;
+    this.composite = composite;
+    this.width = width;
+    this.firstRow = firstRow;
+    this.rows = rows;
+    this.bandRows = bandRows;
+    this.pools = pools;
+  }
+
+  @Override
+  protected void compute() {
+    if (rows > bandRows) {
+      int half = rows / 2;
+      invokeAll(new CompositeBands(layers, kept, composite, width, firstRow, half, bandRows,
+                      pools),
+              new CompositeBands(layers, kept, composite, width, firstRow + half,
+                      rows - half, bandRows, pools));
+      return;
+    }
+
+    //scratch pools are not shared between threads
+    compositeRows(layers, kept, composite, width, firstRow, rows, pools.get());
+  }
+
+  /**
+   * Merges every given layer over the given rows of the composite in
+   * place, a strip of rows at a time, so that each colour of the
+   * composite is read and written once per strip rather than once
+   * per layer.  Before a layer is merged over a strip, the strip is
+   * copied into the kept composite at the same index, if there is one.
+   * @param layers represents the layers to merge, bottom first, which
+   *     are AbstractReadOnlyPackedLayers or LayerPixelImpls the size
+   *     of the canvas
+   * @param kept represents the kept composites to copy the strips into
+   *     before each layer is merged, or null where there is none
+   * @param composite represents the packed colours of the canvas,
+   *     row by row, which the layers are merged over in place
+   * @param width represents the width of the canvas
+   * @param firstRow represents the first row to composite
+   * @param rows represents the number of rows to composite
+   * @param pool represents the pool the layers acquire their rows from
+   */
+  static void compositeRows(List<Layer<Pixel>> layers, List<int[]> kept, int[] composite,
+                            int width, int firstRow, int rows, ScratchPool pool) {
+    //at least one row, however wide the canvas is
+    int stripRows = Math.max(1, STRIP_COLOURS / width);
+    for (int row = firstRow; row < firstRow + rows; row += stripRows) {
+      int strip = Math.min(stripRows, firstRow + rows - row);
+      for (int k = 0; k < layers.size(); k++) {
+        int[] copy = kept.get(k);
+        if (copy != null) {
+          System.arraycopy(composite, row * width, copy, row * width, strip * width);
+        }
+        Layer<Pixel> layer = layers.get(k);
+        if (layer instanceof AbstractReadOnlyPackedLayer) {
+          ((AbstractReadOnlyPackedLayer) layer).mergeDownPacked(composite, pool,
+                  0, row, width, strip);
+        } else {
+          ((LayerPixelImpl) layer).mergeDownPacked(composite, pool, 0, row, width, strip);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package model.model;
+
+/**
+ * Represents a rectangle of the canvas whose colours may have
+ * changed since the canvas was last composited, which cannot be
+ * changed once made.  Like addImageToLayer, x is the column and y
+ * the row of the top left corner.
+ */
+public final class DamageRect {
+  private final int x;
+  private final int y;
+  private final int width;
+  private final int height;
+
+  /**
+   * Represents the rectangle of the given size with its top left
+   * corner at (x, y).
+   * @param x represents the column of the top left corner
+   * @param y represents the row of the top left corner
+   * @param width represents the number of columns of the rectangle
+   * @param height represents the number of rows of the rectangle
+   * @throws IllegalArgumentException when the corner is negative or
+   *     the size is not positive
+   */
+  public DamageRect(int x, int y, int width, int height) throws IllegalArgumentException {
+    if (x < 0 || y < 0 || width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Rectangle must have a positive size and corner.");
+    }
+    this.x = x;
+    this.y = y;
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * Returns the column of the top left corner of this rectangle.
+   * @return the column of the top left corner
+   */
+  public int getX() {
+    return x;
+  }
+
+  /**
+   * Returns the row of the top left corner of this rectangle.
+   * @return the row of the top left corner
+   */
+  public int getY() {
+    return y;
+  }
+
+  /**
+   * Returns the number of columns of this rectangle.
+   * @return the width of this rectangle
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the number of rows of this rectangle.
+   * @return the height of this rectangle
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Returns the number of coordinates in this rectangle.
+   * @return the area of this rectangle
+   */
+  public long getArea() {
+    return (long) width * height;
+  }
+
+  /**
+   * Returns whether this rectangle overlaps or borders the given
+   * rectangle, so that both are better repainted as one.
+   * @param other represents the other rectangle
+   * @return true if the rectangles overlap or share an edge
+   */
+  public boolean touches(DamageRect other) {
+    return x <= other.x + other.width && other.x <= x + width
+            && y <= other.y + other.height && other.y <= y + height;
+  }
+
+  /**
+   * Returns the smallest rectangle holding both this rectangle and
+   * the given one.
+   * @param other represents the other rectangle
+   * @return the bounding rectangle of both
+   */
+  public DamageRect union(DamageRect other) {
+    int left = Math.min(x, other.x);
+    int top = Math.min(y, other.y);
+    return new DamageRect(left, top,
+            Math.max(x + width, other.x + other.width) - left,
+            Math.max(y + height, other.y + other.height) - top);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof DamageRect)) {
+      return false;
+    }
+    DamageRect other = (DamageRect) obj;
+    return x == other.x && y == other.y && width == other.width && height == other.height;
+  }
+
+  @Override
+  public int hashCode() {
+    return ((x * 31 + y) * 31 + width) * 31 + height;
+  }
+
+  @Override
+  public String toString() {
+    return width + "x" + height + " at (" + x + ", " + y + ")";
+  }
+}
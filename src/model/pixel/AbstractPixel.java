@@ -2,6 +2,8 @@ package model.pixel;
 
 import java.util.Objects;
 
+import model.utils.PixelUtil;
+
 /**
  * This AbstractPixel represents a Pixel with default RGBA
  * values of red, green, blue, and alpha.  This class also
@@ -25,6 +27,9 @@ public abstract class AbstractPixel implements Pixel {
   protected final double green;
   protected final double blue;
   protected final double alpha;
+  //the HSL of this Pixel is only computed once it is asked for;
+  //volatile so a cached array is always seen fully written
+  private volatile double[] hsl;
 
   /**
    * This constructor is used to initialise the final RGBA values
@@ -125,47 +130,39 @@ public abstract class AbstractPixel implements Pixel {
 
   @Override
   public double getHue() {
-    //converts this Pixel from RGBA to RGB
-    double[] asRGB = this.rgbaToRGB();
-
-    //use the RGB (instead of RGBA) to calculate the HSL
-    double[] hsl = this.convertRGBtoHSL(
-            asRGB[0],
-            asRGB[1],
-            asRGB[2]);
-
-    //return HSL
-    return hsl[0];
+    return this.getHSL()[0];
   }
 
   @Override
   public double getSaturation() {
-    //converts this Pixel from RGBA to RGB
-    double[] asRGB = this.rgbaToRGB();
-
-    //use the RGB (instead of RGBA) to calculate the HSL
-    double[] hsl = this.convertRGBtoHSL(
-            asRGB[0],
-            asRGB[1],
-            asRGB[2]);
-
-    //return HSL
-    return hsl[1];
+    return this.getHSL()[1];
   }
 
   @Override
   public double getLightness() {
-    //converts this Pixel from RGBA to RGB
-    double[] asRGB = this.rgbaToRGB();
-
-    //use the RGB (instead of RGBA) to calculate the HSL
-    double[] hsl = this.convertRGBtoHSL(
-            asRGB[0],
-            asRGB[1],
-            asRGB[2]);
+    return this.getHSL()[2];
+  }
 
-    //return HSL
-    return hsl[2];
+  //returns the HSL representation of this Pixel, computing it
+  //the first time it is needed.  The HSL is always computed from
+  //the RGB (not from the HSL an HSLPixel was constructed with) so
+  //every Pixel reports the same HSL for the same RGBA.
+  private double[] getHSL() {
+    double[] temp = this.hsl;
+    if (temp == null) {
+      //converts this Pixel from RGBA to RGB
+      double[] asRGB = this.rgbaToRGB();
+
+      //use the RGB (instead of RGBA) to calculate the HSL
+      temp = this.convertRGBtoHSL(
+              asRGB[0],
+              asRGB[1],
+              asRGB[2]);
+
+      //two threads may both compute this; they compute the same thing
+      this.hsl = temp;
+    }
+    return temp;
   }
 
   //this method converts the RGBA to RGB.
@@ -241,60 +238,11 @@ public abstract class AbstractPixel implements Pixel {
    * @param b blue value of the RGB between 0 and 1
    */
   protected double[] convertRGBtoHSL(double r, double g, double b) {
-    double componentMax = Math.max(r, Math.max(g, b));
-    double componentMin = Math.min(r, Math.min(g, b));
-    double delta = componentMax - componentMin;
-
-    double lightness = (componentMax + componentMin) / 2;
-    double hue;
-    double saturation;
-    if (delta == 0) {
-      hue = 0;
-      saturation = 0;
-    } else {
-      saturation = delta / (1 - Math.abs(2 * lightness - 1));
-      hue = 0;
-      if (componentMax == r) {
-        hue = (g - b) / delta;
-        while (hue < 0) {
-          hue += 6; //hue must be positive to find the appropriate modulus
-        }
-        hue = hue % 6;
-      } else if (componentMax == g) {
-        hue = (b - r) / delta;
-        hue += 2;
-      } else if (componentMax == b) {
-        hue = (r - g) / delta;
-        hue += 4;
-      }
-
-      hue = hue * 60;
-    }
-
     double[] hsl = new double[3];
-    hsl[0] = squeezeInBounds(hue,0,360,true);
-    hsl[1] = squeezeInBounds(saturation,0,1,false);
-    hsl[2] = squeezeInBounds(lightness,0,1,false);
-
+    PixelUtil.convertRGBtoHSL(r, g, b, hsl);
     return hsl;
   }
 
-  //this method should address a potential bug in convertRGBtoHSL
-  //that could allow non-conforming hsl values to be exposed through
-  //rounding or the like. this method will ensure that that bug will
-  //never occur by "squeezing" the hsl values into conformity.
-  private double squeezeInBounds(double target,double min,double max,boolean maxMinSame) {
-    //define a temporary variable
-    double temp;
-    //if the temp is below the min, set it to the min
-    temp = Math.max(target,min);
-    //if the temp is greater than the max, set it to the max
-    temp = Math.min(temp,max);
-    //if the max is functionally identical to the min, use the min value
-    temp = maxMinSame ? (temp == max ? 360 : temp) : temp;
-    return temp;
-  }
-
 
   /**
    * Converts RGB to an HSL representation.  Specifically, where
@@ -309,27 +257,9 @@ public abstract class AbstractPixel implements Pixel {
    * @param lightness lightness of the HSL representation
    */
   protected double[] convertHSLtoRGB(double hue, double saturation, double lightness) {
-    double r = convertFn(hue, saturation, lightness, 0);
-    double g = convertFn(hue, saturation, lightness, 8);
-    double b = convertFn(hue, saturation, lightness, 4);
-
     double[] rgb = new double[3];
-    rgb[0] = r;
-    rgb[1] = g;
-    rgb[2] = b;
-
+    PixelUtil.convertHSLtoRGB(hue, saturation, lightness, rgb);
     return rgb;
   }
 
-  /*
-   * Helper method that performs the translation from the HSL polygonal
-   * model to the more familiar RGB model
-   */
-  private double convertFn(double hue, double saturation, double lightness, int n) {
-    double k = (n + (hue / 30)) % 12;
-    double a  = saturation * Math.min(lightness, 1 - lightness);
-
-    return lightness - a * Math.max(-1, Math.min(k - 3, Math.min(9 - k, 1)));
-  }
-
 }
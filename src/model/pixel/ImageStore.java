@@ -0,0 +1,136 @@
+package model.pixel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Represents a store of decoded images that are shared instead of
+ * copied: adding an image with the same contents as one already held
+ * gives back the held image, so a picture added to many layers is
+ * only kept in memory once.  Images are found by their content hash
+ * (see RGBARaster.contentHash) and compared byte for byte, so two
+ * different images are never mixed up.
+ *
+ * <p>Every image is counted each time it is acquired, and is dropped
+ * from this store once it has been released as many times.  Images
+ * given out by this store are shared and must not be changed.</p>
+ */
+public class ImageStore {
+  //the held images with the same content hash
+  private final Map<Long, List<RGBARaster>> byHash;
+  //the number of references to every held image
+  private final Map<RGBARaster, Integer> references;
+  private long bytes;
+
+  /**
+   * Represents an empty store.
+   */
+  public ImageStore() {
+    this.byHash = new HashMap<>();
+    this.references = new IdentityHashMap<>();
+    this.bytes = 0;
+  }
+
+  /**
+   * Returns the held image with the same contents as the given image,
+   * holding the given image if there is none, and counts one more
+   * reference to it.
+   * @param image represents the image to share
+   * @return the image held by this store, which must not be changed
+   * @throws IllegalArgumentException when the image is null
+   */
+  public RGBARaster acquire(RGBARaster image) throws IllegalArgumentException {
+    try {
+      Objects.requireNonNull(image);
+    } catch (NullPointerException e) {
+      throw new IllegalArgumentException("Given image cannot be null.");
+    }
+
+    //acquiring a held image again needs no hashing
+    Integer count = references.get(image);
+    if (count != null) {
+      references.put(image, count + 1);
+      return image;
+    }
+
+    List<RGBARaster> same = byHash.computeIfAbsent(image.contentHash(), k -> new ArrayList<>(1));
+    for (RGBARaster held : same) {
+      if (held.contentEquals(image)) {
+        references.put(held, references.get(held) + 1);
+        return held;
+      }
+    }
+    same.add(image);
+    references.put(image, 1);
+    bytes += image.getByteCount();
+    return image;
+  }
+
+  /**
+   * Counts one less reference to the given held image, and drops it
+   * from this store when no references are left.
+   * @param image represents an image given out by this store
+   * @throws IllegalArgumentException when the image is not held by
+   *     this store
+   */
+  public void release(RGBARaster image) throws IllegalArgumentException {
+    Integer count = image == null ? null : references.get(image);
+    if (count == null) {
+      throw new IllegalArgumentException("Given image is not held by this store.");
+    }
+    if (count > 1) {
+      references.put(image, count - 1);
+      return;
+    }
+
+    references.remove(image);
+    long hash = image.contentHash();
+    List<RGBARaster> same = byHash.get(hash);
+    //removes this exact image, not one with the same contents
+    same.removeIf(held -> held == image);
+    if (same.isEmpty()) {
+      byHash.remove(hash);
+    }
+    bytes -= image.getByteCount();
+  }
+
+  /**
+   * Returns the number of references to the given image.
+   * @param image represents the image to look up
+   * @return the number of references, or 0 if the image is not held
+   */
+  public int getReferenceCount(RGBARaster image) {
+    Integer count = references.get(image);
+    return count == null ? 0 : count;
+  }
+
+  /**
+   * Returns the number of distinct images held by this store.
+   * @return the number of held images
+   */
+  public int size() {
+    return references.size();
+  }
+
+  /**
+   * Returns the number of bytes of colour held by this store, each
+   * shared image counted once.
+   * @return the number of held bytes
+   */
+  public long getByteCount() {
+    return bytes;
+  }
+
+  /**
+   * Drops every image from this store.
+   */
+  public void clear() {
+    byHash.clear();
+    references.clear();
+    bytes = 0;
+  }
+}
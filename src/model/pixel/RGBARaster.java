@@ -0,0 +1,291 @@
+package model.pixel;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Represents a compact rectangle of colours stored as bytes: four
+ * bytes per coordinate, always in the order red, green, blue, alpha,
+ * and stored row by row from the top left.  This is the same layout
+ * whether the raster lives in memory, is read from an image, or is
+ * written out, so it can be copied or serialized without looking at
+ * each colour.
+ *
+ * <p>Coordinates that were never written to are fully transparent
+ * black.</p>
+ */
+public class RGBARaster {
+  /**
+   * Represents the number of bytes used by every coordinate.
+   */
+  public static final int BYTES_PER_PIXEL = 4;
+
+  private final int height;
+  private final int width;
+  private final byte[] data;
+
+  /**
+   * Represents a fully transparent raster of height-by-width.
+   * @param height represents the height of the raster
+   * @param width represents the width of the raster
+   * @throws IllegalArgumentException when the height or width
+   *     is not positive
+   */
+  public RGBARaster(int height, int width) throws IllegalArgumentException {
+    this(height, width, null);
+  }
+
+  //shared by every constructor; a null data allocates a new array
+  private RGBARaster(int height, int width, byte[] data) throws IllegalArgumentException {
+    if (height <= 0 || width <= 0) {
+      throw new IllegalArgumentException(
+              "Height or width cannot be less than or equal to zero.");
+    }
+    this.height = height;
+    this.width = width;
+    this.data = data == null
+            ? new byte[Math.multiplyExact(Math.multiplyExact(height, width), BYTES_PER_PIXEL)]
+            : data;
+  }
+
+  /**
+   * Creates a raster that takes ownership of the given bytes (they
+   * are not copied), laid out as described in this class.
+   * @param height represents the height of the raster
+   * @param width represents the width of the raster
+   * @param data represents the RGBA bytes of the raster
+   * @return the raster backed by the given bytes
+   * @throws IllegalArgumentException when the height or width is not
+   *     positive, or the bytes are null or of the wrong length
+   */
+  public static RGBARaster wrap(int height, int width, byte[] data)
+          throws IllegalArgumentException {
+    try {
+      Objects.requireNonNull(data);
+    } catch (NullPointerException e) {
+      throw new IllegalArgumentException("Given bytes cannot be null.");
+    }
+    if (height > 0 && width > 0
+            && (long) height * width * BYTES_PER_PIXEL != data.length) {
+      throw new IllegalArgumentException("Given bytes and sizes do not match.");
+    }
+    return new RGBARaster(height, width, data);
+  }
+
+  /**
+   * Creates a raster holding the same colours as the given grid.
+   * @param grid represents the grid of Pixels to copy
+   * @return the raster of the given grid
+   * @throws IllegalArgumentException when the grid is empty,
+   *     not rectangular, or contains null values
+   */
+  public static RGBARaster fromGrid(Pixel[][] grid) throws IllegalArgumentException {
+    if (grid == null || grid.length == 0 || grid[0] == null) {
+      throw new IllegalArgumentException("Given grid cannot be null or empty.");
+    }
+    RGBARaster raster = new RGBARaster(grid.length, grid[0].length);
+    for (int i = 0; i < raster.height; i++) {
+      if (grid[i] == null || grid[i].length != raster.width) {
+        throw new IllegalArgumentException("Given grid must be rectangular.");
+      }
+      for (int j = 0; j < raster.width; j++) {
+        Pixel p = grid[i][j];
+        if (p == null) {
+          throw new IllegalArgumentException("Given grid cannot contain null values.");
+        }
+        raster.set(i, j, p.getRed(), p.getGreen(), p.getBlue(), p.getAlpha());
+      }
+    }
+    return raster;
+  }
+
+  /**
+   * Creates a raster holding the colours of the given image, which
+   * is more forgiving than a grid: its rows may differ in length,
+   * the raster being as wide as the widest row, and missing or null
+   * colours are fully transparent.
+   * @param image represents the image to copy
+   * @return the raster of the given image
+   * @throws IllegalArgumentException when the image is null, has a
+   *     null row, or has no colours at all
+   */
+  public static RGBARaster fromImage(Pixel[][] image) throws IllegalArgumentException {
+    int width = 0;
+    try {
+      for (Pixel[] row : Objects.requireNonNull(image)) {
+        width = Math.max(width, Objects.requireNonNull(row).length);
+      }
+    } catch (NullPointerException e) {
+      throw new IllegalArgumentException("Given image cannot be null or have null rows.");
+    }
+    if (width == 0) {
+      throw new IllegalArgumentException("Given image cannot be empty.");
+    }
+    RGBARaster raster = new RGBARaster(image.length, width);
+    for (int i = 0; i < image.length; i++) {
+      for (int j = 0; j < image[i].length; j++) {
+        Pixel p = image[i][j];
+        if (p != null && p.getAlpha() != 0) {
+          raster.set(i, j, p.getRed(), p.getGreen(), p.getBlue(), p.getAlpha());
+        }
+      }
+    }
+    return raster;
+  }
+
+  /**
+   * Reads a height-by-width raster, laid out as described in this
+   * class, from the given input.
+   * @param in represents the input to read the bytes from
+   * @param height represents the height of the raster
+   * @param width represents the width of the raster
+   * @return the raster that was read
+   * @throws IOException when the input cannot be read or ends early
+   * @throws IllegalArgumentException when the height or width is not positive
+   */
+  public static RGBARaster readFrom(DataInput in, int height, int width)
+          throws IOException, IllegalArgumentException {
+    RGBARaster raster = new RGBARaster(height, width);
+    in.readFully(raster.data);
+    return raster;
+  }
+
+  /**
+   * Writes the bytes of this raster to the given output as they
+   * are; readFrom reads them back.
+   * @param out represents the output to write to
+   * @throws IOException when the output cannot be written to
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    out.write(data);
+  }
+
+  /**
+   * Returns a 64-bit hash of the size and bytes of this raster;
+   * rasters with the same contents always have the same hash.
+   * @return the hash of the contents of this raster
+   */
+  public long contentHash() {
+    //FNV-1a over the size, then the bytes
+    long hash = 0xCBF29CE484222325L;
+    hash = (hash ^ height) * 0x100000001B3L;
+    hash = (hash ^ width) * 0x100000001B3L;
+    for (byte b : data) {
+      hash = (hash ^ (b & 0xFF)) * 0x100000001B3L;
+    }
+    return hash;
+  }
+
+  /**
+   * Returns whether the given raster has the same size and bytes
+   * as this raster.
+   * @param other represents the raster to compare with
+   * @return true if both rasters hold the same colours
+   */
+  public boolean contentEquals(RGBARaster other) {
+    return other != null && other.height == height && other.width == width
+            && Arrays.equals(other.data, data);
+  }
+
+  /**
+   * Returns the number of bytes of colour this raster holds.
+   * @return the number of bytes of this raster
+   */
+  public int getByteCount() {
+    return data.length;
+  }
+
+  /**
+   * Returns the height of this raster.
+   * @return the height of this raster
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Returns the width of this raster.
+   * @return the width of this raster
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Sets the colour at the given coordinate.  The values are
+   * expected to be between 0 and 255 and are not checked.
+   * @param row represents the row (y) of the colour
+   * @param col represents the column (x) of the colour
+   * @param red represents the red value
+   * @param green represents the green value
+   * @param blue represents the blue value
+   * @param alpha represents the alpha value
+   */
+  public void set(int row, int col, int red, int green, int blue, int alpha) {
+    int index = (row * width + col) * BYTES_PER_PIXEL;
+    data[index] = (byte) red;
+    data[index + 1] = (byte) green;
+    data[index + 2] = (byte) blue;
+    data[index + 3] = (byte) alpha;
+  }
+
+  /**
+   * Returns the colour at the given coordinate as a packed ARGB
+   * integer (see PixelUtil.toARGB); a fully transparent colour is
+   * always zero.
+   * @param row represents the row (y) of the colour
+   * @param col represents the column (x) of the colour
+   * @return the packed ARGB colour at (row, col)
+   */
+  public int getARGB(int row, int col) {
+    int index = (row * width + col) * BYTES_PER_PIXEL;
+    int alpha = data[index + 3] & 0xFF;
+    if (alpha == 0) {
+      return 0;
+    }
+    return (alpha << 24)
+            | ((data[index] & 0xFF) << 16)
+            | ((data[index + 1] & 0xFF) << 8)
+            | (data[index + 2] & 0xFF);
+  }
+
+  /**
+   * Sets the colour at the given coordinate from a packed ARGB
+   * integer.
+   * @param row represents the row (y) of the colour
+   * @param col represents the column (x) of the colour
+   * @param argb represents the packed ARGB colour
+   */
+  public void setARGB(int row, int col, int argb) {
+    this.set(row, col, (argb >> 16) & 0xFF, (argb >> 8) & 0xFF, argb & 0xFF, argb >>> 24);
+  }
+
+  /**
+   * Returns the colour at the given coordinate as a Pixel.
+   * @param row represents the row (y) of the colour
+   * @param col represents the column (x) of the colour
+   * @return the Pixel at (row, col)
+   */
+  public Pixel getPixel(int row, int col) {
+    int index = (row * width + col) * BYTES_PER_PIXEL;
+    return RGBPixel.of(data[index] & 0xFF, data[index + 1] & 0xFF,
+            data[index + 2] & 0xFF, data[index + 3] & 0xFF);
+  }
+
+  /**
+   * Returns a new grid of Pixels holding the colours of this raster.
+   * @return the Pixel grid of this raster
+   */
+  public Pixel[][] toGrid() {
+    Pixel[][] grid = new Pixel[height][width];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        grid[i][j] = this.getPixel(i, j);
+      }
+    }
+    return grid;
+  }
+}
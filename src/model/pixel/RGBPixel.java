@@ -4,8 +4,30 @@ package model.pixel;
 /**
  * Represents an implementation of a RGBPixel with
  * a maximum value of 255.
+ *
+ * <p>Since RGBPixels are immutable, the same colour can safely be
+ * shared between any number of grids.  The static factory method
+ * of should be preferred over the constructors: it always returns
+ * the same instance for the most common colours (opaque white,
+ * opaque black, and fully transparent) and reuses recently created
+ * Pixels from a small, bounded table for every other colour.</p>
  */
 public class RGBPixel extends AbstractPixel {
+  //the number of entries in the intern table; a power of two
+  private static final int INTERN_BITS = 12;
+  private static final RGBPixel[] INTERNED = new RGBPixel[1 << INTERN_BITS];
+  //UNIT[i] is exactly the stored component for the 0-255 value i
+  private static final double[] UNIT = new double[256];
+
+  static {
+    for (int i = 0; i < UNIT.length; i++) {
+      UNIT[i] = i / 255.0;
+    }
+  }
+
+  private static final RGBPixel WHITE = new RGBPixel(255,255,255,255);
+  private static final RGBPixel BLACK = new RGBPixel(0,0,0,255);
+  private static final RGBPixel TRANSPARENT = new RGBPixel(0,0,0,0);
 
   /**
    * Represents the full constructor for RGBPixel that
@@ -32,4 +54,66 @@ public class RGBPixel extends AbstractPixel {
   public RGBPixel(int red, int green, int blue) {
     this(red,green,blue,255);
   }
+
+  /**
+   * Returns an RGBPixel with the given RGBA values, reusing a
+   * shared instance when possible.  Equal colours are not
+   * guaranteed to be the same instance, only equal Pixels.
+   * @param red represents the red value of the RGBPixel
+   * @param green represents the green value of the RGBPixel
+   * @param blue represents the blue value of the RGBPixel
+   * @param alpha represents the alpha value of the RGBPixel
+   * @return an RGBPixel with the given RGBA values
+   * @throws IllegalArgumentException when any value is not
+   *     between 0 and 255, inclusive
+   */
+  public static RGBPixel of(int red, int green, int blue, int alpha)
+          throws IllegalArgumentException {
+    if (((red | green | blue | alpha) >>> 8) != 0) {
+      //out of range; the constructor throws the informative exception
+      return new RGBPixel(red,green,blue,alpha);
+    }
+
+    //the canonical colours
+    if (alpha == 255) {
+      if ((red & green & blue) == 255) {
+        return WHITE;
+      } else if ((red | green | blue) == 0) {
+        return BLACK;
+      }
+    } else if ((alpha | red | green | blue) == 0) {
+      return TRANSPARENT;
+    }
+
+    //otherwise look in the (direct-mapped) intern table; a colour
+    //simply replaces whichever colour was last stored in its slot
+    int key = (alpha << 24) | (red << 16) | (green << 8) | blue;
+    int index = (key * 0x9E3779B9) >>> (32 - INTERN_BITS);
+    RGBPixel cached = INTERNED[index];
+    if (cached != null
+            && cached.red == UNIT[red]
+            && cached.green == UNIT[green]
+            && cached.blue == UNIT[blue]
+            && cached.alpha == UNIT[alpha]) {
+      return cached;
+    }
+    RGBPixel created = new RGBPixel(red,green,blue,alpha);
+    INTERNED[index] = created;
+    return created;
+  }
+
+  /**
+   * Returns an opaque RGBPixel with the given RGB values, reusing
+   * a shared instance when possible.
+   * @param red represents the red value of the RGBPixel
+   * @param green represents the green value of the RGBPixel
+   * @param blue represents the blue value of the RGBPixel
+   * @return an opaque RGBPixel with the given RGB values
+   * @throws IllegalArgumentException when any value is not
+   *     between 0 and 255, inclusive
+   */
+  public static RGBPixel of(int red, int green, int blue)
+          throws IllegalArgumentException {
+    return of(red,green,blue,255);
+  }
 }
@@ -61,6 +61,39 @@ public class PPMUtil {
   }
 
 
+  /**
+   * Converts the given packed premultiplied ARGB colours (see
+   * PixelUtil.premultiply), stored row by row, to a String-based
+   * PPM format.  Dropping the alpha of a colour the way toPPMFormat
+   * does is the same as keeping its premultiplied RGB, so no
+   * conversion is needed at all.
+   * @param premultiplied represents the premultiplied colours
+   * @param height represents the height of the image
+   * @param width represents the width of the image
+   * @return the PPM format of the given colours
+   * @throws IllegalArgumentException when the colours are null or
+   *     do not match the given height and width
+   */
+  public static String toPPMFormat(int[] premultiplied, int height, int width)
+          throws IllegalArgumentException {
+    if (premultiplied == null || height <= 0 || width <= 0
+            || premultiplied.length != height * width) {
+      throw new IllegalArgumentException("The given colours cannot be null"
+              + " and must match the given height and width.");
+    }
+
+    //each pixel takes at most 12 characters ("255 255 255 ")
+    StringBuilder build = new StringBuilder(12 * premultiplied.length + 16);
+    build.append(String.format("P3\n%d %d\n%d\n", width, height, 255));
+    for (int argb : premultiplied) {
+      build.append((argb >> 16) & 0xFF).append(' ')
+              .append((argb >> 8) & 0xFF).append(' ')
+              .append(argb & 0xFF).append(' ');
+    }
+    return build.toString();
+  }
+
+
   /**
    * Read in a String in the ppm format and extract the
    * relevant Colour data.  This colour data is extracted
@@ -102,7 +135,7 @@ public class PPMUtil {
           int r = Math.toIntExact(Math.round((sc.nextInt() / (maxValue + 0.0)) * 255.0));
           int g = Math.toIntExact(Math.round((sc.nextInt() / (maxValue + 0.0)) * 255.0));
           int b = Math.toIntExact(Math.round((sc.nextInt() / (maxValue + 0.0)) * 255.0));
-          grid[i][j] = new RGBPixel(r,g,b);
+          grid[i][j] = RGBPixel.of(r,g,b);
         }
       }
     } catch (NoSuchElementException e) {
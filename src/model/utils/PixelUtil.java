@@ -46,35 +46,104 @@ public class PixelUtil {
                     + (0.0722) * color.getBlue()));
   }
 
+  /**
+   * Represents the same value as getValue for a packed ARGB colour.
+   */
+  public static int getValue(int argb) {
+    return Math.max((argb >> 16) & 0xFF, Math.max((argb >> 8) & 0xFF, argb & 0xFF));
+  }
+
+  /**
+   * Represents the same intensity as getIntensity for a packed
+   * ARGB colour.
+   */
+  public static int getIntensity(int argb) {
+    return Math.toIntExact(Math.round((
+            ((argb >> 16) & 0xFF)
+                    + ((argb >> 8) & 0xFF)
+                    + (argb & 0xFF)) / 3.0));
+  }
+
+  /**
+   * Represents the same luma as getLuma for a packed ARGB colour.
+   */
+  public static int getLuma(int argb) {
+    return Math.toIntExact(Math.round(
+            (0.2126) * ((argb >> 16) & 0xFF)
+                    + (0.7152) * ((argb >> 8) & 0xFF)
+                    + (0.0722) * (argb & 0xFF)));
+  }
+
   /**
    * Computes the resultant colour after overlaying
    * the given top Colour over the given bottom Colour.
    */
   public static Pixel computeColour(Pixel top, Pixel bottom) {
-    double alphaPrime =
-            (top.getAlpha() / 255.0)
-                    + (bottom.getAlpha() / 255.0)
-                    * (1 - (top.getAlpha() / 255.0));
-    double redPrime = ((top.getAlpha() / 255.0)
-            * top.getRed() + bottom.getRed()
-            * (bottom.getAlpha() / 255.0)
-            * (1 - (top.getAlpha() / 255.0)))
-            * (1 / alphaPrime);
-    double greenPrime = ((top.getAlpha() / 255.0)
-            * top.getGreen() + bottom.getGreen()
-            * (bottom.getAlpha() / 255.0)
-            * (1 - (top.getAlpha() / 255.0)))
-            * (1 / alphaPrime);
-    double bluePrime = ((top.getAlpha() / 255.0)
-            * top.getBlue() + bottom.getBlue()
-            * (bottom.getAlpha() / 255.0)
-            * (1 - (top.getAlpha() / 255.0)))
-            * (1 / alphaPrime);
-    return new RGBPixel(
-            Math.toIntExact(Math.round(redPrime)),
-            Math.toIntExact(Math.round(greenPrime)),
-            Math.toIntExact(Math.round(bluePrime)),
-            Math.toIntExact(Math.round(alphaPrime * 255)));
+    return fromARGB(computeColour(toARGB(top), toARGB(bottom)));
+  }
+
+  /**
+   * Computes the resultant packed ARGB colour after overlaying the
+   * given top packed ARGB colour over the given bottom one.  This is
+   * the integer form of the usual alpha compositing formula and it
+   * produces exactly the same colours as the original floating point
+   * formula (see PixelUtilTest), without allocating any Pixels.
+   * @param top represents the packed ARGB colour on top
+   * @param bottom represents the packed ARGB colour on the bottom
+   * @return the packed ARGB colour of top overlaid over bottom
+   */
+  public static int computeColour(int top, int bottom) {
+    int topAlpha = top >>> 24;
+    //an opaque top hides the bottom entirely
+    if (topAlpha == 255) {
+      return top;
+    }
+    int bottomAlpha = bottom >>> 24;
+    //a fully transparent top leaves the bottom as it is
+    if (topAlpha == 0) {
+      return bottomAlpha == 0 ? 0 : bottom;
+    }
+
+    //with every value scaled up by 255, the overlay is
+    //  alpha  = (255 * topAlpha + bottomAlpha * (255 - topAlpha)) / 255
+    //  colour = (255 * topAlpha * topColour
+    //            + bottomAlpha * (255 - topAlpha) * bottomColour) / (255 * alpha)
+    //both rounded half up.  topAlpha is between 1 and 254 here, so the
+    //denominator is never zero and every product fits in an int.
+    int bottomWeight = bottomAlpha * (255 - topAlpha);
+    int denominator = 255 * topAlpha + bottomWeight;
+    int alpha = (2 * denominator + 255) / 510;
+
+    return (alpha << 24)
+            | (overlayComponent(topAlpha, bottomAlpha, (top >> 16) & 0xFF,
+                    (bottom >> 16) & 0xFF, bottomWeight, denominator) << 16)
+            | (overlayComponent(topAlpha, bottomAlpha, (top >> 8) & 0xFF,
+                    (bottom >> 8) & 0xFF, bottomWeight, denominator) << 8)
+            | overlayComponent(topAlpha, bottomAlpha, top & 0xFF,
+                    bottom & 0xFF, bottomWeight, denominator);
+  }
+
+  //computes one colour component of the overlay, rounded half up.
+  //The exact result can only land on a rounding boundary when it is
+  //exactly halfway between two integers; floating point arithmetic
+  //sometimes rounds those the other way, so ties are recomputed the
+  //original way to stay identical to it.
+  private static int overlayComponent(int topAlpha, int bottomAlpha,
+                                      int topColour, int bottomColour,
+                                      int bottomWeight, int denominator) {
+    int twiceNumerator = 2 * (255 * topAlpha * topColour + bottomColour * bottomWeight)
+            + denominator;
+    int twiceDenominator = 2 * denominator;
+    int colour = twiceNumerator / twiceDenominator;
+    if (colour * twiceDenominator == twiceNumerator) {
+      double alphaPrime = (topAlpha / 255.0)
+              + (bottomAlpha / 255.0) * (1 - (topAlpha / 255.0));
+      double colourPrime = ((topAlpha / 255.0) * topColour
+              + bottomColour * (bottomAlpha / 255.0) * (1 - (topAlpha / 255.0)))
+              * (1 / alphaPrime);
+      colour = Math.toIntExact(Math.round(colourPrime));
+    }
+    return colour;
   }
 
   /**
@@ -82,7 +151,7 @@ public class PixelUtil {
    * colour.
    */
   public static Pixel toThreeComponent(Pixel color) {
-    return new RGBPixel(
+    return RGBPixel.of(
             Math.toIntExact(Math.round(color.getRed() * (color.getAlpha() / 255.0))),
             Math.toIntExact(Math.round(color.getGreen() * (color.getAlpha() / 255.0))),
             Math.toIntExact(Math.round(color.getBlue() * (color.getAlpha() / 255.0))));
@@ -107,12 +176,12 @@ public class PixelUtil {
       //if the alpha is zero, the RGB fundamentally does not matter
       //also it would be impossible to reconstruct the RGB
       //so set the RGB to [0,0,0,0], the default
-      return new RGBPixel(0,0,0,0);
+      return RGBPixel.of(0,0,0,0);
     } else {
       //from the previous if-else,
       //we can guarantee that alpha is not zero
       //therefore we can divide by zero here
-      return new RGBPixel(
+      return RGBPixel.of(
               cap(Math.toIntExact(Math.round(color.getRed() / (alpha / 255.0))),0,255),
               cap(Math.toIntExact(Math.round(color.getGreen() / (alpha / 255.0))),0,255),
               cap(Math.toIntExact(Math.round(color.getBlue() / (alpha / 255.0))),0,255),
@@ -120,6 +189,252 @@ public class PixelUtil {
     }
   }
 
+  /**
+   * Packs the given Pixel into a single 32-bit integer in the
+   * ARGB order used by BufferedImage: alpha in the highest
+   * eight bits, followed by red, green, and blue.  A fully
+   * transparent Pixel is always packed as zero since its RGB
+   * components can never be observed.
+   * @param color represents the Pixel to pack
+   * @return the packed ARGB representation of the given Pixel
+   */
+  public static int toARGB(Pixel color) {
+    int alpha = color.getAlpha();
+    if (alpha == 0) {
+      return 0;
+    }
+    return (alpha << 24)
+            | (color.getRed() << 16)
+            | (color.getGreen() << 8)
+            | color.getBlue();
+  }
+
+  /**
+   * Unpacks a 32-bit ARGB integer (as produced by toARGB) back
+   * into a Pixel.
+   * @param argb represents the packed ARGB colour
+   * @return the Pixel representation of the packed colour
+   */
+  public static Pixel fromARGB(int argb) {
+    return RGBPixel.of(
+            (argb >> 16) & 0xFF,
+            (argb >> 8) & 0xFF,
+            argb & 0xFF,
+            (argb >>> 24));
+  }
+
+  /**
+   * Converts a packed straight-alpha ARGB colour (as produced by
+   * toARGB) into a packed premultiplied ARGB colour, where each
+   * colour component has already been multiplied by the alpha.
+   * @param argb represents the packed straight-alpha colour
+   * @return the packed premultiplied colour
+   */
+  public static int premultiply(int argb) {
+    int alpha = argb >>> 24;
+    if (alpha == 255) {
+      return argb;
+    } else if (alpha == 0) {
+      return 0;
+    }
+    return (alpha << 24)
+            | ((((argb >> 16) & 0xFF) * alpha + 127) / 255 << 16)
+            | ((((argb >> 8) & 0xFF) * alpha + 127) / 255 << 8)
+            | (((argb & 0xFF) * alpha + 127) / 255);
+  }
+
+  /**
+   * Converts a packed premultiplied ARGB colour back into a packed
+   * straight-alpha ARGB colour.  Premultiplying loses precision at
+   * low alphas, so this is not always the exact inverse of
+   * premultiply.
+   * @param argb represents the packed premultiplied colour
+   * @return the packed straight-alpha colour
+   */
+  public static int unpremultiply(int argb) {
+    int alpha = argb >>> 24;
+    if (alpha == 255) {
+      return argb;
+    } else if (alpha == 0) {
+      return 0;
+    }
+    int half = alpha / 2;
+    return (alpha << 24)
+            | (Math.min(255, (((argb >> 16) & 0xFF) * 255 + half) / alpha) << 16)
+            | (Math.min(255, (((argb >> 8) & 0xFF) * 255 + half) / alpha) << 8)
+            | Math.min(255, ((argb & 0xFF) * 255 + half) / alpha);
+  }
+
+  /**
+   * Computes the packed premultiplied colour after overlaying the
+   * given top premultiplied colour over the given bottom one.  In
+   * premultiplied form the overlay is a single multiply-add per
+   * component with no division by the alpha.
+   * @param top represents the packed premultiplied colour on top
+   * @param bottom represents the packed premultiplied colour on the bottom
+   * @return the packed premultiplied colour of top overlaid over bottom
+   */
+  public static int computeColourPremultiplied(int top, int bottom) {
+    int topAlpha = top >>> 24;
+    if (topAlpha == 255) {
+      return top;
+    } else if (topAlpha == 0) {
+      return bottom;
+    }
+    int remaining = 255 - topAlpha;
+    return (topAlpha + ((bottom >>> 24) * remaining + 127) / 255) << 24
+            | (((top >> 16) & 0xFF) + (((bottom >> 16) & 0xFF) * remaining + 127) / 255) << 16
+            | (((top >> 8) & 0xFF) + (((bottom >> 8) & 0xFF) * remaining + 127) / 255) << 8
+            | ((top & 0xFF) + ((bottom & 0xFF) * remaining + 127) / 255);
+  }
+
+  /**
+   * Converts an RGB representation in the range 0-1 into an HSL
+   * representation, written into the given array as hue,
+   * saturation, and lightness, where
+   * <ul>
+   * <li> 0 &lt;= H &lt;= 360</li>
+   * <li> 0 &lt;= S &lt;= 1</li>
+   * <li> 0 &lt;= L &lt;= 1</li>
+   * </ul>
+   * This is the conversion every Pixel uses for its HSL; rgbToHue,
+   * rgbToSaturation, and rgbToLightness compute each part alone.
+   * @param r red value of the RGB between 0 and 1
+   * @param g green value of the RGB between 0 and 1
+   * @param b blue value of the RGB between 0 and 1
+   * @param hsl represents the array of (at least) three to write to
+   */
+  public static void convertRGBtoHSL(double r, double g, double b, double[] hsl) {
+    hsl[0] = rgbToHue(r, g, b);
+    hsl[1] = rgbToSaturation(r, g, b);
+    hsl[2] = rgbToLightness(r, g, b);
+  }
+
+  /**
+   * Computes the hue (0 to 360) of an RGB representation in the
+   * range 0-1.  See convertRGBtoHSL.
+   */
+  public static double rgbToHue(double r, double g, double b) {
+    double componentMax = Math.max(r, Math.max(g, b));
+    double componentMin = Math.min(r, Math.min(g, b));
+    double delta = componentMax - componentMin;
+
+    double hue = 0;
+    if (delta != 0) {
+      if (componentMax == r) {
+        hue = (g - b) / delta;
+        while (hue < 0) {
+          hue += 6; //hue must be positive to find the appropriate modulus
+        }
+        hue = hue % 6;
+      } else if (componentMax == g) {
+        hue = (b - r) / delta;
+        hue += 2;
+      } else if (componentMax == b) {
+        hue = (r - g) / delta;
+        hue += 4;
+      }
+
+      hue = hue * 60;
+    }
+    return squeezeInBounds(hue,0,360,true);
+  }
+
+  /**
+   * Computes the saturation (0 to 1) of an RGB representation in
+   * the range 0-1.  See convertRGBtoHSL.
+   */
+  public static double rgbToSaturation(double r, double g, double b) {
+    double componentMax = Math.max(r, Math.max(g, b));
+    double componentMin = Math.min(r, Math.min(g, b));
+    double delta = componentMax - componentMin;
+
+    double saturation = 0;
+    if (delta != 0) {
+      double lightness = (componentMax + componentMin) / 2;
+      saturation = delta / (1 - Math.abs(2 * lightness - 1));
+    }
+    return squeezeInBounds(saturation,0,1,false);
+  }
+
+  /**
+   * Computes the lightness (0 to 1) of an RGB representation in
+   * the range 0-1.  See convertRGBtoHSL.
+   */
+  public static double rgbToLightness(double r, double g, double b) {
+    double componentMax = Math.max(r, Math.max(g, b));
+    double componentMin = Math.min(r, Math.min(g, b));
+    return squeezeInBounds((componentMax + componentMin) / 2,0,1,false);
+  }
+
+  //this method should address a potential bug in convertRGBtoHSL
+  //that could allow non-conforming hsl values to be exposed through
+  //rounding or the like. this method will ensure that that bug will
+  //never occur by "squeezing" the hsl values into conformity.
+  private static double squeezeInBounds(double target,double min,double max,
+                                        boolean maxMinSame) {
+    //define a temporary variable
+    double temp;
+    //if the temp is below the min, set it to the min
+    temp = Math.max(target,min);
+    //if the temp is greater than the max, set it to the max
+    temp = Math.min(temp,max);
+    //if the max is functionally identical to the min, use the min value
+    temp = maxMinSame ? (temp == max ? 360 : temp) : temp;
+    return temp;
+  }
+
+  /**
+   * Converts an HSL representation into an RGB representation
+   * where each component is in the range 0-1, written into the
+   * given array as red, green, and blue.
+   * @param hue hue of the HSL representation
+   * @param saturation saturation of the HSL representation
+   * @param lightness lightness of the HSL representation
+   * @param rgb represents the array of (at least) three to write to
+   */
+  public static void convertHSLtoRGB(double hue, double saturation, double lightness,
+                                     double[] rgb) {
+    rgb[0] = hslToRed(hue, saturation, lightness);
+    rgb[1] = hslToGreen(hue, saturation, lightness);
+    rgb[2] = hslToBlue(hue, saturation, lightness);
+  }
+
+  /**
+   * Computes the red (0 to 1) of an HSL representation.
+   * See convertHSLtoRGB.
+   */
+  public static double hslToRed(double hue, double saturation, double lightness) {
+    return convertFn(hue, saturation, lightness, 0);
+  }
+
+  /**
+   * Computes the green (0 to 1) of an HSL representation.
+   * See convertHSLtoRGB.
+   */
+  public static double hslToGreen(double hue, double saturation, double lightness) {
+    return convertFn(hue, saturation, lightness, 8);
+  }
+
+  /**
+   * Computes the blue (0 to 1) of an HSL representation.
+   * See convertHSLtoRGB.
+   */
+  public static double hslToBlue(double hue, double saturation, double lightness) {
+    return convertFn(hue, saturation, lightness, 4);
+  }
+
+  /*
+   * Helper method that performs the translation from the HSL polygonal
+   * model to the more familiar RGB model
+   */
+  private static double convertFn(double hue, double saturation, double lightness, int n) {
+    double k = (n + (hue / 30)) % 12;
+    double a  = saturation * Math.min(lightness, 1 - lightness);
+
+    return lightness - a * Math.max(-1, Math.min(k - 3, Math.min(9 - k, 1)));
+  }
+
   //caps the minimum and maximum values for the target
   //number such that if the target is under the min,
   //it is replaced by the min; if the target is greater
@@ -0,0 +1,139 @@
+package benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import model.filter.option.FilterOption;
+import model.filter.option.blend.Difference;
+import model.filter.option.blend.Multiply;
+import model.filter.option.blend.Screen;
+import model.pixel.Pixel;
+import model.pixel.RGBPixel;
+
+/**
+ * Measures the per-pixel cost of the blend filters.  Each filter is
+ * timed twice: once on ordinary Pixels, which compute their HSL at
+ * most once, and once on Pixels that recompute their HSL every time
+ * a getter is called (how AbstractPixel used to behave).
+ *
+ * <p>Run with: java benchmark.BlendFilterBenchmark</p>
+ */
+public class BlendFilterBenchmark {
+  private static final int PIXELS = 1 << 16;
+  private static final int ROUNDS = 20;
+
+  /**
+   * Represents a Pixel that recomputes its HSL on every call
+   * by asking a brand-new RGBPixel for it.
+   */
+  private static class RecomputingPixel implements Pixel {
+    private final int red;
+    private final int green;
+    private final int blue;
+    private final int alpha;
+
+    RecomputingPixel(Pixel p) {
+      this.red = p.getRed();
+      this.green = p.getGreen();
+      this.blue = p.getBlue();
+      this.alpha = p.getAlpha();
+    }
+
+    @Override
+    public int getRed() {
+      return red;
+    }
+
+    @Override
+    public int getGreen() {
+      return green;
+    }
+
+    @Override
+    public int getBlue() {
+      return blue;
+    }
+
+    @Override
+    public int getAlpha() {
+      return alpha;
+    }
+
+    @Override
+    public double getHue() {
+      return new RGBPixel(red, green, blue, alpha).getHue();
+    }
+
+    @Override
+    public double getSaturation() {
+      return new RGBPixel(red, green, blue, alpha).getSaturation();
+    }
+
+    @Override
+    public double getLightness() {
+      return new RGBPixel(red, green, blue, alpha).getLightness();
+    }
+
+    @Override
+    public String toProjString() {
+      return new RGBPixel(red, green, blue, alpha).toProjString();
+    }
+  }
+
+  /**
+   * Runs the benchmark and prints nanoseconds per pixel.
+   * @param args is ignored
+   */
+  public static void main(String[] args) {
+    Random random = new Random(42);
+    int[] top = new int[PIXELS * 4];
+    int[] bottom = new int[PIXELS * 4];
+    for (int i = 0; i < top.length; i++) {
+      top[i] = random.nextInt(256);
+      bottom[i] = random.nextInt(256);
+    }
+
+    List<FilterOption<Pixel>> filters = Arrays.asList(
+        new Multiply(), new Screen(), new Difference());
+
+    System.out.printf("%-12s %16s %16s%n", "filter", "recompute ns/px", "cached ns/px");
+    for (FilterOption<Pixel> filter : filters) {
+      //warm up both paths before measuring
+      run(filter, top, bottom, false);
+      run(filter, top, bottom, true);
+      double before = run(filter, top, bottom, false);
+      double after = run(filter, top, bottom, true);
+      System.out.printf("%-12s %16.1f %16.1f%n", filter, before, after);
+    }
+  }
+
+  //returns the average nanoseconds per pixel over ROUNDS rounds; new
+  //Pixels are made every round so no HSL is cached between rounds
+  private static double run(FilterOption<Pixel> filter, int[] top, int[] bottom,
+                            boolean cached) {
+    long elapsed = 0;
+    long sink = 0;
+    for (int round = 0; round < ROUNDS; round++) {
+      Pixel[] tops = new Pixel[PIXELS];
+      Pixel[] bottoms = new Pixel[PIXELS];
+      for (int i = 0; i < PIXELS; i++) {
+        Pixel t = new RGBPixel(top[4 * i], top[4 * i + 1], top[4 * i + 2], top[4 * i + 3]);
+        Pixel b = new RGBPixel(bottom[4 * i], bottom[4 * i + 1], bottom[4 * i + 2],
+                bottom[4 * i + 3]);
+        tops[i] = cached ? t : new RecomputingPixel(t);
+        bottoms[i] = cached ? b : new RecomputingPixel(b);
+      }
+
+      long start = System.nanoTime();
+      for (int i = 0; i < PIXELS; i++) {
+        sink += filter.applyToColor(tops[i], bottoms[i]).getRed();
+      }
+      elapsed += System.nanoTime() - start;
+    }
+    if (sink == 42) {
+      System.out.println();
+    }
+    return elapsed / (double) (ROUNDS * PIXELS);
+  }
+}
@@ -0,0 +1,111 @@
+package benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import model.layer.AbstractReadOnlyPackedLayer;
+import model.layer.LayerPackedImpl;
+import model.model.CollageModelImpl3;
+import model.pixel.Pixel;
+import model.pixel.RGBPixel;
+
+/**
+ * Composites synthetic 2048 x 2048 projects of 5, 20 and 100
+ * translucent layers on one thread, both by merging every layer over
+ * the whole canvas in turn and by merging every layer over a strip of
+ * rows at a time, and reports the best time of each.  The layers are
+ * packed and painted with noise, so each is read from memory as it
+ * is merged, and mostly normal, so that the filters cost little next
+ * to that traffic.  Only one layer per entry of FILTERS is made, and
+ * each is put in the stack several times.
+ *
+ * <p>Run with: java -Xmx1g benchmark.FusedCompositeBenchmark [size]</p>
+ */
+public class FusedCompositeBenchmark {
+  private static final int RUNS = 3;
+  private static final int TILE = 256;
+  private static final String[] FILTERS = {"normal", "normal", "normal", "screen"};
+
+  /**
+   * Runs the benchmark.
+   * @param args may hold the height and width of the canvas, 2048 by
+   *     default
+   */
+  public static void main(String[] args) {
+    int size = args.length > 0 ? Integer.parseInt(args[0]) : 2048;
+    for (int count : new int[] {5, 20, 100}) {
+      SyntheticModel model = new SyntheticModel(size, count);
+      //warms up the JIT and the scratch buffers
+      model.layerByLayer();
+      model.fused();
+      double layerByLayer = Double.MAX_VALUE;
+      double fused = Double.MAX_VALUE;
+      for (int i = 0; i < RUNS; i++) {
+        long start = System.nanoTime();
+        model.layerByLayer();
+        layerByLayer = Math.min(layerByLayer, (System.nanoTime() - start) / 1e6);
+        start = System.nanoTime();
+        model.fused();
+        fused = Math.min(fused, (System.nanoTime() - start) / 1e6);
+      }
+      System.out.printf("%3d layers: layer by layer %.0f ms, fused %.0f ms, %.2fx%n",
+              count, layerByLayer, fused, layerByLayer / fused);
+    }
+  }
+
+  //returns a size x size packed layer painted with translucent noise,
+  //a tile of it at a time
+  private static LayerPackedImpl painted(int size, int seed) {
+    Random random = new Random(seed);
+    Pixel[][] tile = new Pixel[TILE][TILE];
+    for (Pixel[] row : tile) {
+      for (int j = 0; j < TILE; j++) {
+        row[j] = new RGBPixel(random.nextInt(256), random.nextInt(256),
+                random.nextInt(256), 40 + random.nextInt(200));
+      }
+    }
+    LayerPackedImpl layer = new LayerPackedImpl(size, size);
+    for (int y = 0; y < size; y += TILE) {
+      for (int x = 0; x < size; x += TILE) {
+        layer.addImage(tile, x, y);
+      }
+    }
+    return layer;
+  }
+
+  //a project whose layers are put in directly, composited on one
+  //thread with no kept composites, so every layer is merged every time
+  private static class SyntheticModel extends CollageModelImpl3 {
+    SyntheticModel(int size, int count) {
+      this.setParallelism(1, 0);
+      this.setCheckpointSpacing(0);
+      this.newProject(size, size);
+      LayerPackedImpl[] painted = new LayerPackedImpl[FILTERS.length];
+      for (int i = 0; i < FILTERS.length; i++) {
+        painted[i] = painted(size, i);
+        painted[i].setFilter(knownFilters.get(FILTERS[i]));
+      }
+      for (int i = 0; i < count; i++) {
+        String name = "layer" + i;
+        this.addLayer(name);
+        layers.put(name, painted[i % FILTERS.length]);
+      }
+    }
+
+    //merges every layer over the whole canvas in turn, the way
+    //compressLayersPacked did before it was fused
+    void layerByLayer() {
+      int[] composite = scratch.acquire(height * width);
+      Arrays.fill(composite, 0);
+      for (String name : layersKeyOrder) {
+        ((AbstractReadOnlyPackedLayer) layers.get(name)).mergeDownPacked(composite, scratch);
+      }
+      scratch.release(composite);
+    }
+
+    //merges every layer over a strip of rows at a time
+    void fused() {
+      scratch.release(this.compressLayersPacked());
+    }
+  }
+}
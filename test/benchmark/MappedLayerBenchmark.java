@@ -0,0 +1,71 @@
+package benchmark;
+
+import java.util.Random;
+
+import model.layer.LayerMappedImpl;
+import model.pixel.Pixel;
+import model.pixel.RGBPixel;
+
+/**
+ * Composites a print-sized collage (20,000 x 50,000, 1 gigapixel, 4
+ * GB per layer when held raw) of three mapped layers, each holding a
+ * few 1000 x 1000 photos, and reports the time and the heap used.
+ *
+ * <p>Run with: java benchmark.MappedLayerBenchmark</p>
+ */
+public class MappedLayerBenchmark {
+  private static final int HEIGHT = 20_000;
+  private static final int WIDTH = 50_000;
+  private static final int LAYERS = 3;
+  private static final int PHOTOS = 4;
+
+  /**
+   * Runs the benchmark.
+   * @param args is ignored
+   */
+  public static void main(String[] args) {
+    Pixel[][] photo = new Pixel[1000][1000];
+    Random random = new Random(3);
+    for (Pixel[] row : photo) {
+      for (int j = 0; j < row.length; j++) {
+        row[j] = new RGBPixel(random.nextInt(256), random.nextInt(256),
+                random.nextInt(256), 128 + random.nextInt(128));
+      }
+    }
+
+    long before = usedMemory();
+    long start = System.nanoTime();
+    LayerMappedImpl[] layers = new LayerMappedImpl[LAYERS];
+    for (int i = 0; i < LAYERS; i++) {
+      layers[i] = new LayerMappedImpl(HEIGHT, WIDTH);
+      for (int k = 0; k < PHOTOS; k++) {
+        layers[i].addImage(photo, (i * 7000 + k * 11000) % (WIDTH - 1000),
+                (i * 3000 + k * 4500) % (HEIGHT - 1000));
+      }
+    }
+    double build = (System.nanoTime() - start) / 1e6;
+
+    start = System.nanoTime();
+    LayerMappedImpl composite = new LayerMappedImpl(HEIGHT, WIDTH);
+    for (LayerMappedImpl layer : layers) {
+      layer.mergeDownMapped(composite);
+    }
+    double merge = (System.nanoTime() - start) / 1e6;
+    double megabytes = (usedMemory() - before) / 1e6;
+
+    System.out.printf("build %.0f ms, composite %.0f ms, %d tiles written, heap %.1f MB%n",
+            build, merge, composite.getWrittenTileCount(), megabytes);
+    composite.close();
+    for (LayerMappedImpl layer : layers) {
+      layer.close();
+    }
+  }
+
+  private static long usedMemory() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,84 @@
+package benchmark;
+
+import java.util.Random;
+
+import model.layer.LayerStorage;
+import model.model.CollageModelImpl3;
+import model.pixel.Pixel;
+import model.pixel.RGBPixel;
+
+/**
+ * Measures how long a whole collage takes to render (saveImage) with
+ * and without memoized blend filters (see
+ * AbstractCollageModel.setFilterMemoization), on images made of only
+ * a few distinct colours, like flat backgrounds and posters.
+ *
+ * <p>Run with: java benchmark.MemoizedFilterBenchmark</p>
+ */
+public class MemoizedFilterBenchmark {
+  private static final int HEIGHT = 512;
+  private static final int WIDTH = 512;
+  private static final int COLOURS = 16;
+  private static final int ROUNDS = 5;
+
+  /**
+   * Runs the benchmark and prints the milliseconds per render.
+   * @param args is ignored
+   */
+  public static void main(String[] args) {
+    System.out.printf("%-10s %12s %12s %12s%n", "filter", "plain ms", "memo ms", "hit rate");
+    for (String filter : new String[] {"multiply", "screen", "difference"}) {
+      CollageModelImpl3 plain = build(filter);
+      CollageModelImpl3 memoized = build(filter);
+      memoized.setFilterMemoization(true);
+      //warm up both models before measuring
+      plain.saveImage();
+      memoized.saveImage();
+      double before = run(plain);
+      double after = run(memoized);
+      long hits = memoized.getFilterCacheHits();
+      double rate = (double) hits / (hits + memoized.getFilterCacheMisses());
+      System.out.printf("%-10s %12.1f %12.1f %11.1f%%%n", filter, before, after, rate * 100);
+    }
+  }
+
+  //a packed-storage project of two few-coloured layers, the top
+  //one with the given filter
+  private static CollageModelImpl3 build(String filter) {
+    CollageModelImpl3 model = new CollageModelImpl3();
+    model.setLayerStorage(LayerStorage.PACKED);
+    model.newProject(HEIGHT, WIDTH);
+    model.addLayer("photo");
+    model.addImageToLayer("photo", image(1), 0, 0);
+    model.addLayer("blend");
+    model.setFilter("blend", filter);
+    model.addImageToLayer("blend", image(2), 0, 0);
+    return model;
+  }
+
+  //an image of blocks of a few random colours
+  private static Pixel[][] image(int seed) {
+    Random random = new Random(seed);
+    Pixel[] palette = new Pixel[COLOURS];
+    for (int i = 0; i < COLOURS; i++) {
+      palette[i] = new RGBPixel(random.nextInt(256), random.nextInt(256),
+              random.nextInt(256), 128 + random.nextInt(128));
+    }
+    Pixel[][] grid = new Pixel[HEIGHT][WIDTH];
+    for (int i = 0; i < HEIGHT; i++) {
+      for (int j = 0; j < WIDTH; j++) {
+        grid[i][j] = palette[(i / 32 * 7 + j / 32 * seed) % COLOURS];
+      }
+    }
+    return grid;
+  }
+
+  //returns the milliseconds per render
+  private static double run(CollageModelImpl3 model) {
+    long start = System.nanoTime();
+    for (int round = 0; round < ROUNDS; round++) {
+      model.saveImage();
+    }
+    return (System.nanoTime() - start) / 1e6 / ROUNDS;
+  }
+}
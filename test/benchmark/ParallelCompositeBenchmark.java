@@ -0,0 +1,97 @@
+package benchmark;
+
+import java.util.Random;
+
+import model.layer.LayerPackedImpl;
+import model.model.CollageModelImpl3;
+import model.pixel.Pixel;
+import model.pixel.RGBPixel;
+
+/**
+ * Composites a synthetic 8192 x 8192 project of 20 translucent layers,
+ * each with a blend filter, on 1, 2, 4 and 8 threads, and reports the
+ * time of each and its speedup over one thread.  The layers are packed
+ * and painted with noise, so every layer is read from memory like a
+ * painted layer would be; only one layer per filter is made, and each
+ * is put in the stack several times, so that the project fits in a
+ * heap of a few gigabytes.
+ *
+ * <p>Run with: java -Xmx3g benchmark.ParallelCompositeBenchmark [size]</p>
+ */
+public class ParallelCompositeBenchmark {
+  private static final int LAYERS = 20;
+  private static final int TILE = 256;
+  private static final String[] FILTERS = {"normal", "brighten-luma", "darken-value",
+      "difference", "multiply", "screen"};
+
+  /**
+   * Runs the benchmark.
+   * @param args may hold the height and width of the canvas, 8192 by
+   *     default
+   */
+  public static void main(String[] args) {
+    int size = args.length > 0 ? Integer.parseInt(args[0]) : 8192;
+    SyntheticModel model = new SyntheticModel(size);
+    //warms up the JIT and the scratch buffers
+    model.setParallelism(1, 0);
+    model.composite();
+    double single = 0;
+    for (int threads : new int[] {1, 2, 4, 8}) {
+      model.setParallelism(threads, 0);
+      long start = System.nanoTime();
+      model.composite();
+      double millis = (System.nanoTime() - start) / 1e6;
+      if (threads == 1) {
+        single = millis;
+      }
+      System.out.printf("%d threads: %.0f ms per composite, %.2fx%n",
+              threads, millis, single / millis);
+    }
+    System.out.printf("%d processors available%n", Runtime.getRuntime().availableProcessors());
+  }
+
+  //returns a size x size packed layer painted with translucent noise,
+  //a tile of it at a time
+  private static LayerPackedImpl painted(int size, int seed) {
+    Random random = new Random(seed);
+    Pixel[][] tile = new Pixel[TILE][TILE];
+    for (Pixel[] row : tile) {
+      for (int j = 0; j < TILE; j++) {
+        row[j] = new RGBPixel(random.nextInt(256), random.nextInt(256),
+                random.nextInt(256), 40 + random.nextInt(200));
+      }
+    }
+    LayerPackedImpl layer = new LayerPackedImpl(size, size);
+    for (int y = 0; y < size; y += TILE) {
+      for (int x = 0; x < size; x += TILE) {
+        layer.addImage(tile, x, y);
+      }
+    }
+    return layer;
+  }
+
+  //a project whose layers are put in directly, as painting 20 layers
+  //this large through addImageToLayer would not fit the heap
+  private static class SyntheticModel extends CollageModelImpl3 {
+    SyntheticModel(int size) {
+      this.newProject(size, size);
+      //no kept composites, so every layer is merged every time
+      this.setCheckpointSpacing(0);
+      LayerPackedImpl[] painted = new LayerPackedImpl[FILTERS.length];
+      for (int i = 0; i < FILTERS.length; i++) {
+        painted[i] = painted(size, i);
+        painted[i].setFilter(knownFilters.get(FILTERS[i]));
+      }
+      for (int i = 0; i < LAYERS; i++) {
+        String name = "layer" + i;
+        this.addLayer(name);
+        layers.put(name, painted[i % FILTERS.length]);
+      }
+    }
+
+    //composites every layer from scratch
+    void composite() {
+      scratch.release(this.compressLayersPacked());
+    }
+  }
+}
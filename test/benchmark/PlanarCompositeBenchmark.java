@@ -0,0 +1,86 @@
+package benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import model.filter.option.FilterOption;
+import model.filter.option.NormalFilter;
+import model.filter.option.blend.Difference;
+import model.filter.option.brightness.BrightenLuma;
+import model.filter.option.brightness.DarkenValue;
+import model.filter.option.colour.components.RedComponent;
+import model.layer.Layer;
+import model.layer.LayerPixelImpl;
+import model.layer.LayerPlanarImpl;
+import model.layer.ScratchPool;
+import model.pixel.Pixel;
+import model.pixel.RGBPixel;
+
+/**
+ * Measures how many pixels per second a single core composites
+ * through the planar float path (LayerPlanarImpl.mergeDownPlanar)
+ * against the Pixel grid path (LayerPixelImpl.mergeDown) for each
+ * filter that has a planar form.  A pixel here is one coordinate
+ * of one layer merged onto the layers below it.
+ *
+ * <p>Run with: java benchmark.PlanarCompositeBenchmark</p>
+ */
+public class PlanarCompositeBenchmark {
+  private static final int HEIGHT = 512;
+  private static final int WIDTH = 512;
+  private static final int ROUNDS = 10;
+
+  /**
+   * Runs the benchmark and prints millions of pixels per second.
+   * @param args is ignored
+   */
+  public static void main(String[] args) {
+    Random random = new Random(42);
+    Pixel[][] image = new Pixel[HEIGHT][WIDTH];
+    for (int i = 0; i < HEIGHT; i++) {
+      for (int j = 0; j < WIDTH; j++) {
+        image[i][j] = new RGBPixel(random.nextInt(256), random.nextInt(256),
+                random.nextInt(256), random.nextInt(256));
+      }
+    }
+
+    List<FilterOption<Pixel>> filters = Arrays.asList(new NormalFilter(),
+        new RedComponent(), new BrightenLuma(), new DarkenValue(), new Difference());
+
+    System.out.printf("%-14s %16s %16s%n", "filter", "grid Mpx/s", "planar Mpx/s");
+    for (FilterOption<Pixel> filter : filters) {
+      Layer<Pixel> gridLayer = new LayerPixelImpl(HEIGHT, WIDTH, image, filter);
+      LayerPlanarImpl planarLayer = new LayerPlanarImpl(HEIGHT, WIDTH, image, filter);
+      //warm up both paths before measuring
+      runGrid(gridLayer, image);
+      runPlanar(planarLayer, image);
+      double before = runGrid(gridLayer, image);
+      double after = runPlanar(planarLayer, image);
+      System.out.printf("%-14s %16.1f %16.1f%n", filter, before, after);
+    }
+  }
+
+  //returns millions of pixels merged per second through mergeDown
+  private static double runGrid(Layer<Pixel> layer, Pixel[][] image) {
+    Pixel[][] bottom = image;
+    long start = System.nanoTime();
+    for (int round = 0; round < ROUNDS; round++) {
+      bottom = layer.mergeDown(bottom);
+    }
+    long elapsed = System.nanoTime() - start;
+    return ROUNDS * (double) HEIGHT * WIDTH * 1000 / elapsed;
+  }
+
+  //returns millions of pixels merged per second through mergeDownPlanar
+  private static double runPlanar(LayerPlanarImpl layer, Pixel[][] image) {
+    LayerPlanarImpl bottom = new LayerPlanarImpl(HEIGHT, WIDTH, image, new NormalFilter());
+    ScratchPool pool = new ScratchPool();
+    long start = System.nanoTime();
+    for (int round = 0; round < ROUNDS; round++) {
+      layer.mergeDownPlanar(bottom, pool);
+    }
+    long elapsed = System.nanoTime() - start;
+    return ROUNDS * (double) HEIGHT * WIDTH * 1000 / elapsed;
+  }
+}
@@ -0,0 +1,77 @@
+package benchmark;
+
+import java.util.Random;
+
+import model.layer.LayerStorage;
+import model.model.CollageModelImpl3;
+import model.pixel.Pixel;
+import model.pixel.RGBPixel;
+
+/**
+ * Measures the render time (saveImage) and layer memory of a collage
+ * shaped like res/script.txt: 14 layers on a 246x1200 canvas, each
+ * holding three 82x100 thumbnails, with packed, tiled, and run-length
+ * layers.
+ *
+ * <p>Run with: java benchmark.TiledLayerBenchmark</p>
+ */
+public class TiledLayerBenchmark {
+  private static final int HEIGHT = 246;
+  private static final int WIDTH = 1200;
+  private static final int LAYERS = 14;
+  private static final int ROUNDS = 20;
+
+  /**
+   * Runs the benchmark and prints the milliseconds per render and
+   * the megabytes held by the layers.
+   * @param args is ignored
+   */
+  public static void main(String[] args) {
+    Pixel[][] thumbnail = new Pixel[82][100];
+    Random random = new Random(5);
+    for (Pixel[] row : thumbnail) {
+      for (int j = 0; j < row.length; j++) {
+        row[j] = new RGBPixel(random.nextInt(256), random.nextInt(256),
+                random.nextInt(256), 255);
+      }
+    }
+
+    System.out.printf("%-10s %10s %10s%n", "storage", "ms", "MB");
+    for (LayerStorage storage : new LayerStorage[] {LayerStorage.PACKED, LayerStorage.TILED,
+        LayerStorage.RUN_LENGTH}) {
+      long before = usedMemory();
+      CollageModelImpl3 model = build(storage, thumbnail);
+      double megabytes = (usedMemory() - before) / 1e6;
+      //warm up before measuring
+      model.saveImage();
+      long start = System.nanoTime();
+      for (int round = 0; round < ROUNDS; round++) {
+        model.saveImage();
+      }
+      double millis = (System.nanoTime() - start) / 1e6 / ROUNDS;
+      System.out.printf("%-10s %10.1f %10.1f%n", storage, millis, megabytes);
+    }
+  }
+
+  private static CollageModelImpl3 build(LayerStorage storage, Pixel[][] thumbnail) {
+    CollageModelImpl3 model = new CollageModelImpl3();
+    model.setLayerStorage(storage);
+    model.newProject(HEIGHT, WIDTH);
+    for (int i = 0; i < LAYERS; i++) {
+      model.addLayer("layer" + i);
+      for (int k = 0; k < 3; k++) {
+        model.addImageToLayer("layer" + i, thumbnail,
+                (i * 300 + k * 110) % (WIDTH - 100), (i * 41 + k * 82) % (HEIGHT - 82));
+      }
+    }
+    return model;
+  }
+
+  private static long usedMemory() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
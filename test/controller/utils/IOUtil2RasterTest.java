@@ -0,0 +1,107 @@
+package controller.utils;
+
+import org.junit.Test;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import model.pixel.Pixel;
+import model.pixel.RGBARaster;
+import model.pixel.RGBPixel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that IOUtil2 decodes images into RGBARasters with the
+ * same colours as it used to produce through Color objects.
+ */
+public class IOUtil2RasterTest {
+
+  //decodes the image the way IOUtil2.readFile used to
+  private Pixel[][] reference(BufferedImage img) {
+    Raster alphaRaster = img.getAlphaRaster();
+    Pixel[][] grid = new Pixel[img.getHeight()][img.getWidth()];
+    for (int i = 0; i < img.getHeight(); i++) {
+      for (int j = 0; j < img.getWidth(); j++) {
+        Color c = new Color(img.getRGB(j, i));
+        int alpha = c.getAlpha();
+        if (alphaRaster != null) {
+          alpha = alphaRaster.getPixel(j, i, new int[1])[0];
+        }
+        grid[i][j] = new RGBPixel(c.getRed(), c.getGreen(), c.getBlue(), alpha);
+      }
+    }
+    return grid;
+  }
+
+  //writes the image to a temporary file of the given type
+  private File write(BufferedImage img, String type) throws IOException {
+    File file = File.createTempFile("raster", "." + type);
+    file.deleteOnExit();
+    ImageIO.write(img, type, file);
+    return file;
+  }
+
+  /**
+   * Tests that pngs with and without transparency, and jpgs, read
+   * back the same as the old decoding.
+   */
+  @Test
+  public void readRasterTest() throws IOException {
+    BufferedImage translucent = new BufferedImage(7, 5, BufferedImage.TYPE_INT_ARGB);
+    BufferedImage opaque = new BufferedImage(7, 5, BufferedImage.TYPE_INT_RGB);
+    for (int i = 0; i < 5; i++) {
+      for (int j = 0; j < 7; j++) {
+        translucent.setRGB(j, i, new Color(i * 50, j * 30, (i * j * 9) % 256,
+                (i + j) * 20).getRGB());
+        opaque.setRGB(j, i, new Color(i * 50, j * 30, (i * j * 9) % 256).getRGB());
+      }
+    }
+
+    IOUtil2 util = new IOUtil2();
+    String[][] files = {{"png", "translucent"}, {"png", "opaque"}, {"jpg", "opaque"}};
+    for (String[] file : files) {
+      File written = this.write(file[1].equals("opaque") ? opaque : translucent, file[0]);
+      Pixel[][] expected = this.reference(ImageIO.read(written));
+      RGBARaster raster = util.readRaster(written.getPath());
+      assertEquals(5, raster.getHeight());
+      assertEquals(7, raster.getWidth());
+      assertArrayEquals(expected, raster.toGrid());
+      assertArrayEquals(expected, util.readFile(written.getPath()));
+    }
+
+    //an image already in the repository
+    assertArrayEquals(this.reference(ImageIO.read(new File("res/nap1.png"))),
+            util.readRaster("res/nap1.png").toGrid());
+  }
+
+  /**
+   * Tests the readRaster exceptions.
+   */
+  @Test
+  public void readRasterExceptionsTest() throws IOException {
+    IOUtil2 util = new IOUtil2();
+    try {
+      util.readRaster(null);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given path cannot be null.", e.getMessage());
+    }
+
+    File notAnImage = File.createTempFile("raster", ".png");
+    notAnImage.deleteOnExit();
+    try {
+      util.readRaster(notAnImage.getPath());
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("File type not supported at this time.", e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package model.filter.option;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import model.filter.option.blend.Difference;
+import model.filter.option.blend.Multiply;
+import model.filter.option.blend.Screen;
+import model.filter.option.brightness.BrightenIntensity;
+import model.filter.option.brightness.BrightenLuma;
+import model.filter.option.brightness.BrightenValue;
+import model.filter.option.brightness.DarkenIntensity;
+import model.filter.option.brightness.DarkenLuma;
+import model.filter.option.brightness.DarkenValue;
+import model.filter.option.colour.components.BlueComponent;
+import model.filter.option.colour.components.GreenComponent;
+import model.filter.option.colour.components.RedComponent;
+import model.pixel.Pixel;
+import model.utils.PixelUtil;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that the packed applyToRow of every filter gives exactly
+ * the same colours as applyToColor.
+ */
+public class FilterOptionRowTest {
+  private static final List<FilterOption<Pixel>> FILTERS = Arrays.asList(
+          new NormalFilter(), new RedComponent(), new GreenComponent(),
+          new BlueComponent(), new BrightenValue(), new BrightenIntensity(),
+          new BrightenLuma(), new DarkenValue(), new DarkenIntensity(),
+          new DarkenLuma(), new Difference(), new Multiply(), new Screen());
+
+  //edge colours: transparent, transparent white, black, white,
+  //greys, primaries, and barely visible colours
+  private static final int[] EDGES = {
+    0x00000000, 0x00FFFFFF, 0xFF000000, 0xFFFFFFFF, 0x80808080, 0xFF808080,
+    0xFFFF0000, 0xFF00FF00, 0xFF0000FF, 0x01FFFFFF, 0x01000000, 0xFE010203,
+    0x7FFF00FF, 0xFFFEFEFE, 0x40C0C0C0
+  };
+
+  //the colours applyToColor produces for the given rows
+  private static int[] expected(FilterOption<Pixel> filter, int[] top, int[] bottom) {
+    int[] out = new int[top.length];
+    for (int i = 0; i < out.length; i++) {
+      out[i] = PixelUtil.toARGB(filter.applyToColor(
+              PixelUtil.fromARGB(top[i]), PixelUtil.fromARGB(bottom[i])));
+    }
+    return out;
+  }
+
+  /**
+   * Tests every pair of edge colours through every filter.
+   */
+  @Test
+  public void edgeColoursTest() {
+    int[] top = new int[EDGES.length * EDGES.length];
+    int[] bottom = new int[top.length];
+    for (int i = 0; i < EDGES.length; i++) {
+      for (int j = 0; j < EDGES.length; j++) {
+        top[i * EDGES.length + j] = EDGES[i];
+        bottom[i * EDGES.length + j] = EDGES[j];
+      }
+    }
+
+    for (FilterOption<Pixel> filter : FILTERS) {
+      int[] out = new int[top.length];
+      filter.applyToRow(top, bottom, out, 0, top.length);
+      assertArrayEquals(filter.toString(), expected(filter, top, bottom), out);
+    }
+  }
+
+  /**
+   * Tests random colours through every filter, writing the result
+   * over the bottom row like the layers do.
+   */
+  @Test
+  public void randomColoursTest() {
+    Random random = new Random(8);
+    int[] top = new int[20000];
+    int[] bottom = new int[top.length];
+    for (int i = 0; i < top.length; i++) {
+      //canonical packed colours: transparent is always zero
+      top[i] = PixelUtil.toARGB(PixelUtil.fromARGB(random.nextInt()));
+      bottom[i] = PixelUtil.toARGB(PixelUtil.fromARGB(random.nextInt()));
+    }
+
+    for (FilterOption<Pixel> filter : FILTERS) {
+      int[] want = expected(filter, top, bottom);
+      int[] row = bottom.clone();
+      filter.applyToRow(top, row, row, 0, row.length);
+      assertArrayEquals(filter.toString(), want, row);
+    }
+  }
+
+  /**
+   * Tests that only the given run of the arrays is written to.
+   */
+  @Test
+  public void offsetTest() {
+    int[] top = {0xFFFF0000, 0xFF00FF00, 0xFF0000FF, 0x80FFFFFF};
+    int[] bottom = {0xFF102030, 0xFF405060, 0xFF708090, 0xFFA0B0C0};
+
+    for (FilterOption<Pixel> filter : FILTERS) {
+      int[] want = expected(filter, top, bottom);
+      int[] out = {1, 2, 3, 4};
+      filter.applyToRow(top, bottom, out, 1, 2);
+      assertEquals(filter.toString(), 1, out[0]);
+      assertEquals(filter.toString(), want[1], out[1]);
+      assertEquals(filter.toString(), want[2], out[2]);
+      assertEquals(filter.toString(), 4, out[3]);
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package model.filter.option;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import model.filter.option.blend.Difference;
+import model.filter.option.blend.Multiply;
+import model.filter.option.blend.Screen;
+import model.pixel.Pixel;
+import model.pixel.RGBPixel;
+import model.utils.PixelUtil;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the MemoizedFilter decorator and the LongIntHashMap behind it.
+ */
+public class MemoizedFilterTest {
+
+  /**
+   * Tests that a memoized filter gives the same colours as the
+   * filter it wraps, and counts its hits and misses.
+   */
+  @Test
+  public void sameColoursTest() {
+    List<FilterOption<Pixel>> filters = Arrays.asList(
+        new Multiply(), new Screen(), new Difference());
+    Random random = new Random(10);
+    //only a few distinct colours, repeated many times
+    int[] palette = new int[8];
+    for (int i = 0; i < palette.length; i++) {
+      palette[i] = PixelUtil.toARGB(PixelUtil.fromARGB(random.nextInt()));
+    }
+    int[] top = new int[1000];
+    int[] bottom = new int[top.length];
+    for (int i = 0; i < top.length; i++) {
+      top[i] = palette[random.nextInt(palette.length)];
+      bottom[i] = palette[random.nextInt(palette.length)];
+    }
+
+    for (FilterOption<Pixel> filter : filters) {
+      MemoizedFilter memoized = new MemoizedFilter(filter);
+      assertEquals(filter, memoized);
+      assertEquals(filter.toString(), memoized.toString());
+
+      int[] expected = new int[top.length];
+      filter.applyToRow(top, bottom, expected, 0, top.length);
+      //written over the bottom row, like the layers do
+      int[] actual = bottom.clone();
+      memoized.applyToRow(top, actual, actual, 0, top.length);
+      assertArrayEquals(filter.toString(), expected, actual);
+      assertEquals(top.length, memoized.getHits() + memoized.getMisses());
+      assertTrue(memoized.getMisses() <= palette.length * palette.length);
+
+      //the Pixel form shares the same remembered colours
+      Pixel topPixel = PixelUtil.fromARGB(top[0]);
+      Pixel bottomPixel = PixelUtil.fromARGB(bottom[0]);
+      long hits = memoized.getHits();
+      assertEquals(filter.applyToColor(topPixel, bottomPixel),
+              memoized.applyToColor(topPixel, bottomPixel));
+      assertEquals(hits + 1, memoized.getHits());
+
+      memoized.clear();
+      assertEquals(0, memoized.getHits());
+      assertEquals(0, memoized.getMisses());
+      Pixel white = new RGBPixel(255,255,255,255);
+      assertEquals(filter.applyToColor(white, white), memoized.applyToColor(white, white));
+      assertEquals(1, memoized.getMisses());
+    }
+  }
+
+  /**
+   * Tests that a null filter or a bad capacity is not allowed.
+   */
+  @Test
+  public void constructorTest() {
+    try {
+      new MemoizedFilter(null);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given filter cannot be null.", e.getMessage());
+    }
+    try {
+      new MemoizedFilter(new Multiply(), 3);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("Capacity must be between 4 and 2^30.", e.getMessage());
+    }
+  }
+
+  /**
+   * Tests the map, including the keys that are special to it.
+   */
+  @Test
+  public void mapTest() {
+    LongIntHashMap map = new LongIntHashMap(8);
+    assertEquals(LongIntHashMap.MISSING, map.get(0L));
+    assertEquals(LongIntHashMap.MISSING, map.get(-1L));
+
+    map.put(0L, -1);
+    map.put(-1L, 0);
+    map.put(42L, 7);
+    map.put(42L, 8);
+    assertEquals(0xFFFFFFFFL, map.get(0L));
+    assertEquals(0L, map.get(-1L));
+    assertEquals(8L, map.get(42L));
+    assertEquals(3, map.size());
+
+    //6 of the 8 slots fit; the next key clears the map
+    for (long key = 1; key <= 4; key++) {
+      map.put(key << 40, (int) key);
+    }
+    assertEquals(7, map.size());
+    assertEquals(2L, map.get(2L << 40));
+    map.put(5L << 40, 5);
+    assertEquals(1, map.size());
+    assertEquals(5L, map.get(5L << 40));
+    assertEquals(LongIntHashMap.MISSING, map.get(42L));
+    assertEquals(LongIntHashMap.MISSING, map.get(0L));
+
+    map.clear();
+    assertEquals(0, map.size());
+    assertEquals(LongIntHashMap.MISSING, map.get(5L << 40));
+  }
+}
@@ -0,0 +1,83 @@
+package model.filter.option;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import model.filter.option.brightness.BrightenIntensity;
+import model.filter.option.brightness.BrightenLuma;
+import model.filter.option.brightness.BrightenValue;
+import model.filter.option.brightness.DarkenIntensity;
+import model.filter.option.brightness.DarkenLuma;
+import model.filter.option.brightness.DarkenValue;
+import model.filter.option.colour.components.BlueComponent;
+import model.filter.option.colour.components.GreenComponent;
+import model.filter.option.colour.components.RedComponent;
+import model.utils.PixelUtil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that the lookup tables of the single filters give exactly
+ * the same colours as their Pixel forms.
+ */
+public class SingleFilterTableTest {
+  private static final List<AbstractSingleFilter> FILTERS = Arrays.asList(
+          new RedComponent(), new GreenComponent(), new BlueComponent(),
+          new BrightenValue(), new BrightenIntensity(), new BrightenLuma(),
+          new DarkenValue(), new DarkenIntensity(), new DarkenLuma());
+
+  //the packed colour applyToColor(Pixel) gives for the given colour
+  private static int expected(AbstractSingleFilter filter, int argb) {
+    return PixelUtil.toARGB(filter.applyToColor(PixelUtil.fromARGB(argb)));
+  }
+
+  /**
+   * Tests every one of the 2^24 RGB values, opaque, through every
+   * single filter.
+   */
+  @Test
+  public void allColoursTest() {
+    for (AbstractSingleFilter filter : FILTERS) {
+      for (int rgb = 0; rgb < (1 << 24); rgb++) {
+        int argb = 0xFF000000 | rgb;
+        int actual = filter.applyToARGB(argb);
+        if (actual != expected(filter, argb)) {
+          fail(filter + " differs for " + Integer.toHexString(argb));
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that the alpha is kept as it is, and that transparent
+   * colours stay transparent.
+   */
+  @Test
+  public void alphaTest() {
+    int[] colours = {0x00000000, 0x01FFFFFF, 0x80102030, 0x7FFF8000, 0xFE0000FF};
+    for (AbstractSingleFilter filter : FILTERS) {
+      for (int argb : colours) {
+        assertEquals(filter.toString(), expected(filter, argb), filter.applyToARGB(argb));
+      }
+    }
+  }
+
+  /**
+   * Tests that a brightness table can only add or subtract once.
+   */
+  @Test
+  public void multiplierTest() {
+    int[] multipliers = {0, 2, -2};
+    for (int multiplier : multipliers) {
+      try {
+        SingleFilterTable.luma(multiplier);
+        fail();
+      } catch (IllegalArgumentException e) {
+        assertEquals("Multiplier must be 1 or -1.", e.getMessage());
+      }
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package model.layer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import model.filter.option.blend.Multiply;
+import model.pixel.Pixel;
+import model.pixel.RGBPixel;
+import model.utils.PixelUtil;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that LayerDeflatedImpl keeps exactly the colours of the layer
+ * it deflates, in less memory.
+ */
+public class LayerDeflatedImplTest {
+
+  //builds a translucent test image
+  private Pixel[][] image(int height, int width, int seed) {
+    Pixel[][] grid = new Pixel[height][width];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        grid[i][j] = new RGBPixel((i * 40 + seed) % 256, (j * 70 + seed) % 256,
+                (i * j * 13) % 256, (i + j + seed) % 3 == 0 ? 255 : 90 + seed);
+      }
+    }
+    return grid;
+  }
+
+  //packs the given grid row by row
+  private int[] packed(Pixel[][] grid) {
+    int width = grid[0].length;
+    int[] colours = new int[grid.length * width];
+    for (int i = 0; i < grid.length; i++) {
+      for (int j = 0; j < width; j++) {
+        colours[i * width + j] = PixelUtil.toARGB(grid[i][j]);
+      }
+    }
+    return colours;
+  }
+
+  /**
+   * Tests that every exact storage mode is restored exactly, and that
+   * the deflated layer reads and merges like the original.
+   */
+  @Test
+  public void roundTripTest() {
+    Pixel[][] under = this.image(20, 30, 4);
+    for (LayerStorage storage : LayerStorage.values()) {
+      if (storage == LayerStorage.PREMULTIPLIED || storage == LayerStorage.PLANAR) {
+        continue;
+      }
+      Layer<Pixel> layer = storage.create(20, 30);
+      layer.addImage(this.image(10, 12, 1), 5, 3);
+      layer.setFilter(new Multiply());
+      LayerDeflatedImpl deflated = new LayerDeflatedImpl(layer, storage);
+      assertTrue(deflated.isDeflated());
+      assertEquals(20 * 30 * 4, deflated.getRawBytes());
+      assertTrue(storage.toString(), deflated.getDeflatedBytes() < deflated.getRawBytes());
+
+      assertArrayEquals(storage.toString(), layer.getGrid(), deflated.getGrid());
+      assertEquals(storage.toString(), layer.toProjString(), deflated.toProjString());
+      assertArrayEquals(storage.toString(), layer.mergeDown(under), deflated.mergeDown(under));
+      Layer<Pixel> restored = deflated.restore();
+      assertEquals(layer.getClass(), restored.getClass());
+      assertEquals(layer.toProjString(), restored.toProjString());
+
+      //merging in place inflates the rows without restoring the layer
+      Pixel[][] merged = layer.mergeDown(under);
+      int[] full = this.packed(under);
+      int[] part = this.packed(under);
+      ScratchPool pool = new ScratchPool();
+      deflated.mergeDownPacked(full, pool, 0, 0, 30, 20);
+      deflated.mergeDownPacked(part, pool, 4, 6, 20, 9);
+      assertEquals(0, pool.getHeldCount());
+      for (int i = 0; i < 20; i++) {
+        for (int j = 0; j < 30; j++) {
+          int argb = PixelUtil.toARGB(merged[i][j]);
+          assertEquals(storage.toString(), argb, full[i * 30 + j]);
+          boolean inside = i >= 6 && i < 15 && j >= 4 && j < 24;
+          assertEquals(storage.toString(), inside ? argb : PixelUtil.toARGB(under[i][j]),
+                  part[i * 30 + j]);
+        }
+      }
+      assertTrue(deflated.isDeflated());
+    }
+  }
+
+  /**
+   * Tests that adding an image inflates the layer for good.
+   */
+  @Test
+  public void addImageTest() {
+    Layer<Pixel> expected = new LayerPackedImpl(6, 8);
+    expected.addImage(this.image(6, 8, 2), 0, 0);
+    LayerDeflatedImpl deflated = new LayerDeflatedImpl(expected, LayerStorage.PACKED);
+
+    expected.addImage(this.image(3, 3, 5), 2, 2);
+    deflated.addImage(this.image(3, 3, 5), 2, 2);
+    assertFalse(deflated.isDeflated());
+    assertEquals(deflated.getRawBytes(), deflated.getDeflatedBytes());
+    assertArrayEquals(expected.getGrid(), deflated.getGrid());
+    assertEquals(expected.toProjString(), deflated.toProjString());
+  }
+
+  /**
+   * Tests that only exact storage modes can be deflated.
+   */
+  @Test
+  public void errorTest() {
+    try {
+      new LayerDeflatedImpl(null, LayerStorage.PACKED);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given layer and storage cannot be null.", e.getMessage());
+    }
+    try {
+      new LayerDeflatedImpl(new LayerPlanarImpl(2, 2), LayerStorage.PLANAR);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given storage does not store colours exactly.", e.getMessage());
+    }
+    //a blank layer deflates to almost nothing
+    Pixel[][] clear = new Pixel[100][100];
+    for (Pixel[] row : clear) {
+      Arrays.fill(row, new RGBPixel(0,0,0,0));
+    }
+    LayerDeflatedImpl blank = new LayerDeflatedImpl(
+            new LayerPixelImpl(100, 100, clear, new Multiply()), LayerStorage.PIXEL);
+    assertTrue(blank.getDeflatedBytes() < 200);
+  }
+}
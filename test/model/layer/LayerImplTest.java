@@ -3,6 +3,8 @@ package model.layer;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import model.filter.option.NormalFilter;
 import model.filter.option.colour.components.BlueComponent;
 import model.filter.option.colour.components.GreenComponent;
@@ -460,4 +462,70 @@ public class LayerImplTest {
 
   }
 
-}
\ No newline at end of file
+  /**
+   * Tests that addImage clips images placed partly or entirely off
+   * the layer, including at negative offsets, exactly like the
+   * packed layers do.
+   */
+  @Test
+  public void addImageClippedTest() {
+    Pixel[][] image = new Pixel[3][4];
+    for (int i = 0; i < 3; i++) {
+      for (int j = 0; j < 4; j++) {
+        image[i][j] = new RGBPixel(i * 80, j * 60, 200, j % 2 == 0 ? 255 : 120);
+      }
+    }
+    //a null colour is transparent white
+    image[1][1] = null;
+
+    int[][] offsets = {{-2, -1}, {3, 2}, {-3, 4}, {6, -3}, {-4, 0}, {0, 5}, {1, 1}};
+    for (int[] offset : offsets) {
+      Layer<Pixel> expected = new LayerPackedImpl(5, 6);
+      Layer<Pixel> actual = new LayerPixelImpl(5, 6);
+      expected.addImage(image, offset[0], offset[1]);
+      actual.addImage(image, offset[0], offset[1]);
+      assertArrayEquals(expected.getGrid(), actual.getGrid());
+      assertEquals(expected.toProjString(), actual.toProjString());
+    }
+  }
+
+  /**
+   * Tests that addImage only overlays the colours under the image,
+   * no matter how large the layer is.
+   */
+  @Test
+  public void addImageCostTest() {
+    int[] overlays = new int[1];
+    Layer<Pixel> layer = new LayerPixelImpl(2000, 2000) {
+      @Override
+      protected Pixel computeOverlay(Pixel top, Pixel bottom) {
+        overlays[0]++;
+        return super.computeOverlay(top, bottom);
+      }
+    };
+    Pixel[][] thumbnail = new Pixel[100][100];
+    for (Pixel[] row : thumbnail) {
+      Arrays.fill(row, new RGBPixel(10, 20, 30));
+    }
+
+    layer.addImage(thumbnail, 950, 950);
+    assertEquals(100 * 100, overlays[0]);
+    //half of it hangs off the top left corner
+    layer.addImage(thumbnail, -50, -50);
+    assertEquals(100 * 100 + 50 * 50, overlays[0]);
+  }
+
+  /**
+   * Tests that changing the grid given to a layer does not change
+   * the layer, even after adding an image.
+   */
+  @Test
+  public void gridCopiedTest() {
+    Pixel[][] grid = {{new RGBPixel(1, 2, 3)}};
+    Layer<Pixel> layer = new LayerPixelImpl(1, 1, grid, new NormalFilter());
+    grid[0][0] = new RGBPixel(4, 5, 6);
+    assertEquals(new RGBPixel(1, 2, 3), layer.getGrid()[0][0]);
+    layer.addImage(new Pixel[][] {{new RGBPixel(7, 8, 9)}}, 0, 0);
+    assertEquals(new RGBPixel(4, 5, 6), grid[0][0]);
+  }
+}
@@ -0,0 +1,117 @@
+package model.layer;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import model.filter.option.FilterOption;
+import model.filter.option.NormalFilter;
+import model.filter.option.blend.Difference;
+import model.filter.option.blend.Multiply;
+import model.filter.option.blend.Screen;
+import model.filter.option.brightness.BrightenIntensity;
+import model.filter.option.brightness.BrightenLuma;
+import model.filter.option.brightness.BrightenValue;
+import model.filter.option.brightness.DarkenIntensity;
+import model.filter.option.brightness.DarkenLuma;
+import model.filter.option.brightness.DarkenValue;
+import model.filter.option.colour.components.BlueComponent;
+import model.filter.option.colour.components.GreenComponent;
+import model.filter.option.colour.components.RedComponent;
+import model.pixel.Pixel;
+import model.pixel.RGBPixel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that LayerMappedImpl behaves exactly like LayerPixelImpl and
+ * leaves no files behind.
+ */
+public class LayerMappedImplTest {
+  private static final List<FilterOption<Pixel>> FILTERS = Arrays.asList(
+          new NormalFilter(), new RedComponent(), new GreenComponent(),
+          new BlueComponent(), new BrightenValue(), new BrightenIntensity(),
+          new BrightenLuma(), new DarkenValue(), new DarkenIntensity(),
+          new DarkenLuma(), new Difference(), new Multiply(), new Screen());
+
+  //builds a translucent test image
+  private Pixel[][] image(int height, int width, int seed) {
+    Pixel[][] grid = new Pixel[height][width];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        grid[i][j] = new RGBPixel((i * 40 + seed) % 256, (j * 70 + seed) % 256,
+                (i * j * 13) % 256, (i + j + seed) % 3 == 0 ? 255 : 90 + seed);
+      }
+    }
+    return grid;
+  }
+
+  //counts the layer files in the temporary directory
+  private int layerFiles() {
+    File[] files = new File(System.getProperty("java.io.tmpdir")).listFiles(
+        (dir, name) -> name.startsWith("collage") && name.endsWith(".layer"));
+    return files == null ? 0 : files.length;
+  }
+
+  /**
+   * Tests that the grid, merges, and project String of a mapped
+   * layer match those of a Pixel layer, for every filter.
+   */
+  @Test
+  public void matchesPixelLayerTest() {
+    //two by three tiles, with partial tiles at the edges
+    int height = 100;
+    int width = 150;
+    Pixel[][] under = this.image(height, width, 7);
+    for (FilterOption<Pixel> filter : FILTERS) {
+      Layer<Pixel> expected = new LayerPixelImpl(height, width);
+      LayerMappedImpl actual = new LayerMappedImpl(height, width);
+      expected.setFilter(filter);
+      actual.setFilter(filter);
+      expected.addImage(this.image(40, 70, 3), 50, 40);
+      actual.addImage(this.image(40, 70, 3), 50, 40);
+      //rows 40-79 and columns 50-119: tiles 0-1 down and 0-1 across
+      assertEquals(4, actual.getWrittenTileCount());
+
+      assertArrayEquals(filter.toString(), expected.getGrid(), actual.getGrid());
+      assertEquals(filter.toString(), expected.toProjString(), actual.toProjString());
+      assertArrayEquals(filter.toString(), expected.mergeDown(under), actual.mergeDown(under));
+
+      LayerMappedImpl bottom = new LayerMappedImpl(height, width, under, new NormalFilter());
+      actual.mergeDownMapped(bottom);
+      assertArrayEquals(filter.toString(), expected.mergeDown(under), bottom.getGrid());
+      bottom.close();
+      actual.close();
+    }
+  }
+
+  /**
+   * Tests that mergeDownMapped only accepts layers of the same size,
+   * and that closed layers leave no file behind.
+   */
+  @Test
+  public void mergeDownMappedTest() {
+    int files = this.layerFiles();
+    LayerMappedImpl layer = new LayerMappedImpl(3,3);
+    try {
+      layer.mergeDownMapped(null);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given layer and sizes do not match.", e.getMessage());
+    }
+    LayerMappedImpl other = new LayerMappedImpl(3,4);
+    try {
+      layer.mergeDownMapped(other);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given layer and sizes do not match.", e.getMessage());
+    }
+    other.close();
+    layer.close();
+    assertEquals(files, this.layerFiles());
+  }
+}
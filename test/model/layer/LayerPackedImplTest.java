@@ -0,0 +1,112 @@
+package model.layer;
+
+import org.junit.Test;
+
+import model.filter.option.NormalFilter;
+import model.filter.option.blend.Difference;
+import model.filter.option.brightness.DarkenLuma;
+import model.filter.option.colour.components.RedComponent;
+import model.pixel.Pixel;
+import model.pixel.RGBPixel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that LayerPackedImpl behaves exactly like LayerPixelImpl.
+ */
+public class LayerPackedImplTest {
+
+  //builds a small translucent test image
+  private Pixel[][] image(int height, int width) {
+    Pixel[][] grid = new Pixel[height][width];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        grid[i][j] = new RGBPixel((i * 40) % 256, (j * 70) % 256,
+                (i * j * 13) % 256, (i + j) % 2 == 0 ? 255 : 128);
+      }
+    }
+    return grid;
+  }
+
+  /**
+   * Tests the constructor exceptions for LayerPackedImpl.
+   */
+  @Test
+  public void constructorTest() {
+    try {
+      new LayerPackedImpl(0,3);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Height or width cannot be less than or equal to zero.",
+              e.getMessage());
+    }
+
+    try {
+      new LayerPackedImpl(1,1,null,null);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Filter cannot be null.", e.getMessage());
+    }
+
+    try {
+      new LayerPackedImpl(2,2,new Pixel[2][2],new NormalFilter());
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given grid cannot contain null values.", e.getMessage());
+    }
+
+    try {
+      new LayerPackedImpl(3,2,this.image(2,2),new NormalFilter());
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given grid and sizes do not match.", e.getMessage());
+    }
+
+    Layer<Pixel> layer = new LayerPackedImpl(2,1);
+    assertEquals("normal\n0 0 0 0 0 0 0 0 ",layer.toProjString());
+    assertEquals(new RGBPixel(0,0,0,0),layer.getGrid()[1][0]);
+  }
+
+  /**
+   * Tests that adding images (including partially off-canvas images)
+   * and merging produce the same results as LayerPixelImpl.
+   */
+  @Test
+  public void matchesPixelLayerTest() {
+    Layer<Pixel> pixel = new LayerPixelImpl(6,7);
+    Layer<Pixel> packed = new LayerPackedImpl(6,7);
+
+    int[][] offsets = {{0, 0}, {-2, -1}, {4, 3}, {5, -3}, {-4, 4}};
+    for (int[] offset : offsets) {
+      pixel.addImage(this.image(4,5), offset[0], offset[1]);
+      packed.addImage(this.image(4,5), offset[0], offset[1]);
+      assertArrayEquals(pixel.getGrid(), packed.getGrid());
+      assertEquals(pixel.toProjString(), packed.toProjString());
+    }
+
+    Pixel[][] bg = this.image(6,7);
+    pixel.setFilter(new RedComponent());
+    packed.setFilter(new RedComponent());
+    assertArrayEquals(pixel.mergeDown(bg), packed.mergeDown(bg));
+
+    pixel.setFilter(new Difference());
+    packed.setFilter(new Difference());
+    assertArrayEquals(pixel.mergeDown(bg), packed.mergeDown(bg));
+    //a background larger than the layer
+    assertArrayEquals(pixel.mergeDown(this.image(8,9)), packed.mergeDown(this.image(8,9)));
+
+    pixel.setFilter(new DarkenLuma());
+    packed.setFilter(new DarkenLuma());
+    assertArrayEquals(pixel.mergeDown(this.image(3,4), bg, true),
+            packed.mergeDown(this.image(3,4), bg, true));
+    assertArrayEquals(pixel.mergeDown(this.image(3,4), bg, false),
+            packed.mergeDown(this.image(3,4), bg, false));
+    assertEquals(pixel.toProjString(), packed.toProjString());
+
+    //copying through the full constructor keeps the grid
+    Layer<Pixel> copy = new LayerPackedImpl(6,7,packed.getGrid(),packed.getFilter());
+    assertEquals(packed.toProjString(), copy.toProjString());
+  }
+}
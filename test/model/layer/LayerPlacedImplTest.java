@@ -0,0 +1,136 @@
+package model.layer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import model.filter.option.FilterOption;
+import model.filter.option.NormalFilter;
+import model.filter.option.blend.Difference;
+import model.filter.option.blend.Screen;
+import model.filter.option.brightness.DarkenLuma;
+import model.pixel.Pixel;
+import model.pixel.RGBARaster;
+import model.pixel.RGBPixel;
+import model.utils.PixelUtil;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that LayerPlacedImpl keeps its images as placements and
+ * otherwise behaves exactly like LayerPixelImpl.
+ */
+public class LayerPlacedImplTest {
+  private static final List<FilterOption<Pixel>> FILTERS = Arrays.asList(
+          new NormalFilter(), new DarkenLuma(), new Difference(), new Screen());
+
+  //builds a translucent test image
+  private Pixel[][] image(int height, int width, int seed) {
+    Pixel[][] grid = new Pixel[height][width];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        grid[i][j] = new RGBPixel((i * 40 + seed) % 256, (j * 70 + seed) % 256,
+                (i * j * 13) % 256, (i + j + seed) % 3 == 0 ? 255 : 90 + seed);
+      }
+    }
+    return grid;
+  }
+
+  /**
+   * Tests that overlapping and off-layer placements give the same
+   * grid, merges, and project String as drawing the images.
+   */
+  @Test
+  public void matchesPixelLayerTest() {
+    int[][] offsets = {{-2, -1}, {3, 2}, {5, -3}, {1, 4}, {8, 8}, {-6, 0}};
+    Pixel[][] under = this.image(7, 9, 11);
+    for (FilterOption<Pixel> filter : FILTERS) {
+      Layer<Pixel> expected = new LayerPixelImpl(7, 9, null, filter);
+      LayerPlacedImpl actual = new LayerPlacedImpl(7, 9, null, filter);
+      for (int i = 0; i < offsets.length; i++) {
+        Pixel[][] image = this.image(4, 5, i * 30);
+        //null colours are transparent
+        image[1][2] = null;
+        expected.addImage(image, offsets[i][0], offsets[i][1]);
+        actual.addImage(image, offsets[i][0], offsets[i][1]);
+      }
+      assertEquals(offsets.length, actual.getPlacements().size());
+
+      assertArrayEquals(filter.toString(), expected.getGrid(), actual.getGrid());
+      assertEquals(filter.toString(), expected.toProjString(), actual.toProjString());
+      assertArrayEquals(filter.toString(), expected.mergeDown(under), actual.mergeDown(under));
+
+      //placed layers are merged in place through the read-only base
+      int[] packed = new int[7 * 9];
+      for (int i = 0; i < 7; i++) {
+        for (int j = 0; j < 9; j++) {
+          packed[i * 9 + j] = PixelUtil.toARGB(under[i][j]);
+        }
+      }
+      actual.mergeDownPacked(packed, new ScratchPool());
+      Pixel[][] merged = expected.mergeDown(under);
+      for (int i = 0; i < 7; i++) {
+        for (int j = 0; j < 9; j++) {
+          assertEquals(filter.toString(), PixelUtil.toARGB(merged[i][j]), packed[i * 9 + j]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that moving a placement gives the same colours as adding
+   * its image at the new place to begin with, and keeps the image.
+   */
+  @Test
+  public void movePlacementTest() {
+    LayerPlacedImpl moved = new LayerPlacedImpl(6, 6);
+    moved.addImage(this.image(3, 3, 0), 0, 0);
+    moved.addImage(this.image(3, 3, 50), 1, 1);
+    //read a row, so that the moved placement is noticed
+    moved.getGrid();
+    RGBARaster image = moved.getPlacements().get(0).getImage();
+    moved.movePlacement(0, 2, 3);
+
+    Layer<Pixel> expected = new LayerPixelImpl(6, 6);
+    expected.addImage(this.image(3, 3, 0), 2, 3);
+    expected.addImage(this.image(3, 3, 50), 1, 1);
+    assertArrayEquals(expected.getGrid(), moved.getGrid());
+    assertSame(image, moved.getPlacements().get(0).getImage());
+    assertEquals(2, moved.getPlacements().get(0).getX());
+    assertEquals(3, moved.getPlacements().get(0).getY());
+
+    try {
+      moved.movePlacement(2, 0, 0);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("No placement at the given index.", e.getMessage());
+    }
+  }
+
+  /**
+   * Tests that the same raster can be placed on many layers and
+   * many times without being copied.
+   */
+  @Test
+  public void sharedRasterTest() {
+    RGBARaster thumbnail = RGBARaster.fromGrid(this.image(2, 2, 5));
+    LayerPlacedImpl layer = new LayerPlacedImpl(100, 100);
+    for (int i = 0; i < 500; i++) {
+      layer.addImage(thumbnail, i % 98, i / 5);
+    }
+    for (LayerPlacedImpl.Placement placement : layer.getPlacements()) {
+      assertSame(thumbnail, placement.getImage());
+    }
+
+    try {
+      layer.addImage((RGBARaster) null, 0, 0);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given image cannot be null.", e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package model.layer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import model.filter.option.FilterOption;
+import model.filter.option.MemoizedFilter;
+import model.filter.option.NormalFilter;
+import model.filter.option.blend.Difference;
+import model.filter.option.blend.Screen;
+import model.filter.option.brightness.BrightenValue;
+import model.filter.option.brightness.DarkenLuma;
+import model.filter.option.colour.components.GreenComponent;
+import model.pixel.Pixel;
+import model.pixel.RGBPixel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests LayerPlanarImpl against LayerPixelImpl.
+ */
+public class LayerPlanarImplTest {
+
+  //builds a small opaque test image
+  private Pixel[][] image(int height, int width) {
+    Pixel[][] grid = new Pixel[height][width];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        grid[i][j] = new RGBPixel((i * 40) % 256, (j * 70) % 256, (i * j * 13) % 256);
+      }
+    }
+    return grid;
+  }
+
+  //builds a small translucent test image
+  private Pixel[][] translucent(int height, int width) {
+    Pixel[][] grid = new Pixel[height][width];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        grid[i][j] = new RGBPixel((j * 50) % 256, (i * 60) % 256, 200, 40 + i * 50);
+      }
+    }
+    return grid;
+  }
+
+  /**
+   * Tests that opaque colours are stored and merged exactly by
+   * the planar filters.
+   */
+  @Test
+  public void opaqueTest() {
+    Layer<Pixel> expected = new LayerPixelImpl(4,5);
+    LayerPlanarImpl actual = new LayerPlanarImpl(4,5);
+    expected.addImage(this.image(3,3), 1, 2);
+    actual.addImage(this.image(3,3), 1, 2);
+    assertArrayEquals(expected.getGrid(), actual.getGrid());
+    assertEquals(expected.toProjString(), actual.toProjString());
+
+    for (Pixel[][] grid : new Pixel[][][] {null, this.image(4,5)}) {
+      expected.setFilter(new GreenComponent());
+      actual.setFilter(new GreenComponent());
+      LayerPlanarImpl bottom = new LayerPlanarImpl(4,5,grid,new NormalFilter());
+      actual.mergeDownPlanar(bottom, new ScratchPool());
+      assertArrayEquals(expected.mergeDown(grid == null ? new LayerPixelImpl(4,5).getGrid()
+              : grid), bottom.getGrid());
+    }
+  }
+
+  /**
+   * Tests that mergeDownPlanar rejects layers of another size.
+   */
+  @Test
+  public void mergeDownPlanarTest() {
+    LayerPlanarImpl layer = new LayerPlanarImpl(2,3,null,new BrightenValue());
+    try {
+      layer.mergeDownPlanar(new LayerPlanarImpl(3,2), new ScratchPool());
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given layer and sizes do not match.", e.getMessage());
+    }
+
+    try {
+      layer.mergeDownPlanar(null, new ScratchPool());
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given layer and sizes do not match.", e.getMessage());
+    }
+
+    try {
+      layer.mergeDownPlanar(new LayerPlanarImpl(2,3), null);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given layer and sizes do not match.", e.getMessage());
+    }
+  }
+
+  /**
+   * Tests that a MemoizedFilter is merged the same way as the filter
+   * it wraps, both with and without a planar form, and that merging
+   * again reuses the rows of the pool.
+   */
+  @Test
+  public void memoizedTest() {
+    for (FilterOption<Pixel> filter : Arrays.<FilterOption<Pixel>>asList(
+            new DarkenLuma(), new Difference(), new Screen())) {
+      LayerPlanarImpl plain = new LayerPlanarImpl(4,5,this.image(4,5),filter);
+      LayerPlanarImpl memoized = new LayerPlanarImpl(4,5,this.image(4,5),
+              new MemoizedFilter(filter));
+      LayerPlanarImpl expected = new LayerPlanarImpl(4,5,this.translucent(4,5),
+              new NormalFilter());
+      LayerPlanarImpl actual = new LayerPlanarImpl(4,5,this.translucent(4,5),new NormalFilter());
+      ScratchPool pool = new ScratchPool();
+      plain.mergeDownPlanar(expected, new ScratchPool());
+      memoized.mergeDownPlanar(actual, pool);
+      assertArrayEquals(expected.getGrid(), actual.getGrid());
+
+      long allocations = pool.getAllocationCount();
+      memoized.mergeDownPlanar(actual, pool);
+      assertEquals(allocations, pool.getAllocationCount());
+      assertEquals(0, pool.getHeldCount());
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package model.layer;
+
+import org.junit.Test;
+
+import model.filter.option.MemoizedFilter;
+import model.filter.option.NormalFilter;
+import model.filter.option.blend.Difference;
+import model.filter.option.blend.Multiply;
+import model.pixel.Pixel;
+import model.pixel.RGBPixel;
+import model.utils.PixelUtil;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests LayerPremultipliedImpl against LayerPixelImpl.
+ */
+public class LayerPremultipliedImplTest {
+
+  //builds a small opaque test image
+  private Pixel[][] image(int height, int width) {
+    Pixel[][] grid = new Pixel[height][width];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        grid[i][j] = new RGBPixel((i * 40) % 256, (j * 70) % 256, (i * j * 13) % 256);
+      }
+    }
+    return grid;
+  }
+
+  /**
+   * Tests that opaque colours are stored and merged exactly.
+   */
+  @Test
+  public void opaqueTest() {
+    Layer<Pixel> expected = new LayerPixelImpl(4,5);
+    Layer<Pixel> actual = new LayerPremultipliedImpl(4,5);
+    expected.addImage(this.image(3,3), 1, 2);
+    actual.addImage(this.image(3,3), 1, 2);
+    assertArrayEquals(expected.getGrid(), actual.getGrid());
+    assertEquals(expected.toProjString(), actual.toProjString());
+
+    expected.setFilter(new Difference());
+    actual.setFilter(new Difference());
+    Pixel[][] bottom = this.image(4,5);
+    assertArrayEquals(expected.mergeDown(bottom), actual.mergeDown(bottom));
+  }
+
+  /**
+   * Tests that translucent colours read back, through getGrid and
+   * toProjString, within 128 / alpha + 1 of the colours added, for
+   * every alpha.
+   */
+  @Test
+  public void translucentTest() {
+    Layer<Pixel> layer = new LayerPremultipliedImpl(1,256);
+    Pixel[][] image = new Pixel[1][256];
+    for (int alpha = 0; alpha < 256; alpha++) {
+      image[0][alpha] = new RGBPixel(200, 100, (alpha * 7) % 256, alpha);
+    }
+    layer.addImage(image, 0, 0);
+    Pixel[][] grid = layer.getGrid();
+    for (int alpha = 1; alpha < 256; alpha++) {
+      Pixel actual = grid[0][alpha];
+      assertEquals(alpha, actual.getAlpha());
+      int tolerance = 128 / alpha + 1;
+      assertTrue(Math.abs(200 - actual.getRed()) <= tolerance);
+      assertTrue(Math.abs(100 - actual.getGreen()) <= tolerance);
+      assertTrue(Math.abs((alpha * 7) % 256 - actual.getBlue()) <= tolerance);
+    }
+    //the lowest alphas are the coarsest
+    assertEquals(new RGBPixel(170, 85, 85, 3), PixelUtil.fromARGB(
+            PixelUtil.unpremultiply(PixelUtil.premultiply(
+                    PixelUtil.toARGB(new RGBPixel(200, 100, 50, 3))))));
+    assertTrue(layer.toProjString().contains(" 170 85 0 3 "));
+  }
+
+  /**
+   * Tests that mergeDownPremultiplied matches mergeDown for
+   * opaque colours and rejects arrays of the wrong size.
+   */
+  @Test
+  public void mergeDownPremultipliedTest() {
+    LayerPremultipliedImpl layer = new LayerPremultipliedImpl(4,5,null,new Difference());
+    layer.addImage(this.image(2,4), 0, 1);
+    Pixel[][] bottom = this.image(4,5);
+    int[] premultiplied = new int[20];
+    for (int i = 0; i < 4; i++) {
+      for (int j = 0; j < 5; j++) {
+        premultiplied[i * 5 + j] = PixelUtil.premultiply(PixelUtil.toARGB(bottom[i][j]));
+      }
+    }
+
+    Pixel[][] expected = layer.mergeDown(bottom);
+    layer.mergeDownPremultiplied(premultiplied, new ScratchPool());
+    for (int i = 0; i < 4; i++) {
+      for (int j = 0; j < 5; j++) {
+        assertEquals(expected[i][j], PixelUtil.fromARGB(premultiplied[i * 5 + j]));
+      }
+    }
+
+    //a memoized difference is still computed in premultiplied form
+    int[] memoized = new int[20];
+    for (int i = 0; i < 4; i++) {
+      for (int j = 0; j < 5; j++) {
+        memoized[i * 5 + j] = PixelUtil.premultiply(PixelUtil.toARGB(bottom[i][j]));
+      }
+    }
+    layer.setFilter(new MemoizedFilter(new Difference()));
+    layer.mergeDownPremultiplied(memoized, new ScratchPool());
+    assertArrayEquals(premultiplied, memoized);
+
+    //other filters go through straight colours a row at a time, in
+    //rows of the pool
+    layer.setFilter(new Multiply());
+    for (int i = 0; i < 4; i++) {
+      for (int j = 0; j < 5; j++) {
+        premultiplied[i * 5 + j] = PixelUtil.premultiply(PixelUtil.toARGB(bottom[i][j]));
+      }
+    }
+    expected = layer.mergeDown(bottom);
+    ScratchPool pool = new ScratchPool();
+    layer.mergeDownPremultiplied(premultiplied, pool);
+    for (int i = 0; i < 4; i++) {
+      for (int j = 0; j < 5; j++) {
+        assertEquals(expected[i][j], PixelUtil.fromARGB(premultiplied[i * 5 + j]));
+      }
+    }
+    assertEquals(2, pool.getAllocationCount());
+    assertEquals(0, pool.getHeldCount());
+
+    try {
+      new LayerPremultipliedImpl(2,2,null,new NormalFilter()).mergeDownPremultiplied(new int[3],
+              new ScratchPool());
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given colours and sizes do not match.", e.getMessage());
+    }
+    try {
+      layer.mergeDownPremultiplied(premultiplied, null);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given colours and sizes do not match.", e.getMessage());
+    }
+  }
+}
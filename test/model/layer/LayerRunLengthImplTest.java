@@ -0,0 +1,160 @@
+package model.layer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import model.filter.option.FilterOption;
+import model.filter.option.NormalFilter;
+import model.filter.option.blend.Difference;
+import model.filter.option.blend.Multiply;
+import model.filter.option.blend.Screen;
+import model.filter.option.brightness.BrightenIntensity;
+import model.filter.option.brightness.BrightenLuma;
+import model.filter.option.brightness.BrightenValue;
+import model.filter.option.brightness.DarkenIntensity;
+import model.filter.option.brightness.DarkenLuma;
+import model.filter.option.brightness.DarkenValue;
+import model.filter.option.colour.components.BlueComponent;
+import model.filter.option.colour.components.GreenComponent;
+import model.filter.option.colour.components.RedComponent;
+import model.pixel.Pixel;
+import model.pixel.RGBPixel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that LayerRunLengthImpl stores flat rows as runs and detailed
+ * rows densely, and otherwise behaves exactly like LayerPixelImpl.
+ */
+public class LayerRunLengthImplTest {
+  private static final List<FilterOption<Pixel>> FILTERS = Arrays.asList(
+          new NormalFilter(), new RedComponent(), new GreenComponent(),
+          new BlueComponent(), new BrightenValue(), new BrightenIntensity(),
+          new BrightenLuma(), new DarkenValue(), new DarkenIntensity(),
+          new DarkenLuma(), new Difference(), new Multiply(), new Screen());
+
+  //builds a translucent test image with a different colour everywhere
+  private Pixel[][] image(int height, int width, int seed) {
+    Pixel[][] grid = new Pixel[height][width];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        grid[i][j] = new RGBPixel((i * 40 + seed) % 256, (j * 70 + seed) % 256,
+                (i * j * 13) % 256, (i + j + seed) % 3 == 0 ? 255 : 90 + seed);
+      }
+    }
+    return grid;
+  }
+
+  //builds a test image of a few flat blocks of translucent colour
+  private Pixel[][] blocks(int height, int width, int seed) {
+    Pixel[][] grid = new Pixel[height][width];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        int block = (i / 7 + j / 13 + seed) % 4;
+        grid[i][j] = new RGBPixel(block * 60, 255 - block * 50, seed * 30 % 256,
+                block == 0 ? 0 : 100 + block * 50);
+      }
+    }
+    return grid;
+  }
+
+  /**
+   * Tests that flat rows are stored as runs, and detailed rows
+   * densely.
+   */
+  @Test
+  public void storageTest() {
+    LayerRunLengthImpl layer = new LayerRunLengthImpl(30,100);
+    //only the row references
+    assertEquals(30, layer.getStoredIntCount());
+    assertEquals(0, layer.getRunLengthRowCount());
+
+    //fully transparent images store nothing
+    Pixel[][] clear = new Pixel[10][10];
+    for (Pixel[] row : clear) {
+      Arrays.fill(row, new RGBPixel(255,255,255,0));
+    }
+    layer.addImage(clear, 5, 5);
+    assertEquals(30, layer.getStoredIntCount());
+
+    //a 10x20 opaque rectangle: three runs on each of its rows
+    Pixel[][] rectangle = new Pixel[10][20];
+    for (Pixel[] row : rectangle) {
+      Arrays.fill(row, new RGBPixel(10,20,30));
+    }
+    layer.addImage(rectangle, 40, 10);
+    assertEquals(10, layer.getRunLengthRowCount());
+    assertEquals(30 + 10 * 3 * 2, layer.getStoredIntCount());
+
+    //a detailed image makes its rows dense
+    layer.addImage(this.image(5, 100, 0), 0, 0);
+    assertEquals(10, layer.getRunLengthRowCount());
+    assertEquals(30 + 10 * 3 * 2 + 5 * 100, layer.getStoredIntCount());
+  }
+
+  /**
+   * Tests that the grid, merges, and project String of a run-length
+   * layer match those of a Pixel layer, for every filter, over both
+   * flat and detailed layers.
+   */
+  @Test
+  public void matchesPixelLayerTest() {
+    int height = 40;
+    int width = 60;
+    Pixel[][][] unders = {this.blocks(height, width, 2), this.image(height, width, 7)};
+    for (FilterOption<Pixel> filter : FILTERS) {
+      Layer<Pixel> expected = new LayerPixelImpl(height, width);
+      LayerRunLengthImpl actual = new LayerRunLengthImpl(height, width);
+      expected.setFilter(filter);
+      actual.setFilter(filter);
+      //flat rows, and a few detailed ones
+      expected.addImage(this.blocks(30, 45, 1), 10, 5);
+      actual.addImage(this.blocks(30, 45, 1), 10, 5);
+      expected.addImage(this.image(3, 50, 3), 5, 20);
+      actual.addImage(this.image(3, 50, 3), 5, 20);
+
+      assertArrayEquals(filter.toString(), expected.getGrid(), actual.getGrid());
+      assertEquals(filter.toString(), expected.toProjString(), actual.toProjString());
+      for (Pixel[][] under : unders) {
+        assertArrayEquals(filter.toString(), expected.mergeDown(under),
+                actual.mergeDown(under));
+
+        //mergeDownRunLength, over run-length and dense rows
+        LayerRunLengthImpl bottom = new LayerRunLengthImpl(height, width, under,
+                new NormalFilter());
+        actual.mergeDownRunLength(bottom);
+        assertArrayEquals(filter.toString(), expected.mergeDown(under), bottom.getGrid());
+      }
+    }
+  }
+
+  /**
+   * Tests that mergeDownRunLength only accepts layers of the same
+   * size.
+   */
+  @Test
+  public void mergeDownRunLengthTest() {
+    LayerRunLengthImpl layer = new LayerRunLengthImpl(3,3);
+    try {
+      layer.mergeDownRunLength(null);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given layer and sizes do not match.", e.getMessage());
+    }
+    try {
+      layer.mergeDownRunLength(new LayerRunLengthImpl(4,3));
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given layer and sizes do not match.", e.getMessage());
+    }
+
+    //an empty layer stores nothing in the layer under it
+    LayerRunLengthImpl bottom = new LayerRunLengthImpl(3,3);
+    layer.mergeDownRunLength(bottom);
+    assertEquals(3, bottom.getStoredIntCount());
+  }
+}
@@ -0,0 +1,132 @@
+package model.layer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import model.filter.option.FilterOption;
+import model.filter.option.NormalFilter;
+import model.filter.option.blend.Difference;
+import model.filter.option.blend.Multiply;
+import model.filter.option.blend.Screen;
+import model.filter.option.brightness.BrightenLuma;
+import model.filter.option.brightness.DarkenValue;
+import model.filter.option.colour.components.RedComponent;
+import model.pixel.Pixel;
+import model.pixel.RGBPixel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that LayerSolidImpl stays a single colour for as long as it
+ * can, and otherwise behaves exactly like LayerPixelImpl.
+ */
+public class LayerSolidImplTest {
+  private static final List<FilterOption<Pixel>> FILTERS = Arrays.asList(
+          new NormalFilter(), new RedComponent(), new BrightenLuma(),
+          new DarkenValue(), new Difference(), new Multiply(), new Screen());
+
+  //builds a translucent test image
+  private Pixel[][] image(int height, int width, int seed) {
+    Pixel[][] grid = new Pixel[height][width];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        grid[i][j] = new RGBPixel((i * 40 + seed) % 256, (j * 70 + seed) % 256,
+                (i * j * 13) % 256, (i + j + seed) % 3 == 0 ? 255 : 90 + seed);
+      }
+    }
+    return grid;
+  }
+
+  //builds an image of one colour
+  private Pixel[][] uniform(int height, int width, Pixel colour) {
+    Pixel[][] grid = new Pixel[height][width];
+    for (Pixel[] row : grid) {
+      Arrays.fill(row, colour);
+    }
+    return grid;
+  }
+
+  /**
+   * Tests which images keep the layer a single colour.
+   */
+  @Test
+  public void staysSolidTest() {
+    Pixel white = new RGBPixel(255,255,255,255);
+    LayerSolidImpl layer = new LayerSolidImpl(4,5, white, new NormalFilter());
+    assertTrue(layer.isSolid());
+    assertEquals(white, layer.getColour());
+
+    //fully transparent images, covering or not, change nothing
+    layer.addImage(this.uniform(2, 2, new RGBPixel(9,9,9,0)), 1, 1);
+    layer.addImage(new Pixel[3][3], -1, -1);
+    assertTrue(layer.isSolid());
+    assertEquals(white, layer.getColour());
+
+    //a translucent colour covering the layer, overhanging it
+    Pixel red = new RGBPixel(255,0,0,128);
+    Layer<Pixel> expected = new LayerPixelImpl(4,5);
+    expected.addImage(this.uniform(4, 5, white), 0, 0);
+    expected.addImage(this.uniform(6, 7, red), -1, -1);
+    layer.addImage(this.uniform(6, 7, red), -1, -1);
+    assertTrue(layer.isSolid());
+    assertArrayEquals(expected.getGrid(), layer.getGrid());
+    assertEquals(expected.toProjString(), layer.toProjString());
+
+    //a uniform image that does not cover the layer
+    assertFalse(layer.addUniformImage(this.uniform(4, 4, red), 0, 0));
+    assertTrue(layer.isSolid());
+    layer.addImage(this.uniform(4, 4, red), 0, 0);
+    expected.addImage(this.uniform(4, 4, red), 0, 0);
+    assertFalse(layer.isSolid());
+    assertArrayEquals(expected.getGrid(), layer.getGrid());
+
+    //once drawn on, even covering images are drawn
+    assertFalse(layer.addUniformImage(this.uniform(4, 5, red), 0, 0));
+    try {
+      layer.getColour();
+      fail("should throw IllegalStateException");
+    } catch (IllegalStateException e) {
+      assertEquals("Layer is no longer a single colour.", e.getMessage());
+    }
+  }
+
+  /**
+   * Tests that the grid, merges, and project String of a solid
+   * layer match those of a Pixel layer, for every filter, both
+   * while it is a single colour and after it is drawn on.
+   */
+  @Test
+  public void matchesPixelLayerTest() {
+    int height = 6;
+    int width = 7;
+    Pixel colour = new RGBPixel(30,200,90,170);
+    Pixel[][] under = this.image(height, width, 7);
+    for (FilterOption<Pixel> filter : FILTERS) {
+      Layer<Pixel> expected = new LayerPixelImpl(height, width);
+      expected.addImage(this.uniform(height, width, colour), 0, 0);
+      LayerSolidImpl actual = new LayerSolidImpl(height, width, colour, filter);
+      expected.setFilter(filter);
+
+      assertArrayEquals(filter.toString(), expected.getGrid(), actual.getGrid());
+      assertEquals(filter.toString(), expected.toProjString(), actual.toProjString());
+      assertArrayEquals(filter.toString(), expected.mergeDown(under), actual.mergeDown(under));
+      assertArrayEquals(filter.toString(), expected.mergeDown(null), actual.mergeDown(null));
+      //a bottom larger than the layer
+      Pixel[][] larger = this.image(height + 2, width + 3, 5);
+      assertArrayEquals(filter.toString(), expected.mergeDown(larger),
+              actual.mergeDown(larger));
+
+      expected.addImage(this.image(3, 4, 3), 2, 1);
+      actual.addImage(this.image(3, 4, 3), 2, 1);
+      assertFalse(actual.isSolid());
+      assertEquals(filter.toString(), expected.toProjString(), actual.toProjString());
+      assertArrayEquals(filter.toString(), expected.mergeDown(under), actual.mergeDown(under));
+    }
+  }
+}
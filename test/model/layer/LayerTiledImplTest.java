@@ -0,0 +1,133 @@
+package model.layer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import model.filter.option.FilterOption;
+import model.filter.option.NormalFilter;
+import model.filter.option.blend.Difference;
+import model.filter.option.blend.Multiply;
+import model.filter.option.blend.Screen;
+import model.filter.option.brightness.BrightenIntensity;
+import model.filter.option.brightness.BrightenLuma;
+import model.filter.option.brightness.BrightenValue;
+import model.filter.option.brightness.DarkenIntensity;
+import model.filter.option.brightness.DarkenLuma;
+import model.filter.option.brightness.DarkenValue;
+import model.filter.option.colour.components.BlueComponent;
+import model.filter.option.colour.components.GreenComponent;
+import model.filter.option.colour.components.RedComponent;
+import model.pixel.Pixel;
+import model.pixel.RGBPixel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that LayerTiledImpl only allocates the tiles it is painted
+ * on, and otherwise behaves exactly like LayerPixelImpl.
+ */
+public class LayerTiledImplTest {
+  private static final List<FilterOption<Pixel>> FILTERS = Arrays.asList(
+          new NormalFilter(), new RedComponent(), new GreenComponent(),
+          new BlueComponent(), new BrightenValue(), new BrightenIntensity(),
+          new BrightenLuma(), new DarkenValue(), new DarkenIntensity(),
+          new DarkenLuma(), new Difference(), new Multiply(), new Screen());
+
+  //builds a translucent test image
+  private Pixel[][] image(int height, int width, int seed) {
+    Pixel[][] grid = new Pixel[height][width];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        grid[i][j] = new RGBPixel((i * 40 + seed) % 256, (j * 70 + seed) % 256,
+                (i * j * 13) % 256, (i + j + seed) % 3 == 0 ? 255 : 90 + seed);
+      }
+    }
+    return grid;
+  }
+
+  /**
+   * Tests that only the tiles under an image are allocated.
+   */
+  @Test
+  public void allocationTest() {
+    LayerTiledImpl layer = new LayerTiledImpl(246,1200);
+    //4 tiles down, 19 across
+    assertEquals(4 * 19, layer.getTileCount());
+    assertEquals(0, layer.getAllocatedTileCount());
+
+    //fully transparent images allocate nothing
+    Pixel[][] clear = new Pixel[100][100];
+    for (Pixel[] row : clear) {
+      Arrays.fill(row, new RGBPixel(255,255,255,0));
+    }
+    layer.addImage(clear, 10, 10);
+    assertEquals(0, layer.getAllocatedTileCount());
+
+    //an 82x100 thumbnail at (300, 100) covers rows 100-181 and
+    //columns 300-399: tiles 1-2 down and 4-6 across
+    layer.addImage(this.image(82, 100, 0), 300, 100);
+    assertEquals(6, layer.getAllocatedTileCount());
+
+    //images outside of the layer allocate nothing either
+    layer.addImage(this.image(82, 100, 0), 1200, 0);
+    assertEquals(6, layer.getAllocatedTileCount());
+  }
+
+  /**
+   * Tests that the grid, merges, and project String of a tiled
+   * layer match those of a Pixel layer, for every filter.
+   */
+  @Test
+  public void matchesPixelLayerTest() {
+    //two by three tiles, with partial tiles at the edges
+    int height = 100;
+    int width = 150;
+    Pixel[][] under = this.image(height, width, 7);
+    for (FilterOption<Pixel> filter : FILTERS) {
+      Layer<Pixel> expected = new LayerPixelImpl(height, width);
+      LayerTiledImpl actual = new LayerTiledImpl(height, width);
+      expected.setFilter(filter);
+      actual.setFilter(filter);
+      expected.addImage(this.image(40, 70, 3), 50, 40);
+      actual.addImage(this.image(40, 70, 3), 50, 40);
+
+      assertArrayEquals(filter.toString(), expected.getGrid(), actual.getGrid());
+      assertEquals(filter.toString(), expected.toProjString(), actual.toProjString());
+      assertArrayEquals(filter.toString(), expected.mergeDown(under), actual.mergeDown(under));
+
+      //mergeDownTiled, which skips the empty tiles
+      LayerTiledImpl bottom = new LayerTiledImpl(height, width, under, new NormalFilter());
+      actual.mergeDownTiled(bottom);
+      assertArrayEquals(filter.toString(), expected.mergeDown(under), bottom.getGrid());
+    }
+  }
+
+  /**
+   * Tests that mergeDownTiled only accepts layers of the same size.
+   */
+  @Test
+  public void mergeDownTiledTest() {
+    LayerTiledImpl layer = new LayerTiledImpl(3,3);
+    try {
+      layer.mergeDownTiled(null);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given layer and sizes do not match.", e.getMessage());
+    }
+    try {
+      layer.mergeDownTiled(new LayerTiledImpl(3,4));
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given layer and sizes do not match.", e.getMessage());
+    }
+
+    //an empty layer allocates nothing in the layer under it
+    LayerTiledImpl bottom = new LayerTiledImpl(3,3);
+    layer.mergeDownTiled(bottom);
+    assertEquals(0, bottom.getAllocatedTileCount());
+  }
+}
@@ -0,0 +1,120 @@
+package model.layer;
+
+import org.junit.Test;
+
+import model.filter.option.blend.Screen;
+import model.pixel.Pixel;
+import model.pixel.RGBPixel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the LayerView class.
+ */
+public class LayerViewTest {
+
+  //builds a translucent test image
+  private Pixel[][] image(int height, int width, int seed) {
+    Pixel[][] grid = new Pixel[height][width];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        grid[i][j] = new RGBPixel((i * 40 + seed) % 256, (j * 70 + seed) % 256,
+                (i * j * 13) % 256, (i + j + seed) % 3 == 0 ? 255 : 90 + seed);
+      }
+    }
+    return grid;
+  }
+
+  /**
+   * Tests that a view reads the colours of its layer, for every
+   * storage mode, and matches the layer.
+   */
+  @Test
+  public void readTest() {
+    for (LayerStorage storage : LayerStorage.values()) {
+      Layer<Pixel> layer = storage.create(4, 6);
+      layer.addImage(this.image(3, 4, 1), 1, 1);
+      layer.setFilter(new Screen());
+      LayerView view = new LayerView(layer);
+      assertTrue(storage.toString(), view.isShared());
+
+      Pixel[][] grid = layer.getGrid();
+      for (int i = 0; i < 4; i++) {
+        for (int j = 0; j < 6; j++) {
+          assertEquals(storage.toString(), grid[i][j], view.getPixel(i, j));
+        }
+      }
+      assertArrayEquals(storage.toString(), grid, view.getGrid());
+      assertEquals(layer.toProjString(), view.toProjString());
+      assertEquals("screen", view.getFilterName());
+      Pixel[][] under = this.image(4, 6, 5);
+      assertArrayEquals(storage.toString(), layer.mergeDown(under), view.mergeDown(under));
+      assertTrue(storage.toString(), view.isShared());
+    }
+  }
+
+  /**
+   * Tests that a detached view keeps its colours and filter when its
+   * layer changes.
+   */
+  @Test
+  public void detachTest() {
+    Layer<Pixel> layer = new LayerPackedImpl(4, 6);
+    layer.addImage(this.image(3, 4, 1), 1, 1);
+    String before = layer.toProjString();
+    Pixel[][] grid = layer.getGrid();
+
+    LayerView view = new LayerView(layer);
+    view.detach();
+    assertFalse(view.isShared());
+    layer.addImage(this.image(4, 6, 2), 0, 0);
+    layer.setFilter(new Screen());
+
+    assertArrayEquals(grid, view.getGrid());
+    assertEquals(before, view.toProjString());
+    assertEquals("normal", view.getFilterName());
+
+    //a mutable copy is a separate layer
+    Layer<Pixel> copy = view.mutableCopy();
+    assertNotSame(view, copy);
+    copy.addImage(this.image(4, 6, 3), 0, 0);
+    assertArrayEquals(grid, view.getGrid());
+  }
+
+  /**
+   * Tests that views cannot be changed or read out of bounds.
+   */
+  @Test
+  public void errorTest() {
+    LayerView view = new LayerView(new LayerPixelImpl(2, 3));
+    try {
+      view.addImage(this.image(1, 1, 0), 0, 0);
+      fail("should throw UnsupportedOperationException");
+    } catch (UnsupportedOperationException e) {
+      assertEquals("Layer views cannot be changed.", e.getMessage());
+    }
+    try {
+      view.setFilter(new Screen());
+      fail("should throw UnsupportedOperationException");
+    } catch (UnsupportedOperationException e) {
+      assertEquals("Layer views cannot be changed.", e.getMessage());
+    }
+    try {
+      view.getARGB(2, 0);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Coordinate is outside of the layer.", e.getMessage());
+    }
+    try {
+      new LayerView(null);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given layer cannot be null.", e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,233 @@
+package model.layer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import model.filter.option.NormalFilter;
+import model.filter.option.blend.Difference;
+import model.filter.option.brightness.DarkenLuma;
+import model.pixel.Pixel;
+import model.pixel.RGBPixel;
+import model.utils.PixelUtil;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that ScratchPool hands buffers out and takes them back
+ * explicitly, and that mergeDownPacked matches mergeDown.
+ */
+public class ScratchPoolTest {
+
+  //builds a small translucent test image
+  private Pixel[][] image(int height, int width, int seed) {
+    Pixel[][] grid = new Pixel[height][width];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        grid[i][j] = new RGBPixel((i * 40 + seed) % 256, (j * 70 + seed) % 256,
+                (i * j * 13) % 256, (i + j + seed) % 3 == 0 ? 255 : 90 + seed);
+      }
+    }
+    return grid;
+  }
+
+  /**
+   * Tests that released buffers are reused by length, and that only
+   * held buffers can be released.
+   */
+  @Test
+  public void acquireReleaseTest() {
+    ScratchPool pool = new ScratchPool();
+    int[] first = pool.acquire(10);
+    int[] second = pool.acquire(10);
+    int[] other = pool.acquire(4);
+    assertNotSame(first, second);
+    assertEquals(10, first.length);
+    assertEquals(4, other.length);
+    assertEquals(3, pool.getHeldCount());
+    assertEquals(3, pool.getAllocationCount());
+
+    pool.release(first);
+    assertEquals(2, pool.getHeldCount());
+    assertEquals(1, pool.getFreeCount());
+    //only a buffer of the same length is reused
+    assertEquals(5, pool.acquire(5).length);
+    assertSame(first, pool.acquire(10));
+    assertEquals(4, pool.getAllocationCount());
+
+    pool.release(other);
+    try {
+      pool.release(other);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given buffer is not held from this pool.", e.getMessage());
+    }
+    try {
+      pool.release(new int[10]);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given buffer is not held from this pool.", e.getMessage());
+    }
+    try {
+      pool.acquire(-1);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given length cannot be negative.", e.getMessage());
+    }
+
+    //clearing drops the free buffers but not the held ones
+    pool.clear();
+    assertEquals(0, pool.getFreeCount());
+    assertEquals(3, pool.getHeldCount());
+    pool.release(second);
+  }
+
+  /**
+   * Tests that float buffers are pooled apart from colour buffers of
+   * the same length.
+   */
+  @Test
+  public void acquireFloatsTest() {
+    ScratchPool pool = new ScratchPool();
+    float[] floats = pool.acquireFloats(10);
+    int[] colours = pool.acquire(10);
+    assertEquals(10, floats.length);
+    assertEquals(2, pool.getHeldCount());
+    assertEquals(2, pool.getAllocationCount());
+
+    pool.release(floats);
+    pool.release(colours);
+    assertEquals(2, pool.getFreeCount());
+    assertSame(floats, pool.acquireFloats(10));
+    assertSame(colours, pool.acquire(10));
+    assertEquals(2, pool.getAllocationCount());
+
+    pool.release(floats);
+    try {
+      pool.release(floats);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given buffer is not held from this pool.", e.getMessage());
+    }
+    try {
+      pool.acquireFloats(-1);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given length cannot be negative.", e.getMessage());
+    }
+  }
+
+  /**
+   * Tests that merging a layer over packed colours in place gives
+   * the same colours as mergeDown, for every kind of layer with its
+   * own mergeDownPacked.
+   */
+  @Test
+  public void mergeDownPackedTest() {
+    int height = 7;
+    int width = 9;
+    Pixel[][] under = this.image(height, width, 5);
+    LayerSolidImpl solid = new LayerSolidImpl(height, width,
+            new RGBPixel(20, 200, 90, 140), new DarkenLuma());
+    LayerSolidImpl painted = new LayerSolidImpl(height, width,
+            new RGBPixel(20, 200, 90, 140), new Difference());
+    painted.addImage(this.image(3, 4, 1), 2, 2);
+    LayerPackedImpl packed = new LayerPackedImpl(height, width);
+    packed.setFilter(new Difference());
+    packed.addImage(this.image(5, 5, 2), 3, 1);
+    LayerTiledImpl tiled = new LayerTiledImpl(height, width);
+    tiled.addImage(this.image(5, 5, 3), -1, 2);
+    LayerPixelImpl pixels = new LayerPixelImpl(height, width);
+    pixels.setFilter(new DarkenLuma());
+    pixels.addImage(this.image(4, 6, 4), 1, 1);
+
+    ScratchPool pool = new ScratchPool();
+    List<Layer<Pixel>> layers = Arrays.asList(solid, painted, packed, tiled, pixels);
+    for (Layer<Pixel> layer : layers) {
+      int[] bottom = new int[height * width];
+      for (int i = 0; i < height; i++) {
+        for (int j = 0; j < width; j++) {
+          bottom[i * width + j] = PixelUtil.toARGB(under[i][j]);
+        }
+      }
+      if (layer instanceof LayerPixelImpl) {
+        ((LayerPixelImpl) layer).mergeDownPacked(bottom, pool);
+      } else {
+        ((AbstractReadOnlyPackedLayer) layer).mergeDownPacked(bottom, pool);
+      }
+
+      Pixel[][] expected = layer.mergeDown(under);
+      Pixel[][] actual = new Pixel[height][width];
+      for (int i = 0; i < height; i++) {
+        for (int j = 0; j < width; j++) {
+          actual[i][j] = PixelUtil.fromARGB(bottom[i * width + j]);
+        }
+      }
+      assertArrayEquals(layer.getClass().getSimpleName(), expected, actual);
+      assertEquals(0, pool.getHeldCount());
+
+      //the packed colours of a layer can be read out without a grid
+      if (layer instanceof AbstractReadOnlyPackedLayer) {
+        int[] colours = new int[height * width];
+        ((AbstractReadOnlyPackedLayer) layer).copyPacked(colours);
+        Pixel[][] grid = layer.getGrid();
+        for (int i = 0; i < height; i++) {
+          for (int j = 0; j < width; j++) {
+            assertEquals(PixelUtil.toARGB(grid[i][j]), colours[i * width + j]);
+          }
+        }
+      }
+    }
+
+    //only the given rectangle is merged
+    for (Layer<Pixel> layer : layers) {
+      int[] bottom = new int[height * width];
+      int[] full = new int[height * width];
+      for (int i = 0; i < height; i++) {
+        for (int j = 0; j < width; j++) {
+          bottom[i * width + j] = PixelUtil.toARGB(under[i][j]);
+        }
+      }
+      System.arraycopy(bottom, 0, full, 0, full.length);
+      if (layer instanceof LayerPixelImpl) {
+        ((LayerPixelImpl) layer).mergeDownPacked(bottom, pool, 2, 1, 4, 3);
+        ((LayerPixelImpl) layer).mergeDownPacked(full, pool);
+      } else {
+        ((AbstractReadOnlyPackedLayer) layer).mergeDownPacked(bottom, pool, 2, 1, 4, 3);
+        ((AbstractReadOnlyPackedLayer) layer).mergeDownPacked(full, pool);
+      }
+      for (int i = 0; i < height; i++) {
+        for (int j = 0; j < width; j++) {
+          boolean inside = i >= 1 && i < 4 && j >= 2 && j < 6;
+          assertEquals(layer.getClass().getSimpleName(),
+                  inside ? full[i * width + j] : PixelUtil.toARGB(under[i][j]),
+                  bottom[i * width + j]);
+        }
+      }
+    }
+
+    try {
+      packed.mergeDownPacked(new int[height * width], pool, 6, 0, 4, 1);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given rectangle is outside of the layer.", e.getMessage());
+    }
+    try {
+      packed.mergeDownPacked(new int[height * width + 1], pool);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given colours and sizes do not match.", e.getMessage());
+    }
+    try {
+      new LayerPackedImpl(1, 1, null, new NormalFilter()).mergeDownPacked(new int[1], null);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given colours and sizes do not match.", e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,967 @@
+package model.model;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+import model.layer.LayerSolidImpl;
+import model.layer.LayerStorage;
+import model.layer.LayerView;
+import model.pixel.Pixel;
+import model.pixel.RGBPixel;
+import model.utils.PixelUtil;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that every LayerStorage mode of a CollageModel produces
+ * the same images and project files.
+ */
+public class CollageModelStorageTest {
+
+  //builds a small translucent test image
+  private Pixel[][] image(int height, int width, int seed) {
+    Pixel[][] grid = new Pixel[height][width];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        grid[i][j] = new RGBPixel((i * 40 + seed) % 256, (j * 70 + seed) % 256,
+                (i * j * 13) % 256, (i + j + seed) % 3 == 0 ? 255 : 100 + seed);
+      }
+    }
+    return grid;
+  }
+
+  //builds an image of low alphas, from 0 up, with (200, 100, 50, 3)
+  //at (0, 3)
+  private Pixel[][] faint(int height, int width) {
+    Pixel[][] grid = new Pixel[height][width];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        grid[i][j] = new RGBPixel(200, 100, (i * 31 + 50) % 256, i * width + j);
+      }
+    }
+    return grid;
+  }
+
+  //builds a project with every filter applied to its own layer
+  private CollageModelImpl3 build(LayerStorage storage) {
+    CollageModelImpl3 model = new CollageModelImpl3();
+    model.setLayerStorage(storage);
+    model.newProject(9,11);
+    String[] filters = {"red-component", "brighten-luma", "darken-value",
+        "difference", "multiply", "screen"};
+    for (int i = 0; i < filters.length; i++) {
+      model.addLayer("layer" + i);
+      model.setFilter("layer" + i, filters[i]);
+      model.addImageToLayer("layer" + i, this.image(5, 6, i * 20), i - 2, i);
+    }
+    return model;
+  }
+
+  //asserts that both Strings have the same words, except that
+  //numbers may be off by at most the given tolerance
+  private void assertClose(String message, String expected, String actual, int tolerance) {
+    String[] expectedWords = expected.split("\\s+");
+    String[] actualWords = actual.split("\\s+");
+    assertEquals(message, expectedWords.length, actualWords.length);
+    for (int i = 0; i < expectedWords.length; i++) {
+      if (expectedWords[i].matches("\\d+") && actualWords[i].matches("\\d+")) {
+        int difference = Math.abs(Integer.parseInt(expectedWords[i])
+                - Integer.parseInt(actualWords[i]));
+        assertTrue(message + " word " + i + ": " + expectedWords[i] + " vs "
+                + actualWords[i], difference <= tolerance);
+      } else {
+        assertEquals(message, expectedWords[i], actualWords[i]);
+      }
+    }
+  }
+
+  /**
+   * Tests that every exact storage mode matches the default PIXEL mode.
+   */
+  @Test
+  public void storageModesMatchTest() {
+    CollageModelImpl3 expected = this.build(LayerStorage.PIXEL);
+    for (LayerStorage storage : LayerStorage.values()) {
+      if (storage == LayerStorage.PREMULTIPLIED || storage == LayerStorage.PLANAR) {
+        //these round colours; see premultipliedTest and planarTest
+        continue;
+      }
+      CollageModelImpl3 actual = this.build(storage);
+      assertEquals(storage.toString(), expected.saveImage(), actual.saveImage());
+      assertEquals(storage.toString(), expected.saveProject(), actual.saveProject());
+
+      //reloading the project keeps the same image
+      String project = actual.saveProject();
+      actual.quit();
+      actual.loadProject(project);
+      assertEquals(storage.toString(), expected.saveImage(), actual.saveImage());
+    }
+  }
+
+  /**
+   * Tests that the PREMULTIPLIED mode stays within a couple of
+   * values of the PIXEL mode, for both the transparent T1 image
+   * and the P3 image of an older model.
+   */
+  @Test
+  public void premultipliedTest() {
+    CollageModelImpl3 expected = this.build(LayerStorage.PIXEL);
+    CollageModelImpl3 actual = this.build(LayerStorage.PREMULTIPLIED);
+    this.assertClose("image", expected.saveImage(), actual.saveImage(), 2);
+    this.assertClose("project", expected.saveProject(), actual.saveProject(), 2);
+
+    //low alphas read back as coarse as 128 / alpha + 1 values
+    for (CollageModelImpl3 model : new CollageModelImpl3[] {expected, actual}) {
+      model.addLayer("faint");
+      model.addImageToLayer("faint", this.faint(9, 11), 0, 0);
+    }
+    Pixel[][] expectedGrid = expected.getLayer("faint").getGrid();
+    Pixel[][] actualGrid = actual.getLayer("faint").getGrid();
+    for (int i = 0; i < 9; i++) {
+      for (int j = 0; j < 11; j++) {
+        Pixel straight = expectedGrid[i][j];
+        Pixel rounded = actualGrid[i][j];
+        int tolerance = 128 / Math.max(1, straight.getAlpha()) + 1;
+        assertEquals(straight.getAlpha(), rounded.getAlpha());
+        assertTrue(Math.abs(straight.getRed() - rounded.getRed()) <= tolerance);
+        assertTrue(Math.abs(straight.getGreen() - rounded.getGreen()) <= tolerance);
+        assertTrue(Math.abs(straight.getBlue() - rounded.getBlue()) <= tolerance);
+      }
+    }
+    assertEquals(new RGBPixel(170, 85, 85, 3), actualGrid[0][3]);
+
+    //opaque colours are kept exactly
+    CollageModelImpl3[] opaque = {new CollageModelImpl3(), new CollageModelImpl3()};
+    opaque[1].setLayerStorage(LayerStorage.PREMULTIPLIED);
+    for (CollageModelImpl3 model : opaque) {
+      model.newProject(3,3);
+      model.addLayer("top");
+      model.setFilter("top", "difference");
+      model.addImageToLayer("top", new Pixel[][] {
+          {new RGBPixel(10,200,30), new RGBPixel(0,0,0)},
+          {new RGBPixel(255,128,1), new RGBPixel(77,66,55)}}, 1, 1);
+    }
+    assertEquals(opaque[0].saveImage(), opaque[1].saveImage());
+    assertEquals(opaque[0].saveProject(), opaque[1].saveProject());
+
+    //the P3 image is written straight from premultiplied colours
+    CollageModelImpl oldExpected = new CollageModelImpl();
+    CollageModelImpl oldActual = new CollageModelImpl();
+    oldActual.setLayerStorage(LayerStorage.PREMULTIPLIED);
+    for (CollageModelImpl model : new CollageModelImpl[] {oldExpected, oldActual}) {
+      model.newProject(4,5);
+      model.addLayer("top");
+      model.setFilter("top", "red-component");
+      model.addImageToLayer("top", this.image(4, 5, 7), 0, 0);
+      model.addLayer("over");
+      model.addImageToLayer("over", this.image(3, 3, 30), 1, 1);
+    }
+    assertTrue(oldActual.saveImage().startsWith("P3\n5 4\n255\n"));
+    this.assertClose("P3", oldExpected.saveImage(), oldActual.saveImage(), 2);
+  }
+
+  /**
+   * Tests that the PLANAR mode stays within a couple of values of
+   * the PIXEL mode for every filter, including those that have no
+   * planar form.
+   */
+  @Test
+  public void planarTest() {
+    CollageModelImpl3 expected = this.build(LayerStorage.PIXEL);
+    CollageModelImpl3 actual = this.build(LayerStorage.PLANAR);
+    this.assertClose("image", expected.saveImage(), actual.saveImage(), 2);
+    this.assertClose("project", expected.saveProject(), actual.saveProject(), 2);
+
+    String[] filters = {"normal", "red-component", "green-component", "blue-component",
+        "brighten-value", "brighten-intensity", "brighten-luma", "darken-value",
+        "darken-intensity", "darken-luma", "difference", "multiply", "screen"};
+    for (String filter : filters) {
+      CollageModelImpl3[] models = {new CollageModelImpl3(), new CollageModelImpl3()};
+      models[1].setLayerStorage(LayerStorage.PLANAR);
+      for (CollageModelImpl3 model : models) {
+        model.newProject(6,7);
+        model.addLayer("under");
+        model.addImageToLayer("under", this.image(6, 7, 50), 0, 0);
+        model.addLayer("top");
+        model.setFilter("top", filter);
+        model.addImageToLayer("top", this.image(5, 6, 3), 1, 0);
+      }
+      this.assertClose(filter, models[0].saveImage(), models[1].saveImage(), 2);
+    }
+  }
+
+  /**
+   * Tests that the binary project format reloads the same project
+   * in every storage mode, and from one mode into another.
+   */
+  @Test
+  public void binaryProjectTest() {
+    byte[] expected = this.build(LayerStorage.PIXEL).saveProjectBinary();
+    //C1B, width, height, layer count, then the first layer
+    assertEquals('C', expected[0]);
+    assertEquals('B', expected[2]);
+    assertEquals(11, expected[6]);
+    assertEquals(9, expected[10]);
+    assertEquals(7, expected[14]);
+
+    for (LayerStorage storage : new LayerStorage[] {LayerStorage.PIXEL,
+        LayerStorage.PACKED, LayerStorage.RASTER}) {
+      CollageModelImpl3 original = this.build(storage);
+      assertArrayEquals(storage.toString(), expected, original.saveProjectBinary());
+
+      CollageModelImpl3 loaded = new CollageModelImpl3();
+      loaded.setLayerStorage(storage);
+      loaded.loadProjectBinary(expected);
+      //loading composites each layer once more over the white
+      //background, exactly like loading the text project
+      CollageModelImpl3 text = new CollageModelImpl3();
+      text.loadProject(original.saveProject());
+      assertEquals(storage.toString(), text.saveProject(), loaded.saveProject());
+      assertEquals(storage.toString(), text.saveImage(), loaded.saveImage());
+    }
+
+    CollageModelImpl3 model = new CollageModelImpl3();
+    try {
+      model.loadProjectBinary(new byte[] {'C', '1', 'X'});
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Invalid Project file: binary project file should start with C1B",
+              e.getMessage());
+    }
+    byte[] truncated = Arrays.copyOf(expected, expected.length - 1);
+    try {
+      model.loadProjectBinary(truncated);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Project file read fail: incorrect layer format.", e.getMessage());
+    }
+    //a failed load leaves no project open
+    model.newProject(1,1);
+    model.quit();
+
+    //a header claiming more layers than the file holds is rejected
+    //before anything the size of the canvas is allocated
+    byte[] oversized = Arrays.copyOf(expected, expected.length);
+    oversized[4] = 0x7F;
+    oversized[8] = 0x7F;
+    try {
+      model.loadProjectBinary(oversized);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Project file read fail: file too short for its layers.", e.getMessage());
+    }
+    //and so is a negative number of layers
+    oversized = Arrays.copyOf(expected, expected.length);
+    oversized[11] = -1;
+    try {
+      model.loadProjectBinary(oversized);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Project file read fail: file too short for its layers.", e.getMessage());
+    }
+    model.newProject(1,1);
+  }
+
+  /**
+   * Tests that the storage mode can only be set between projects.
+   */
+  @Test
+  public void setLayerStorageTest() {
+    CollageModelImpl3 model = new CollageModelImpl3();
+    assertEquals(LayerStorage.PIXEL, model.getLayerStorage());
+
+    try {
+      model.setLayerStorage(null);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("setLayerStorage failed: storage cannot be null.", e.getMessage());
+    }
+
+    model.setLayerStorage(LayerStorage.PACKED);
+    model.newProject(2,2);
+    try {
+      model.setLayerStorage(LayerStorage.PIXEL);
+      fail("should throw IllegalStateException");
+    } catch (IllegalStateException e) {
+      assertEquals("setLayerStorage failed: project already open.", e.getMessage());
+    }
+
+    //the storage mode survives quitting the project
+    model.quit();
+    assertEquals(LayerStorage.PACKED, model.getLayerStorage());
+  }
+
+  /**
+   * Tests that memoizing the blend filters never changes the image
+   * or project of any storage mode, and that it can be switched on
+   * and off while a project is open.
+   */
+  @Test
+  public void filterMemoizationTest() {
+    for (LayerStorage storage : LayerStorage.values()) {
+      CollageModelImpl3 expected = this.build(storage);
+      CollageModelImpl3 actual = this.build(storage);
+      assertFalse(actual.isFilterMemoization());
+      actual.setFilterMemoization(true);
+      assertTrue(actual.isFilterMemoization());
+
+      //twice, so that the second image is made from remembered colours
+      assertEquals(storage.toString(), expected.saveImage(), actual.saveImage());
+      long misses = actual.getFilterCacheMisses();
+      assertEquals(storage.toString(), expected.saveImage(), actual.saveImage());
+      assertEquals(storage.toString(), expected.saveProject(), actual.saveProject());
+      assertEquals(storage.toString(), misses, actual.getFilterCacheMisses());
+      assertTrue(storage.toString(), actual.getFilterCacheHits() > 0);
+      assertEquals("difference", actual.getFilter("layer3"));
+
+      actual.setFilterMemoization(false);
+      assertEquals(0, actual.getFilterCacheHits());
+      assertEquals(storage.toString(), expected.saveImage(), actual.saveImage());
+      assertEquals(0, actual.getFilterCacheMisses());
+    }
+  }
+
+  /**
+   * Tests that an image added to many placed layers is only held
+   * once, and that quit frees the held images.
+   */
+  @Test
+  public void sharedImagesTest() {
+    CollageModelImpl3 model = new CollageModelImpl3();
+    model.setLayerStorage(LayerStorage.PLACED);
+    model.newProject(20,30);
+    //the white background is a solid layer, which holds no image
+    assertEquals(0, model.getStoredImageCount());
+
+    //the same image, read again for every layer, as a script would
+    for (int i = 0; i < 12; i++) {
+      model.addLayer("layer" + i);
+      model.addImageToLayer("layer" + i, this.image(8, 10, 3), i, i);
+      model.addImageToLayer("layer" + i, this.image(8, 10, 3), 2 * i, i);
+    }
+    assertEquals(1, model.getStoredImageCount());
+    assertEquals(8 * 10 * 4, model.getStoredImageBytes());
+
+    //a different image is held separately
+    model.addImageToLayer("layer0", this.image(8, 10, 4), 0, 0);
+    assertEquals(2, model.getStoredImageCount());
+
+    //sharing does not change the image
+    CollageModelImpl3 expected = new CollageModelImpl3();
+    expected.newProject(20,30);
+    for (int i = 0; i < 12; i++) {
+      expected.addLayer("layer" + i);
+      expected.addImageToLayer("layer" + i, this.image(8, 10, 3), i, i);
+      expected.addImageToLayer("layer" + i, this.image(8, 10, 3), 2 * i, i);
+    }
+    expected.addImageToLayer("layer0", this.image(8, 10, 4), 0, 0);
+    assertEquals(expected.saveImage(), model.saveImage());
+
+    model.quit();
+    assertEquals(0, model.getStoredImageCount());
+    assertEquals(0, model.getStoredImageBytes());
+
+    //a loaded binary project shares identical layers too
+    model.loadProjectBinary(expected.saveProjectBinary());
+    assertEquals(expected.saveImage(), model.saveImage());
+    model.quit();
+    assertEquals(0, model.getStoredImageCount());
+  }
+
+  /**
+   * Tests that the background of a new project is one stored colour
+   * until it is drawn on, and that uniform layers of a loaded project
+   * are stored the same way, in every storage mode.
+   */
+  @Test
+  public void solidLayersTest() {
+    for (LayerStorage storage : LayerStorage.values()) {
+      CollageModelImpl3 model = new CollageModelImpl3();
+      model.setLayerStorage(storage);
+      model.newProject(9,11);
+      assertTrue(model.layers.get("background") instanceof LayerSolidImpl);
+
+      //a project of a blank background, an empty layer, and a
+      //layer of one translucent colour, with a filter
+      model.addLayer("empty");
+      model.addLayer("tint");
+      model.setFilter("tint", "multiply");
+      Pixel[][] tint = new Pixel[9][11];
+      for (Pixel[] row : tint) {
+        Arrays.fill(row, new RGBPixel(200,40,90,120));
+      }
+      model.addImageToLayer("tint", tint, 0, 0);
+      String project = model.saveProject();
+      String image = model.saveImage();
+      model.quit();
+
+      model.loadProject(project);
+      for (String layerName : new String[] {"background", "empty", "tint"}) {
+        assertTrue(storage + " " + layerName,
+                model.layers.get(layerName) instanceof LayerSolidImpl);
+      }
+      assertEquals(storage.toString(), project, model.saveProject());
+      if (storage != LayerStorage.PREMULTIPLIED && storage != LayerStorage.PLANAR) {
+        assertEquals(storage.toString(), image, model.saveImage());
+      }
+      //rendering merges solid layers as they are, without expanding them
+      for (String layerName : new String[] {"background", "empty", "tint"}) {
+        assertTrue(storage + " " + layerName,
+                model.layers.get(layerName) instanceof LayerSolidImpl);
+      }
+
+      //drawing on a solid layer replaces it with one of the storage
+      model.addImageToLayer("background", this.image(3, 4, 1), 2, 2);
+      assertEquals(storage.create(1, 1).getClass(), model.layers.get("background").getClass());
+    }
+  }
+
+  /**
+   * Tests the compression ratio reported for run-length layers.
+   */
+  @Test
+  public void runLengthCompressionRatioTest() {
+    CollageModelImpl3 model = new CollageModelImpl3();
+    model.setLayerStorage(LayerStorage.RUN_LENGTH);
+    model.newProject(40,100);
+    //the background is a solid layer, not a run-length one
+    assertEquals(1, model.getRunLengthCompressionRatio(), 0);
+
+    //an empty layer only holds its 40 rows
+    model.addLayer("rectangle");
+    assertEquals(100, model.getRunLengthCompressionRatio(), 0);
+
+    //a 10x20 rectangle adds three runs to ten rows
+    Pixel[][] rectangle = new Pixel[10][20];
+    for (Pixel[] row : rectangle) {
+      Arrays.fill(row, new RGBPixel(10,20,30));
+    }
+    model.addImageToLayer("rectangle", rectangle, 30, 5);
+    assertEquals(4000.0 / (40 + 10 * 3 * 2), model.getRunLengthCompressionRatio(), 1e-9);
+    model.quit();
+    assertEquals(1, model.getRunLengthCompressionRatio(), 0);
+  }
+
+  /**
+   * Tests that getLayer gives out a read-only view that shares the
+   * colours of the layer until the layer is changed, and keeps its
+   * colours afterwards, in every storage mode.
+   */
+  @Test
+  public void layerViewTest() {
+    for (LayerStorage storage : LayerStorage.values()) {
+      CollageModelImpl3 model = this.build(storage);
+      LayerView view = (LayerView) model.getLayer("layer2");
+      assertTrue(storage.toString(), view.isShared());
+      //the same view until the layer changes
+      assertSame(view, model.getLayer("layer2"));
+      //reading other layers or the image does not copy it
+      model.getLayer("background");
+      model.saveImage();
+      assertTrue(storage.toString(), view.isShared());
+
+      Pixel[][] grid = view.getGrid();
+      String filter = view.getFilterName();
+      model.addImageToLayer("layer2", this.image(9, 11, 9), 0, 0);
+      assertFalse(storage.toString(), view.isShared());
+      assertArrayEquals(storage.toString(), grid, view.getGrid());
+
+      LayerView changed = (LayerView) model.getLayer("layer2");
+      assertNotSame(view, changed);
+      model.setFilter("layer2", "screen");
+      assertEquals(filter, changed.getFilterName());
+      assertEquals("screen", model.getLayer("layer2").getFilterName());
+
+      //the model does not keep views alive, so a view nobody holds
+      //is collected rather than copied when its layer changes
+      model.getLayer("layer1");
+      WeakReference<LayerView> dropped = model.views.get("layer1");
+      for (int i = 0; i < 10 && dropped.get() != null; i++) {
+        System.gc();
+      }
+      assertNull(storage.toString(), dropped.get());
+      model.addImageToLayer("layer1", this.image(9, 11, 4), 0, 0);
+      assertFalse(model.views.containsKey("layer1"));
+    }
+  }
+
+  /**
+   * Tests that idle layers are deflated after the given number of
+   * operations or over the given budget, inflated when drawn on, and
+   * never change the image or project.
+   */
+  @Test
+  public void idleCompressionTest() {
+    for (LayerStorage storage : new LayerStorage[] {LayerStorage.PIXEL,
+        LayerStorage.PACKED, LayerStorage.TILED, LayerStorage.RUN_LENGTH}) {
+      CollageModelImpl3 expected = this.build(storage);
+      CollageModelImpl3 model = new CollageModelImpl3();
+      model.setLayerStorage(storage);
+      model.setIdleCompression(3, 0);
+      model.loadProject(expected.saveProject());
+      expected = new CollageModelImpl3();
+      expected.setLayerStorage(storage);
+      expected.loadProject(model.saveProject());
+
+      //every layer but the last few touched is deflated
+      long raw = 9 * 11 * 4;
+      assertEquals(raw, model.getLayerRawBytes("layer1"));
+      assertTrue(storage.toString(), model.getLayerCompressedBytes("layer1") < raw);
+      assertEquals(raw, model.getLayerCompressedBytes("layer5"));
+      assertEquals(storage.toString(), expected.saveImage(), model.saveImage());
+      //the second image is made from the cached bottom layers
+      assertEquals(storage.toString(), expected.saveImage(), model.saveImage());
+      assertEquals(storage.toString(), expected.saveProject(), model.saveProject());
+
+      //drawing on a deflated layer inflates it
+      model.addImageToLayer("layer1", this.image(4, 4, 8), 1, 1);
+      expected.addImageToLayer("layer1", this.image(4, 4, 8), 1, 1);
+      assertEquals(raw, model.getLayerCompressedBytes("layer1"));
+      model.setFilter("layer2", "screen");
+      expected.setFilter("layer2", "screen");
+      assertEquals(storage.toString(), expected.saveImage(), model.saveImage());
+
+      //a budget of two layers deflates all others
+      model.setIdleCompression(0, 2 * raw);
+      int held = 0;
+      for (String layerName : model.getOrder()) {
+        if (model.getLayerCompressedBytes(layerName) == raw) {
+          held++;
+        }
+      }
+      assertTrue(storage.toString(), held <= 2);
+      assertEquals(storage.toString(), expected.saveImage(), model.saveImage());
+    }
+
+    //a layer with a view in use is not deflated, as the view keeps
+    //its raw colours on the heap either way
+    CollageModelImpl3 expected = this.build(LayerStorage.PACKED);
+    CollageModelImpl3 viewed = this.build(LayerStorage.PACKED);
+    LayerView view = (LayerView) viewed.getLayer("layer1");
+    viewed.setIdleCompression(0, 1);
+    long raw = 9 * 11 * 4;
+    assertEquals(raw, viewed.getLayerCompressedBytes("layer1"));
+    assertTrue(viewed.getLayerCompressedBytes("layer2") < raw);
+    assertTrue(view.isShared());
+    //the deflated layers above it are merged without being restored
+    assertEquals(expected.saveImage(), viewed.saveImage());
+    view = null;
+    for (int i = 0; i < 10 && viewed.views.get("layer1").get() != null; i++) {
+      System.gc();
+    }
+    viewed.setIdleCompression(0, 1);
+    assertTrue(viewed.getLayerCompressedBytes("layer1") < raw);
+    assertEquals(expected.saveImage(), viewed.saveImage());
+
+    CollageModelImpl3 model = new CollageModelImpl3();
+    try {
+      model.setIdleCompression(-1, 0);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("setIdleCompression failed: limits cannot be negative.", e.getMessage());
+    }
+  }
+
+  /**
+   * Tests that compositing matches merging every layer down in turn,
+   * and that once its scratch buffers exist, compositing allocates
+   * nothing at all.
+   */
+  @Test
+  public void scratchBufferTest() {
+    String[] filters = {"normal", "red-component", "brighten-luma", "darken-value",
+        "difference", "multiply", "screen"};
+    for (LayerStorage storage : new LayerStorage[] {LayerStorage.PIXEL, LayerStorage.PACKED}) {
+      CollageModelImpl3 model = new CollageModelImpl3();
+      model.setLayerStorage(storage);
+      model.newProject(120, 150);
+      //fourteen layers, including the background
+      for (int i = 0; i < 13; i++) {
+        model.addLayer("layer" + i);
+        model.setFilter("layer" + i, filters[i % filters.length]);
+        model.addImageToLayer("layer" + i, this.image(60, 70, i * 10), i * 6, i * 4);
+      }
+
+      Pixel[][] expected = null;
+      for (String layerName : model.getOrder()) {
+        expected = model.layers.get(layerName).mergeDown(expected);
+      }
+      assertArrayEquals(storage.toString(), expected, model.compressLayers());
+      //only the cached composite is held
+      assertEquals(1, model.scratch.getHeldCount());
+
+      //first with every layer merged every time, then from the kept
+      //composites, which are made once and then reused
+      for (int spacing : new int[] {0, 4}) {
+        String message = storage + " spacing " + spacing;
+        model.setCheckpointSpacing(spacing);
+        //warms up the pool, the kept composites, and the code
+        for (int i = 0; i < 5; i++) {
+          model.scratch.release(model.compressLayersPacked());
+        }
+        int[] composite = model.compressLayersPacked();
+        for (int i = 0; i < 120; i++) {
+          for (int j = 0; j < 150; j++) {
+            assertEquals(message, PixelUtil.toARGB(expected[i][j]), composite[i * 150 + j]);
+          }
+        }
+        model.scratch.release(composite);
+
+        long buffers = model.scratch.getAllocationCount();
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+          com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threads;
+          long thread = Thread.currentThread().getId();
+          long before = bean.getThreadAllocatedBytes(thread);
+          for (int i = 0; i < 10; i++) {
+            model.scratch.release(model.compressLayersPacked());
+          }
+          long allocated = bean.getThreadAllocatedBytes(thread) - before;
+          //a single row of the canvas would take 600 bytes
+          assertTrue(message + ": allocated " + allocated, allocated < 600);
+        }
+        assertEquals(message, buffers, model.scratch.getAllocationCount());
+        assertEquals(message, 1, model.scratch.getHeldCount());
+        //the kept composites were actually used
+        assertEquals(message, spacing > 0, model.getCheckpointHits() > 0);
+      }
+    }
+  }
+
+  /**
+   * Tests that saving the same project again reuses the cached
+   * composite, and that every change to the layers makes it stale.
+   */
+  @Test
+  public void cachedCompositeTest() {
+    for (LayerStorage storage : new LayerStorage[] {LayerStorage.PIXEL,
+        LayerStorage.PREMULTIPLIED, LayerStorage.TILED}) {
+      CollageModelImpl3 model = this.build(storage);
+      CollageModelImpl3 expected = this.build(storage);
+      long count = model.getCompositeCount();
+      String image = model.saveImage();
+      assertEquals(count + 1, model.getCompositeCount());
+      //saving the project or the image changes nothing
+      model.saveProject();
+      assertEquals(image, model.saveImage());
+      assertEquals(image, model.saveImage());
+      assertEquals(count + 1, model.getCompositeCount());
+
+      //each change is composited again, exactly once
+      model.addImageToLayer("layer2", this.image(3, 3, 40), 0, 0);
+      expected.addImageToLayer("layer2", this.image(3, 3, 40), 0, 0);
+      assertEquals(storage.toString(), expected.saveImage(), model.saveImage());
+      assertEquals(storage.toString(), expected.saveImage(), model.saveImage());
+      assertEquals(count + 2, model.getCompositeCount());
+      model.setFilter("layer2", "multiply");
+      expected.setFilter("layer2", "multiply");
+      assertEquals(storage.toString(), expected.saveImage(), model.saveImage());
+      model.addLayer("top");
+      model.addImageToLayer("top", this.image(2, 2, 60), 1, 1);
+      expected.addLayer("top");
+      expected.addImageToLayer("top", this.image(2, 2, 60), 1, 1);
+      assertEquals(storage.toString(), expected.saveImage(), model.saveImage());
+      assertEquals(count + 4, model.getCompositeCount());
+
+      //a new project of the same size never sees the old composite
+      model.quit();
+      model.newProject(9, 11);
+      expected.quit();
+      expected.newProject(9, 11);
+      assertEquals(storage.toString(), expected.saveImage(), model.saveImage());
+    }
+  }
+
+  /**
+   * Tests that a change to a layer only merges the layers from the
+   * kept composite below it up, with the same image as merging
+   * every layer.
+   */
+  @Test
+  public void checkpointTest() {
+    String[] filters = {"normal", "red-component", "brighten-luma", "darken-value",
+        "difference", "multiply", "screen"};
+    CollageModelImpl3[] models = new CollageModelImpl3[3];
+    for (int m = 0; m < models.length; m++) {
+      models[m] = new CollageModelImpl3();
+      //no kept composites, one under every layer, and one every 4
+      models[m].setCheckpointSpacing(new int[] {0, 1, 4}[m]);
+      models[m].newProject(20, 25);
+      for (int i = 0; i < 30; i++) {
+        models[m].addLayer("layer" + i);
+        models[m].setFilter("layer" + i, filters[i % filters.length]);
+        models[m].addImageToLayer("layer" + i, this.image(5, 6, i * 5), i % 20, i % 15);
+      }
+    }
+    CollageModelImpl3 expected = models[0];
+    CollageModelImpl3 every = models[1];
+    CollageModelImpl3 fourth = models[2];
+    for (CollageModelImpl3 model : models) {
+      assertEquals(expected.saveImage(), model.saveImage());
+    }
+    assertEquals(0, expected.getCheckpointCount());
+    assertEquals(30, every.getCheckpointCount());
+    assertEquals(7, fourth.getCheckpointCount());
+    assertEquals(0, every.getCheckpointHits());
+    assertEquals(31, every.getCheckpointMisses());
+
+    //the top layer changes: only it is merged again
+    for (CollageModelImpl3 model : models) {
+      model.setFilter("layer29", "difference");
+    }
+    for (CollageModelImpl3 model : models) {
+      assertEquals(expected.saveImage(), model.saveImage());
+    }
+    assertEquals(30, every.getCheckpointHits());
+    assertEquals(32, every.getCheckpointMisses());
+    //from the kept composite under layer 28 (index 29 of 31) up
+    assertEquals(28, fourth.getCheckpointHits());
+    assertEquals(31 + 3, fourth.getCheckpointMisses());
+
+    //a layer in the middle changes: only the layers from it up
+    for (CollageModelImpl3 model : models) {
+      model.addImageToLayer("layer10", this.image(4, 4, 3), 2, 2);
+    }
+    for (CollageModelImpl3 model : models) {
+      assertEquals(expected.saveImage(), model.saveImage());
+    }
+    assertEquals(30 + 11, every.getCheckpointHits());
+    assertEquals(32 + 20, every.getCheckpointMisses());
+    assertEquals(0, expected.getCheckpointHits());
+    assertEquals(3 * 31, expected.getCheckpointMisses());
+    assertEquals(41.0 / (41 + 52), every.getCheckpointHitRatio(), 1e-9);
+
+    every.setCheckpointSpacing(2);
+    assertEquals(0, every.getCheckpointCount());
+    assertEquals(0, every.getCheckpointHitRatio(), 1e-9);
+    try {
+      every.setCheckpointSpacing(-1);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("setCheckpointSpacing failed: spacing cannot be negative.", e.getMessage());
+    }
+  }
+
+  /**
+   * Tests that drawing on a few layers only composites the damaged
+   * rectangles again, with the same image as compositing everything,
+   * and that the damage is reported.
+   */
+  @Test
+  public void damageTest() {
+    CollageModelImpl3 model = new CollageModelImpl3();
+    model.newProject(1200, 246);
+    String[] filters = {"red-component", "green-component", "blue-component"};
+    for (int i = 0; i < filters.length; i++) {
+      model.addLayer(filters[i]);
+      model.setFilter(filters[i], filters[i]);
+      model.addImageToLayer(filters[i], this.image(100, 82, i * 30), 83, i * 400);
+    }
+    model.saveImage();
+    assertEquals(Arrays.asList(new DamageRect(0, 0, 246, 1200)), model.getDamage());
+
+    //an 82x100 image at (165, 1101), hanging off the corner
+    model.addImageToLayer("green-component", this.image(100, 82, 50), 165, 1101);
+    model.addImageToLayer("red-component", this.image(3, 3, 10), 0, 0);
+    model.addImageToLayer("red-component", this.image(3, 3, 20), 2, 3);
+    String image = model.saveImage();
+    assertEquals(Arrays.asList(new DamageRect(165, 1101, 81, 99), new DamageRect(0, 0, 5, 6)),
+            model.getDamage());
+
+    CollageModelImpl3 expected = new CollageModelImpl3();
+    expected.loadProject(model.saveProject());
+    assertEquals(expected.saveImage(), image);
+
+    //adding a layer damages nothing, and a filter the whole canvas
+    model.addLayer("top");
+    assertEquals(image, model.saveImage());
+    assertEquals(0, model.getDamage().size());
+    model.setFilter("red-component", "screen");
+    expected.setFilter("red-component", "screen");
+    assertEquals(expected.saveImage(), model.saveImage());
+    assertEquals(Arrays.asList(new DamageRect(0, 0, 246, 1200)), model.getDamage());
+  }
+
+  /**
+   * Tests that compositing in bands of rows on several threads makes
+   * the same images and kept composites as on one thread, for every
+   * exact storage mode and odd numbers of rows per band.
+   */
+  @Test
+  public void parallelTest() {
+    String[] filters = {"normal", "red-component", "brighten-luma", "darken-value",
+        "difference", "multiply", "screen"};
+    for (LayerStorage storage : LayerStorage.values()) {
+      if (storage == LayerStorage.PREMULTIPLIED || storage == LayerStorage.PLANAR) {
+        continue;
+      }
+      CollageModelImpl3[] models = new CollageModelImpl3[3];
+      for (int m = 0; m < models.length; m++) {
+        models[m] = new CollageModelImpl3();
+        models[m].setLayerStorage(storage);
+        //one thread, and three or eight threads for any canvas
+        models[m].setParallelism(new int[] {1, 3, 8}[m], 0);
+        models[m].setCheckpointSpacing(3);
+        models[m].newProject(37, 23);
+        for (int i = 0; i < 12; i++) {
+          models[m].addLayer("layer" + i);
+          models[m].setFilter("layer" + i, filters[i % filters.length]);
+          models[m].addImageToLayer("layer" + i, this.image(15, 12, i * 7), i, i * 2);
+        }
+      }
+      for (CollageModelImpl3 model : models) {
+        assertEquals(storage.toString(), models[0].saveImage(), model.saveImage());
+        assertEquals(storage.toString(), models[0].getCheckpointCount(),
+                model.getCheckpointCount());
+      }
+
+      //a filter damages the whole canvas, so it is composited again
+      //from the kept composite under the layer
+      for (CollageModelImpl3 model : models) {
+        model.setFilter("layer7", "difference");
+      }
+      for (CollageModelImpl3 model : models) {
+        assertEquals(storage.toString(), models[0].saveImage(), model.saveImage());
+        assertEquals(storage.toString(), models[0].getCheckpointHits(),
+                model.getCheckpointHits());
+      }
+    }
+
+    //quitting ends the threads, which are made again for the next project
+    CollageModelImpl3 model = new CollageModelImpl3();
+    model.setParallelism(3, 0);
+    String expected = null;
+    for (int run = 0; run < 2; run++) {
+      model.newProject(37, 23);
+      model.addLayer("top");
+      model.setFilter("top", "screen");
+      model.addImageToLayer("top", this.image(15, 12, 40), 3, 5);
+      String image = model.saveImage();
+      assertEquals(expected == null ? image : expected, image);
+      expected = image;
+      model.quit();
+    }
+
+    model = new CollageModelImpl3();
+    assertEquals(Runtime.getRuntime().availableProcessors(), model.getParallelism());
+    model.setParallelism(2, 100);
+    assertEquals(2, model.getParallelism());
+    try {
+      model.setParallelism(0, 0);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("setParallelism failed: threads must be positive and cutoff cannot be "
+              + "negative.", e.getMessage());
+    }
+    try {
+      model.setParallelism(2, -1);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("setParallelism failed: threads must be positive and cutoff cannot be "
+              + "negative.", e.getMessage());
+    }
+  }
+
+  /**
+   * Tests that compositing a few rows at a time through every layer
+   * makes the same composite as merging every layer over the whole
+   * canvas in turn, on a canvas wide enough to take several strips,
+   * both from scratch and from the kept composites.
+   */
+  @Test
+  public void fusedTest() {
+    String[] filters = {"normal", "red-component", "brighten-luma", "darken-value",
+        "difference", "multiply", "screen"};
+    for (LayerStorage storage : new LayerStorage[] {LayerStorage.PIXEL, LayerStorage.PACKED,
+        LayerStorage.PLACED}) {
+      CollageModelImpl3 model = new CollageModelImpl3();
+      model.setLayerStorage(storage);
+      model.setCheckpointSpacing(2);
+      //400 columns take 40 rows per strip, so 5 strips and a bit
+      model.newProject(213, 400);
+      for (int i = 0; i < 9; i++) {
+        model.addLayer("layer" + i);
+        model.setFilter("layer" + i, filters[i % filters.length]);
+        model.addImageToLayer("layer" + i, this.image(90, 120, i * 9), i * 31, i * 17);
+      }
+
+      for (String changed : new String[] {null, "layer7", "layer2"}) {
+        if (changed != null) {
+          //a filter damages the whole canvas, so the layers are merged
+          //from the kept composite under the changed layer
+          model.setFilter(changed, "screen");
+        }
+        Pixel[][] expected = null;
+        for (String layerName : model.getOrder()) {
+          expected = model.layers.get(layerName).mergeDown(expected);
+        }
+        assertArrayEquals(storage + " " + changed, expected, model.compressLayers());
+      }
+      //from under layer7 (index 8 with the background), then layer2
+      assertEquals(8 + 2, model.getCheckpointHits());
+      assertEquals(4, model.getCheckpointCount());
+    }
+  }
+
+  /**
+   * Tests that kept composites left stale by an earlier render are
+   * never taken as current after a render that only changed damaged
+   * rectangles, by comparing every render against a fresh reload while
+   * idle layers are deflated, the whole canvas is damaged by a filter,
+   * edits land off the canvas, and a small edit is made.
+   */
+  @Test
+  public void staleCheckpointTest() {
+    for (LayerStorage storage : new LayerStorage[] {LayerStorage.PIXEL, LayerStorage.PACKED,
+        LayerStorage.TILED, LayerStorage.RUN_LENGTH}) {
+      for (int threads : new int[] {1, 3}) {
+        CollageModelImpl3 model = new CollageModelImpl3();
+        model.setLayerStorage(storage);
+        model.setParallelism(threads, 0);
+        model.setCheckpointSpacing(3);
+        //every layer not changed by the last operation is deflated,
+        //so the idle layers at the bottom come and go
+        model.setIdleCompression(1, 0);
+        model.newProject(30, 40);
+        //nothing of this image lands on the canvas
+        model.addImageToLayer("background", this.image(3, 3, 10), 100, 100);
+        this.assertReloads(storage, model);
+        model.addLayer("layer0");
+        model.setFilter("layer0", "normal");
+        this.assertReloads(storage, model);
+
+        model.setFilter("background", "darken-value");
+        this.assertReloads(storage, model);
+        model.addImageToLayer("layer0", this.image(4, 5, 70), 10, 8);
+        this.assertReloads(storage, model);
+        model.addImageToLayer("layer0", this.image(3, 3, 80), 100, 100);
+        this.assertReloads(storage, model);
+        model.addImageToLayer("layer0", this.image(3, 3, 90), 100, 100);
+        model.setFilter("layer0", "normal");
+        this.assertReloads(storage, model);
+        model.addImageToLayer("layer0", this.image(3, 4, 20), 30, 20);
+        this.assertReloads(storage, model);
+      }
+    }
+  }
+
+  //asserts that the image of the given model matches that of a fresh
+  //model loaded from its project
+  private void assertReloads(LayerStorage storage, CollageModelImpl3 model) {
+    String image = model.saveImage();
+    CollageModelImpl3 expected = new CollageModelImpl3();
+    expected.loadProject(model.saveProject());
+    assertEquals(storage.toString(), expected.saveImage(), image);
+  }
+}
@@ -0,0 +1,56 @@
+package model.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the rectangles DamageRect is made of and merged into.
+ */
+public class DamageRectTest {
+
+  /**
+   * Tests that rectangles must have a positive size and corner.
+   */
+  @Test
+  public void constructorTest() {
+    DamageRect rect = new DamageRect(3, 4, 5, 6);
+    assertEquals(3, rect.getX());
+    assertEquals(4, rect.getY());
+    assertEquals(5, rect.getWidth());
+    assertEquals(6, rect.getHeight());
+    assertEquals(30, rect.getArea());
+    assertEquals("5x6 at (3, 4)", rect.toString());
+
+    int[][] wrong = {{-1, 0, 1, 1}, {0, -1, 1, 1}, {0, 0, 0, 1}, {0, 0, 1, 0}};
+    for (int[] args : wrong) {
+      try {
+        new DamageRect(args[0], args[1], args[2], args[3]);
+        fail("should throw IllegalArgumentException");
+      } catch (IllegalArgumentException e) {
+        assertEquals("Rectangle must have a positive size and corner.", e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Tests that rectangles touch when they overlap or share an edge,
+   * and that their union holds both.
+   */
+  @Test
+  public void touchesUnionTest() {
+    DamageRect rect = new DamageRect(2, 2, 4, 3);
+    assertTrue(rect.touches(new DamageRect(5, 4, 2, 2)));
+    //sharing the right edge
+    assertTrue(rect.touches(new DamageRect(6, 2, 1, 1)));
+    assertFalse(rect.touches(new DamageRect(7, 2, 1, 1)));
+    assertFalse(rect.touches(new DamageRect(0, 6, 10, 1)));
+
+    assertEquals(new DamageRect(2, 2, 5, 4), rect.union(new DamageRect(5, 4, 2, 2)));
+    assertEquals(rect, rect.union(new DamageRect(3, 3, 1, 1)));
+    assertEquals(rect.hashCode(), new DamageRect(2, 2, 4, 3).hashCode());
+  }
+}
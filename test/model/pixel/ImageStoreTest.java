@@ -0,0 +1,86 @@
+package model.pixel;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the ImageStore class.
+ */
+public class ImageStoreTest {
+
+  //builds a small raster of a single colour
+  private RGBARaster raster(int height, int width, int argb) {
+    RGBARaster raster = new RGBARaster(height, width);
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        raster.setARGB(i, j, argb);
+      }
+    }
+    return raster;
+  }
+
+  /**
+   * Tests that images with the same contents are shared and counted.
+   */
+  @Test
+  public void acquireTest() {
+    ImageStore store = new ImageStore();
+    RGBARaster first = this.raster(3, 4, 0xFF102030);
+    assertSame(first, store.acquire(first));
+    assertSame(first, store.acquire(this.raster(3, 4, 0xFF102030)));
+    assertSame(first, store.acquire(first));
+    assertEquals(1, store.size());
+    assertEquals(3, store.getReferenceCount(first));
+    assertEquals(3 * 4 * 4, store.getByteCount());
+
+    //a different colour or size is a different image
+    RGBARaster other = this.raster(3, 4, 0xFF102031);
+    assertSame(other, store.acquire(other));
+    RGBARaster wide = this.raster(4, 3, 0xFF102030);
+    assertSame(wide, store.acquire(wide));
+    assertEquals(3, store.size());
+    assertEquals(0, store.getReferenceCount(this.raster(3, 4, 0xFF102030)));
+
+    try {
+      store.acquire(null);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given image cannot be null.", e.getMessage());
+    }
+  }
+
+  /**
+   * Tests that an image is dropped once every reference is released.
+   */
+  @Test
+  public void releaseTest() {
+    ImageStore store = new ImageStore();
+    RGBARaster image = store.acquire(this.raster(2, 2, 0x80FFFFFF));
+    store.acquire(this.raster(2, 2, 0x80FFFFFF));
+    store.release(image);
+    assertEquals(1, store.size());
+    store.release(image);
+    assertEquals(0, store.size());
+    assertEquals(0, store.getByteCount());
+
+    //an equal image is held anew once the old one is gone
+    RGBARaster again = this.raster(2, 2, 0x80FFFFFF);
+    assertSame(again, store.acquire(again));
+    assertNotSame(image, again);
+
+    try {
+      store.release(image);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given image is not held by this store.", e.getMessage());
+    }
+
+    store.clear();
+    assertEquals(0, store.size());
+    assertEquals(0, store.getReferenceCount(again));
+  }
+}
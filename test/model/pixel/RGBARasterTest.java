@@ -0,0 +1,75 @@
+package model.pixel;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the RGBARaster class.
+ */
+public class RGBARasterTest {
+
+  /**
+   * Tests that colours are stored as red, green, blue, alpha bytes
+   * and read back the same way.
+   */
+  @Test
+  public void layoutTest() throws IOException {
+    Pixel[][] grid = {
+        {new RGBPixel(1,2,3,4), new RGBPixel(255,128,0)},
+        {new RGBPixel(9,9,9,0), new RGBPixel(200,100,50,25)}};
+    RGBARaster raster = RGBARaster.fromGrid(grid);
+    assertArrayEquals(grid, raster.toGrid());
+    assertEquals(0x04010203, raster.getARGB(0,0));
+    //a transparent colour is always packed as zero
+    assertEquals(0, raster.getARGB(1,0));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    raster.writeTo(out);
+    byte[] bytes = out.toByteArray();
+    assertArrayEquals(new byte[] {1, 2, 3, 4, (byte) 255, (byte) 128, 0, (byte) 255,
+        9, 9, 9, 0, (byte) 200, 100, 50, 25}, bytes);
+
+    RGBARaster read = RGBARaster.readFrom(
+            new DataInputStream(new ByteArrayInputStream(bytes)), 2, 2);
+    assertArrayEquals(grid, read.toGrid());
+    assertArrayEquals(grid, RGBARaster.wrap(2, 2, bytes).toGrid());
+
+    raster.setARGB(0, 1, 0x80FF0000);
+    assertEquals(new RGBPixel(255,0,0,128), raster.getPixel(0,1));
+  }
+
+  /**
+   * Tests the RGBARaster exceptions.
+   */
+  @Test
+  public void exceptionsTest() {
+    try {
+      new RGBARaster(0, 2);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Height or width cannot be less than or equal to zero.", e.getMessage());
+    }
+
+    try {
+      RGBARaster.wrap(2, 2, new byte[15]);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given bytes and sizes do not match.", e.getMessage());
+    }
+
+    try {
+      RGBARaster.fromGrid(new Pixel[][] {{new RGBPixel(1,1,1)}, {}});
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Given grid must be rectangular.", e.getMessage());
+    }
+  }
+}
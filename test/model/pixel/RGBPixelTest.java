@@ -0,0 +1,81 @@
+package model.pixel;
+
+import org.junit.Test;
+
+import model.model.CollageModel;
+import model.model.CollageModelImpl3;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the static factory of RGBPixel.
+ */
+public class RGBPixelTest {
+
+  /**
+   * Tests that the factory returns equal Pixels and shares the
+   * common colours.
+   */
+  @Test
+  public void ofTest() {
+    assertSame(RGBPixel.of(255,255,255,255), RGBPixel.of(255,255,255));
+    assertSame(RGBPixel.of(0,0,0,255), RGBPixel.of(0,0,0));
+    assertSame(RGBPixel.of(0,0,0,0), RGBPixel.of(0,0,0,0));
+
+    //every colour in a sample equals the constructed colour
+    for (int value = 0; value < 256; value += 5) {
+      Pixel expected = new RGBPixel(value, 255 - value, value / 2, 255 - value / 3);
+      Pixel actual = RGBPixel.of(value, 255 - value, value / 2, 255 - value / 3);
+      assertEquals(expected, actual);
+      assertEquals(expected.getRed(), actual.getRed());
+      assertEquals(expected.getGreen(), actual.getGreen());
+      assertEquals(expected.getBlue(), actual.getBlue());
+      assertEquals(expected.getAlpha(), actual.getAlpha());
+      //a recently created colour is reused
+      assertSame(actual, RGBPixel.of(value, 255 - value, value / 2, 255 - value / 3));
+    }
+
+    //the transparent white used by layers keeps its RGB
+    assertEquals(255, RGBPixel.of(255,255,255,0).getRed());
+  }
+
+  /**
+   * Tests that the factory rejects out of range values like
+   * the constructor.
+   */
+  @Test
+  public void ofExceptionsTest() {
+    try {
+      RGBPixel.of(256,0,0,0);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("The red value cannot be less than 0.0 or greater than 255.0.",
+              e.getMessage());
+    }
+
+    try {
+      RGBPixel.of(0,0,0,-1);
+      fail("should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals("The alpha value cannot be less than 0.0 or greater than 255.0.",
+              e.getMessage());
+    }
+  }
+
+  /**
+   * Tests that a blank canvas shares one white Pixel.
+   */
+  @Test
+  public void blankCanvasTest() {
+    CollageModel<Pixel> model = new CollageModelImpl3();
+    model.newProject(20,30);
+    Pixel[][] grid = model.getLayer("background").getGrid();
+    for (Pixel[] row : grid) {
+      for (Pixel p : row) {
+        assertSame(grid[0][0], p);
+      }
+    }
+  }
+}
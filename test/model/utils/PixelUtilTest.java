@@ -2,10 +2,13 @@ package model.utils;
 
 import org.junit.Test;
 
+import java.util.stream.IntStream;
+
 import model.pixel.Pixel;
 import model.pixel.RGBPixel;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 
@@ -47,4 +50,142 @@ public class PixelUtilTest {
     assertEquals(original,PixelUtil.toFourComponent(temp,51));
   }
 
+  //the original floating point overlay of one colour component
+  private static int referenceComponent(int topAlpha, int bottomAlpha,
+                                        int topColour, int bottomColour) {
+    double alphaPrime = (topAlpha / 255.0)
+            + (bottomAlpha / 255.0) * (1 - (topAlpha / 255.0));
+    double colourPrime = ((topAlpha / 255.0) * topColour
+            + bottomColour * (bottomAlpha / 255.0) * (1 - (topAlpha / 255.0)))
+            * (1 / alphaPrime);
+    return Math.toIntExact(Math.round(colourPrime));
+  }
+
+  //the original floating point overlay of the alpha
+  private static int referenceAlpha(int topAlpha, int bottomAlpha) {
+    double alphaPrime = (topAlpha / 255.0)
+            + (bottomAlpha / 255.0) * (1 - (topAlpha / 255.0));
+    return Math.toIntExact(Math.round(alphaPrime * 255));
+  }
+
+  /**
+   * Tests that the integer computeColour produces exactly the same
+   * colour as the original floating point formula for every top
+   * alpha, bottom alpha, top component, and bottom component, ties
+   * included.  Each colour component is computed independently of the
+   * others, so each overlay checks three bottom components at once:
+   * one third of them on each channel, under the same top component.
+   */
+  @Test
+  public void computeColourExhaustiveTest() {
+    long mismatches = IntStream.range(0, 256).parallel().mapToLong(topAlpha -> {
+      long count = 0;
+      for (int bottomAlpha = 0; bottomAlpha < 256; bottomAlpha++) {
+        int alpha = referenceAlpha(topAlpha, bottomAlpha);
+        for (int topColour = 0; topColour < 256; topColour++) {
+          for (int bottomColour = 0; bottomColour < 86; bottomColour++) {
+            //86 to 171 on green, and 172 to 255 on blue
+            int bottomGreen = bottomColour + 86;
+            int bottomBlue = Math.min(255, bottomColour + 172);
+            int top = (topAlpha << 24) | (topColour << 16) | (topColour << 8) | topColour;
+            int bottom = (bottomAlpha << 24) | (bottomColour << 16)
+                    | (bottomGreen << 8) | bottomBlue;
+            int actual = PixelUtil.computeColour(top, bottom);
+
+            //a fully transparent result is always packed as zero
+            if (alpha == 0) {
+              count += actual == 0 ? 0 : 1;
+              continue;
+            }
+            int red = referenceComponent(topAlpha, bottomAlpha, topColour, bottomColour);
+            int green = referenceComponent(topAlpha, bottomAlpha, topColour, bottomGreen);
+            int blue = referenceComponent(topAlpha, bottomAlpha, topColour, bottomBlue);
+            int expected = (alpha << 24) | (red << 16) | (green << 8) | blue;
+            count += actual == expected ? 0 : 1;
+          }
+        }
+      }
+      return count;
+    }).sum();
+    assertEquals(0, mismatches);
+  }
+
+  /**
+   * Tests that computeColour on Pixels matches the packed version.
+   */
+  @Test
+  public void computeColourPixelTest() {
+    Pixel top = new RGBPixel(100,150,200,51);
+    Pixel bottom = new RGBPixel(10,20,30,200);
+    assertEquals(PixelUtil.fromARGB(PixelUtil.computeColour(
+            PixelUtil.toARGB(top), PixelUtil.toARGB(bottom))),
+            PixelUtil.computeColour(top, bottom));
+    //transparent over transparent is transparent black
+    assertEquals(new RGBPixel(0,0,0,0),
+            PixelUtil.computeColour(new RGBPixel(255,255,255,0), new RGBPixel(9,9,9,0)));
+    //an opaque top wins outright
+    assertTrue(PixelUtil.computeColour(new RGBPixel(1,2,3), bottom)
+            .equals(new RGBPixel(1,2,3)));
+  }
+
+  /**
+   * Tests that premultiply rounds exactly like toThreeComponent and
+   * that unpremultiply undoes it as closely as the alpha allows.
+   */
+  @Test
+  public void premultiplyTest() {
+    assertEquals(0, PixelUtil.premultiply(0x00FFFFFF));
+    assertEquals(0xFF123456, PixelUtil.premultiply(0xFF123456));
+    for (int alpha = 1; alpha < 256; alpha++) {
+      for (int colour = 0; colour < 256; colour++) {
+        int argb = (alpha << 24) | (colour << 16) | ((255 - colour) << 8) | (colour / 2);
+        int premultiplied = PixelUtil.premultiply(argb);
+        Pixel three = PixelUtil.toThreeComponent(PixelUtil.fromARGB(argb));
+        assertEquals(alpha, premultiplied >>> 24);
+        assertEquals(three.getRed(), (premultiplied >> 16) & 0xFF);
+        assertEquals(three.getGreen(), (premultiplied >> 8) & 0xFF);
+        assertEquals(three.getBlue(), premultiplied & 0xFF);
+
+        //each premultiplied step covers 255 / alpha straight values
+        int straight = PixelUtil.unpremultiply(premultiplied);
+        assertEquals(alpha, straight >>> 24);
+        assertTrue(Math.abs(colour - ((straight >> 16) & 0xFF)) <= 128 / alpha + 1);
+      }
+    }
+  }
+
+  /**
+   * Tests that overlaying premultiplied colours stays within two
+   * values of premultiplying the straight overlay (each input is
+   * rounded once when premultiplied, and the overlay once more), and
+   * that once unpremultiplied, each of those three roundings may move
+   * the straight colour by up to 128 / alpha more.
+   */
+  @Test
+  public void computeColourPremultipliedTest() {
+    for (int topAlpha = 0; topAlpha < 256; topAlpha += 3) {
+      for (int bottomAlpha = 0; bottomAlpha < 256; bottomAlpha += 5) {
+        for (int colour = 0; colour < 256; colour += 7) {
+          int top = PixelUtil.toARGB(new RGBPixel(colour, 255 - colour, 40, topAlpha));
+          int bottom = PixelUtil.toARGB(new RGBPixel(255 - colour, colour, 200, bottomAlpha));
+          int expected = PixelUtil.premultiply(PixelUtil.computeColour(top, bottom));
+          int actual = PixelUtil.computeColourPremultiplied(
+                  PixelUtil.premultiply(top), PixelUtil.premultiply(bottom));
+          for (int shift = 0; shift < 32; shift += 8) {
+            assertTrue(Math.abs(((expected >>> shift) & 0xFF)
+                    - ((actual >>> shift) & 0xFF)) <= 2);
+          }
+
+          int straight = PixelUtil.computeColour(top, bottom);
+          int alpha = straight >>> 24;
+          int unpremultiplied = PixelUtil.unpremultiply(actual);
+          assertTrue(Math.abs(alpha - (unpremultiplied >>> 24)) <= 2);
+          for (int shift = 0; alpha > 0 && shift < 24; shift += 8) {
+            assertTrue(Math.abs(((straight >>> shift) & 0xFF)
+                    - ((unpremultiplied >>> shift) & 0xFF)) <= 3 * 128 / alpha + 2);
+          }
+        }
+      }
+    }
+  }
 }